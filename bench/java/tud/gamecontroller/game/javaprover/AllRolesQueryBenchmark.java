@@ -0,0 +1,202 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package tud.gamecontroller.game.javaprover;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import tud.gamecontroller.GDLVersion;
+import tud.gamecontroller.game.JointMoveInterface;
+import tud.gamecontroller.game.MoveInterface;
+import tud.gamecontroller.game.ReasonerInterface;
+import tud.gamecontroller.game.RoleInterface;
+import tud.gamecontroller.game.impl.Game;
+import tud.gamecontroller.game.impl.JointMove;
+import tud.gamecontroller.game.impl.Move;
+import tud.gamecontroller.traces.MatchTrace;
+import tud.gamecontroller.traces.MatchTraceReader;
+import tud.gamecontroller.traces.TracedStep;
+import cs227b.teamIago.util.GameState;
+
+/**
+ * Microbenchmark for the queries the game controller and the StatesTracker make in every step: the sees terms of the
+ * roles after the last joint move, the legal moves of the roles and, at the end, the goal values of the roles. Each
+ * step of a match is answered once with one query per role and once with the queries for all roles, and the average
+ * time per step is compared.
+ * 
+ * The match is replayed from a trace if one is given, otherwise it is a random match with a fixed seed.
+ *
+ * Usage: AllRolesQueryBenchmark [-gdl2] [-trace TRACEFILE] [-rounds N] [-seed N] GAMEFILE
+ */
+public class AllRolesQueryBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		GDLVersion gdlVersion = GDLVersion.v1;
+		File traceFile = null;
+		int rounds = 10;
+		long seed = 1;
+		File gameFile = null;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-gdl2")) {
+				gdlVersion = GDLVersion.v2;
+			} else if (args[i].equals("-trace")) {
+				traceFile = new File(args[++i]);
+			} else if (args[i].equals("-rounds")) {
+				rounds = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-seed")) {
+				seed = Long.parseLong(args[++i]);
+			} else {
+				gameFile = new File(args[i]);
+			}
+		}
+		if (gameFile == null) {
+			System.out.println("usage: AllRolesQueryBenchmark [-gdl2] [-trace TRACEFILE] [-rounds N] [-seed N] GAMEFILE");
+			System.exit(-1);
+		}
+		Logger.getLogger("tud.gamecontroller.game").setLevel(Level.SEVERE);
+		Game<Term, GameState> game = new Game<Term, GameState>(gameFile, new ReasonerFactory(), gdlVersion);
+		ReasonerInterface<Term, GameState> reasoner = game.getInitialState().getReasoner();
+		List<? extends RoleInterface<Term>> roles = game.getOrderedRoles();
+
+		// the states of the match and the joint moves leading from each state to the next one
+		List<GameState> states = new ArrayList<GameState>();
+		List<JointMoveInterface<Term>> jointMoves = new ArrayList<JointMoveInterface<Term>>();
+		states.add(reasoner.getInitialState());
+		if (traceFile != null) {
+			MatchTrace trace = new MatchTraceReader().read(traceFile);
+			for (TracedStep step : trace.getSteps()) {
+				if (step.getMoves() == null || step.getMoves().isEmpty()) {
+					break;
+				}
+				JointMove<Term> jointMove = new JointMove<Term>(roles);
+				for (RoleInterface<Term> role : roles) {
+					String move = step.getMoves().get(role.getKIFForm().toLowerCase());
+					jointMove.put(role, new Move<Term>(game.getTermFromString(move)));
+				}
+				jointMoves.add(jointMove);
+				states.add(reasoner.getSuccessorState(states.get(states.size() - 1), jointMove));
+			}
+		} else {
+			Random random = new Random(seed);
+			GameState state = states.get(0);
+			while (!reasoner.isTerminal(state)) {
+				JointMove<Term> jointMove = new JointMove<Term>(roles);
+				for (RoleInterface<Term> role : roles) {
+					List<MoveInterface<Term>> legalMoves = new ArrayList<MoveInterface<Term>>(reasoner.getLegalMoves(state, role));
+					jointMove.put(role, legalMoves.get(random.nextInt(legalMoves.size())));
+				}
+				jointMoves.add(jointMove);
+				state = reasoner.getSuccessorState(state, jointMove);
+				states.add(state);
+			}
+		}
+		System.out.printf("%s (%s): %d roles, %d steps, same answers: %b%n", game.getName(), gdlVersion, roles.size(),
+				jointMoves.size(), sameAnswers(reasoner, roles, states, jointMoves));
+
+		for (int warmup = 0; warmup < 2; warmup++) {
+			String label = warmup == 0 ? "warm-up" : "measured";
+			long[] perRole = new long[3];
+			long[] allRoles = new long[3];
+			for (int r = 0; r < rounds; r++) {
+				runPerRole(reasoner, roles, states, jointMoves, perRole);
+				runAllRoles(reasoner, roles, states, jointMoves, allRoles);
+			}
+			double steps = (double) rounds * jointMoves.size();
+			System.out.printf("  %-8s ms/step per role: sees %7.3f legal %7.3f goal %7.3f total %7.3f%n", label,
+					perRole[0] / steps / 1e6, perRole[1] / steps / 1e6, perRole[2] / steps / 1e6, (perRole[0] + perRole[1] + perRole[2]) / steps / 1e6);
+			System.out.printf("  %-8s ms/step all roles: sees %7.3f legal %7.3f goal %7.3f total %7.3f%n", label,
+					allRoles[0] / steps / 1e6, allRoles[1] / steps / 1e6, allRoles[2] / steps / 1e6, (allRoles[0] + allRoles[1] + allRoles[2]) / steps / 1e6);
+		}
+	}
+
+	/**
+	 * adds the time in nanoseconds for the sees terms, legal moves and goal values of the match to times, asking for
+	 * each role separately
+	 */
+	private static void runPerRole(ReasonerInterface<Term, GameState> reasoner, List<? extends RoleInterface<Term>> roles,
+			List<GameState> states, List<JointMoveInterface<Term>> jointMoves, long[] times) {
+		for (int i = 0; i < jointMoves.size(); i++) {
+			long start = System.nanoTime();
+			for (RoleInterface<Term> role : roles) {
+				reasoner.getSeesTerms(states.get(i), role, jointMoves.get(i));
+			}
+			long seesDone = System.nanoTime();
+			for (RoleInterface<Term> role : roles) {
+				reasoner.getLegalMoves(states.get(i + 1), role);
+			}
+			times[0] += seesDone - start;
+			times[1] += System.nanoTime() - seesDone;
+		}
+		long start = System.nanoTime();
+		for (RoleInterface<Term> role : roles) {
+			reasoner.getGoalValue(states.get(states.size() - 1), role);
+		}
+		times[2] += System.nanoTime() - start;
+	}
+
+	/**
+	 * adds the time in nanoseconds for the sees terms, legal moves and goal values of the match to times, asking for
+	 * all roles at once
+	 */
+	private static void runAllRoles(ReasonerInterface<Term, GameState> reasoner, List<? extends RoleInterface<Term>> roles,
+			List<GameState> states, List<JointMoveInterface<Term>> jointMoves, long[] times) {
+		for (int i = 0; i < jointMoves.size(); i++) {
+			long start = System.nanoTime();
+			reasoner.getAllSeesTerms(states.get(i), roles, jointMoves.get(i));
+			long seesDone = System.nanoTime();
+			reasoner.getAllLegalMoves(states.get(i + 1), roles);
+			times[0] += seesDone - start;
+			times[1] += System.nanoTime() - seesDone;
+		}
+		long start = System.nanoTime();
+		reasoner.getAllGoalValues(states.get(states.size() - 1), roles);
+		times[2] += System.nanoTime() - start;
+	}
+
+	private static boolean sameAnswers(ReasonerInterface<Term, GameState> reasoner, List<? extends RoleInterface<Term>> roles,
+			List<GameState> states, List<JointMoveInterface<Term>> jointMoves) {
+		for (int i = 0; i < jointMoves.size(); i++) {
+			Map<RoleInterface<Term>, Collection<Term>> allSeesTerms = reasoner.getAllSeesTerms(states.get(i), roles, jointMoves.get(i));
+			Map<RoleInterface<Term>, Collection<? extends MoveInterface<Term>>> allLegalMoves = reasoner.getAllLegalMoves(states.get(i + 1), roles);
+			for (RoleInterface<Term> role : roles) {
+				if (!new HashSet<Term>(reasoner.getSeesTerms(states.get(i), role, jointMoves.get(i))).equals(new HashSet<Term>(allSeesTerms.get(role)))
+						|| !new HashSet<MoveInterface<Term>>(reasoner.getLegalMoves(states.get(i + 1), role)).equals(new HashSet<MoveInterface<Term>>(allLegalMoves.get(role)))) {
+					return false;
+				}
+			}
+		}
+		GameState last = states.get(states.size() - 1);
+		Map<RoleInterface<Term>, Integer> allGoalValues = reasoner.getAllGoalValues(last, roles);
+		for (RoleInterface<Term> role : roles) {
+			if (allGoalValues.containsKey(role) && allGoalValues.get(role) != reasoner.getGoalValue(last, role)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
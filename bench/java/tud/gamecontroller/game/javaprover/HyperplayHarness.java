@@ -0,0 +1,332 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package tud.gamecontroller.game.javaprover;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs each of the given hyperplay agents for the same number of matches against a random player under the same
+ * start- and playclock and reports what it achieved with that time: the average number of hypergames it held, the
+ * average time it spent updating them and selecting a move, the probes (simulated moves) per second of that time and
+ * the peak heap used during its matches.
+ * 
+ * An agent is given as the name of its command line option without the dash (e.g. ophyper or svarhyper), or as
+ * hyperplay:CONFIG for the shared hyperplay core configured by agentConfig/CONFIG.config.
+ * The agent plays the first role, and the figures are read from the files the agents write to matches/, so the
+ * harness has to run from the root of the project.
+ * 
+ * With -legacy DIR every agent is also run by the build in DIR, the root of a checkout of an earlier revision built
+ * with ant (its classes in DIR/bin), e.g. the revision before the agents were made configs of the hyperplay core.
+ * The matches of the two builds alternate, so both see the same machine load, and the core rows give the ratio of
+ * their probes per second to the legacy ones. The legacy matches run in DIR, so they read DIR's agent configs.
+ * 
+ * Each match runs in its own JVM with the heap options of the harness, so the peak heap is that of the match alone
+ * and the classes of the two builds do not mix.
+ *
+ * Usage: HyperplayHarness [-gdl2] [-startclock N] [-playclock N] [-matches N] [-legacy DIR] GAMEFILE AGENT...
+ */
+public class HyperplayHarness {
+
+	private static final String PEAK_PREFIX = "peak heap: ";
+
+	public static void main(String[] args) throws Exception {
+		if (args.length > 0 && args[0].equals("-run")) {
+			runMatch(args);
+			return;
+		}
+		int gdlVersion = 1;
+		int startClock = 10;
+		int playClock = 5;
+		int numMatches = 5;
+		File legacyDir = null;
+		String gameFile = null;
+		List<String> agents = new ArrayList<String>();
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-gdl2")) {
+				gdlVersion = 2;
+			} else if (args[i].equals("-startclock")) {
+				startClock = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-playclock")) {
+				playClock = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-matches")) {
+				numMatches = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-legacy")) {
+				legacyDir = new File(args[++i]).getAbsoluteFile();
+			} else if (gameFile == null) {
+				gameFile = new File(args[i]).getAbsolutePath();
+			} else {
+				agents.add(args[i]);
+			}
+		}
+		if (gameFile == null || agents.isEmpty()) {
+			System.out.println("usage: HyperplayHarness [-gdl2] [-startclock N] [-playclock N] [-matches N] [-legacy DIR] GAMEFILE AGENT...");
+			System.exit(-1);
+		}
+		Build core = new Build("core", new File("").getAbsoluteFile(), System.getProperty("java.class.path"));
+		Build legacy = null;
+		if (legacyDir != null) {
+			legacy = new Build("legacy", legacyDir, legacyClassPath(new File(legacyDir, "bin")));
+		}
+
+		PrintStream out = System.out;
+		out.printf("%s, startclock %d s, playclock %d s, %d match(es) per agent against random%n", new File(gameFile).getName(), startClock, playClock, numMatches);
+		out.printf("%-32s %6s %10s %10s %10s %10s %12s %10s %10s%n", "agent", "steps", "hypergames", "update ms", "select ms", "probes", "probes/s", "peak MB", "x legacy");
+		for (String agent : agents) {
+			List<String> agentArgs = new ArrayList<String>();
+			if (agent.startsWith("hyperplay:")) {
+				agentArgs.add("-hyperplay");
+				agentArgs.add("1");
+				agentArgs.add(agent.substring("hyperplay:".length()));
+			} else {
+				agentArgs.add("-" + agent);
+				agentArgs.add("1");
+			}
+			// the configs of the core are not options of the earlier builds
+			boolean compare = legacy != null && !agent.startsWith("hyperplay:");
+			StepTotals coreTotals = new StepTotals();
+			StepTotals legacyTotals = new StepTotals();
+			for (int m = 0; m < numMatches; m++) {
+				if (compare) {
+					legacy.play(agent, m, gameFile, startClock, playClock, gdlVersion, agentArgs, legacyTotals);
+				}
+				core.play(agent, m, gameFile, startClock, playClock, gdlVersion, agentArgs, coreTotals);
+			}
+			if (compare) {
+				legacyTotals.print(out, agent + " (legacy)", null);
+				coreTotals.print(out, agent + " (core)", legacyTotals);
+			} else {
+				coreTotals.print(out, agent, null);
+			}
+		}
+	}
+
+	/**
+	 * the class path of the harness with the entry holding the game controller replaced by the given directory
+	 */
+	private static String legacyClassPath(File legacyClasses) throws Exception {
+		File coreClasses = new File(GameControllerCLIRunner.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getCanonicalFile();
+		StringBuilder classPath = new StringBuilder();
+		boolean replaced = false;
+		for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+			if (classPath.length() > 0) {
+				classPath.append(File.pathSeparator);
+			}
+			if (new File(entry).getCanonicalFile().equals(coreClasses)) {
+				classPath.append(legacyClasses.getPath());
+				replaced = true;
+			} else {
+				classPath.append(entry);
+			}
+		}
+		if (!replaced) {
+			throw new IllegalStateException("the game controller classes (" + coreClasses + ") are not on the class path");
+		}
+		return classPath.toString();
+	}
+
+	/**
+	 * runs one match in this JVM (the child of a harness) and prints the peak heap it used
+	 */
+	private static void runMatch(String[] args) throws Exception {
+		String[] matchArgs = new String[args.length - 1];
+		System.arraycopy(args, 1, matchArgs, 0, matchArgs.length);
+		new File("matches").mkdirs();
+		Logger.getLogger("tud.gamecontroller.players").setLevel(Level.SEVERE);
+
+		PrintStream out = System.out;
+		System.setOut(new PrintStream(new OutputStream() {
+			@Override
+			public void write(int b) {
+			}
+			@Override
+			public void write(byte[] b, int off, int len) {
+			}
+		}));
+		HeapSampler heapSampler = new HeapSampler();
+		heapSampler.start();
+		try {
+			new GameControllerCLIRunner(new ReasonerFactory()).runFromCommandLine(matchArgs);
+		} finally {
+			System.setOut(out);
+			heapSampler.interrupt();
+		}
+		out.println(PEAK_PREFIX + heapSampler.getPeak());
+		out.flush();
+		System.exit(0); // the players may leave threads behind
+	}
+
+	/**
+	 * a build of the game controller the matches are run with: the directory they run in and the class path
+	 */
+	private static class Build {
+		final String name;
+		final File dir;
+		final String classPath;
+
+		Build(String name, File dir, String classPath) {
+			this.name = name;
+			this.dir = dir;
+			this.classPath = classPath;
+		}
+
+		void play(String agent, int match, String gameFile, int startClock, int playClock, int gdlVersion, List<String> agentArgs, StepTotals totals) throws IOException, InterruptedException {
+			String matchID = "harness_" + agent.replace(':', '_') + "_" + name + "_" + match + "_" + System.currentTimeMillis();
+			List<String> command = new ArrayList<String>();
+			command.add(new File(new File(System.getProperty("java.home"), "bin"), "java").getPath());
+			for (String jvmArg : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+				if (jvmArg.startsWith("-Xmx") || jvmArg.startsWith("-Xms")) {
+					command.add(jvmArg);
+				}
+			}
+			command.add("-cp");
+			command.add(classPath);
+			command.add(HyperplayHarness.class.getName());
+			command.add("-run");
+			command.add(matchID);
+			command.add(gameFile);
+			command.add(Integer.toString(startClock));
+			command.add(Integer.toString(playClock));
+			command.add(Integer.toString(gdlVersion));
+			command.addAll(agentArgs);
+			command.add("-random");
+			command.add("2");
+
+			ProcessBuilder processBuilder = new ProcessBuilder(command);
+			processBuilder.directory(dir);
+			processBuilder.redirectError(ProcessBuilder.Redirect.INHERIT);
+			Process process = processBuilder.start();
+			BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+			try {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (line.startsWith(PEAK_PREFIX)) {
+						totals.peakMemory = Math.max(totals.peakMemory, Long.parseLong(line.substring(PEAK_PREFIX.length())));
+					}
+				}
+			} finally {
+				reader.close();
+			}
+			if (process.waitFor() != 0) {
+				System.err.println(name + " match " + matchID + " exited with " + process.exitValue());
+			}
+			totals.read(new File(new File(dir, "matches"), matchID + ".csv"));
+		}
+	}
+
+	/**
+	 * the sums over the steps of the matches of an agent, read from the columns all the hyperplay agents write first:
+	 * matchID, game, step, role, name, hypergames, depth, updateTime, selectTime, bestMove, wasIllegal, numTimesMovesSimulated.
+	 * The hyper and ahyper agents of the earlier builds write no probe count, so their probes are left out.
+	 */
+	private static class StepTotals {
+		int steps;
+		long hypergames;
+		long updateTime;
+		long selectTime;
+		long probes;
+		boolean hasProbes;
+		long peakMemory;
+
+		void read(File csvFile) throws IOException {
+			if (!csvFile.exists()) {
+				return; // the agent did not get to play a move
+			}
+			BufferedReader reader = new BufferedReader(new FileReader(csvFile));
+			try {
+				String row;
+				while ((row = reader.readLine()) != null) {
+					String[] columns = row.split(",");
+					if (columns.length < 10 || !columns[5].matches("[0-9]+")) {
+						continue; // a header row
+					}
+					steps++;
+					hypergames += Long.parseLong(columns[5]);
+					updateTime += Long.parseLong(columns[7]);
+					selectTime += Long.parseLong(columns[8]);
+					if (columns.length >= 12 && (columns[10].equals("true") || columns[10].equals("false"))) {
+						probes += Long.parseLong(columns[11]);
+						hasProbes = true;
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		}
+
+		double probesPerSecond() {
+			double thinkingSeconds = (updateTime + selectTime) / 1000.0;
+			return thinkingSeconds > 0 ? probes / thinkingSeconds : 0.0;
+		}
+
+		void print(PrintStream out, String label, StepTotals baseline) {
+			String ratio = "";
+			if (baseline != null && hasProbes && baseline.hasProbes && baseline.probesPerSecond() > 0) {
+				ratio = String.format("%.2f", probesPerSecond() / baseline.probesPerSecond());
+			}
+			out.printf("%-32s %6d %10.1f %10.0f %10.0f %10s %12s %10.1f %10s%n", label, steps,
+					(double) hypergames / Math.max(1, steps), (double) updateTime / Math.max(1, steps),
+					(double) selectTime / Math.max(1, steps), hasProbes ? Long.toString(probes) : "-",
+					hasProbes ? String.format("%.1f", probesPerSecond()) : "-", peakMemory / (1024.0 * 1024.0), ratio);
+		}
+	}
+
+	/**
+	 * samples the used heap every 10 ms and keeps the largest sample
+	 */
+	private static class HeapSampler extends Thread {
+		private volatile long peak;
+
+		HeapSampler() {
+			setDaemon(true);
+		}
+
+		@Override
+		public void run() {
+			Runtime runtime = Runtime.getRuntime();
+			while (!isInterrupted()) {
+				long used = runtime.totalMemory() - runtime.freeMemory();
+				if (used > peak) {
+					peak = used;
+				}
+				try {
+					Thread.sleep(10);
+				} catch (InterruptedException e) {
+					return;
+				}
+			}
+		}
+
+		long getPeak() {
+			return peak;
+		}
+	}
+}
@@ -0,0 +1,124 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package tud.gamecontroller.game.javaprover;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import tud.gamecontroller.GDLVersion;
+import tud.gamecontroller.game.MoveInterface;
+import tud.gamecontroller.game.PlayoutResult;
+import tud.gamecontroller.game.RoleInterface;
+import tud.gamecontroller.game.StateInterface;
+import tud.gamecontroller.game.impl.Game;
+import tud.gamecontroller.game.impl.JointMove;
+import tud.gamecontroller.game.impl.State;
+import cs227b.teamIago.util.GameState;
+
+/**
+ * Microbenchmark for the random playouts the players run to evaluate their moves. Playouts from the initial state of
+ * the game are run for a fixed time once the way the players used to run them, asking the state for the legal moves
+ * of every role and for its successor in every step, and once with a single call of playout, which runs the whole
+ * simulation inside the reasoner. The number of playouts per second of both is compared.
+ *
+ * Usage: PlayoutBenchmark [-gdl2] [-seconds N] [-seed N] GAMEFILE
+ */
+public class PlayoutBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		GDLVersion gdlVersion = GDLVersion.v1;
+		int seconds = 10;
+		long seed = 1;
+		File gameFile = null;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-gdl2")) {
+				gdlVersion = GDLVersion.v2;
+			} else if (args[i].equals("-seconds")) {
+				seconds = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-seed")) {
+				seed = Long.parseLong(args[++i]);
+			} else {
+				gameFile = new File(args[i]);
+			}
+		}
+		if (gameFile == null) {
+			System.out.println("usage: PlayoutBenchmark [-gdl2] [-seconds N] [-seed N] GAMEFILE");
+			System.exit(-1);
+		}
+		Logger.getLogger("tud.gamecontroller.game").setLevel(Level.SEVERE);
+		Game<Term, GameState> game = new Game<Term, GameState>(gameFile, new ReasonerFactory(), gdlVersion);
+		State<Term, GameState> initialState = game.getInitialState();
+		List<? extends RoleInterface<Term>> roles = game.getOrderedRoles();
+		System.out.printf("%s (%s): %d roles%n", game.getName(), gdlVersion, roles.size());
+
+		for (int warmup = 0; warmup < 2; warmup++) {
+			String label = warmup == 0 ? "warm-up" : "measured";
+			long duration = (warmup == 0 ? Math.max(1, seconds / 5) : seconds) * 1000000000L;
+			Random random = new Random(seed);
+			long[] stepwise = new long[2];
+			long start = System.nanoTime();
+			while (System.nanoTime() - start < duration) {
+				stepwise[1] += stepwisePlayout(initialState, roles, random);
+				stepwise[0]++;
+			}
+			double stepwiseSeconds = (System.nanoTime() - start) / 1e9;
+			random = new Random(seed);
+			long[] fused = new long[2];
+			start = System.nanoTime();
+			while (System.nanoTime() - start < duration) {
+				PlayoutResult playout = initialState.playout(roles, random, Integer.MAX_VALUE);
+				fused[1] += playout.getDepth();
+				fused[0]++;
+			}
+			double fusedSeconds = (System.nanoTime() - start) / 1e9;
+			System.out.printf("  %-8s playouts/s step by step %9.1f (avg. depth %5.1f), in the reasoner %9.1f (avg. depth %5.1f), speed-up %.2f%n", label,
+					stepwise[0] / stepwiseSeconds, (double) stepwise[1] / stepwise[0],
+					fused[0] / fusedSeconds, (double) fused[1] / fused[0],
+					(fused[0] / fusedSeconds) / (stepwise[0] / stepwiseSeconds));
+		}
+	}
+
+	/**
+	 * plays random joint moves from the state until a terminal state is reached, going through the state for every
+	 * query, and returns the number of joint moves
+	 */
+	private static int stepwisePlayout(StateInterface<Term, ?> state, List<? extends RoleInterface<Term>> roles, Random random) {
+		int depth = 0;
+		StateInterface<Term, ?> currState = state;
+		while (!currState.isTerminal()) {
+			JointMove<Term> jointMove = new JointMove<Term>(roles);
+			for (RoleInterface<Term> role : roles) {
+				List<MoveInterface<Term>> legalMoves = new ArrayList<MoveInterface<Term>>(currState.getLegalMoves(role));
+				jointMove.put(role, legalMoves.get(random.nextInt(legalMoves.size())));
+			}
+			currState = currState.getSuccessor(jointMove);
+			depth++;
+		}
+		for (RoleInterface<Term> role : roles) {
+			currState.getGoalValue(role);
+		}
+		return depth;
+	}
+}
@@ -0,0 +1,172 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package tud.gamecontroller.game.javaprover;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import tud.gamecontroller.GDLVersion;
+import tud.gamecontroller.game.MoveInterface;
+import tud.gamecontroller.game.ReasonerInterface;
+import tud.gamecontroller.game.RoleInterface;
+import tud.gamecontroller.game.impl.Game;
+import tud.gamecontroller.game.impl.JointMove;
+import cs227b.teamIago.gameProver.GameSimulator;
+import cs227b.teamIago.gameProver.JavaProversGameSimulatorEnhancer;
+import cs227b.teamIago.resolver.ExpList;
+import cs227b.teamIago.resolver.Expression;
+import cs227b.teamIago.util.GameState;
+
+/**
+ * Microbenchmark for queries that go back and forth between a state and its successor, as the hyperplayers do when
+ * they forward and backtrack their hypergames. For every step of a random match, the legal moves of the roles are
+ * asked for alternately in the state and in its successor, whose terminality is checked as well. This is done once
+ * with the JavaProver's own GameSimulator, which forgets the proofs depending on the state at every switch, and once
+ * with the JavaProversGameSimulatorEnhancer, which keeps them for the recently used states, and the number of
+ * switches per second is compared.
+ *
+ * Usage: StateSwitchBenchmark [-gdl2] [-alternations N] [-rounds N] [-seed N] GAMEFILE
+ */
+public class StateSwitchBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		GDLVersion gdlVersion = GDLVersion.v1;
+		int alternations = 10;
+		int rounds = 5;
+		long seed = 1;
+		File gameFile = null;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-gdl2")) {
+				gdlVersion = GDLVersion.v2;
+			} else if (args[i].equals("-alternations")) {
+				alternations = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-rounds")) {
+				rounds = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-seed")) {
+				seed = Long.parseLong(args[++i]);
+			} else {
+				gameFile = new File(args[i]);
+			}
+		}
+		if (gameFile == null) {
+			System.out.println("usage: StateSwitchBenchmark [-gdl2] [-alternations N] [-rounds N] [-seed N] GAMEFILE");
+			System.exit(-1);
+		}
+		Logger.getLogger("tud.gamecontroller.game").setLevel(Level.SEVERE);
+		Game<Term, GameState> game = new Game<Term, GameState>(gameFile, new ReasonerFactory(), gdlVersion);
+		ReasonerInterface<Term, GameState> reasoner = game.getInitialState().getReasoner();
+		List<? extends RoleInterface<Term>> roles = game.getOrderedRoles();
+
+		// the states of a random match
+		List<GameState> states = new ArrayList<GameState>();
+		Random random = new Random(seed);
+		GameState state = reasoner.getInitialState();
+		states.add(state);
+		while (!reasoner.isTerminal(state)) {
+			JointMove<Term> jointMove = new JointMove<Term>(roles);
+			for (RoleInterface<Term> role : roles) {
+				List<MoveInterface<Term>> legalMoves = new ArrayList<MoveInterface<Term>>(reasoner.getLegalMoves(state, role));
+				jointMove.put(role, legalMoves.get(random.nextInt(legalMoves.size())));
+			}
+			state = reasoner.getSuccessorState(state, jointMove);
+			states.add(state);
+		}
+
+		GameSimulator plainSim = new GameSimulator(false, true);
+		plainSim.ParseDescIntoTheory(reasoner.getKIFGameDescription());
+		GameSimulator enhancedSim = new JavaProversGameSimulatorEnhancer(false, true);
+		enhancedSim.ParseDescIntoTheory(reasoner.getKIFGameDescription());
+		ExpList roleExprs = plainSim.GetRoles();
+		System.out.printf("%s (%s): %d roles, %d steps, same answers: %b%n", game.getName(), gdlVersion, roleExprs.size(),
+				states.size() - 1, sameAnswers(plainSim, enhancedSim, roleExprs, states));
+
+		for (int warmup = 0; warmup < 2; warmup++) {
+			String label = warmup == 0 ? "warm-up" : "measured";
+			long plainTime = 0;
+			long enhancedTime = 0;
+			for (int r = 0; r < rounds; r++) {
+				long start = System.nanoTime();
+				run(plainSim, roleExprs, states, alternations);
+				long plainDone = System.nanoTime();
+				run(enhancedSim, roleExprs, states, alternations);
+				plainTime += plainDone - start;
+				enhancedTime += System.nanoTime() - plainDone;
+			}
+			double switches = 2.0 * rounds * alternations * (states.size() - 1);
+			System.out.printf("  %-8s switches/s GameSimulator %9.1f, enhancer %9.1f, speed-up %.2f%n", label,
+					switches * 1e9 / plainTime, switches * 1e9 / enhancedTime, (double) plainTime / enhancedTime);
+		}
+	}
+
+	/**
+	 * asks for the legal moves in each state and its successor and whether the successor is terminal, alternately
+	 */
+	private static void run(GameSimulator gameSim, ExpList roleExprs, List<GameState> states, int alternations) {
+		for (int i = 0; i < states.size() - 1; i++) {
+			for (int a = 0; a < alternations; a++) {
+				query(gameSim, roleExprs, states.get(i));
+				query(gameSim, roleExprs, states.get(i + 1));
+			}
+		}
+	}
+
+	private static List<ExpList> query(GameSimulator gameSim, ExpList roleExprs, GameState state) {
+		List<ExpList> answers = new ArrayList<ExpList>();
+		gameSim.SetGameState(state);
+		answers.add(gameSim.IsTerminal() ? null : new ExpList());
+		for (int r = 0; r < roleExprs.size(); r++) {
+			answers.add(gameSim.GetLegalMoves(roleExprs.get(r)));
+		}
+		return answers;
+	}
+
+	private static boolean sameAnswers(GameSimulator plainSim, GameSimulator enhancedSim, ExpList roleExprs, List<GameState> states) {
+		for (int i = 0; i < states.size() - 1; i++) {
+			for (int a = 0; a < 2; a++) {
+				for (int j = i; j <= i + 1; j++) {
+					List<ExpList> plainAnswers = query(plainSim, roleExprs, states.get(j));
+					List<ExpList> enhancedAnswers = query(enhancedSim, roleExprs, states.get(j));
+					for (int k = 0; k < plainAnswers.size(); k++) {
+						if (plainAnswers.get(k) == null ? enhancedAnswers.get(k) != null
+								: enhancedAnswers.get(k) == null || !asSet(plainAnswers.get(k)).equals(asSet(enhancedAnswers.get(k)))) {
+							return false;
+						}
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	private static Set<Expression> asSet(ExpList expressions) {
+		Set<Expression> set = new HashSet<Expression>();
+		for (int i = 0; i < expressions.size(); i++) {
+			set.add(expressions.get(i));
+		}
+		return set;
+	}
+}
@@ -0,0 +1,148 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package tud.gamecontroller.game.jocular;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import stanfordlogic.knowledge.BasicKB;
+import stanfordlogic.knowledge.KnowledgeBase;
+import stanfordlogic.prover.GroundFact;
+import stanfordlogic.prover.ProofContext;
+import tud.auxiliary.CrossProductMap;
+import tud.gamecontroller.GDLVersion;
+import tud.gamecontroller.game.JointMoveInterface;
+import tud.gamecontroller.game.MoveInterface;
+import tud.gamecontroller.game.ReasonerInterface;
+import tud.gamecontroller.game.RoleInterface;
+import tud.gamecontroller.game.impl.Game;
+import tud.gamecontroller.game.impl.JointMove;
+
+/**
+ * Microbenchmark for branching a state over all its joint moves, as the search of a player does. The states of a
+ * random match are branched for a fixed time once by copying the state before each successor, which is what a caller
+ * had to do as long as getSuccessorState added the moves to the state, and once by computing the successors directly
+ * from the state. The number of successors per second of both is compared.
+ *
+ * Usage: BranchingBenchmark [-seconds N] [-seed N] GAMEFILE
+ */
+public class BranchingBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int seconds = 10;
+		long seed = 1;
+		File gameFile = null;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-seconds")) {
+				seconds = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-seed")) {
+				seed = Long.parseLong(args[++i]);
+			} else {
+				gameFile = new File(args[i]);
+			}
+		}
+		if (gameFile == null) {
+			System.out.println("usage: BranchingBenchmark [-seconds N] [-seed N] GAMEFILE");
+			System.exit(-1);
+		}
+		Logger.getLogger("tud.gamecontroller.game").setLevel(Level.SEVERE);
+		Game<Term, ProofContext> game = new Game<Term, ProofContext>(gameFile, new ReasonerFactory(), GDLVersion.v1);
+		ReasonerInterface<Term, ProofContext> reasoner = game.getInitialState().getReasoner();
+		List<? extends RoleInterface<Term>> roles = game.getOrderedRoles();
+
+		// the non-terminal states of a random match and their joint moves
+		List<ProofContext> states = new ArrayList<ProofContext>();
+		List<Collection<JointMoveInterface<Term>>> jointMoves = new ArrayList<Collection<JointMoveInterface<Term>>>();
+		Random random = new Random(seed);
+		ProofContext state = reasoner.getInitialState();
+		while (!reasoner.isTerminal(state)) {
+			Collection<JointMoveInterface<Term>> stateJointMoves = getJointMoves(reasoner, roles, state);
+			states.add(state);
+			jointMoves.add(stateJointMoves);
+			List<JointMoveInterface<Term>> list = new ArrayList<JointMoveInterface<Term>>(stateJointMoves);
+			state = reasoner.getSuccessorState(state, list.get(random.nextInt(list.size())));
+		}
+		System.out.printf("%s: %d roles, %d states%n", game.getName(), roles.size(), states.size());
+		// the context the copies of the states are put in
+		ProofContext copyContext = reasoner.getInitialState();
+
+		for (int warmup = 0; warmup < 2; warmup++) {
+			String label = warmup == 0 ? "warm-up" : "measured";
+			long duration = (warmup == 0 ? Math.max(1, seconds / 5) : seconds) * 1000000000L;
+			long copying = 0;
+			long start = System.nanoTime();
+			while (System.nanoTime() - start < duration) {
+				for (int i = 0; i < states.size(); i++) {
+					for (JointMoveInterface<Term> jointMove : jointMoves.get(i)) {
+						reasoner.getSuccessorState(copy(states.get(i), copyContext), jointMove);
+						copying++;
+					}
+				}
+			}
+			double copyingSeconds = (System.nanoTime() - start) / 1e9;
+			long direct = 0;
+			start = System.nanoTime();
+			while (System.nanoTime() - start < duration) {
+				for (int i = 0; i < states.size(); i++) {
+					for (JointMoveInterface<Term> jointMove : jointMoves.get(i)) {
+						reasoner.getSuccessorState(states.get(i), jointMove);
+						direct++;
+					}
+				}
+			}
+			double directSeconds = (System.nanoTime() - start) / 1e9;
+			System.out.printf("  %-8s successors/s copying the state %9.1f, from the state %9.1f, speed-up %.2f%n", label,
+					copying / copyingSeconds, direct / directSeconds, (direct / directSeconds) / (copying / copyingSeconds));
+		}
+	}
+
+	private static Collection<JointMoveInterface<Term>> getJointMoves(ReasonerInterface<Term, ProofContext> reasoner,
+			List<? extends RoleInterface<Term>> roles, ProofContext state) {
+		CrossProductMap<RoleInterface<Term>, MoveInterface<Term>> crossProduct =
+			new CrossProductMap<RoleInterface<Term>, MoveInterface<Term>>(reasoner.getAllLegalMoves(state, roles));
+		Collection<JointMoveInterface<Term>> jointMoves = new ArrayList<JointMoveInterface<Term>>();
+		for (Map<RoleInterface<Term>, MoveInterface<Term>> moves : crossProduct) {
+			JointMove<Term> jointMove = new JointMove<Term>(roles);
+			jointMove.putAll(moves);
+			jointMoves.add(jointMove);
+		}
+		return jointMoves;
+	}
+
+	/**
+	 * puts a copy of the state's facts into the context, so that the moves added to it do not change the state
+	 */
+	private static ProofContext copy(ProofContext state, ProofContext context) {
+		KnowledgeBase kb = new BasicKB();
+		for (GroundFact fact : state.getVolatileKb().getIterable()) {
+			kb.setTrue(fact);
+		}
+		context.setVolatileKb(kb);
+		return context;
+	}
+
+}
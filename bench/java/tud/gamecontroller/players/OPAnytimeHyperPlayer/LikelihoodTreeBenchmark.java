@@ -0,0 +1,119 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package tud.gamecontroller.players.OPAnytimeHyperPlayer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Random;
+
+import tud.gamecontroller.term.TermInterface;
+
+/**
+ * Microbenchmark for the LikelihoodTree: builds a tree like the one of a match with many hypergames and measures
+ * the likelihood queries done for every hypergame in each move selection, compared to finding the children by a
+ * linear scan and multiplying the likelihoods along the path (as the tree did before).
+ *
+ * Usage: LikelihoodTreeBenchmark [numHypergames] [fanOut] [depth] [rounds]
+ */
+public class LikelihoodTreeBenchmark {
+
+    public static void main(String[] args) {
+        int numHypergames = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int fanOut = args.length > 1 ? Integer.parseInt(args[1]) : 30; // e.g., the opponent's moves in stratego
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : 6;
+        int rounds = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+        Random random = new Random(42);
+
+        // Expand every node on the path of each hypergame with fanOut children, like forwardHypergame does
+        long start = System.nanoTime();
+        LikelihoodTree<?> tree = new LikelihoodTree<TermInterface>(0);
+        ArrayList<ArrayDeque<Integer>> paths = new ArrayList<ArrayDeque<Integer>>(numHypergames);
+        for (int i = 0; i < numHypergames; i++) {
+            ArrayDeque<Integer> path = new ArrayDeque<Integer>();
+            path.addLast(0);
+            Node node = tree.getRoot();
+            for (int d = 0; d < depth; d++) {
+                if (node.getChildren().isEmpty()) {
+                    double totalValue = 0.0;
+                    for (int c = 0; c < fanOut; c++) {
+                        Node child = new Node(31 * node.getActionPathHash() + c + 1);
+                        child.setValue(random.nextDouble() * 100);
+                        totalValue += child.getValue();
+                        node.addChild(child);
+                    }
+                    for (Node child : node.getChildren()) {
+                        child.setRelLikelihood(child.getValue() / totalValue);
+                    }
+                }
+                node = node.getChildren().get(random.nextInt(fanOut));
+                path.addLast(node.getActionPathHash());
+            }
+            paths.add(path);
+        }
+        System.out.printf("built tree for %d hypergames (fan-out %d, depth %d) in %.1f ms%n", numHypergames, fanOut, depth, (System.nanoTime() - start) / 1e6);
+
+        for (int warmup = 0; warmup < 2; warmup++) {
+            double indexed = 0, scanned = 0;
+            long indexedTime = 0, scannedTime = 0;
+            for (int r = 0; r < rounds; r++) {
+                start = System.nanoTime();
+                for (ArrayDeque<Integer> path : paths) {
+                    indexed += tree.getRelativeLikelihood(path);
+                }
+                indexedTime += System.nanoTime() - start;
+                start = System.nanoTime();
+                for (ArrayDeque<Integer> path : paths) {
+                    scanned += linearScanLikelihood(tree, path);
+                }
+                scannedTime += System.nanoTime() - start;
+            }
+            if (warmup == 1) {
+                long queries = (long) rounds * numHypergames;
+                System.out.printf("indexed + cached:       %8.1f ns/query%n", (double) indexedTime / queries);
+                System.out.printf("linear scan + product:  %8.1f ns/query%n", (double) scannedTime / queries);
+                System.out.printf("max relative difference of the results: %.2e%n", Math.abs(indexed - scanned) / scanned);
+            }
+        }
+    }
+
+    /**
+     * The previous implementation of getRelativeLikelihood
+     */
+    private static double linearScanLikelihood(LikelihoodTree<?> tree, ArrayDeque<Integer> actionPathHashPath) {
+        Node child = tree.getRoot();
+        double likelihood = child.getRelLikelihood() == 0 ? 1 : child.getRelLikelihood();
+        for (Integer actionPathHash : actionPathHashPath) {
+            if(actionPathHash == child.getActionPathHash()) continue;
+            Node next = null;
+            for (Node node : child.getChildren()) {
+                if(node.getActionPathHash() == actionPathHash) {
+                    next = node;
+                    break;
+                }
+            }
+            child = next;
+            if(child.getRelLikelihood() > 0) {
+                likelihood *= child.getRelLikelihood();
+            } else if (child.getRelLikelihood() == 0) return 0.0;
+        }
+        return likelihood;
+    }
+
+}
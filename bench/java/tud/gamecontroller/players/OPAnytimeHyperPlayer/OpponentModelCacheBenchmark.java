@@ -0,0 +1,167 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package tud.gamecontroller.players.OPAnytimeHyperPlayer;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import tud.gamecontroller.GDLVersion;
+import tud.gamecontroller.game.MoveInterface;
+import tud.gamecontroller.game.RoleInterface;
+import tud.gamecontroller.game.impl.Game;
+import tud.gamecontroller.game.impl.JointMove;
+import tud.gamecontroller.game.impl.State;
+import tud.gamecontroller.game.javaprover.ReasonerFactory;
+import tud.gamecontroller.game.javaprover.Term;
+import cs227b.teamIago.util.GameState;
+
+/**
+ * Microbenchmark for the opponent modelling done when a node of the likelihood tree is expanded: every joint move of
+ * the state is valued with numOPProbes probes of the opponent's move in it. The states of a random match are each
+ * expanded several times, as they are when several hypergames reach the same state or a node is expanded again in a
+ * later step, once without and once with an OpponentModelCache, and the expansions per second are compared.
+ *
+ * Usage: OpponentModelCacheBenchmark [-gdl2] [-probes N] [-refine N] [-revisits N] [-seed N] GAMEFILE
+ */
+public class OpponentModelCacheBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        GDLVersion gdlVersion = GDLVersion.v1;
+        int numOPProbes = 8;
+        int refineProbes = 1;
+        int revisits = 4;
+        long seed = 1;
+        File gameFile = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-gdl2")) {
+                gdlVersion = GDLVersion.v2;
+            } else if (args[i].equals("-probes")) {
+                numOPProbes = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-refine")) {
+                refineProbes = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-revisits")) {
+                revisits = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-seed")) {
+                seed = Long.parseLong(args[++i]);
+            } else {
+                gameFile = new File(args[i]);
+            }
+        }
+        if (gameFile == null) {
+            System.out.println("usage: OpponentModelCacheBenchmark [-gdl2] [-probes N] [-refine N] [-revisits N] [-seed N] GAMEFILE");
+            System.exit(-1);
+        }
+        Logger.getLogger("tud.gamecontroller.game").setLevel(Level.SEVERE);
+        Game<Term, GameState> game = new Game<Term, GameState>(gameFile, new ReasonerFactory(), gdlVersion);
+        List<? extends RoleInterface<Term>> roles = game.getOrderedRoles();
+        RoleInterface<Term> opponentRole = roles.get(roles.size() - 1);
+
+        // the non-terminal states of a random match
+        Random random = new Random(seed);
+        List<State<Term, GameState>> states = new ArrayList<State<Term, GameState>>();
+        State<Term, GameState> state = game.getInitialState();
+        while (!state.isTerminal()) {
+            states.add(state);
+            List<JointMove<Term>> jointMoves = getJointMoves(state, roles);
+            state = state.getSuccessor(jointMoves.get(random.nextInt(jointMoves.size())));
+        }
+        System.out.printf("%s (%s): %d states, %d probes per move, %d refining probes, %d expansions per state%n", game.getName(),
+                gdlVersion, states.size(), numOPProbes, refineProbes, revisits);
+
+        for (int warmup = 0; warmup < 2; warmup++) {
+            String label = warmup == 0 ? "warm-up" : "measured";
+            long[] withoutCache = expandAll(states, roles, opponentRole, null, numOPProbes, refineProbes, revisits, new Random(seed));
+            long[] withCache = expandAll(states, roles, opponentRole, new OpponentModelCache<Term>(10000), numOPProbes, refineProbes, revisits, new Random(seed));
+            int numExpansions = revisits * states.size();
+            System.out.printf("  %-8s expansions/s without cache %8.1f (%5.1f probes each), with cache %8.1f (%5.1f probes each), speed-up %.2f%n",
+                    label, numExpansions * 1e9 / withoutCache[0], (double) withoutCache[1] / numExpansions,
+                    numExpansions * 1e9 / withCache[0], (double) withCache[1] / numExpansions, (double) withoutCache[0] / withCache[0]);
+        }
+    }
+
+    /**
+     * expands every state revisits times the way OPAnytimeHyperPlayer does
+     *
+     * @return the time in nanoseconds and the number of probes
+     */
+    private static long[] expandAll(List<State<Term, GameState>> states, List<? extends RoleInterface<Term>> roles, RoleInterface<Term> opponentRole,
+            OpponentModelCache<Term> cache, int numOPProbes, int refineProbes, int revisits, Random random) {
+        long numProbesRun = 0;
+        long start = System.nanoTime();
+        for (int r = 0; r < revisits; r++) {
+            for (State<Term, GameState> state : states) {
+                for (JointMove<Term> jointMove : getJointMoves(state, roles)) {
+                    MoveInterface<Term> move = jointMove.get(opponentRole);
+                    int numCached = cache == null ? 0 : cache.getNumPlayouts(state, opponentRole, move);
+                    int numProbes = numCached == 0 ? numOPProbes : Math.max(refineProbes, numOPProbes - numCached);
+                    double sumOfValues = 0;
+                    for (int i = 0; i < numProbes; i++) {
+                        sumOfValues += probe(state, roles, opponentRole, move, random);
+                    }
+                    if (cache != null) {
+                        cache.addPlayouts(state, opponentRole, move, sumOfValues, numProbes);
+                    }
+                    numProbesRun += numProbes;
+                }
+            }
+        }
+        return new long[] {System.nanoTime() - start, numProbesRun};
+    }
+
+    /**
+     * plays a random joint move containing the move of the role and then a random playout, like anytimeSimulateMove
+     */
+    private static int probe(State<Term, GameState> state, List<? extends RoleInterface<Term>> roles, RoleInterface<Term> role,
+            MoveInterface<Term> move, Random random) {
+        JointMove<Term> jointMove = new JointMove<Term>(roles);
+        for (RoleInterface<Term> r : roles) {
+            if (r.equals(role)) {
+                jointMove.put(r, move);
+            } else {
+                List<MoveInterface<Term>> legalMoves = new ArrayList<MoveInterface<Term>>(state.getLegalMoves(r));
+                jointMove.put(r, legalMoves.get(random.nextInt(legalMoves.size())));
+            }
+        }
+        return state.getSuccessor(jointMove).playout(roles, random, Integer.MAX_VALUE).getGoalValue(roles.indexOf(role));
+    }
+
+    private static List<JointMove<Term>> getJointMoves(State<Term, GameState> state, List<? extends RoleInterface<Term>> roles) {
+        List<JointMove<Term>> jointMoves = new ArrayList<JointMove<Term>>();
+        jointMoves.add(new JointMove<Term>(roles));
+        for (RoleInterface<Term> role : roles) {
+            List<JointMove<Term>> extended = new ArrayList<JointMove<Term>>();
+            for (JointMove<Term> jointMove : jointMoves) {
+                for (MoveInterface<Term> move : state.getLegalMoves(role)) {
+                    JointMove<Term> copy = new JointMove<Term>(roles);
+                    copy.putAll(jointMove);
+                    copy.put(role, move);
+                    extended.add(copy);
+                }
+            }
+            jointMoves = extended;
+        }
+        return jointMoves;
+    }
+}
@@ -0,0 +1,201 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package tud.gamecontroller.scrambling;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import tud.gamecontroller.GDLVersion;
+import tud.gamecontroller.GameController;
+import tud.gamecontroller.game.impl.Game;
+import tud.gamecontroller.game.javaprover.ReasonerFactory;
+import tud.gamecontroller.game.javaprover.Term;
+import cs227b.teamIago.util.GameState;
+
+/**
+ * Microbenchmark for the GameScrambler: scrambles the (KIF) game descriptions of the given games and descrambles the
+ * result again, from several threads sharing one scrambler like the players of a match, and compares the throughput with
+ * the previous implementation (a regular expression over the text and a lock around the map lookups).
+ * 
+ * Both scramblers get an empty word list, so they assign the same generic words and their output is compared, too.
+ *
+ * Usage: GameScramblerBenchmark [-threads N] [-rounds N] GAMEFILE...
+ */
+public class GameScramblerBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int numThreads = 4;
+		int rounds = 200;
+		List<File> gameFiles = new ArrayList<File>();
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-threads")) {
+				numThreads = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-rounds")) {
+				rounds = Integer.parseInt(args[++i]);
+			} else {
+				gameFiles.add(new File(args[i]));
+			}
+		}
+		if (gameFiles.isEmpty()) {
+			System.out.println("usage: GameScramblerBenchmark [-threads N] [-rounds N] GAMEFILE...");
+			System.exit(-1);
+		}
+		// the scrambler logs every new word (and that the word list is empty)
+		Logger.getLogger(GameController.class.getName()).setLevel(Level.SEVERE);
+		Logger.getLogger("tud.gamecontroller.game").setLevel(Level.WARNING);
+		ExecutorService pool = Executors.newFixedThreadPool(numThreads);
+		try {
+			for (File gameFile : gameFiles) {
+				Game<Term, GameState> game = new Game<Term, GameState>(gameFile, new ReasonerFactory(), GDLVersion.v1);
+				String text = game.getKIFGameDescription() + Game.DEFAULT_SEES_RULES;
+
+				GameScramblerInterface regexScrambler = new RegexGameScrambler();
+				GameScrambler tableScrambler = new GameScrambler(new HashSet<String>());
+				tableScrambler.prepare(text);
+				String regexScrambled = regexScrambler.scramble(text);
+				String tableScrambled = tableScrambler.scramble(text);
+				boolean equal = regexScrambled.equals(tableScrambled)
+						&& regexScrambler.descramble(regexScrambled).equals(tableScrambler.descramble(tableScrambled));
+				System.out.printf("%s: %d chars, same output: %b%n", game.getName(), text.length(), equal);
+
+				for (int warmup = 0; warmup < 2; warmup++) {
+					String label = warmup == 0 ? "warm-up" : "measured";
+					double regexTime = run(pool, numThreads, rounds, regexScrambler, text, regexScrambled);
+					double tableTime = run(pool, numThreads, rounds, tableScrambler, text, tableScrambled);
+					double megabytes = 2.0 * numThreads * rounds * text.length() / 1e6; // scrambled and descrambled
+					System.out.printf("  %-8s regex: %8.1f MB/s   table: %8.1f MB/s   (%.1fx, %d threads)%n", label,
+							megabytes / regexTime, megabytes / tableTime, regexTime / tableTime, numThreads);
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * @return the time in seconds for scrambling and descrambling the text rounds times in each of numThreads threads
+	 */
+	private static double run(ExecutorService pool, int numThreads, final int rounds, final GameScramblerInterface scrambler,
+			final String text, final String scrambled) throws Exception {
+		List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+		long start = System.nanoTime();
+		for (int t = 0; t < numThreads; t++) {
+			results.add(pool.submit(new Callable<Integer>() {
+				public Integer call() {
+					int length = 0;
+					for (int r = 0; r < rounds; r++) {
+						length += scrambler.scramble(text).length();
+						length += scrambler.descramble(scrambled).length();
+					}
+					return length;
+				}
+			}));
+		}
+		for (Future<Integer> result : results) {
+			result.get();
+		}
+		return (System.nanoTime() - start) / 1e9;
+	}
+
+	/**
+	 * the previous GameScrambler (without a word list), kept as the baseline
+	 */
+	private static class RegexGameScrambler implements GameScramblerInterface {
+
+		private final Map<String, String> scrambling = new HashMap<String, String>();
+		private final Map<String, String> descrambling = new HashMap<String, String>();
+		private final Pattern identifierPattern = Pattern.compile("([()?\\s]|^)([a-zA-Z][a-z0-9A-Z_\\-\\+]*)", Pattern.CASE_INSENSITIVE);
+
+		public RegexGameScrambler() {
+			String[] keywords = new String[]{
+					"role", "true", "init", "next",
+					"legal", "goal", "terminal", "does",
+					"or", "and", "not", "<=", "distinct"};
+			for (String keyword : keywords) {
+				scrambling.put(keyword, keyword);
+				descrambling.put(keyword, keyword);
+			}
+		}
+
+		public String scramble(String s) {
+			StringBuilder scrambled = new StringBuilder();
+			Matcher m = identifierPattern.matcher(s);
+			String identifier, lowercaseIdentifier, scrambledIdentifier;
+			int lastpos = 0, nextmatchpos;
+			while (m.find()) {
+				nextmatchpos = m.start(2);
+				scrambled.append(s.substring(lastpos, nextmatchpos));
+				lastpos = m.end(2);
+				identifier = m.group(2);
+				lowercaseIdentifier = identifier.toLowerCase();
+				synchronized (this) {
+					scrambledIdentifier = scrambling.get(lowercaseIdentifier);
+					if (scrambledIdentifier == null) {
+						int i = 1;
+						do {
+							scrambledIdentifier = "ident" + i;
+							++i;
+						} while (descrambling.containsKey(scrambledIdentifier));
+						scrambling.put(lowercaseIdentifier, scrambledIdentifier);
+						descrambling.put(scrambledIdentifier, identifier);
+					}
+				}
+				scrambled.append(scrambledIdentifier);
+			}
+			scrambled.append(s.substring(lastpos, s.length()));
+			return scrambled.toString();
+		}
+
+		public String descramble(String s) {
+			StringBuilder descrambled = new StringBuilder();
+			Matcher m = identifierPattern.matcher(s);
+			String identifier, descrambledIdentifier;
+			int lastpos = 0, nextmatchpos;
+			while (m.find()) {
+				nextmatchpos = m.start(2);
+				descrambled.append(s.substring(lastpos, nextmatchpos));
+				lastpos = m.end(2);
+				identifier = m.group(2).toLowerCase();
+				synchronized (this) {
+					descrambledIdentifier = descrambling.get(identifier);
+				}
+				if (descrambledIdentifier == null) {
+					descrambledIdentifier = identifier;
+				}
+				descrambled.append(descrambledIdentifier);
+			}
+			descrambled.append(s.substring(lastpos, s.length()));
+			return descrambled.toString();
+		}
+	}
+
+}
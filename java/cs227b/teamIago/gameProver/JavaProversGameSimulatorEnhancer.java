@@ -19,11 +19,20 @@
 
 package cs227b.teamIago.gameProver;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
 import cs227b.teamIago.gameProver.GameSimulator;
 import cs227b.teamIago.resolver.Atom;
 import cs227b.teamIago.resolver.ExpList;
 import cs227b.teamIago.resolver.Expression;
 import cs227b.teamIago.resolver.Predicate;
+import cs227b.teamIago.resolver.Theory;
+import cs227b.teamIago.util.GameState;
+import tud.gamecontroller.game.CancellationToken;
 
 
 /* MODIFIED (ADDED)
@@ -31,6 +40,8 @@ import cs227b.teamIago.resolver.Predicate;
  * This is due to a lack of license on its code, making it difficult to reuse.
  * This class focuses on enabling derivation of so-called "sees terms", and thereby giving the possibility
  * to reason about GDL-II games.
+ * It also lets the queries be cancelled by the CancellationToken of the calling thread, and keeps the proofs made in
+ * the recently used states when switching between them.
  */
 public class JavaProversGameSimulatorEnhancer extends GameSimulator {
 
@@ -39,6 +50,149 @@ public class JavaProversGameSimulatorEnhancer extends GameSimulator {
 	
 	public JavaProversGameSimulatorEnhancer(boolean wantDebugPrintouts, boolean useOpt) {
 		super(wantDebugPrintouts, useOpt);
+		theoryObj = new EnhancedTheory(wantDebugPrintouts, useOpt);
+	}
+	
+	/**
+	 * A Theory that lets the queries be cancelled and that keeps the proofs of the recently used states across state
+	 * switches.
+	 * 
+	 * Switching the state only swaps the map of fluents, and the proofs of the static relations are kept anyway, but
+	 * Theory forgets the proofs depending on the state (the "trans" proofs) at every switch and whenever moves are
+	 * added. When the searches go back and forth between a state and its successors, these proofs are proven again and
+	 * again, so here they are put aside with the state they were proven in and taken back when that state is set again.
+	 */
+	private static class EnhancedTheory extends Theory {
+		
+		private static final int NB_STASHED_STATES = 8;
+		
+		// the recently left states and the proofs made in them (without moves), most recent first
+		private final List<StashedProofs> stash = new ArrayList<StashedProofs>(NB_STASHED_STATES);
+		
+		public EnhancedTheory(boolean debug, boolean useOpt) {
+			super(debug, useOpt);
+		}
+		
+		/**
+		 * the proofs check interrupted() at every resolution step, so this is where the token of the calling thread
+		 * is checked
+		 */
+		@Override
+		public boolean interrupted() {
+			return abort || CancellationToken.isCurrentCancelled();
+		}
+		
+		@Override
+		public void setState(GameState state) {
+			if (state != null && state.getMap() == trans && moves.size() == 0 && trans.size() != 0) {
+				return; // the state is already set and its proofs still hold
+			}
+			stashTransProofs();
+			super.setState(state);
+			if (state != null) {
+				takeStashedTransProofs(state.getMap());
+			}
+		}
+		
+		@Override
+		protected boolean addToMoves(Expression exp) {
+			// the proofs made from now on depend on the moves, but the ones made so far can be used again in this state
+			if (moves.size() == 0) {
+				stashTransProofs();
+			}
+			return super.addToMoves(exp);
+		}
+		
+		/**
+		 * puts the proofs of the current state aside if they were made without moves, and starts new (empty) ones
+		 */
+		private void stashTransProofs() {
+			if (!useOpt || !memoTrans || moves.size() != 0 || trans.size() == 0
+					|| (provenTrans.size() == 0 && disprovenTrans.size() == 0)) {
+				return;
+			}
+			// an older copy of the state would have less proofs
+			int last = indexOfStashedState(trans);
+			if (last >= 0) {
+				stash.remove(last);
+			} else if (stash.size() == NB_STASHED_STATES) {
+				stash.remove(NB_STASHED_STATES - 1);
+			}
+			stash.add(0, new StashedProofs(trans, provenTrans, disprovenTrans));
+			// the stashed proofs must not see the proofs of other states or of moves
+			provenTrans = new HashMap<Object, Object>();
+			disprovenTrans = new HashSet<Object>();
+		}
+		
+		/**
+		 * makes the stashed proofs of the state the current ones (the stash gives them up, because they will get proofs
+		 * depending on moves if moves are added while they are empty)
+		 */
+		private void takeStashedTransProofs(Map<?, ?> state) {
+			int index = indexOfStashedState(state);
+			if (index < 0) {
+				return;
+			}
+			StashedProofs proofs = stash.remove(index);
+			provenTrans = proofs.proven;
+			disprovenTrans = proofs.disproven;
+		}
+		
+		private int indexOfStashedState(Map<?, ?> state) {
+			// the fluent map of a state is never changed once another state is set, so it identifies the state
+			for (int i = 0; i < stash.size(); i++) {
+				if (stash.get(i).state == state) {
+					return i;
+				}
+			}
+			return -1;
+		}
+		
+		/**
+		 * a cancelled proof may have left incomplete lemmas behind
+		 */
+		private void discardProofs() {
+			clearProofs();
+			stash.clear();
+		}
+	}
+	
+	/**
+	 * the fluent map of a state and the proofs made in it (Theory keeps them in raw maps and sets)
+	 */
+	private static class StashedProofs {
+		
+		private final Map<?, ?> state;
+		private final HashMap<?, ?> proven;
+		private final HashSet<?> disproven;
+		
+		public StashedProofs(Map<?, ?> state, HashMap<?, ?> proven, HashSet<?> disproven) {
+			this.state = state;
+			this.proven = proven;
+			this.disproven = disproven;
+		}
+	}
+	
+	/**
+	 * unlike GameSimulator.SimulateStep, this leaves the state as it is if the next state could not be computed
+	 * because the query was interrupted
+	 */
+	@Override
+	public void SimulateStep(ExpList moves) {
+		theoryObj.add(moves);
+		ExpList newState = CalcNextState();
+		if (newState != null || !wasInterrupted) {
+			theoryObj.setState(newState);
+		}
+	}
+	
+	/**
+	 * to be called after a query was interrupted: clears the interruption and forgets the lemmas proven so far,
+	 * which might be incomplete
+	 */
+	public void recoverFromInterruption() {
+		reset();
+		((EnhancedTheory) theoryObj).discardProofs();
 	}
 	
 	/**
@@ -60,6 +214,26 @@ public class JavaProversGameSimulatorEnhancer extends GameSimulator {
 		return el;
 	}
 	
+	/**
+	 * this calculates the sees terms of each of "players", given that the previous moves are "moves"
+	 * the moves are added only once, so that the players' queries share the proofs of the intermediate relations
+	 */
+	public ExpList[] getSeesTerms(ExpList players, ExpList moves) {
+		ExpList[] els = new ExpList[players.size()];
+		theoryObj.add(moves);
+		for (int i = 0; i < players.size(); i++) {
+			ExpList seesArgs = new ExpList();
+			seesArgs.add(players.get(i));
+			seesArgs.add(vX);
+			try {
+				els[i] = theoryObj.finds(vX, new Predicate(aSees,seesArgs));
+			} catch (InterruptedException e) {
+				wasInterrupted = true;
+			}
+		}
+		return els;
+	}
+	
 	/**
 	 * this calculates the sees terms to put in the XML file for the visualization
 	 */
@@ -64,14 +64,17 @@ public abstract class AbstractGameControllerRunner<
 	}
 	
 	public void run() throws InterruptedException{
+		Game<TermType, ReasonerStateInfoType> game=getGame();
+
 		GameScramblerInterface gameScrambler;
 		if(getScrambleWordListFile()!=null){
-			gameScrambler=new GameScrambler(getScrambleWordListFile());
+			GameScrambler scrambler=new GameScrambler(getScrambleWordListFile());
+			// build the whole mapping before the match, so that scrambling the messages only reads it
+			scrambler.prepare(game.getKIFGameDescription()+Game.DEFAULT_SEES_RULES);
+			gameScrambler=scrambler;
 		}else{
 			gameScrambler=new IdentityGameScrambler();
 		}
-
-		Game<TermType, ReasonerStateInfoType> game=getGame();
 		Map<RoleInterface<TermType>,Player<TermType, State<TermType, ReasonerStateInfoType>>> players= createPlayers(game, gameScrambler);
 		RunnableMatchInterface<TermType, State<TermType, ReasonerStateInfoType>> match=
 				new RunnableMatch<TermType, ReasonerStateInfoType>(
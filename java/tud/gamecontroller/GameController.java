@@ -34,6 +34,7 @@ import tud.gamecontroller.game.RoleInterface;
 import tud.gamecontroller.game.RunnableMatchInterface;
 import tud.gamecontroller.game.impl.JointMove;
 import tud.gamecontroller.game.impl.State;
+import tud.gamecontroller.instrumentation.Instrumentation;
 import tud.gamecontroller.logging.GameControllerErrorMessage;
 import tud.gamecontroller.players.Player;
 import tud.gamecontroller.players.PlayerInfo;
@@ -113,6 +114,8 @@ public class GameController<
 	
 	public void runGame() throws InterruptedException {
 		int step=1;
+		Instrumentation.setMatch(match.getMatchID());
+		Instrumentation.setStep(0);
 		currentState=game.getInitialState();
 		State<TermType, ReasonerStateInfoType> priorState = currentState;
 		JointMoveInterface<TermType> priorJointMove=null;
@@ -125,6 +128,7 @@ public class GameController<
 		gameStart();
 		while(!currentState.isTerminal()){
 			Thread.sleep(DELAY_BEFORE_NEXT_MESSAGE);
+			Instrumentation.setStep(step);
 			JointMoveInterface<TermType> jointMove = gamePlay(step, priorJointMove, priorState);
 			priorState=currentState; 
 			currentState=currentState.getSuccessor(jointMove);
@@ -135,12 +139,11 @@ public class GameController<
 			logger.info("current state:"+currentState);
 		}
 		
+		Instrumentation.setStep(step);
 		String goalmsg="Game over! results: ";
-		goalValues=new HashMap<RoleInterface<TermType>, Integer>();
+		goalValues=new HashMap<RoleInterface<TermType>, Integer>(currentState.getAllGoalValues(game.getOrderedRoles()));
 		for(RoleInterface<TermType> role:game.getOrderedRoles()){
-			int gv=currentState.getGoalValue(role);
-			goalValues.put(role,gv);
-			goalmsg+=gv+" ";
+			goalmsg+=goalValues.get(role)+" ";
 		}
 
 		fireGameStop(currentState, goalValues);
@@ -216,10 +219,11 @@ public class GameController<
 		
 		JointMoveInterface<TermType> jointMove = new JointMove<TermType>(game.getOrderedRoles());
 		Collection<PlayerThreadPlay<TermType, State<TermType, ReasonerStateInfoType>>> playerthreads = new LinkedList<PlayerThreadPlay<TermType, State<TermType, ReasonerStateInfoType>>>();
+		Map<RoleInterface<TermType>, Collection<TermType>> allSeesTerms = getAllSeesTerms(priorState, priorJointMove);
 		
 		for(RoleInterface<TermType> role:game.getOrderedRoles()){
 			Player<TermType, State<TermType, ReasonerStateInfoType>> player = match.getPlayer(role);
-			Object seesTerms = getSeesTermsForRole(role, player, priorState, priorJointMove);
+			Object seesTerms = getSeesTermsForRole(role, player, allSeesTerms, priorJointMove);
 			Object priorMove = getPriorMoveForRole(role, priorJointMove);
 			playerthreads.add(new PlayerThreadPlay<TermType, State<TermType, ReasonerStateInfoType>>(role, player, match, seesTerms, priorMove, playclock*1000+EXTRA_DEADLINE_TIME));
 		}
@@ -258,9 +262,25 @@ public class GameController<
 		return jointMove;
 	}
 
+	/**
+	 * computes the sees terms of all roles at once, if any of the players plays GDL-II
+	 */
+	private Map<RoleInterface<TermType>, Collection<TermType>> getAllSeesTerms(
+			State<TermType, ReasonerStateInfoType> priorState,
+			JointMoveInterface<TermType> priormoves) {
+		if (priormoves != null) { // not the first play message
+			for(RoleInterface<TermType> role:game.getOrderedRoles()){
+				if (match.getPlayer(role).getGdlVersion() != GDLVersion.v1) {
+					return priorState.getAllSeesTerms(game.getOrderedRoles(), priormoves);
+				}
+			}
+		}
+		return null;
+	}
+
 	private Object getSeesTermsForRole(RoleInterface<TermType> role,
 			Player<TermType, State<TermType, ReasonerStateInfoType>> player,
-			State<TermType, ReasonerStateInfoType> priorState,
+			Map<RoleInterface<TermType>, Collection<TermType>> allSeesTerms,
 			JointMoveInterface<TermType> priormoves) {
 		/*
 		 * Here is the only point at which the difference between regular GDL and GDL-II is made:
@@ -273,7 +293,7 @@ public class GameController<
 				seesTerms = priormoves;
 			} else { // GDL-II
 				// retrieve seesTerms, and send them in the PLAY/STOP messages
-				seesTerms = priorState.getSeesTerms(role, priormoves);
+				seesTerms = allSeesTerms.get(role);
 				logger.info("seesTerms("+role+") = " + seesTerms);
 			}
 		}
@@ -297,9 +317,10 @@ public class GameController<
 
 	private void gameStop(JointMoveInterface<TermType> priorJointMove, State<TermType, ReasonerStateInfoType> priorState) throws InterruptedException {
 		Collection<PlayerThreadStop<TermType, State<TermType, ReasonerStateInfoType>>> playerthreads=new LinkedList<PlayerThreadStop<TermType, State<TermType, ReasonerStateInfoType>>>();
+		Map<RoleInterface<TermType>, Collection<TermType>> allSeesTerms = getAllSeesTerms(priorState, priorJointMove);
 		for(RoleInterface<TermType> role:game.getOrderedRoles()){
 			Player<TermType, State<TermType, ReasonerStateInfoType>> player = match.getPlayer(role);
-			Object seesTerms = getSeesTermsForRole(role, player, priorState, priorJointMove);
+			Object seesTerms = getSeesTermsForRole(role, player, allSeesTerms, priorJointMove);
 			Object priorMove = getPriorMoveForRole(role, priorJointMove);
 			playerthreads.add(new PlayerThreadStop<TermType, State<TermType, ReasonerStateInfoType>>(role, player, match, seesTerms, priorMove, playclock*1000+EXTRA_DEADLINE_TIME));
 		}
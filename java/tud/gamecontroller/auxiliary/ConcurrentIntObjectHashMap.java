@@ -0,0 +1,120 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package tud.gamecontroller.auxiliary;
+
+/**
+ * A thread-safe hash map from int keys to (non-null) objects.
+ * 
+ * The keys are spread over a fixed number of IntObjectHashMap segments, each guarded by its own lock, so threads
+ * working on different keys rarely wait for each other and, as in IntObjectHashMap, no key is boxed.
+ */
+public class ConcurrentIntObjectHashMap<V> {
+
+	private static final int NUM_SEGMENTS = 16; // a power of two
+
+	private final IntObjectHashMap<V>[] segments;
+
+	public ConcurrentIntObjectHashMap() {
+		this(0);
+	}
+
+	/**
+	 * @param expectedSize the number of mappings the map should hold without having to grow
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"}) // a generic array can only be created from the raw type
+	public ConcurrentIntObjectHashMap(int expectedSize) {
+		segments = new IntObjectHashMap[NUM_SEGMENTS];
+		for (int i = 0; i < NUM_SEGMENTS; i++) {
+			segments[i] = new IntObjectHashMap<V>(expectedSize / NUM_SEGMENTS);
+		}
+	}
+
+	private IntObjectHashMap<V> segment(int key) {
+		int h = key * 0x85EBCA6B; // a different multiplier than IntObjectHashMap, so a segment's keys still spread
+		return segments[(h >>> 28) & (NUM_SEGMENTS - 1)];
+	}
+
+	public V get(int key) {
+		IntObjectHashMap<V> segment = segment(key);
+		synchronized (segment) {
+			return segment.get(key);
+		}
+	}
+
+	public boolean containsKey(int key) {
+		return get(key) != null;
+	}
+
+	/**
+	 * @return the previous value for the key or null if there was none
+	 */
+	public V put(int key, V value) {
+		IntObjectHashMap<V> segment = segment(key);
+		synchronized (segment) {
+			return segment.put(key, value);
+		}
+	}
+
+	/**
+	 * @return the current value for the key (which is not replaced) or null if there was none and the value was added
+	 */
+	public V putIfAbsent(int key, V value) {
+		IntObjectHashMap<V> segment = segment(key);
+		synchronized (segment) {
+			return segment.putIfAbsent(key, value);
+		}
+	}
+
+	/**
+	 * @return the removed value or null if there was no mapping for the key
+	 */
+	public V remove(int key) {
+		IntObjectHashMap<V> segment = segment(key);
+		synchronized (segment) {
+			return segment.remove(key);
+		}
+	}
+
+	/**
+	 * @return the number of mappings (not a snapshot if the map is modified concurrently)
+	 */
+	public int size() {
+		int size = 0;
+		for (IntObjectHashMap<V> segment : segments) {
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	public void clear() {
+		for (IntObjectHashMap<V> segment : segments) {
+			synchronized (segment) {
+				segment.clear();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,70 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package tud.gamecontroller.auxiliary;
+
+/**
+ * A hash set of ints, backed by an IntObjectHashMap, so the elements are not boxed.
+ */
+public class IntHashSet {
+
+	private final IntObjectHashMap<Boolean> map;
+
+	public IntHashSet() {
+		map = new IntObjectHashMap<Boolean>();
+	}
+
+	/**
+	 * @param expectedSize the number of elements the set should hold without having to grow
+	 */
+	public IntHashSet(int expectedSize) {
+		map = new IntObjectHashMap<Boolean>(expectedSize);
+	}
+
+	public boolean contains(int element) {
+		return map.containsKey(element);
+	}
+
+	/**
+	 * @return true if the element was not contained in the set before
+	 */
+	public boolean add(int element) {
+		return map.putIfAbsent(element, Boolean.TRUE) == null;
+	}
+
+	/**
+	 * @return true if the element was contained in the set
+	 */
+	public boolean remove(int element) {
+		return map.remove(element) != null;
+	}
+
+	public int size() {
+		return map.size();
+	}
+
+	public boolean isEmpty() {
+		return map.isEmpty();
+	}
+
+	public void clear() {
+		map.clear();
+	}
+
+}
@@ -0,0 +1,237 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package tud.gamecontroller.auxiliary;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A hash map from int keys to (non-null) objects.
+ * 
+ * Keys and values are stored in two arrays using open addressing with linear probing, so neither the keys are boxed
+ * nor an entry object is allocated per mapping, and a lookup usually touches a single slot.
+ */
+public class IntObjectHashMap<V> {
+
+	private static final int MIN_CAPACITY = 4;
+
+	private int[] keys;
+	private Object[] values; // null marks an empty slot
+	private int size = 0;
+	private int mask;
+
+	public IntObjectHashMap() {
+		this(MIN_CAPACITY);
+	}
+
+	/**
+	 * @param expectedSize the number of mappings the map should hold without having to grow
+	 */
+	public IntObjectHashMap(int expectedSize) {
+		int capacity = MIN_CAPACITY;
+		// keep the load factor at or below 1/2
+		while (capacity < 2 * expectedSize) {
+			capacity <<= 1;
+		}
+		keys = new int[capacity];
+		values = new Object[capacity];
+		mask = capacity - 1;
+	}
+
+	private static int slot(int key, int mask) {
+		int h = key * 0x9E3779B9; // spread consecutive keys and keys that only differ in the high bits
+		return (h ^ (h >>> 16)) & mask;
+	}
+
+	@SuppressWarnings("unchecked")
+	public V get(int key) {
+		for (int i = slot(key, mask);; i = (i + 1) & mask) {
+			Object value = values[i];
+			if (value == null) {
+				return null;
+			}
+			if (keys[i] == key) {
+				return (V) value;
+			}
+		}
+	}
+
+	public boolean containsKey(int key) {
+		return get(key) != null;
+	}
+
+	/**
+	 * @return the previous value for the key or null if there was none
+	 */
+	public V put(int key, V value) {
+		return put(key, value, true);
+	}
+
+	/**
+	 * @return the current value for the key (which is not replaced) or null if there was none and the value was added
+	 */
+	public V putIfAbsent(int key, V value) {
+		return put(key, value, false);
+	}
+
+	@SuppressWarnings("unchecked")
+	private V put(int key, V value, boolean replace) {
+		if (value == null) {
+			throw new NullPointerException("null values are not supported");
+		}
+		int i = slot(key, mask);
+		for (; values[i] != null; i = (i + 1) & mask) {
+			if (keys[i] == key) {
+				V previous = (V) values[i];
+				if (replace) {
+					values[i] = value;
+				}
+				return previous;
+			}
+		}
+		keys[i] = key;
+		values[i] = value;
+		if (++size > (mask + 1) / 2) {
+			resize(2 * (mask + 1));
+		}
+		return null;
+	}
+
+	/**
+	 * @return the removed value or null if there was no mapping for the key
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(int key) {
+		int i = slot(key, mask);
+		for (; values[i] != null; i = (i + 1) & mask) {
+			if (keys[i] == key) {
+				break;
+			}
+		}
+		V removed = (V) values[i];
+		if (removed == null) {
+			return null;
+		}
+		values[i] = null;
+		size--;
+		// move the following entries of the probe sequence back, so that no lookup stops at the new gap too early
+		for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+			int home = slot(keys[j], mask);
+			if ((j > i && (home <= i || home > j)) || (j < i && home <= i && home > j)) {
+				keys[i] = keys[j];
+				values[i] = values[j];
+				values[j] = null;
+				i = j;
+			}
+		}
+		return removed;
+	}
+
+	private void resize(int capacity) {
+		int[] oldKeys = keys;
+		Object[] oldValues = values;
+		keys = new int[capacity];
+		values = new Object[capacity];
+		mask = capacity - 1;
+		for (int i = 0; i < oldValues.length; i++) {
+			if (oldValues[i] != null) {
+				int j = slot(oldKeys[i], mask);
+				while (values[j] != null) {
+					j = (j + 1) & mask;
+				}
+				keys[j] = oldKeys[i];
+				values[j] = oldValues[i];
+			}
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		Arrays.fill(values, null);
+		size = 0;
+	}
+
+	/**
+	 * @return the keys of the map (in no particular order)
+	 */
+	public int[] keys() {
+		int[] result = new int[size];
+		int n = 0;
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] != null) {
+				result[n++] = keys[i];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return a view of the values of the map (in no particular order)
+	 */
+	public Collection<V> values() {
+		return new AbstractCollection<V>() {
+			public Iterator<V> iterator() {
+				return new Iterator<V>() {
+					private int next = advance(0);
+
+					private int advance(int i) {
+						while (i < values.length && values[i] == null) {
+							i++;
+						}
+						return i;
+					}
+
+					public boolean hasNext() {
+						return next < values.length;
+					}
+
+					@SuppressWarnings("unchecked")
+					public V next() {
+						if (!hasNext()) {
+							throw new NoSuchElementException();
+						}
+						V value = (V) values[next];
+						next = advance(next + 1);
+						return value;
+					}
+
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+}
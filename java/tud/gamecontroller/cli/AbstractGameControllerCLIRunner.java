@@ -24,6 +24,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.LinkedList;
+import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -37,6 +38,7 @@ import tud.gamecontroller.players.OPLikelihoodAnytimeHyperPlayer.OPLikelihoodAny
 import tud.gamecontroller.logging.PlainTextLogFormatter;
 import tud.gamecontroller.players.OPStateVarianceHyperPlayer.OPStateVarianceHyperPlayerInfo;
 import tud.gamecontroller.players.StateVarianceHyperPlayer.StateVarianceHyperPlayerInfo;
+import tud.gamecontroller.logging.AsyncStreamHandler;
 import tud.gamecontroller.logging.UnbufferedStreamHandler;
 import tud.gamecontroller.players.AnytimeHyperPlayer.AnytimeHyperPlayerInfo;
 import tud.gamecontroller.players.AnytimeHyperPlayerLikelihoodTree.AnytimeHyperPlayerLikelihoodTreeInfo;
@@ -44,6 +46,7 @@ import tud.gamecontroller.players.CheatHyperPlayer.CheatHyperPlayerInfo;
 import tud.gamecontroller.players.HyperPlayer.HyperPlayerInfo;
 import tud.gamecontroller.players.ImprovedRandomPlayer.ImprovedRandomPlayerInfo;
 import tud.gamecontroller.players.LegalPlayerInfo;
+import tud.gamecontroller.players.ISMCTSPlayer.ISMCTSPlayerInfo;
 import tud.gamecontroller.players.MCSPlayer.MCSPlayerInfo;
 import tud.gamecontroller.players.OPAnytimeHyperPlayer.OPAnytimeHyperPlayerInfo;
 import tud.gamecontroller.players.OPBiasAnytimeHyperPlayer.OPBiasAnytimeHyperPlayerInfo;
@@ -72,16 +75,46 @@ public abstract class AbstractGameControllerCLIRunner<
 	private String matchID=null;
 	private File scrambleWordList=null;
 	private Collection<PlayerInfo> playerInfos=null;
+	private Handler logHandler=null;
 	
 	public AbstractGameControllerCLIRunner(ReasonerFactoryInterface<TermType, ReasonerStateInfoType> reasonerFactory){
 		super(reasonerFactory);
+	}
+	
+	public void runFromCommandLine(String argv[]){
 		Logger logger=getLogger();
 		logger.setUseParentHandlers(false);
-		logger.addHandler(new UnbufferedStreamHandler(System.out, new PlainTextLogFormatter()));
+		// set -Dgamecontroller.log.sync=true to write every log record immediately (e.g., for debugging a crash)
+		if(Boolean.getBoolean("gamecontroller.log.sync")){
+			logHandler=new UnbufferedStreamHandler(System.out, new PlainTextLogFormatter());
+		}else{
+			logHandler=new AsyncStreamHandler(System.out, new PlainTextLogFormatter());
+		}
+		logger.addHandler(logHandler);
 		logger.setLevel(Level.ALL);
+		try {
+			parseCommandLine(argv);
+		} catch (IllegalArgumentException e) {
+			logHandler.flush();
+			System.err.println(e.getMessage());
+			printUsage();
+			System.exit(-1);
+		}
+		try {
+			run();
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		} finally {
+			logHandler.flush();
+		}
 	}
-	
-	public void runFromCommandLine(String argv[]){
+
+	/**
+	 * sets up the match from the command line arguments (MATCHID GAMEFILE STARTCLOCK PLAYCLOCK GDLVERSION [options] {players})
+	 * 
+	 * @throws IllegalArgumentException if the arguments are invalid
+	 */
+	protected void parseCommandLine(String argv[]){
 		gameFile=null;
 		startClock=0; playClock=0;
 		doPrintXML=false;
@@ -90,15 +123,6 @@ public abstract class AbstractGameControllerCLIRunner<
 		matchID=null;
 		scrambleWordList=null;
 		playerInfos=null;
-		parseCommandLine(argv);
-		try {
-			run();
-		} catch (InterruptedException e) {
-			e.printStackTrace();
-		}
-	}
-
-	private void parseCommandLine(String argv[]){
 		int index=0;
 		if(argv.length>=5){
 			matchID=argv[index]; ++index;
@@ -112,9 +136,7 @@ public abstract class AbstractGameControllerCLIRunner<
 			} else if(gdlVersionInt == 2) {
 				setGdlVersion(GDLVersion.v2);
 			} else {
-				System.err.println("gdl version \""+argv[index]+"\" not recognized");
-				printUsage();
-				System.exit(-1);
+				throw new IllegalArgumentException("gdl version \""+argv[index]+"\" not recognized");
 			}
 			
 			sightFile = null;
@@ -126,30 +148,28 @@ public abstract class AbstractGameControllerCLIRunner<
 						xmlOutputDir=argv[index]; ++index;
 						styleSheet=argv[index]; ++index;
 					}else{
-						missingArgumentsExit(argv[index-1]);
+						missingArguments(argv[index-1]);
 					}
 				}else if(argv[index].equals("-scramble")){
 					++index;
 					if(index<argv.length){
 						scrambleWordList=getFileArg(argv[index], "word list", true); ++index;
 					}else{
-						missingArgumentsExit(argv[index-1]);
+						missingArguments(argv[index-1]);
 					}
 				} else if (argv[index].equals("-sightfile")) {
 					++index;
 					if(index<argv.length){
 						sightFile=argv[index]; ++index;
 					}else{
-						missingArgumentsExit(argv[index-1]);
+						missingArguments(argv[index-1]);
 					}
 				}else{
 					index=parsePlayerArguments(index, argv);
 				}
 			}
 		}else{
-			System.err.println("wrong number of arguments");
-			printUsage();
-			System.exit(-1);
+			throw new IllegalArgumentException("wrong number of arguments");
 		}
 	}
 	
@@ -160,9 +180,7 @@ public abstract class AbstractGameControllerCLIRunner<
 			if(argv.length>=index+5){
 				int roleindex=getIntArg(argv[index], "roleindex"); ++index;
 				if(roleindex<1){
-					System.err.println("roleindex out of bounds");
-					printUsage();
-					System.exit(-1);
+					throw new IllegalArgumentException("roleindex out of bounds");
 				}
 				String name=argv[index]; ++index;
 				String host=argv[index]; ++index;
@@ -170,282 +188,261 @@ public abstract class AbstractGameControllerCLIRunner<
 				int gdl=getIntArg(argv[index], "gdl"); ++index;
 				if (gdl == 1) {
 					if (getGdlVersion() != GDLVersion.v1) {
-						System.err.println("GDL-I players not allowed in GDL-II game");
-						printUsage();
-						System.exit(-1);
+						throw new IllegalArgumentException("GDL-I players not allowed in GDL-II game");
 					}
 					player=new RemotePlayerInfo(roleindex-1, name, host, port, GDLVersion.v1);
 				} else {
 					player=new RemotePlayerInfo(roleindex-1, name, host, port, GDLVersion.v2);
 				}
 			}else{
-				missingArgumentsExit(argv[index-1]);
+				missingArguments(argv[index-1]);
 			}
 		}else if(argv[index].equals("-legal")){
 			++index;
 			if(argv.length>=index+1){
 				int roleindex=getIntArg(argv[index], "roleindex"); ++index;
 				if(roleindex<1){
-					System.err.println("roleindex out of bounds");
-					printUsage();
-					System.exit(-1);
+					throw new IllegalArgumentException("roleindex out of bounds");
 				}
 				player=new LegalPlayerInfo(roleindex-1, getGdlVersion()); // use GDL version of the game for the legal player too
 			}else{
-				missingArgumentsExit(argv[index-1]);
+				missingArguments(argv[index-1]);
 			}
 		}else if(argv[index].equals("-random")){
 			++index;
 			if(argv.length>=index+1){
 				int roleindex=getIntArg(argv[index], "roleindex"); ++index;
 				if(roleindex<1){
-					System.err.println("roleindex out of bounds");
-					printUsage();
-					System.exit(-1);
+					throw new IllegalArgumentException("roleindex out of bounds");
 				}
 				player=new RandomPlayerInfo(roleindex-1, getGdlVersion()); // use GDL version of the game for the random player too
 			}else{
-				missingArgumentsExit(argv[index-1]);
+				missingArguments(argv[index-1]);
 			}
 		}else if(argv[index].equals("-xxxx")){
 			++index;
 			if(argv.length>=index+1){
 				int roleindex=getIntArg(argv[index], "roleindex"); ++index;
 				if(roleindex<1){
-					System.err.println("roleindex out of bounds");
-					printUsage();
-					System.exit(-1);
+					throw new IllegalArgumentException("roleindex out of bounds");
 				}
 				player=new XXXXPlayerInfo(roleindex-1, getGdlVersion());
 			}else{
-				missingArgumentsExit(argv[index-1]);
+				missingArguments(argv[index-1]);
 			}
 		}else if(argv[index].equals("-mcs")){
 			++index;
 			if(argv.length>=index+1){
 				int roleindex=getIntArg(argv[index], "roleindex"); ++index;
 				if(roleindex<1){
-					System.err.println("roleindex out of bounds");
-					printUsage();
-					System.exit(-1);
+					throw new IllegalArgumentException("roleindex out of bounds");
 				}
 				player=new MCSPlayerInfo(roleindex-1, getGdlVersion());
 			}else{
-				missingArgumentsExit(argv[index-1]);
+				missingArguments(argv[index-1]);
 			}
 		}else if(argv[index].equals("-hyper")){
 			++index;
 			if(argv.length>=index+1){
 				int roleindex=getIntArg(argv[index], "roleindex"); ++index;
 				if(roleindex<1){
-					System.err.println("roleindex out of bounds");
-					printUsage();
-					System.exit(-1);
+					throw new IllegalArgumentException("roleindex out of bounds");
 				}
 				player=new HyperPlayerInfo(roleindex-1, getGdlVersion());
 			}else{
-				missingArgumentsExit(argv[index-1]);
+				missingArguments(argv[index-1]);
 			}
 		}else if(argv[index].equals("-ahyper")){
 			++index;
 			if(argv.length>=index+1){
 				int roleindex=getIntArg(argv[index], "roleindex"); ++index;
 				if(roleindex<1){
-					System.err.println("roleindex out of bounds");
-					printUsage();
-					System.exit(-1);
+					throw new IllegalArgumentException("roleindex out of bounds");
 				}
 				player=new AnytimeHyperPlayerInfo(roleindex-1, getGdlVersion());
 			}else{
-				missingArgumentsExit(argv[index-1]);
+				missingArguments(argv[index-1]);
 			}
 		}else if(argv[index].equals("-imprandom")){
 			++index;
 			if(argv.length>=index+1){
 				int roleindex=getIntArg(argv[index], "roleindex"); ++index;
 				if(roleindex<1){
-					System.err.println("roleindex out of bounds");
-					printUsage();
-					System.exit(-1);
+					throw new IllegalArgumentException("roleindex out of bounds");
 				}
 				player=new ImprovedRandomPlayerInfo(roleindex-1, getGdlVersion());
 			}else{
-				missingArgumentsExit(argv[index-1]);
+				missingArguments(argv[index-1]);
 			}
 		}else if(argv[index].equals("-ahyperlt")){
 			++index;
 			if(argv.length>=index+1){
 				int roleindex=getIntArg(argv[index], "roleindex"); ++index;
 				if(roleindex<1){
-					System.err.println("roleindex out of bounds");
-					printUsage();
-					System.exit(-1);
+					throw new IllegalArgumentException("roleindex out of bounds");
 				}
 				player=new AnytimeHyperPlayerLikelihoodTreeInfo(roleindex-1, getGdlVersion());
 			}else{
-				missingArgumentsExit(argv[index-1]);
+				missingArguments(argv[index-1]);
 			}
 		}else if(argv[index].equals("-cheat")){
 			++index;
 			if(argv.length>=index+1){
 				int roleindex=getIntArg(argv[index], "roleindex"); ++index;
 				if(roleindex<1){
-					System.err.println("roleindex out of bounds");
-					printUsage();
-					System.exit(-1);
+					throw new IllegalArgumentException("roleindex out of bounds");
 				}
 				player=new CheatHyperPlayerInfo(roleindex-1, getGdlVersion());
 			}else{
-				missingArgumentsExit(argv[index-1]);
+				missingArguments(argv[index-1]);
 			}
 		}else if(argv[index].equals("-ophyper")){
 			++index;
 			if(argv.length>=index+1){
 				int roleindex=getIntArg(argv[index], "roleindex"); ++index;
 				if(roleindex<1){
-					System.err.println("roleindex out of bounds");
-					printUsage();
-					System.exit(-1);
+					throw new IllegalArgumentException("roleindex out of bounds");
 				}
 				player=new OPAnytimeHyperPlayerInfo(roleindex-1, getGdlVersion());
 			}else{
-				missingArgumentsExit(argv[index-1]);
+				missingArguments(argv[index-1]);
+			}
+		}else if(argv[index].equals("-hyperplay")){
+			++index;
+			if(argv.length>=index+2){
+				int roleindex=getIntArg(argv[index], "roleindex"); ++index;
+				if(roleindex<1){
+					throw new IllegalArgumentException("roleindex out of bounds");
+				}
+				String configName=argv[index]; ++index;
+				player=new OPAnytimeHyperPlayerInfo(roleindex-1, configName, getGdlVersion());
+			}else{
+				missingArguments(argv[index-1]);
 			}
 		}else if(argv[index].equals("-ophyperb")){
 			++index;
 			if(argv.length>=index+1){
 				int roleindex=getIntArg(argv[index], "roleindex"); ++index;
 				if(roleindex<1){
-					System.err.println("roleindex out of bounds");
-					printUsage();
-					System.exit(-1);
+					throw new IllegalArgumentException("roleindex out of bounds");
 				}
 				player=new OPBiasAnytimeHyperPlayerInfo(roleindex-1, getGdlVersion());
 			}else{
-				missingArgumentsExit(argv[index-1]);
+				missingArguments(argv[index-1]);
 			}
 		}else if(argv[index].equals("-varhyper")){
 			++index;
 			if(argv.length>=index+1){
 				int roleindex=getIntArg(argv[index], "roleindex"); ++index;
 				if(roleindex<1){
-					System.err.println("roleindex out of bounds");
-					printUsage();
-					System.exit(-1);
+					throw new IllegalArgumentException("roleindex out of bounds");
 				}
 				player=new VarianceHyperPlayerInfo(roleindex-1, getGdlVersion());
 			}else{
-				missingArgumentsExit(argv[index-1]);
+				missingArguments(argv[index-1]);
 			}
 		}else if(argv[index].equals("-varophyper")){
 			++index;
 			if(argv.length>=index+1){
 				int roleindex=getIntArg(argv[index], "roleindex"); ++index;
 				if(roleindex<1){
-					System.err.println("roleindex out of bounds");
-					printUsage();
-					System.exit(-1);
+					throw new IllegalArgumentException("roleindex out of bounds");
 				}
 				player=new OPVarianceHyperPlayerInfo(roleindex-1, getGdlVersion());
 			}else{
-				missingArgumentsExit(argv[index-1]);
+				missingArguments(argv[index-1]);
 			}
 		}else if(argv[index].equals("-svarhyper")){
 			++index;
 			if(argv.length>=index+1){
 				int roleindex=getIntArg(argv[index], "roleindex"); ++index;
 				if(roleindex<1){
-					System.err.println("roleindex out of bounds");
-					printUsage();
-					System.exit(-1);
+					throw new IllegalArgumentException("roleindex out of bounds");
 				}
 				player=new StateVarianceHyperPlayerInfo(roleindex-1, getGdlVersion());
 			}else{
-				missingArgumentsExit(argv[index-1]);
+				missingArguments(argv[index-1]);
 			}
 		}else if(argv[index].equals("-svarophyper")){
 			++index;
 			if(argv.length>=index+1){
 				int roleindex=getIntArg(argv[index], "roleindex"); ++index;
 				if(roleindex<1){
-					System.err.println("roleindex out of bounds");
-					printUsage();
-					System.exit(-1);
+					throw new IllegalArgumentException("roleindex out of bounds");
 				}
 				player=new OPStateVarianceHyperPlayerInfo(roleindex-1, getGdlVersion());
 			}else{
-				missingArgumentsExit(argv[index-1]);
+				missingArguments(argv[index-1]);
 			}
 		}else if(argv[index].equals("-oplikehyper")){
 			++index;
 			if(argv.length>=index+1){
 				int roleindex=getIntArg(argv[index], "roleindex"); ++index;
 				if(roleindex<1){
-					System.err.println("roleindex out of bounds");
-					printUsage();
-					System.exit(-1);
+					throw new IllegalArgumentException("roleindex out of bounds");
 				}
 				player=new OPLikelihoodAnytimeHyperPlayerInfo(roleindex-1, getGdlVersion());
 			}else{
-				missingArgumentsExit(argv[index-1]);
+				missingArguments(argv[index-1]);
 			}
 		}else if(argv[index].equals("-opexpandhyper")){
 			++index;
 			if(argv.length>=index+1){
 				int roleindex=getIntArg(argv[index], "roleindex"); ++index;
 				if(roleindex<1){
-					System.err.println("roleindex out of bounds");
-					printUsage();
-					System.exit(-1);
+					throw new IllegalArgumentException("roleindex out of bounds");
 				}
 				player=new OPExpansionAnytimeHyperPlayerInfo(roleindex-1, getGdlVersion());
 			}else{
-				missingArgumentsExit(argv[index-1]);
+				missingArguments(argv[index-1]);
 			}
 		}else if(argv[index].equals("-svarlikeophyper")){
 			++index;
 			if(argv.length>=index+1){
 				int roleindex=getIntArg(argv[index], "roleindex"); ++index;
 				if(roleindex<1){
-					System.err.println("roleindex out of bounds");
-					printUsage();
-					System.exit(-1);
+					throw new IllegalArgumentException("roleindex out of bounds");
 				}
 				player=new OPLikelihoodStateVarianceHyperPlayerInfo(roleindex-1, getGdlVersion());
 			}else{
-				missingArgumentsExit(argv[index-1]);
+				missingArguments(argv[index-1]);
 			}
 		}else if(argv[index].equals("-svarnobiashyper")){
 			++index;
 			if(argv.length>=index+1){
 				int roleindex=getIntArg(argv[index], "roleindex"); ++index;
 				if(roleindex<1){
-					System.err.println("roleindex out of bounds");
-					printUsage();
-					System.exit(-1);
+					throw new IllegalArgumentException("roleindex out of bounds");
 				}
 				player=new StateVarianceNoBiasHyperPlayerInfo(roleindex-1, getGdlVersion());
 			}else{
-				missingArgumentsExit(argv[index-1]);
+				missingArguments(argv[index-1]);
+			}
+		}else if(argv[index].equals("-ismcts")){
+			++index;
+			if(argv.length>=index+1){
+				int roleindex=getIntArg(argv[index], "roleindex"); ++index;
+				if(roleindex<1){
+					throw new IllegalArgumentException("roleindex out of bounds");
+				}
+				player=new ISMCTSPlayerInfo(roleindex-1, getGdlVersion());
+			}else{
+				missingArguments(argv[index-1]);
 			}
 		}
 		else{
-			System.err.println("invalid argument: "+argv[index]);
-			printUsage();
-			System.exit(-1);
+			throw new IllegalArgumentException("invalid argument: "+argv[index]);
 		}
 		for(PlayerInfo p:playerInfos){
 			if(p.getRoleindex()==player.getRoleindex()){
-				System.err.println("duplicate roleindex: "+player.getRoleindex());
-				printUsage();
-				System.exit(-1);
+				throw new IllegalArgumentException("duplicate roleindex: "+player.getRoleindex());
 			}
 		}
 		playerInfos.add(player);
 		return index;
 	}
 
-	private void printUsage(){
+	protected void printUsage(){
 		System.out.println("usage:\n java -jar gamecontroller.jar MATCHID GAMEFILE STARTCLOCK PLAYCLOCK GDLVERSION [ -printxml OUTPUTDIR XSLT ] [-sightfile SIGHTFILE] [-scramble WORDFILE] { -remote ROLEINDEX NAME HOST PORT GDLVERSION | -legal ROLEINDEX | -random ROLEINDEX } ...");
 		System.out.println("example:\n java -jar gamecontroller.jar A_Tictactoe_Match tictactoe.gdl 120 30 1 -remote 2 MyPlayer localhost 4000 1");
 	}
@@ -454,28 +451,20 @@ public abstract class AbstractGameControllerCLIRunner<
 		try{
 			return Integer.parseInt(arg);
 		}catch(NumberFormatException ex){
-			System.err.println(argName+" argument is not an integer");
-			printUsage();
-			System.exit(-1);
+			throw new IllegalArgumentException(argName+" argument is not an integer");
 		}
-		return -1;
-	
 	}
 
 	private File getFileArg(String arg, String argName, boolean mustExist) {
 		File f=new File(arg);
 		if(mustExist && !f.exists()){
-			System.err.println(argName+" file: \""+arg+"\" doesn't exist!");
-			printUsage();
-			System.exit(-1);
+			throw new IllegalArgumentException(argName+" file: \""+arg+"\" doesn't exist!");
 		}
 		return f;
 	}
 	
-	private void missingArgumentsExit(String arg){
-		System.err.println("missing arguments for "+arg);
-		printUsage();
-		System.exit(-1);
+	private void missingArguments(String arg){
+		throw new IllegalArgumentException("missing arguments for "+arg);
 	}
 
 //	protected abstract RunnableMatch<TermType,StateType,Player<TermType, StateType>> createMatch(String matchID, GameType game, int startClock, int playClock, Map<Role<TermType>, Player<TermType, StateType>> players);
@@ -490,11 +479,12 @@ public abstract class AbstractGameControllerCLIRunner<
 		try {
 			return createGame(gameFile);
 		} catch (IOException e) {
-			System.err.println("error loading game: "+e);
-			printUsage();
-			System.exit(-1);
+			throw new IllegalArgumentException("error loading game: "+e);
 		}
-		return null;
+	}
+
+	protected File getGameFile() {
+		return gameFile;
 	}
 
 	@Override
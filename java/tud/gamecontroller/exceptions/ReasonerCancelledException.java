@@ -0,0 +1,36 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package tud.gamecontroller.exceptions;
+
+/**
+ * Thrown by a reasoner when the cancellation token attached to the calling thread is cancelled in the middle of a
+ * query. It is a RuntimeException, because the queries are made through ReasonerInterface and StateInterface, whose
+ * methods do not declare checked exceptions.
+ * 
+ * @see tud.gamecontroller.game.CancellationToken
+ */
+public class ReasonerCancelledException extends RuntimeException {
+	private static final long serialVersionUID = 6109482734871540913L;
+
+	public ReasonerCancelledException() {
+		super("the query was cancelled");
+	}
+}
@@ -0,0 +1,129 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package tud.gamecontroller.game;
+
+import tud.gamecontroller.exceptions.ReasonerCancelledException;
+
+/**
+ * A token that makes the reasoners give up the queries of a thread once it is cancelled or its deadline has passed.
+ * The token is attached to the calling thread, both reasoners check it at every resolution step of a query, and the
+ * query then throws a {@link ReasonerCancelledException} instead of returning an answer.
+ * 
+ * Tokens are meant to be attached in a try block and the previous token restored in its finally block by the same
+ * thread. One token can be attached to several threads at a time.
+ */
+public class CancellationToken {
+
+	private static final ThreadLocal<CancellationToken> current = new ThreadLocal<CancellationToken>();
+
+	private final boolean hasDeadline;
+	private final long deadline; // in terms of System.nanoTime()
+	private volatile boolean cancelled = false;
+
+	/**
+	 * creates a token without a deadline, that is only cancelled by {@link #cancel()}
+	 */
+	public CancellationToken() {
+		this.hasDeadline = false;
+		this.deadline = 0;
+	}
+
+	private CancellationToken(long deadline) {
+		this.hasDeadline = true;
+		this.deadline = deadline;
+	}
+
+	/**
+	 * creates a token that is cancelled once the given number of milliseconds from now have passed
+	 */
+	public static CancellationToken withTimeout(long millis) {
+		return new CancellationToken(System.nanoTime() + millis * 1000000L);
+	}
+
+	public void cancel() {
+		cancelled = true;
+	}
+
+	public boolean isCancelled() {
+		if (!cancelled && hasDeadline && System.nanoTime() - deadline >= 0) {
+			cancelled = true;
+		}
+		return cancelled;
+	}
+
+	/**
+	 * @throws ReasonerCancelledException if the token is cancelled
+	 */
+	public void check() {
+		if (isCancelled()) {
+			throw new ReasonerCancelledException();
+		}
+	}
+
+	/**
+	 * @return the number of milliseconds until the deadline (0 if it has passed) or Long.MAX_VALUE if there is none
+	 */
+	public long getRemainingMillis() {
+		if (!hasDeadline) {
+			return Long.MAX_VALUE;
+		}
+		return Math.max(0, (deadline - System.nanoTime()) / 1000000L);
+	}
+
+	/**
+	 * attaches this token to the calling thread
+	 * 
+	 * @return the token that was attached to the thread before (null if there was none), to be passed to
+	 *         {@link #restore(CancellationToken)} afterwards
+	 */
+	public CancellationToken attach() {
+		CancellationToken previous = current.get();
+		current.set(this);
+		return previous;
+	}
+
+	/**
+	 * attaches the token that was attached to the calling thread before {@link #attach()}
+	 */
+	public static void restore(CancellationToken previous) {
+		if (previous == null) {
+			current.remove();
+		} else {
+			current.set(previous);
+		}
+	}
+
+	/**
+	 * @return the token attached to the calling thread or null if there is none
+	 */
+	public static CancellationToken current() {
+		return current.get();
+	}
+
+	/**
+	 * @return true if a token is attached to the calling thread and it is cancelled
+	 */
+	public static boolean isCurrentCancelled() {
+		CancellationToken token = current.get();
+		return token != null && token.isCancelled();
+	}
+
+}
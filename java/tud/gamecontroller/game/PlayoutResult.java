@@ -0,0 +1,66 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package tud.gamecontroller.game;
+
+/**
+ * The outcome of a random playout run by {@link ReasonerInterface#playout}: the goal values of the roles in the state
+ * the playout stopped in and the number of joint moves it made.
+ */
+public class PlayoutResult {
+
+	private final int[] goalValues;
+	private final int depth;
+	private final boolean terminal;
+
+	public PlayoutResult(int[] goalValues, int depth, boolean terminal) {
+		this.goalValues = goalValues;
+		this.depth = depth;
+		this.terminal = terminal;
+	}
+
+	/**
+	 * @return the goal value of the role with the given index in the list of roles the playout was run for
+	 */
+	public int getGoalValue(int roleIndex) {
+		return goalValues[roleIndex];
+	}
+
+	/**
+	 * @return the goal values in the order of the roles the playout was run for
+	 */
+	public int[] getGoalValues() {
+		return goalValues.clone();
+	}
+
+	/**
+	 * @return the number of joint moves made by the playout
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * @return true if the playout ended in a terminal state, false if it was stopped at the maximal depth
+	 */
+	public boolean isTerminal() {
+		return terminal;
+	}
+
+}
@@ -22,6 +22,8 @@ package tud.gamecontroller.game;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
 import tud.gamecontroller.auxiliary.InvalidKIFException;
 
@@ -43,10 +45,47 @@ public interface ReasonerInterface<
 
 	Collection<? extends MoveInterface<TermType>> getLegalMoves(ReasonerStateInfoType state, RoleInterface<TermType> role);
 
+	/**
+	 * returns one legal move of the role, stopping the search at the first one that is found
+	 * 
+	 * @return a legal move or null if the role has no legal move
+	 */
+	MoveInterface<TermType> getAnyLegalMove(ReasonerStateInfoType state, RoleInterface<TermType> role);
+
+	/**
+	 * returns the legal moves of all the given roles, answered by one query of the reasoner
+	 * 
+	 * @return a map containing an entry for each of the roles, with an empty collection for a role without legal moves
+	 */
+	Map<RoleInterface<TermType>, Collection<? extends MoveInterface<TermType>>> getAllLegalMoves(ReasonerStateInfoType state, List<? extends RoleInterface<TermType>> roles);
+
+	/**
+	 * returns the goal values of all the given roles, answered by one query of the reasoner
+	 * 
+	 * @return a map containing an entry for each role that has a goal value in the state
+	 */
+	Map<RoleInterface<TermType>, Integer> getAllGoalValues(ReasonerStateInfoType state, List<? extends RoleInterface<TermType>> roles);
+
+	/**
+	 * plays random joint moves from the state until a terminal state is reached or maxDepth joint moves are made.
+	 * The whole playout runs on the reasoner's own representation of states and moves.
+	 * 
+	 * @param roles the roles of the game, in the order of the goal values of the result
+	 * @return the goal values of the state the playout stopped in (0 for a role without one) and the number of joint moves
+	 */
+	PlayoutResult playout(ReasonerStateInfoType state, List<? extends RoleInterface<TermType>> roles, Random random, int maxDepth);
+
 	Collection<? extends FluentInterface<TermType>> getFluents(ReasonerStateInfoType state);
 	
 	public Collection<TermType> getSeesTerms(ReasonerStateInfoType state, RoleInterface<TermType> role, JointMoveInterface<TermType> jointMove);
 	
+	/**
+	 * returns the sees terms of all the given roles after the joint move, answered by one query of the reasoner
+	 * 
+	 * @return a map containing an entry for each of the roles, with an empty collection for a role that sees nothing
+	 */
+	public Map<RoleInterface<TermType>, Collection<TermType>> getAllSeesTerms(ReasonerStateInfoType state, List<? extends RoleInterface<TermType>> roles, JointMoveInterface<TermType> jointMove);
+	
 	public Collection<TermType> getSeesXMLTerms(ReasonerStateInfoType state, RoleInterface<TermType> role);
 	
 	String getKIFGameDescription();
@@ -21,6 +21,9 @@
 package tud.gamecontroller.game;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
 public interface StateInterface<
 	TermType,
@@ -38,10 +41,33 @@ public interface StateInterface<
 
 	Collection<? extends MoveInterface<TermType>> getLegalMoves(RoleInterface<TermType> role);
 
+	/**
+	 * returns the legal moves of each of the given roles, computed together
+	 */
+	Map<RoleInterface<TermType>, Collection<? extends MoveInterface<TermType>>> getAllLegalMoves(List<? extends RoleInterface<TermType>> roles);
+
+	/**
+	 * returns the goal value of each of the given roles, computed together
+	 */
+	Map<RoleInterface<TermType>, Integer> getAllGoalValues(List<? extends RoleInterface<TermType>> roles);
+
+	/**
+	 * plays random joint moves from this state until a terminal state is reached or maxDepth joint moves are made,
+	 * without creating the states in between
+	 * 
+	 * @param roles the roles of the game, in the order of the goal values of the result
+	 */
+	PlayoutResult playout(List<? extends RoleInterface<TermType>> roles, Random random, int maxDepth);
+
 	Collection<? extends FluentInterface<TermType>> getFluents();
 	
 	Collection<TermType> getSeesTerms(RoleInterface<TermType> role, JointMoveInterface<TermType> jointMove);
 	
+	/**
+	 * returns the sees terms of each of the given roles after the joint move, computed together
+	 */
+	Map<RoleInterface<TermType>, Collection<TermType>> getAllSeesTerms(List<? extends RoleInterface<TermType>> roles, JointMoveInterface<TermType> jointMove);
+	
 	Collection<TermType> getSeesXMLTerms(RoleInterface<TermType> role);
 
 	/**
@@ -20,75 +20,286 @@
 
 package tud.gamecontroller.game.impl;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
 import tud.gamecontroller.game.FluentInterface;
 import tud.gamecontroller.game.JointMoveInterface;
 import tud.gamecontroller.game.MoveInterface;
+import tud.gamecontroller.game.PlayoutResult;
 import tud.gamecontroller.game.ReasonerInterface;
 import tud.gamecontroller.game.RoleInterface;
 import tud.gamecontroller.game.StateInterface;
+import tud.gamecontroller.instrumentation.Instrumentation;
+import tud.gamecontroller.instrumentation.Phase;
+import tud.gamecontroller.instrumentation.Span;
 import tud.gamecontroller.term.GameObjectInterface;
 import tud.gamecontroller.term.TermInterface;
 
+/**
+ * A state of a game evaluated by a reasoner.
+ * 
+ * States are immutable, so the answers to the queries that do not depend on a move (terminal, legal moves and goal
+ * value of a role, fluents, KIF string and hash code) are memoized when they are asked for the first time. The memo is
+ * shared with the copies of the state made by {@link #withReasoner(ReasonerInterface)}. Concurrent queries are
+ * not synchronized: two threads may compute the same answer at the same time, in which case either result is kept.
+ * The memoized collections are unmodifiable.
+ */
 public class State<TermType extends TermInterface, ReasonerStateInfoType>
 		implements StateInterface<TermType, State<TermType, ReasonerStateInfoType>> {
 	
 	protected ReasonerInterface<TermType, ReasonerStateInfoType> reasoner;
 	protected ReasonerStateInfoType stateInformation;
+	private final Memo memo;
 	
 	public State(ReasonerInterface<TermType, ReasonerStateInfoType> reasoner, ReasonerStateInfoType stateInformation){
+		this(reasoner, stateInformation, new Memo());
+	}
+
+	private State(ReasonerInterface<TermType, ReasonerStateInfoType> reasoner, ReasonerStateInfoType stateInformation, Memo memo){
 		this.reasoner=reasoner;
 		this.stateInformation=stateInformation;
+		this.memo=memo;
 	}
-	
+
+	public ReasonerInterface<TermType, ReasonerStateInfoType> getReasoner() {
+		return reasoner;
+	}
+
+	/**
+	 * returns this state evaluated by another reasoner of the same game, e.g., to query the state from a different
+	 * thread without contending for the lock of this state's reasoner
+	 */
+	public State<TermType, ReasonerStateInfoType> withReasoner(ReasonerInterface<TermType, ReasonerStateInfoType> reasoner) {
+		if(reasoner == this.reasoner) {
+			return this;
+		}
+		return new State<TermType, ReasonerStateInfoType>(reasoner, stateInformation, memo);
+	}
+
 	public boolean isTerminal() {
-		return reasoner.isTerminal(stateInformation);
+		Boolean terminal = memo.terminal;
+		if(terminal == null) {
+			Span span = Instrumentation.begin(Phase.TERMINAL);
+			try {
+				terminal = reasoner.isTerminal(stateInformation);
+			} finally {
+				span.end();
+			}
+			memo.terminal = terminal;
+		}
+		return terminal;
 	}
 
 	public State<TermType, ReasonerStateInfoType> getSuccessor(JointMoveInterface<TermType> jointMove) {
-		return new State<TermType, ReasonerStateInfoType>(reasoner, reasoner.getSuccessorState(stateInformation, jointMove));
+		Span span = Instrumentation.begin(Phase.NEXT);
+		try {
+			return new State<TermType, ReasonerStateInfoType>(reasoner, reasoner.getSuccessorState(stateInformation, jointMove));
+		} finally {
+			span.end();
+		}
 	}
 
 	public boolean isLegal(RoleInterface<TermType> role, MoveInterface<TermType> move) {
-		return reasoner.isLegal(stateInformation, role, move);
+		Collection<? extends MoveInterface<TermType>> legalMoves = memoizedLegalMoves(role);
+		if(legalMoves != null) {
+			return legalMoves.contains(move);
+		}
+		Span span = Instrumentation.begin(Phase.LEGAL);
+		try {
+			return reasoner.isLegal(stateInformation, role, move);
+		} finally {
+			span.end();
+		}
 	}
 
 	public int getGoalValue(RoleInterface<TermType> role) {
-		return reasoner.getGoalValue(stateInformation, role);
+		Integer goalValue = (Integer) Memo.lookup(memo.goalValues, role);
+		if(goalValue == null) {
+			Span span = Instrumentation.begin(Phase.GOAL);
+			try {
+				goalValue = reasoner.getGoalValue(stateInformation, role);
+			} finally {
+				span.end();
+			}
+			memo.goalValues = Memo.append(memo.goalValues, role, goalValue);
+		}
+		return goalValue;
 	}
 
+	/**
+	 * returns the first legal move of the role if the legal moves are already known, otherwise the first legal move
+	 * the reasoner finds without computing the others
+	 */
 	public MoveInterface<TermType> getLegalMove(RoleInterface<TermType> role) {
-		Collection<? extends MoveInterface<TermType>> legalMoves = getLegalMoves(role);
+		Collection<? extends MoveInterface<TermType>> legalMoves = memoizedLegalMoves(role);
 		if(legalMoves != null) {
-			Iterator<? extends MoveInterface<TermType>> it = legalMoves.iterator();
-			if(it.hasNext())
-				return it.next();
+			return legalMoves.isEmpty() ? null : legalMoves.iterator().next();
+		}
+		Span span = Instrumentation.begin(Phase.LEGAL);
+		try {
+			return reasoner.getAnyLegalMove(stateInformation, role);
+		} finally {
+			span.end();
 		}
-		return null;
 	}
 
 	public Collection<? extends MoveInterface<TermType>> getLegalMoves(RoleInterface<TermType> role) {
-		return reasoner.getLegalMoves(stateInformation, role);
+		Collection<? extends MoveInterface<TermType>> legalMoves = memoizedLegalMoves(role);
+		if(legalMoves == null) {
+			Span span = Instrumentation.begin(Phase.LEGAL);
+			try {
+				legalMoves = Collections.unmodifiableList(new ArrayList<MoveInterface<TermType>>(reasoner.getLegalMoves(stateInformation, role)));
+			} finally {
+				span.end();
+			}
+			memo.legalMoves = Memo.append(memo.legalMoves, role, legalMoves);
+		}
+		return legalMoves;
+	}
+
+	/**
+	 * returns the legal moves of the roles in a new map, asking the reasoner for the roles that are not memoized yet
+	 * in one query
+	 */
+	@SuppressWarnings("unchecked")
+	public Map<RoleInterface<TermType>, Collection<? extends MoveInterface<TermType>>> getAllLegalMoves(List<? extends RoleInterface<TermType>> roles) {
+		Map<RoleInterface<TermType>, Collection<? extends MoveInterface<TermType>>> legalMovesMap = new HashMap<RoleInterface<TermType>, Collection<? extends MoveInterface<TermType>>>();
+		List<RoleInterface<TermType>> missingRoles = new ArrayList<RoleInterface<TermType>>(roles.size());
+		for(RoleInterface<TermType> role : roles) {
+			Collection<? extends MoveInterface<TermType>> legalMoves = memoizedLegalMoves(role);
+			if(legalMoves == null) {
+				missingRoles.add(role);
+			} else {
+				legalMovesMap.put(role, legalMoves);
+			}
+		}
+		if(missingRoles.size() == 1) {
+			legalMovesMap.put(missingRoles.get(0), getLegalMoves(missingRoles.get(0)));
+		} else if(!missingRoles.isEmpty()) {
+			Map<RoleInterface<TermType>, Collection<? extends MoveInterface<TermType>>> answer;
+			Span span = Instrumentation.begin(Phase.LEGAL);
+			try {
+				answer = reasoner.getAllLegalMoves(stateInformation, missingRoles);
+			} finally {
+				span.end();
+			}
+			Object[] table = memo.legalMoves;
+			for(RoleInterface<TermType> role : missingRoles) {
+				Collection<? extends MoveInterface<TermType>> legalMoves = (Collection<? extends MoveInterface<TermType>>) Memo.lookup(table, role);
+				if(legalMoves == null) {
+					legalMoves = Collections.unmodifiableList(new ArrayList<MoveInterface<TermType>>(answer.get(role)));
+					table = Memo.append(table, role, legalMoves);
+				}
+				legalMovesMap.put(role, legalMoves);
+			}
+			memo.legalMoves = table;
+		}
+		return legalMovesMap;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Collection<? extends MoveInterface<TermType>> memoizedLegalMoves(RoleInterface<TermType> role) {
+		return (Collection<? extends MoveInterface<TermType>>) Memo.lookup(memo.legalMoves, role);
+	}
+
+	/**
+	 * returns the goal values of the roles in a new map, asking the reasoner for the roles that are not memoized yet
+	 * in one query
+	 */
+	public Map<RoleInterface<TermType>, Integer> getAllGoalValues(List<? extends RoleInterface<TermType>> roles) {
+		Map<RoleInterface<TermType>, Integer> goalValues = new HashMap<RoleInterface<TermType>, Integer>();
+		List<RoleInterface<TermType>> missingRoles = new ArrayList<RoleInterface<TermType>>(roles.size());
+		for(RoleInterface<TermType> role : roles) {
+			Integer goalValue = (Integer) Memo.lookup(memo.goalValues, role);
+			if(goalValue == null) {
+				missingRoles.add(role);
+			} else {
+				goalValues.put(role, goalValue);
+			}
+		}
+		if(missingRoles.size() > 1) {
+			Map<RoleInterface<TermType>, Integer> answer;
+			Span span = Instrumentation.begin(Phase.GOAL);
+			try {
+				answer = reasoner.getAllGoalValues(stateInformation, missingRoles);
+			} finally {
+				span.end();
+			}
+			Object[] table = memo.goalValues;
+			for(RoleInterface<TermType> role : missingRoles) {
+				Integer goalValue = answer.get(role);
+				if(goalValue != null && Memo.lookup(table, role) == null) {
+					table = Memo.append(table, role, goalValue);
+				}
+			}
+			memo.goalValues = table;
+		}
+		// a single role, and roles without a goal value, are left to the query for that role
+		for(RoleInterface<TermType> role : missingRoles) {
+			goalValues.put(role, getGoalValue(role));
+		}
+		return goalValues;
+	}
+	
+	public PlayoutResult playout(List<? extends RoleInterface<TermType>> roles, Random random, int maxDepth) {
+		Span span = Instrumentation.begin(Phase.PLAYOUT);
+		try {
+			return reasoner.playout(stateInformation, roles, random, maxDepth);
+		} finally {
+			span.end();
+		}
 	}
 	
+	@SuppressWarnings("unchecked")
 	public Collection<? extends FluentInterface<TermType>> getFluents() {
-		return reasoner.getFluents(stateInformation);
+		Collection<? extends FluentInterface<TermType>> fluents = (Collection<? extends FluentInterface<TermType>>) memo.fluents;
+		if(fluents == null) {
+			fluents = Collections.unmodifiableList(new ArrayList<FluentInterface<TermType>>(reasoner.getFluents(stateInformation)));
+			memo.fluents = fluents;
+		}
+		return fluents;
 	}
 	
 	/**
 	 * get the sees terms to send to players
 	 */
 	public Collection<TermType> getSeesTerms(RoleInterface<TermType> role, JointMoveInterface<TermType> jointMove) {
-		return reasoner.getSeesTerms(stateInformation, role, jointMove);
+		Span span = Instrumentation.begin(Phase.SEES);
+		try {
+			return reasoner.getSeesTerms(stateInformation, role, jointMove);
+		} finally {
+			span.end();
+		}
+	}
+	
+	/**
+	 * get the sees terms to send to each of the roles
+	 */
+	public Map<RoleInterface<TermType>, Collection<TermType>> getAllSeesTerms(List<? extends RoleInterface<TermType>> roles, JointMoveInterface<TermType> jointMove) {
+		Span span = Instrumentation.begin(Phase.SEES);
+		try {
+			return reasoner.getAllSeesTerms(stateInformation, roles, jointMove);
+		} finally {
+			span.end();
+		}
 	}
 	
 	/**
 	 * get the sees terms to put in the XML for the state
 	 */
 	public Collection<TermType> getSeesXMLTerms(RoleInterface<TermType> role) {
-		return reasoner.getSeesXMLTerms(stateInformation, role);
+		Span span = Instrumentation.begin(Phase.SEES);
+		try {
+			return reasoner.getSeesXMLTerms(stateInformation, role);
+		} finally {
+			span.end();
+		}
 	}
 	
 	@Override
@@ -103,9 +314,13 @@ public class State<TermType extends TermInterface, ReasonerStateInfoType>
 
 	@Override
 	public int hashCode() {
-		int hashCode = 31;
-		for (FluentInterface<TermType> f:getFluents())
-			hashCode += f.hashCode();
+		int hashCode = memo.hashCode;
+		if (hashCode == 0) {
+			hashCode = 31;
+			for (FluentInterface<TermType> f:getFluents())
+				hashCode += f.hashCode();
+			memo.hashCode = hashCode;
+		}
 		return hashCode;
 	}
 
@@ -113,6 +328,10 @@ public class State<TermType extends TermInterface, ReasonerStateInfoType>
 	 * returns the list of fluents as a string in infix KIF notation
 	 */
 	public String toString(){
+		String kif = memo.kif;
+		if(kif != null) {
+			return kif;
+		}
 		StringBuilder sb=new StringBuilder();
 		sb.append('(');
 		for(GameObjectInterface f:getFluents()){
@@ -125,7 +344,44 @@ public class State<TermType extends TermInterface, ReasonerStateInfoType>
 			sb.deleteCharAt(sb.length()-1);
 		}
 		sb.append(')');
-		return sb.toString();
+		kif = sb.toString();
+		memo.kif = kif;
+		return kif;
+	}
+
+	/**
+	 * The memoized answers of a state. The answers per role are kept in small arrays of alternating roles and
+	 * answers that are replaced on each addition, so that readers never see a partially updated array.
+	 */
+	private static final class Memo {
+		private volatile Boolean terminal;
+		private volatile Object[] legalMoves;
+		private volatile Object[] goalValues;
+		private volatile Collection<?> fluents;
+		private volatile String kif;
+		private volatile int hashCode;
+
+		private static Object lookup(Object[] table, Object role) {
+			if(table != null) {
+				for(int i = 0; i < table.length; i += 2) {
+					if(table[i].equals(role)) {
+						return table[i+1];
+					}
+				}
+			}
+			return null;
+		}
+
+		private static Object[] append(Object[] table, Object role, Object value) {
+			if(table == null) {
+				return new Object[] {role, value};
+			}
+			Object[] newTable = new Object[table.length + 2];
+			System.arraycopy(table, 0, newTable, 0, table.length);
+			newTable[table.length] = role;
+			newTable[table.length + 1] = value;
+			return newTable;
+		}
 	}
 
 }
@@ -23,17 +23,23 @@ package tud.gamecontroller.game.javaprover;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import java.util.Vector;
 import java.util.Map.Entry;
 import java.util.logging.Logger;
 
 import tud.gamecontroller.auxiliary.InvalidKIFException;
+import tud.gamecontroller.exceptions.ReasonerCancelledException;
+import tud.gamecontroller.game.CancellationToken;
 import tud.gamecontroller.game.FluentInterface;
 import tud.gamecontroller.game.JointMoveInterface;
 import tud.gamecontroller.game.MoveInterface;
+import tud.gamecontroller.game.PlayoutResult;
 import tud.gamecontroller.game.ReasonerInterface;
 import tud.gamecontroller.game.RoleInterface;
 import tud.gamecontroller.game.impl.Fluent;
@@ -48,6 +54,7 @@ import cs227b.teamIago.resolver.ExpList;
 import cs227b.teamIago.resolver.Expression;
 import cs227b.teamIago.resolver.Predicate;
 import cs227b.teamIago.resolver.Theory;
+import cs227b.teamIago.resolver.Variable;
 import cs227b.teamIago.util.GameState;
 
 public class Reasoner implements ReasonerInterface<Term, GameState> {
@@ -63,10 +70,22 @@ public class Reasoner implements ReasonerInterface<Term, GameState> {
 		gameSim.ParseDescIntoTheory(gameDescription);
 	}
 
+	/**
+	 * creates a reasoner from the already parsed rules of the game description
+	 */
+	public Reasoner(String gameDescription, ExpList rules) {
+		this.gameDescription=gameDescription;
+		gameSim=new JavaProversGameSimulatorEnhancer(false, true); // MODIFIED: GDL-II-conscious GameSimulator
+		gameSim.getTheory().add(rules);
+		gameSim.getTheory().buildVolatile();
+	}
+
 	public boolean isTerminal(GameState state) {
 		synchronized (gameSim) {
 			gameSim.SetGameState(state);
-			return gameSim.IsTerminal();
+			boolean terminal=gameSim.IsTerminal();
+			checkCancelled();
+			return terminal;
 		}
 	}
 
@@ -74,6 +93,7 @@ public class Reasoner implements ReasonerInterface<Term, GameState> {
 		ExpList expList;
 		synchronized (gameSim) {
 			expList=gameSim.GetRoles();
+			checkCancelled();
 		}
 		List<Role<Term>> roles=new ArrayList<Role<Term>>();
 		for(int i=0;i<expList.size();i++){
@@ -87,10 +107,26 @@ public class Reasoner implements ReasonerInterface<Term, GameState> {
 		synchronized (gameSim) {
 			gameSim.SetGameState(state);
 			gameSim.SimulateStep(movesList);
+			checkCancelled();
 			return gameSim.GetGameState();
 		}
 	}
 
+	/**
+	 * throws a ReasonerCancelledException if the cancellation token of the calling thread was cancelled during the
+	 * queries of the game simulator (some of the prover's steps give up without an InterruptedException)
+	 */
+	private void checkCancelled() {
+		if (gameSim.wasInterrupted() || CancellationToken.isCurrentCancelled()) {
+			throw cancelled();
+		}
+	}
+
+	private ReasonerCancelledException cancelled() {
+		gameSim.recoverFromInterruption();
+		return new ReasonerCancelledException();
+	}
+
 	private static ExpList getMovesListForJointMove(JointMoveInterface<Term> jointMove) {
 		ExpList movesList=new ExpList();
 		assert(jointMove!=null);
@@ -110,12 +146,11 @@ public class Reasoner implements ReasonerInterface<Term, GameState> {
 			expList.add(role.getTerm().getExpr());
 			expList.add(move.getTerm().getExpr());
 			try {
-				return gameSim.getTheory().findp(new Predicate(new Atom("LEGAL"),expList));
+				boolean legal=gameSim.getTheory().findp(new Predicate(new Atom("LEGAL"),expList));
+				checkCancelled();
+				return legal;
 			} catch (InterruptedException e) {
-				Logger logger=Logger.getLogger(Reasoner.class.getName());
-				logger.severe("reasoner was interrupted during findp("+new Predicate(new Atom("LEGAL"),expList)+"):");
-				logger.severe(e.getMessage());
-				return false;
+				throw cancelled();
 			}
 		}
 	}
@@ -123,7 +158,9 @@ public class Reasoner implements ReasonerInterface<Term, GameState> {
 	public int getGoalValue(GameState state, RoleInterface<Term> role) {
 		synchronized (gameSim) {
 			gameSim.SetGameState(state);
-			return gameSim.GetGoalValue(role.getTerm().getExpr());
+			int goalValue=gameSim.GetGoalValue(role.getTerm().getExpr());
+			checkCancelled();
+			return goalValue;
 		}
 	}
 
@@ -132,6 +169,7 @@ public class Reasoner implements ReasonerInterface<Term, GameState> {
 		synchronized (gameSim) {
 			gameSim.SetGameState(state);
 			exprlist=gameSim.GetLegalMoves(role.getTerm().getExpr());
+			checkCancelled();
 		}
 		Collection<MoveInterface<Term>> moveslist;
 		if (exprlist == null) {
@@ -146,9 +184,151 @@ public class Reasoner implements ReasonerInterface<Term, GameState> {
 		return moveslist;
 	}
 
+	public MoveInterface<Term> getAnyLegalMove(GameState state, RoleInterface<Term> role) {
+		Variable moveVariable=new Variable("X");
+		ExpList expList=new ExpList();
+		expList.add(role.getTerm().getExpr());
+		expList.add(moveVariable);
+		Predicate query=new Predicate(new Atom("LEGAL"),expList);
+		Expression move;
+		synchronized (gameSim) {
+			gameSim.SetGameState(state);
+			try {
+				move=gameSim.getTheory().findx(moveVariable, query);
+				checkCancelled();
+			} catch (InterruptedException e) {
+				throw cancelled();
+			}
+		}
+		if (move == null) {
+			Logger.getLogger(Reasoner.class.getCanonicalName()).warning(role+" has no legal move!");
+			return null;
+		}
+		return new Move<Term>(new Term(move));
+	}
+
+	public Map<RoleInterface<Term>, Collection<? extends MoveInterface<Term>>> getAllLegalMoves(GameState state, List<? extends RoleInterface<Term>> roles) {
+		ExpList expList=new ExpList();
+		expList.add(new Variable("R"));
+		expList.add(new Variable("X"));
+		Predicate query=new Predicate(new Atom("LEGAL"),expList);
+		ExpList legalExprs;
+		synchronized (gameSim) {
+			gameSim.SetGameState(state);
+			try {
+				legalExprs=gameSim.getTheory().finds(query, query);
+				checkCancelled();
+			} catch (InterruptedException e) {
+				throw cancelled();
+			}
+		}
+		Map<Term, List<MoveInterface<Term>>> movesByRole=new HashMap<Term, List<MoveInterface<Term>>>();
+		for(RoleInterface<Term> role:roles){
+			movesByRole.put(role.getTerm(), new ArrayList<MoveInterface<Term>>());
+		}
+		if (legalExprs != null) {
+			for(int i=0;i<legalExprs.size();i++){
+				ExpList operands=((Connective)legalExprs.get(i)).getOperands();
+				List<MoveInterface<Term>> moves=movesByRole.get(new Term(operands.get(0)));
+				if (moves != null) {
+					moves.add(new Move<Term>(new Term(operands.get(1))));
+				}
+			}
+		}
+		Map<RoleInterface<Term>, Collection<? extends MoveInterface<Term>>> legalMoves=new HashMap<RoleInterface<Term>, Collection<? extends MoveInterface<Term>>>();
+		for(RoleInterface<Term> role:roles){
+			List<MoveInterface<Term>> moves=movesByRole.get(role.getTerm());
+			if (moves.isEmpty()) {
+				Logger.getLogger(Reasoner.class.getCanonicalName()).warning(role+" has no legal move!");
+			}
+			legalMoves.put(role, moves);
+		}
+		return legalMoves;
+	}
+
+	public Map<RoleInterface<Term>, Integer> getAllGoalValues(GameState state, List<? extends RoleInterface<Term>> roles) {
+		ExpList expList=new ExpList();
+		expList.add(new Variable("R"));
+		expList.add(new Variable("X"));
+		Predicate query=new Predicate(new Atom("GOAL"),expList);
+		ExpList goalExprs;
+		synchronized (gameSim) {
+			gameSim.SetGameState(state);
+			try {
+				goalExprs=gameSim.getTheory().finds(query, query);
+				checkCancelled();
+			} catch (InterruptedException e) {
+				throw cancelled();
+			}
+		}
+		Map<Term, RoleInterface<Term>> rolesByTerm=getRolesByTerm(roles);
+		Map<RoleInterface<Term>, Integer> goalValues=new HashMap<RoleInterface<Term>, Integer>();
+		if (goalExprs != null) {
+			for(int i=0;i<goalExprs.size();i++){
+				ExpList operands=((Connective)goalExprs.get(i)).getOperands();
+				RoleInterface<Term> role=rolesByTerm.get(new Term(operands.get(0)));
+				// like GameSimulator.GetGoalValue, the first goal value found for a role counts
+				if (role != null && !goalValues.containsKey(role)) {
+					goalValues.put(role, Integer.parseInt(operands.get(1).toString()));
+				}
+			}
+		}
+		return goalValues;
+	}
+
+	private static Map<Term, RoleInterface<Term>> getRolesByTerm(List<? extends RoleInterface<Term>> roles) {
+		Map<Term, RoleInterface<Term>> rolesByTerm=new HashMap<Term, RoleInterface<Term>>();
+		for(RoleInterface<Term> role:roles){
+			rolesByTerm.put(role.getTerm(), role);
+		}
+		return rolesByTerm;
+	}
+
+	/**
+	 * runs the playout on the expressions of the prover: the legal moves are already the DOES facts that make up the next
+	 * joint move, and the states in between are never turned into GameStates
+	 */
+	public PlayoutResult playout(GameState state, List<? extends RoleInterface<Term>> roles, Random random, int maxDepth) {
+		Expression[] roleExprs=new Expression[roles.size()];
+		for(int i=0;i<roleExprs.length;i++){
+			roleExprs[i]=roles.get(i).getTerm().getExpr();
+		}
+		int[] goalValues=new int[roleExprs.length];
+		int depth=0;
+		boolean terminal;
+		synchronized (gameSim) {
+			gameSim.SetGameState(state);
+			while(!(terminal=gameSim.IsTerminal()) && depth<maxDepth){
+				ExpList movesList=new ExpList();
+				for(Expression roleExpr:roleExprs){
+					ExpList doesExprs=gameSim.GetLegalMoves(roleExpr);
+					checkCancelled();
+					if(doesExprs==null || doesExprs.size()==0){
+						Logger.getLogger(Reasoner.class.getCanonicalName()).warning(roleExpr+" has no legal move!");
+						movesList=null;
+						break;
+					}
+					movesList.add(doesExprs.get(random.nextInt(doesExprs.size())));
+				}
+				if(movesList==null){
+					break;
+				}
+				gameSim.SimulateStep(movesList);
+				checkCancelled();
+				depth++;
+			}
+			for(int i=0;i<roleExprs.length;i++){
+				goalValues[i]=gameSim.GetGoalValue(roleExprs[i]);
+			}
+			checkCancelled();
+		}
+		return new PlayoutResult(goalValues, depth, terminal);
+	}
+
 	public GameState getInitialState() {
 		synchronized (gameSim) {
 			gameSim.SimulateStart();
+			checkCancelled();
 			return gameSim.getTheory().getState();
 		}
 	}
@@ -184,6 +364,7 @@ public class Reasoner implements ReasonerInterface<Term, GameState> {
 		synchronized (gameSim) {
 			gameSim.SetGameState(state);
 			el = gameSim.getSeesTerms(role.getTerm().getExpr(), movesList);
+			checkCancelled();
 		}
 		Collection<Term> terms;
 		if (el != null) {
@@ -197,12 +378,41 @@ public class Reasoner implements ReasonerInterface<Term, GameState> {
 		return terms;
 	}
 	
+	public Map<RoleInterface<Term>, Collection<Term>> getAllSeesTerms(GameState state, List<? extends RoleInterface<Term>> roles, JointMoveInterface<Term> jointMove) {
+		ExpList movesList = getMovesListForJointMove(jointMove);
+		ExpList players = new ExpList();
+		for(RoleInterface<Term> role:roles) {
+			players.add(role.getTerm().getExpr());
+		}
+		ExpList[] els;
+		synchronized (gameSim) {
+			gameSim.SetGameState(state);
+			els = gameSim.getSeesTerms(players, movesList);
+			checkCancelled();
+		}
+		Map<RoleInterface<Term>, Collection<Term>> seesTerms = new HashMap<RoleInterface<Term>, Collection<Term>>();
+		for(int i=0;i<els.length;i++) {
+			Collection<Term> terms;
+			if (els[i] != null) {
+				terms = new Vector<Term>(els[i].size());
+				for(int j=0;j<els[i].size();j++) {
+					terms.add(new Term(els[i].get(j)));
+				}
+			} else {
+				terms = Collections.emptyList();
+			}
+			seesTerms.put(roles.get(i), terms);
+		}
+		return seesTerms;
+	}
+	
 	public Collection<Term> getSeesXMLTerms(GameState state, RoleInterface<Term> role) {
 		ExpList el = null;
 		synchronized (gameSim) {
 			gameSim.SetGameState(state);
 			Expression r = role.getTerm().getExpr();
 			el = gameSim.getSeesXMLTerms(r);
+			checkCancelled();
 		}
 		Collection<Term> terms;
 		if (el != null) {
@@ -19,15 +19,47 @@
 
 package tud.gamecontroller.game.javaprover;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import tud.gamecontroller.ReasonerFactoryInterface;
 import tud.gamecontroller.game.ReasonerInterface;
 import tud.gamecontroller.term.TermFactoryInterface;
+import cs227b.teamIago.parser.Parser;
+import cs227b.teamIago.resolver.ExpList;
 import cs227b.teamIago.util.GameState;
 
 public final class ReasonerFactory implements
 		ReasonerFactoryInterface<Term, GameState> {
+	
+	private static final int MAX_PARSED_GAMES = 16;
+	
+	// parsed rules of the most recently used game descriptions (least recently used first), parsing is the most
+	// expensive part of creating a reasoner (the prover never modifies the parsed expressions, so all reasoners of a
+	// game can share them); the number of games is bounded because a controller service keeps running across games
+	private static final Map<String, ExpList> parsedRules = Collections.synchronizedMap(new LinkedHashMap<String, ExpList>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, ExpList> eldest) {
+			return size() > MAX_PARSED_GAMES;
+		}
+	});
+	
 	public ReasonerInterface<Term, GameState> createReasoner(String gameDescription, String gameName) {
-		return new Reasoner(gameDescription);
+		ExpList rules = parsedRules.get(gameDescription);
+		if (rules == null) {
+			rules = Parser.parseDesc(gameDescription);
+			synchronized (parsedRules) {
+				ExpList previous = parsedRules.get(gameDescription);
+				if (previous != null) {
+					rules = previous;
+				} else {
+					parsedRules.put(gameDescription, rules);
+				}
+			}
+		}
+		return new Reasoner(gameDescription, rules);
 	}
 
 	public TermFactoryInterface<Term> getTermFactory() {
@@ -0,0 +1,121 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package tud.gamecontroller.game.jocular;
+
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import stanfordlogic.gdl.SymbolTable;
+import stanfordlogic.knowledge.BasicKB;
+import stanfordlogic.knowledge.KnowledgeBase;
+import stanfordlogic.prover.GroundFact;
+import stanfordlogic.prover.Substitution;
+import stanfordlogic.prover.VariableFact;
+
+/**
+ * A knowledge base that adds the does facts of a joint move on top of the facts of a state without changing the
+ * state's own knowledge base. Facts of the does relation are kept in the overlay, all other facts are read from the
+ * state, which is never written to. This way the successors of a state for several joint moves can be computed
+ * one after the other without the moves of one leaking into the next.
+ */
+public class MoveOverlayKB extends KnowledgeBase {
+
+	private final KnowledgeBase state;
+	private final KnowledgeBase moves;
+	private final int doesToken;
+
+	/**
+	 * @param state the knowledge base of the state, which is only read
+	 * @param doesToken the token of the does relation
+	 */
+	public MoveOverlayKB(KnowledgeBase state, int doesToken) {
+		this.state = state;
+		this.moves = new BasicKB();
+		this.doesToken = doesToken;
+	}
+
+	private KnowledgeBase getKb(int relationName) {
+		return relationName == doesToken ? moves : state;
+	}
+
+	/**
+	 * removes the moves, the state is left as it is
+	 */
+	@Override
+	public void clear() {
+		moves.clear();
+	}
+
+	@Override
+	public int getNumFacts() {
+		return state.getNumFacts() + moves.getNumFacts();
+	}
+
+	@Override
+	public boolean isTrue(GroundFact fact) {
+		return getKb(fact.getRelationName()).isTrue(fact);
+	}
+
+	@Override
+	public void setTrue(GroundFact fact) {
+		if (fact.getRelationName() != doesToken) {
+			throw new UnsupportedOperationException("only does facts can be added on top of a state");
+		}
+		moves.setTrue(fact);
+	}
+
+	@Override
+	public void setFalse(GroundFact fact) {
+		if (fact.getRelationName() != doesToken) {
+			throw new UnsupportedOperationException("only does facts can be removed from on top of a state");
+		}
+		moves.setFalse(fact);
+	}
+
+	@Override
+	public void stateToGdl(PrintStream target, SymbolTable symTab) {
+		state.stateToGdl(target, symTab);
+		moves.stateToGdl(target, symTab);
+	}
+
+	@Override
+	public Iterator<GroundFact> getIterator() {
+		return getFacts(false).iterator();
+	}
+
+	@Override
+	public List<GroundFact> getFacts(boolean sorted) {
+		List<GroundFact> facts = state.getFacts(false);
+		facts.addAll(moves.getFacts(false));
+		if (sorted) {
+			Collections.sort(facts);
+		}
+		return facts;
+	}
+
+	@Override
+	public List<Substitution> getUnifiable(VariableFact fact) {
+		return getKb(fact.getRelationName()).getUnifiable(fact);
+	}
+
+}
@@ -22,8 +22,11 @@ package tud.gamecontroller.game.jocular;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import java.util.Map.Entry;
 
 import stanfordlogic.gdl.GdlExpression;
@@ -39,12 +42,16 @@ import stanfordlogic.prover.AbstractReasoner;
 import stanfordlogic.prover.BasicReasoner;
 import stanfordlogic.prover.Fact;
 import stanfordlogic.prover.GroundFact;
+import stanfordlogic.prover.Implication;
 import stanfordlogic.prover.ProofContext;
 import stanfordlogic.prover.TermVariable;
 import stanfordlogic.prover.VariableFact;
+import tud.gamecontroller.exceptions.ReasonerCancelledException;
+import tud.gamecontroller.game.CancellationToken;
 import tud.gamecontroller.game.FluentInterface;
 import tud.gamecontroller.game.JointMoveInterface;
 import tud.gamecontroller.game.MoveInterface;
+import tud.gamecontroller.game.PlayoutResult;
 import tud.gamecontroller.game.ReasonerInterface;
 import tud.gamecontroller.game.RoleInterface;
 import tud.gamecontroller.game.impl.Fluent;
@@ -62,13 +69,32 @@ public class Reasoner implements ReasonerInterface<Term, ProofContext> {
 	private RelationNameProcessor trueProcessor;
 	private GdlList rules;
 
+	/**
+	 * the prover looks up the rules for every fact it cannot answer from the knowledge bases alone, so this is where
+	 * the cancellation token of the calling thread is checked
+	 */
+	private static class CancellableReasoner extends BasicReasoner {
+
+		public CancellableReasoner(KnowledgeBase kb, Map<Integer, List<Implication>> rules, Parser p) {
+			super(kb, rules, p);
+		}
+
+		@Override
+		public List<Implication> getRules(Fact f) {
+			if (CancellationToken.isCurrentCancelled()) {
+				throw new ReasonerCancelledException();
+			}
+			return super.getRules(f);
+		}
+	}
+
 	public Reasoner(String gameDescription, Parser parser){
 		this.parser=parser;
 		rules=parser.parse(gameDescription);
         GameInformation gameInfo = new MetaGdl(parser).examineGdl(rules);
         KnowledgeBase staticKb = new BasicKB();
         staticKb.loadWithFacts(gameInfo.getAllGrounds());
-        this.stanfordlogicReasoner = new BasicReasoner(staticKb, gameInfo.getIndexedRules(), parser);
+        this.stanfordlogicReasoner = new CancellableReasoner(staticKb, gameInfo.getIndexedRules(), parser);
 		queryTerminal=makeQuery("terminal");
 		queryNext=makeQuery("next", "?f");
 		queryTrue=makeQuery("true", "?f");
@@ -117,11 +143,13 @@ public class Reasoner implements ReasonerInterface<Term, ProofContext> {
 	 * @see tud.gamecontroller.game.jocular.ReasonerInterface#getSuccessorState(tud.gamecontroller.game.jocular.State, tud.gamecontroller.game.JointMove)
 	 */
 	public synchronized ProofContext getSuccessorState(ProofContext state, JointMoveInterface<Term> jointMove) {
+		// the moves are put on top of the state, so that the state itself stays unchanged
+		KnowledgeBase moves=new MoveOverlayKB(state.getVolatileKb(), parser.TOK_DOES);
 		for(Entry<? extends RoleInterface<Term>, ? extends MoveInterface<Term>> entry:jointMove.entrySet()){
 			GroundFact moveFact=new GroundFact(parser.TOK_DOES, entry.getKey().getTerm().getExpr(), entry.getValue().getTerm().getExpr());
-        	state.getVolatileKb().setTrue(moveFact);
-        }
-		Iterable<GroundFact> nextFacts=stanfordlogicReasoner.getAllAnswersIterable(queryNext, state);
+			moves.setTrue(moveFact);
+		}
+		Iterable<GroundFact> nextFacts=stanfordlogicReasoner.getAllAnswersIterable(queryNext, new ProofContext(moves, parser));
         KnowledgeBase kb = new BasicKB();
         for (GroundFact fact : nextFacts) {
         	kb.setTrue(trueProcessor.processFact(fact));
@@ -156,6 +184,103 @@ public class Reasoner implements ReasonerInterface<Term, ProofContext> {
 		return moveslist;
 	}
 
+	/* (non-Javadoc)
+	 * @see tud.gamecontroller.game.ReasonerInterface#getAnyLegalMove(java.lang.Object, tud.gamecontroller.game.RoleInterface)
+	 */
+	public synchronized MoveInterface<Term> getAnyLegalMove(ProofContext state, RoleInterface<Term> role) {
+		GroundFact legalFact=stanfordlogicReasoner.getAnAnswer(new VariableFact(parser.TOK_LEGAL, role.getTerm().getExpr(), TermVariable.makeTermVariable()), state);
+		if (legalFact == null) {
+			return null;
+		}
+		return new Move<Term>(new Term(parser.getSymbolTable(), legalFact.getTerm(1)));
+	}
+
+	/* (non-Javadoc)
+	 * @see tud.gamecontroller.game.ReasonerInterface#getAllLegalMoves(java.lang.Object, java.util.List)
+	 */
+	public synchronized Map<RoleInterface<Term>, Collection<? extends MoveInterface<Term>>> getAllLegalMoves(ProofContext state, List<? extends RoleInterface<Term>> roles) {
+		Map<Term, Collection<MoveInterface<Term>>> movesByRole=new HashMap<Term, Collection<MoveInterface<Term>>>();
+		for(RoleInterface<Term> role:roles){
+			movesByRole.put(role.getTerm(), new LinkedList<MoveInterface<Term>>());
+		}
+		Iterable<GroundFact> legalFacts=stanfordlogicReasoner.getAllAnswersIterable(new VariableFact(parser.TOK_LEGAL, TermVariable.makeTermVariable(), TermVariable.makeTermVariable()), state);
+		for (GroundFact fact : legalFacts) {
+			Collection<MoveInterface<Term>> moves=movesByRole.get(new Term(parser.getSymbolTable(), fact.getTerm(0)));
+			if (moves != null) {
+				moves.add(new Move<Term>(new Term(parser.getSymbolTable(), fact.getTerm(1))));
+			}
+		}
+		Map<RoleInterface<Term>, Collection<? extends MoveInterface<Term>>> legalMoves=new HashMap<RoleInterface<Term>, Collection<? extends MoveInterface<Term>>>();
+		for(RoleInterface<Term> role:roles){
+			legalMoves.put(role, movesByRole.get(role.getTerm()));
+		}
+		return legalMoves;
+	}
+
+	/* (non-Javadoc)
+	 * @see tud.gamecontroller.game.ReasonerInterface#getAllGoalValues(java.lang.Object, java.util.List)
+	 */
+	public synchronized Map<RoleInterface<Term>, Integer> getAllGoalValues(ProofContext state, List<? extends RoleInterface<Term>> roles) {
+		Map<Term, RoleInterface<Term>> rolesByTerm=new HashMap<Term, RoleInterface<Term>>();
+		for(RoleInterface<Term> role:roles){
+			rolesByTerm.put(role.getTerm(), role);
+		}
+		Map<RoleInterface<Term>, Integer> goalValues=new HashMap<RoleInterface<Term>, Integer>();
+		Iterable<GroundFact> goalFacts=stanfordlogicReasoner.getAllAnswersIterable(new VariableFact(parser.TOK_GOAL, TermVariable.makeTermVariable(), TermVariable.makeTermVariable()), state);
+		for (GroundFact fact : goalFacts) {
+			RoleInterface<Term> role=rolesByTerm.get(new Term(parser.getSymbolTable(), fact.getTerm(0)));
+			if (role != null && !goalValues.containsKey(role)) {
+				goalValues.put(role, Integer.parseInt(fact.getTerm(1).toString(parser.getSymbolTable())));
+			}
+		}
+		return goalValues;
+	}
+
+	/* (non-Javadoc)
+	 * @see tud.gamecontroller.game.ReasonerInterface#playout(java.lang.Object, java.util.List, java.util.Random, int)
+	 */
+	public synchronized PlayoutResult playout(ProofContext state, List<? extends RoleInterface<Term>> roles, Random random, int maxDepth) {
+		stanfordlogic.prover.Term[] roleExprs=new stanfordlogic.prover.Term[roles.size()];
+		for(int i=0;i<roleExprs.length;i++){
+			roleExprs[i]=roles.get(i).getTerm().getExpr();
+		}
+		ProofContext context=state;
+		int depth=0;
+		boolean terminal;
+		while(!(terminal=stanfordlogicReasoner.getAnAnswer(queryTerminal, context)!=null) && depth<maxDepth){
+			GroundFact[] moveFacts=new GroundFact[roleExprs.length];
+			for(int i=0;i<roleExprs.length;i++){
+				List<GroundFact> legalFacts=stanfordlogicReasoner.getAllAnswers(new VariableFact(parser.TOK_LEGAL, roleExprs[i], TermVariable.makeTermVariable()), context);
+				if(legalFacts.isEmpty()){
+					moveFacts=null;
+					break;
+				}
+				moveFacts[i]=new GroundFact(parser.TOK_DOES, roleExprs[i], legalFacts.get(random.nextInt(legalFacts.size())).getTerm(1));
+			}
+			if(moveFacts==null){
+				break;
+			}
+			KnowledgeBase moves=new MoveOverlayKB(context.getVolatileKb(), parser.TOK_DOES);
+			for(GroundFact moveFact:moveFacts){
+				moves.setTrue(moveFact);
+			}
+			KnowledgeBase kb = new BasicKB();
+			for (GroundFact fact : stanfordlogicReasoner.getAllAnswersIterable(queryNext, new ProofContext(moves, parser))) {
+				kb.setTrue(trueProcessor.processFact(fact));
+			}
+			context=new ProofContext(kb, parser);
+			depth++;
+		}
+		int[] goalValues=new int[roleExprs.length];
+		for(int i=0;i<roleExprs.length;i++){
+			GroundFact goalFact=stanfordlogicReasoner.getAnAnswer(new VariableFact(parser.TOK_GOAL, roleExprs[i], TermVariable.makeTermVariable()), context);
+			if(goalFact!=null){
+				goalValues[i]=Integer.parseInt(goalFact.getTerm(1).toString(parser.getSymbolTable()));
+			}
+		}
+		return new PlayoutResult(goalValues, depth, terminal);
+	}
+
 	/* (non-Javadoc)
 	 * @see tud.gamecontroller.game.jocular.ReasonerInterface#getFluents(tud.gamecontroller.game.jocular.State)
 	 */
@@ -196,6 +321,12 @@ public class Reasoner implements ReasonerInterface<Term, ProofContext> {
 		throw new UnsupportedOperationException();
 	}
 
+	public synchronized Map<RoleInterface<Term>, Collection<Term>> getAllSeesTerms(
+			ProofContext state, List<? extends RoleInterface<Term>> roles,
+			JointMoveInterface<Term> jointMove) {
+		throw new UnsupportedOperationException();
+	}
+
 	public synchronized Collection<Term> getSeesXMLTerms(
 			ProofContext state, RoleInterface<Term> role) {
 		throw new UnsupportedOperationException();
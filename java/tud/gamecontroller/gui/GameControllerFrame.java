@@ -28,9 +28,7 @@ import java.awt.Insets;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.Map;
-import java.util.logging.Handler;
 import java.util.logging.Level;
-import java.util.logging.LogRecord;
 import java.util.logging.Logger;
 
 import javax.swing.JButton;
@@ -77,6 +75,12 @@ public class GameControllerFrame<
 
 	private JTextArea jLogPane = null;
 
+	private LogPaneHandler jLogPaneAppender = null;
+
+	private JLabel jLogLevelLabel = null;
+
+	private JComboBox jLogLevelComboBox = null;
+
 	private JLabel jMatchIDLabel = null;
 	
 	private JLabel jStartclockLabel = null;
@@ -247,6 +251,9 @@ public class GameControllerFrame<
 			jButtonsPanel.add(getJStopGameButton(), null);
 			jButtonsPanel.add(getJExitButton(), null);
 			jButtonsPanel.add(getJClearLogButton(), null);
+			jLogLevelLabel = new JLabel("Log level");
+			jButtonsPanel.add(jLogLevelLabel, null);
+			jButtonsPanel.add(getJLogLevelComboBox(), null);
 		}
 		return jButtonsPanel;
 	}
@@ -271,19 +278,14 @@ public class GameControllerFrame<
 		return jStartGameButton;
 	}
 
+	/**
+	 * The maximal number of lines shown in the log pane can be set with the system property "gamecontroller.gui.loglines".
+	 */
 	protected void setupLogger(Logger logger) {
-		Handler jLogPaneAppender=new Handler(){
-			public void close() throws SecurityException {
-			}
-			public void flush() {
-			}
-			public void publish(LogRecord record) {
-				jLogPane.append(getFormatter().format(record));
-				jLogPane.setCaretPosition(jLogPane.getText().length());
-			}
-		};
+		getJLogPane();
+		jLogPaneAppender=new LogPaneHandler(jLogPane, Integer.getInteger("gamecontroller.gui.loglines", LogPaneHandler.DEFAULT_MAX_LINES), LogPaneHandler.DEFAULT_FLUSH_INTERVAL);
 		jLogPaneAppender.setFormatter(new PlainTextLogFormatter());
-		jLogPaneAppender.setLevel(Level.ALL);
+		jLogPaneAppender.setLevel((Level)getJLogLevelComboBox().getSelectedItem());
 		logger.addHandler(jLogPaneAppender);
 	}
 	
@@ -374,6 +376,9 @@ public class GameControllerFrame<
 			jClearLogButton.setText("Clear Log");
 			jClearLogButton.addActionListener(new java.awt.event.ActionListener() {
 				public void actionPerformed(java.awt.event.ActionEvent e) {
+					if (jLogPaneAppender != null) {
+						jLogPaneAppender.clear();
+					}
 					jLogPane.setText(null);
 				}
 			});
@@ -381,6 +386,26 @@ public class GameControllerFrame<
 		return jClearLogButton;
 	}
 
+	/**
+	 * This method initializes jLogLevelComboBox	
+	 * 	
+	 * @return javax.swing.JComboBox	
+	 */
+	private JComboBox getJLogLevelComboBox() {
+		if (jLogLevelComboBox == null) {
+			jLogLevelComboBox = new JComboBox(new Level[]{Level.ALL, Level.FINE, Level.INFO, Level.WARNING, Level.SEVERE});
+			jLogLevelComboBox.setSelectedItem(Level.ALL);
+			jLogLevelComboBox.addActionListener(new java.awt.event.ActionListener() {
+				public void actionPerformed(java.awt.event.ActionEvent e) {
+					if (jLogPaneAppender != null) {
+						jLogPaneAppender.setLevel((Level)jLogLevelComboBox.getSelectedItem());
+					}
+				}
+			});
+		}
+		return jLogLevelComboBox;
+	}
+
 	/**
 	 * This method initializes jLogPane	
 	 * 	
@@ -0,0 +1,137 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package tud.gamecontroller.gui;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+import javax.swing.JTextArea;
+import javax.swing.Timer;
+import javax.swing.text.BadLocationException;
+
+/**
+ * A log handler that shows log records in a JTextArea without slowing down the threads that log.
+ * 
+ * Records are only put into a lock-free queue by publish(). A swing timer periodically moves them to the text area in
+ * one batch on the event dispatch thread. The text area keeps at most maxLines lines: whenever it grows beyond that,
+ * the oldest lines are cut off.
+ */
+public class LogPaneHandler extends Handler {
+
+	public static final int DEFAULT_MAX_LINES = 5000;
+	public static final int DEFAULT_FLUSH_INTERVAL = 200; // in milliseconds
+	
+	private final JTextArea textArea;
+	private final ConcurrentLinkedQueue<LogRecord> queue = new ConcurrentLinkedQueue<LogRecord>();
+	private final AtomicInteger queueSize = new AtomicInteger(0);
+	private final Timer flushTimer;
+	private volatile int maxLines;
+	
+	public LogPaneHandler(JTextArea textArea) {
+		this(textArea, DEFAULT_MAX_LINES, DEFAULT_FLUSH_INTERVAL);
+	}
+
+	public LogPaneHandler(JTextArea textArea, int maxLines, int flushInterval) {
+		this.textArea = textArea;
+		this.maxLines = maxLines;
+		flushTimer = new Timer(flushInterval, new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				flushToTextArea();
+			}
+		});
+		flushTimer.setCoalesce(true);
+		flushTimer.start();
+	}
+
+	public void publish(LogRecord record) {
+		if (!isLoggable(record)) {
+			return;
+		}
+		queue.offer(record);
+		// records that would be trimmed from the text area anyway are dropped right away
+		if (queueSize.incrementAndGet() > maxLines && queue.poll() != null) {
+			queueSize.decrementAndGet();
+		}
+	}
+
+	/**
+	 * moves all queued records to the text area (must be called on the event dispatch thread)
+	 */
+	private void flushToTextArea() {
+		if (queue.isEmpty()) {
+			return;
+		}
+		StringBuilder batch = new StringBuilder();
+		LogRecord record;
+		while ((record = queue.poll()) != null) {
+			queueSize.decrementAndGet();
+			if (isLoggable(record)) {
+				batch.append(getFormatter().format(record));
+			}
+		}
+		if (batch.length() == 0) {
+			return;
+		}
+		textArea.append(batch.toString());
+		trimTextArea();
+		textArea.setCaretPosition(textArea.getDocument().getLength());
+	}
+
+	private void trimTextArea() {
+		int excessLines = textArea.getLineCount() - maxLines;
+		if (excessLines > 0) {
+			try {
+				textArea.getDocument().remove(0, textArea.getLineStartOffset(excessLines));
+			} catch (BadLocationException e) {
+				textArea.setText(null);
+			}
+		}
+	}
+
+	public int getMaxLines() {
+		return maxLines;
+	}
+
+	public void setMaxLines(int maxLines) {
+		this.maxLines = maxLines;
+	}
+
+	/**
+	 * discards all records that were not shown yet
+	 */
+	public void clear() {
+		while (queue.poll() != null) {
+			queueSize.decrementAndGet();
+		}
+	}
+
+	public void flush() {
+	}
+
+	public void close() throws SecurityException {
+		flushTimer.stop();
+		clear();
+	}
+
+}
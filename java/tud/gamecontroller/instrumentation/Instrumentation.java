@@ -0,0 +1,194 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package tud.gamecontroller.instrumentation;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.logging.Logger;
+
+/**
+ * Times the phases of matches: reasoner calls, the hypergame updates and probes of the hyperplayers and the message
+ * round-trips of the game controller.
+ * 
+ * Instrumentation is disabled unless the system property {@value #PROPERTY} is set when this class is loaded:
+ * <ul>
+ * <li><code>-D{@value #PROPERTY}=jfr</code> emits the spans as JDK Flight Recorder events named
+ * {@value JfrSink#EVENT_NAME}, which are recorded by a recording started with
+ * <code>-XX:StartFlightRecording=filename=FILE.jfr</code> (Java 11 or newer).</li>
+ * <li><code>-D{@value #PROPERTY}=FILE</code> appends the spans to the CSV file FILE.</li>
+ * </ul>
+ * While disabled, {@link #begin(Phase)} returns a span that does nothing, so the instrumented code costs a branch.
+ * 
+ * Each span is tagged with the match, step and role set for the thread that begins it. The tags of a thread are
+ * inherited by the threads it starts, e.g., the game controller sets the match and step and the player threads it
+ * starts set the role. A thread that has not set a tag itself sees the current value of the thread that started it.
+ * 
+ * {@link InstrumentationSummary} turns both kinds of recordings into a per-phase time breakdown per step.
+ */
+public final class Instrumentation {
+
+	/**
+	 * the system property that enables instrumentation
+	 */
+	public static final String PROPERTY = "gamecontroller.instrumentation";
+
+	private static final Logger logger = Logger.getLogger(Instrumentation.class.getName());
+
+	private static final Sink sink = createSink(System.getProperty(PROPERTY));
+
+	private static final InheritableThreadLocal<Tags> tags = new InheritableThreadLocal<Tags>() {
+		@Override
+		protected Tags initialValue() {
+			return new Tags(null);
+		}
+		@Override
+		protected Tags childValue(Tags parentValue) {
+			return new Tags(parentValue);
+		}
+	};
+
+	private Instrumentation() {
+	}
+
+	private static Sink createSink(String setting) {
+		if (setting == null || setting.length() == 0 || setting.equalsIgnoreCase("off")) {
+			return null;
+		}
+		try {
+			final Sink sink;
+			if (setting.equalsIgnoreCase("jfr")) {
+				sink = new JfrSink();
+			} else {
+				sink = new RecordingSink(new File(setting));
+			}
+			Runtime.getRuntime().addShutdownHook(new Thread("InstrumentationShutdown") {
+				@Override
+				public void run() {
+					sink.flush();
+				}
+			});
+			return sink;
+		} catch (IOException ex) {
+			logger.severe("instrumentation disabled, could not open recording " + setting + ": " + ex);
+		} catch (ReflectiveOperationException ex) {
+			logger.severe("instrumentation disabled, JDK Flight Recorder is not available: " + ex);
+		}
+		return null;
+	}
+
+	/**
+	 * @return true if spans are recorded
+	 */
+	public static boolean isEnabled() {
+		return sink != null;
+	}
+
+	/**
+	 * starts timing a phase in the current thread
+	 * 
+	 * @return the span to end when the phase is over
+	 */
+	public static Span begin(Phase phase) {
+		if (sink == null) {
+			return Span.NONE;
+		}
+		Tags t = tags.get();
+		return sink.begin(phase, t.getMatch(), t.getStep(), t.getRole());
+	}
+
+	/**
+	 * tags the spans of the current thread and the threads it starts with a match
+	 */
+	public static void setMatch(String match) {
+		if (sink != null) {
+			tags.get().match = match;
+		}
+	}
+
+	/**
+	 * tags the spans of the current thread and the threads it starts with a step of the match, 0 being the start clock
+	 */
+	public static void setStep(int step) {
+		if (sink != null) {
+			tags.get().step = step;
+		}
+	}
+
+	/**
+	 * tags the spans of the current thread and the threads it starts with a role
+	 */
+	public static void setRole(String role) {
+		if (sink != null) {
+			tags.get().role = role;
+		}
+	}
+
+	/**
+	 * records all spans that have ended so far, e.g., before reading a recording file that is still open
+	 */
+	public static void flush() {
+		if (sink != null) {
+			sink.flush();
+		}
+	}
+
+	/**
+	 * The tags of a thread. Unset tags are looked up in the tags of the thread that started it, which may still change
+	 * them, so that pooled threads started during one step see the step that is current when they begin a span.
+	 */
+	private static final class Tags {
+		private final Tags parent;
+		private volatile String match;
+		private volatile int step = -1;
+		private volatile String role;
+
+		private Tags(Tags parent) {
+			this.parent = parent;
+		}
+
+		private String getMatch() {
+			for (Tags t = this; t != null; t = t.parent) {
+				if (t.match != null) {
+					return t.match;
+				}
+			}
+			return null;
+		}
+
+		private int getStep() {
+			for (Tags t = this; t != null; t = t.parent) {
+				if (t.step >= 0) {
+					return t.step;
+				}
+			}
+			return -1;
+		}
+
+		private String getRole() {
+			for (Tags t = this; t != null; t = t.parent) {
+				if (t.role != null) {
+					return t.role;
+				}
+			}
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,205 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package tud.gamecontroller.instrumentation;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Turns a recording of {@link Instrumentation} into a per-phase time breakdown per step.
+ * 
+ * For every match, step and role it prints how often each phase ran, the total and mean time spent in it and the
+ * share of the message round-trip of that step, followed by the totals of each phase over the whole match. Spans of phases that nest are counted in each phase, and spans of
+ * threads that run in parallel are added up, so the shares of one step do not add up to 100%. Spans without a role
+ * were recorded by the game controller itself.
+ * 
+ * Usage: <code>InstrumentationSummary RECORDING [MATCHID]</code> where RECORDING is a CSV file written with
+ * <code>-Dgamecontroller.instrumentation=FILE</code> or, when running on Java 11 or newer, a JFR file of a flight
+ * recording made with <code>-Dgamecontroller.instrumentation=jfr</code>.
+ */
+public class InstrumentationSummary {
+
+	private static final String NO_ROLE = "(controller)";
+
+	/**
+	 * match -> step -> role -> phase -> {count, total nanoseconds}
+	 */
+	private final Map<String, Map<Integer, Map<String, Map<Phase, long[]>>>> times = new TreeMap<String, Map<Integer, Map<String, Map<Phase, long[]>>>>();
+	private final String matchFilter;
+
+	public InstrumentationSummary(String matchFilter) {
+		this.matchFilter = matchFilter;
+	}
+
+	/**
+	 * adds one span to the summary
+	 */
+	public void add(String match, int step, String role, Phase phase, long durationNanos) {
+		if (match == null || match.length() == 0) {
+			match = "-";
+		}
+		if (phase == null || (matchFilter != null && !matchFilter.equals(match))) {
+			return;
+		}
+		if (role == null || role.length() == 0) {
+			role = NO_ROLE;
+		}
+		Map<Integer, Map<String, Map<Phase, long[]>>> steps = times.get(match);
+		if (steps == null) {
+			steps = new TreeMap<Integer, Map<String, Map<Phase, long[]>>>();
+			times.put(match, steps);
+		}
+		Map<String, Map<Phase, long[]>> roles = steps.get(step);
+		if (roles == null) {
+			roles = new TreeMap<String, Map<Phase, long[]>>();
+			steps.put(step, roles);
+		}
+		Map<Phase, long[]> phases = roles.get(role);
+		if (phases == null) {
+			phases = new EnumMap<Phase, long[]>(Phase.class);
+			roles.put(role, phases);
+		}
+		long[] countAndTotal = phases.get(phase);
+		if (countAndTotal == null) {
+			countAndTotal = new long[2];
+			phases.put(phase, countAndTotal);
+		}
+		countAndTotal[0]++;
+		countAndTotal[1] += durationNanos;
+	}
+
+	/**
+	 * adds the spans of a CSV recording
+	 */
+	public void readCSV(File file) throws IOException {
+		BufferedReader reader = new BufferedReader(new FileReader(file));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.length() == 0 || line.equals(RecordingSink.HEADER)) {
+					continue;
+				}
+				String[] fields = line.split(",", -1);
+				if (fields.length != 7) {
+					throw new IOException("malformed line in " + file + ": " + line);
+				}
+				add(fields[0], Integer.parseInt(fields[1]), fields[2], Phase.forLabel(fields[3]), Long.parseLong(fields[6]));
+			}
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * adds the events of a flight recording, which can only be read on Java 11 or newer
+	 */
+	public void readJFR(File file) throws IOException, ReflectiveOperationException {
+		List<?> events = (List<?>) Class.forName("jdk.jfr.consumer.RecordingFile").getMethod("readAllEvents", java.nio.file.Path.class).invoke(null, file.toPath());
+		Class<?> recordedEventClass = Class.forName("jdk.jfr.consumer.RecordedEvent");
+		Method getEventType = recordedEventClass.getMethod("getEventType");
+		Method getName = Class.forName("jdk.jfr.EventType").getMethod("getName");
+		Method getDuration = recordedEventClass.getMethod("getDuration");
+		Method getValue = recordedEventClass.getMethod("getValue", String.class);
+		for (Object event : events) {
+			if (!JfrSink.EVENT_NAME.equals(getName.invoke(getEventType.invoke(event)))) {
+				continue;
+			}
+			Object step = getValue.invoke(event, JfrSink.FIELD_STEP);
+			add((String) getValue.invoke(event, JfrSink.FIELD_MATCH),
+					step == null ? -1 : ((Number) step).intValue(),
+					(String) getValue.invoke(event, JfrSink.FIELD_ROLE),
+					Phase.forLabel((String) getValue.invoke(event, JfrSink.FIELD_PHASE)),
+					((java.time.Duration) getDuration.invoke(event)).toNanos());
+		}
+	}
+
+	/**
+	 * prints the breakdown
+	 */
+	public void print(StringBuilder out) {
+		for (Map.Entry<String, Map<Integer, Map<String, Map<Phase, long[]>>>> match : times.entrySet()) {
+			out.append("match ").append(match.getKey()).append('\n');
+			out.append(String.format("%5s %-16s %-17s %8s %12s %12s %8s%n", "step", "role", "phase", "count", "total_ms", "mean_us", "%msg"));
+			for (Map.Entry<Integer, Map<String, Map<Phase, long[]>>> step : match.getValue().entrySet()) {
+				for (Map.Entry<String, Map<Phase, long[]>> role : step.getValue().entrySet()) {
+					long messageTime = 0;
+					for (Phase phase : new Phase[] {Phase.START_MESSAGE, Phase.PLAY_MESSAGE, Phase.STOP_MESSAGE}) {
+						long[] countAndTotal = role.getValue().get(phase);
+						if (countAndTotal != null) {
+							messageTime += countAndTotal[1];
+						}
+					}
+					for (Map.Entry<Phase, long[]> phase : role.getValue().entrySet()) {
+						long count = phase.getValue()[0];
+						long total = phase.getValue()[1];
+						out.append(String.format("%5d %-16s %-17s %8d %12.3f %12.1f %8s%n",
+								step.getKey(), role.getKey(), phase.getKey().getLabel(), count,
+								total / 1e6, total / 1e3 / count,
+								messageTime > 0 ? String.format("%.1f", 100.0 * total / messageTime) : "-"));
+					}
+				}
+			}
+			out.append(String.format("%5s %-16s %-17s %8s %12s%n", "total", "", "phase", "count", "total_ms"));
+			Map<Phase, long[]> totals = new EnumMap<Phase, long[]>(Phase.class);
+			for (Map<String, Map<Phase, long[]>> roles : match.getValue().values()) {
+				for (Map<Phase, long[]> phases : roles.values()) {
+					for (Map.Entry<Phase, long[]> phase : phases.entrySet()) {
+						long[] total = totals.get(phase.getKey());
+						if (total == null) {
+							total = new long[2];
+							totals.put(phase.getKey(), total);
+						}
+						total[0] += phase.getValue()[0];
+						total[1] += phase.getValue()[1];
+					}
+				}
+			}
+			for (Map.Entry<Phase, long[]> phase : totals.entrySet()) {
+				out.append(String.format("%5s %-16s %-17s %8d %12.3f%n", "", "", phase.getKey().getLabel(), phase.getValue()[0], phase.getValue()[1] / 1e6));
+			}
+			out.append('\n');
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 1 || args.length > 2) {
+			System.err.println("usage: java " + InstrumentationSummary.class.getName() + " RECORDING [MATCHID]");
+			System.exit(-1);
+		}
+		File file = new File(args[0]);
+		InstrumentationSummary summary = new InstrumentationSummary(args.length > 1 ? args[1] : null);
+		if (file.getName().endsWith(".jfr")) {
+			summary.readJFR(file);
+		} else {
+			summary.readCSV(file);
+		}
+		StringBuilder out = new StringBuilder();
+		summary.print(out);
+		System.out.print(out);
+	}
+
+}
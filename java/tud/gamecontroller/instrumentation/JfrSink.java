@@ -0,0 +1,129 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package tud.gamecontroller.instrumentation;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Emits spans as JDK Flight Recorder events of the type {@value #EVENT_NAME} with the fields {@value #FIELD_PHASE},
+ * {@value #FIELD_MATCH}, {@value #FIELD_STEP} and {@value #FIELD_ROLE}.
+ * 
+ * The game controller is built for Java versions without JFR, so the event type is defined at runtime through
+ * jdk.jfr.EventFactory and all calls go through reflection. The events are only recorded while a flight recording
+ * is running.
+ */
+class JfrSink implements Sink {
+
+	static final String EVENT_NAME = "tud.gamecontroller.Phase";
+	static final String FIELD_PHASE = "phase";
+	static final String FIELD_MATCH = "match";
+	static final String FIELD_STEP = "step";
+	static final String FIELD_ROLE = "role";
+
+	private final Object factory;
+	private final Method newEvent;
+	private final Method beginEvent;
+	private final Method endEvent;
+	private final Method shouldCommit;
+	private final Method set;
+	private final Method commit;
+
+	JfrSink() throws ReflectiveOperationException {
+		Class<?> annotationElementClass = Class.forName("jdk.jfr.AnnotationElement");
+		Constructor<?> newAnnotationElement = annotationElementClass.getConstructor(Class.class, Object.class);
+		List<Object> annotations = new ArrayList<Object>();
+		annotations.add(newAnnotationElement.newInstance(Class.forName("jdk.jfr.Name"), EVENT_NAME));
+		annotations.add(newAnnotationElement.newInstance(Class.forName("jdk.jfr.Label"), "GameController Phase"));
+		annotations.add(newAnnotationElement.newInstance(Class.forName("jdk.jfr.Category"), new String[] {"GameController"}));
+
+		// the order of the fields is the index used by set
+		Constructor<?> newValueDescriptor = Class.forName("jdk.jfr.ValueDescriptor").getConstructor(Class.class, String.class);
+		List<Object> fields = new ArrayList<Object>();
+		fields.add(newValueDescriptor.newInstance(String.class, FIELD_PHASE));
+		fields.add(newValueDescriptor.newInstance(String.class, FIELD_MATCH));
+		fields.add(newValueDescriptor.newInstance(int.class, FIELD_STEP));
+		fields.add(newValueDescriptor.newInstance(String.class, FIELD_ROLE));
+
+		Class<?> factoryClass = Class.forName("jdk.jfr.EventFactory");
+		factory = factoryClass.getMethod("create", List.class, List.class).invoke(null, annotations, fields);
+		newEvent = factoryClass.getMethod("newEvent");
+		Class<?> eventClass = Class.forName("jdk.jfr.Event");
+		beginEvent = eventClass.getMethod("begin");
+		endEvent = eventClass.getMethod("end");
+		shouldCommit = eventClass.getMethod("shouldCommit");
+		set = eventClass.getMethod("set", int.class, Object.class);
+		commit = eventClass.getMethod("commit");
+	}
+
+	public Span begin(Phase phase, String match, int step, String role) {
+		try {
+			Object event = newEvent.invoke(factory);
+			beginEvent.invoke(event);
+			return new EventSpan(event, phase, match, step, role);
+		} catch (IllegalAccessException ex) {
+			throw new IllegalStateException(ex);
+		} catch (InvocationTargetException ex) {
+			throw new IllegalStateException(ex.getCause());
+		}
+	}
+
+	public void flush() {
+		// the flight recorder writes the recording itself
+	}
+
+	private class EventSpan extends Span {
+		private final Object event;
+		private final Phase phase;
+		private final String match;
+		private final int step;
+		private final String role;
+
+		private EventSpan(Object event, Phase phase, String match, int step, String role) {
+			this.event = event;
+			this.phase = phase;
+			this.match = match;
+			this.step = step;
+			this.role = role;
+		}
+
+		@Override
+		public void end() {
+			try {
+				endEvent.invoke(event);
+				if ((Boolean) shouldCommit.invoke(event)) {
+					set.invoke(event, 0, phase.getLabel());
+					set.invoke(event, 1, match);
+					set.invoke(event, 2, step);
+					set.invoke(event, 3, role);
+					commit.invoke(event);
+				}
+			} catch (IllegalAccessException ex) {
+				throw new IllegalStateException(ex);
+			} catch (InvocationTargetException ex) {
+				throw new IllegalStateException(ex.getCause());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,79 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package tud.gamecontroller.instrumentation;
+
+/**
+ * The phases of a match that {@link Instrumentation} can time.
+ * 
+ * Phases nest: a forwardHypergame contains the reasoner calls and backtracks it makes, and a message round-trip
+ * contains everything the local player does to answer it.
+ */
+public enum Phase {
+	/** a legal move query of the reasoner */
+	LEGAL("legal"),
+	/** a successor state computation of the reasoner */
+	NEXT("next"),
+	/** a sees terms query of the reasoner */
+	SEES("sees"),
+	/** a goal value query of the reasoner */
+	GOAL("goal"),
+	/** a terminal query of the reasoner */
+	TERMINAL("terminal"),
+	/** a random playout run inside the reasoner */
+	PLAYOUT("playout"),
+	/** one call of forwardHypergame of a hyperplayer */
+	FORWARD_HYPERGAME("forwardHypergame"),
+	/** one backtrack of a hypergame model */
+	BACKTRACK("backtrack"),
+	/** one simulated move of anytimeMoveSelection */
+	PROBE("probe"),
+	/** the round-trip of a START message from the game controller to a player */
+	START_MESSAGE("start"),
+	/** the round-trip of a PLAY message from the game controller to a player */
+	PLAY_MESSAGE("play"),
+	/** the round-trip of a STOP message from the game controller to a player */
+	STOP_MESSAGE("stop");
+
+	private final String label;
+
+	private Phase(String label) {
+		this.label = label;
+	}
+
+	/**
+	 * @return the name of the phase in recordings
+	 */
+	public String getLabel() {
+		return label;
+	}
+
+	/**
+	 * @return the phase with the given name in recordings or null if there is none
+	 */
+	public static Phase forLabel(String label) {
+		for (Phase phase : values()) {
+			if (phase.label.equals(label)) {
+				return phase;
+			}
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,136 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package tud.gamecontroller.instrumentation;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Logger;
+
+/**
+ * Appends spans to a CSV file with the columns {@value #HEADER}.
+ * 
+ * Ended spans are queued without locking and written by a daemon thread, so threads that record many short spans do
+ * not wait for each other or for the file.
+ */
+class RecordingSink implements Sink {
+
+	static final String HEADER = "match,step,role,phase,thread,start_ns,duration_ns";
+
+	private static final long WRITE_INTERVAL = 200;
+
+	private final ConcurrentLinkedQueue<RecordedSpan> ended = new ConcurrentLinkedQueue<RecordedSpan>();
+	private final Writer writer;
+	private final long origin = System.nanoTime();
+
+	RecordingSink(File file) throws IOException {
+		boolean newFile = !file.exists() || file.length() == 0;
+		writer = new BufferedWriter(new FileWriter(file, true));
+		if (newFile) {
+			writer.write(HEADER);
+			writer.write('\n');
+			writer.flush();
+		}
+		Thread writerThread = new Thread("InstrumentationWriter") {
+			@Override
+			public void run() {
+				try {
+					while (true) {
+						Thread.sleep(WRITE_INTERVAL);
+						flush();
+					}
+				} catch (InterruptedException ex) {
+					flush();
+				}
+			}
+		};
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+
+	public Span begin(Phase phase, String match, int step, String role) {
+		return new RecordedSpan(phase, match, step, role);
+	}
+
+	public void flush() {
+		synchronized (writer) {
+			try {
+				RecordedSpan span;
+				while ((span = ended.poll()) != null) {
+					writeField(span.match);
+					writer.write(',');
+					writer.write(Integer.toString(span.step));
+					writer.write(',');
+					writeField(span.role);
+					writer.write(',');
+					writer.write(span.phase.getLabel());
+					writer.write(',');
+					writeField(span.thread);
+					writer.write(',');
+					writer.write(Long.toString(span.start - origin));
+					writer.write(',');
+					writer.write(Long.toString(span.duration));
+					writer.write('\n');
+				}
+				writer.flush();
+			} catch (IOException ex) {
+				Logger.getLogger(RecordingSink.class.getName()).warning("could not write instrumentation recording: " + ex);
+			}
+		}
+	}
+
+	/**
+	 * writes a tag, replacing the characters that would break the CSV line
+	 */
+	private void writeField(String value) throws IOException {
+		if (value != null) {
+			writer.write(value.replace(',', ';').replace('\n', ' '));
+		}
+	}
+
+	private class RecordedSpan extends Span {
+		private final Phase phase;
+		private final String match;
+		private final int step;
+		private final String role;
+		private final String thread;
+		private final long start;
+		private long duration;
+
+		private RecordedSpan(Phase phase, String match, int step, String role) {
+			this.phase = phase;
+			this.match = match;
+			this.step = step;
+			this.role = role;
+			this.thread = Thread.currentThread().getName();
+			this.start = System.nanoTime();
+		}
+
+		@Override
+		public void end() {
+			duration = System.nanoTime() - start;
+			ended.add(this);
+		}
+	}
+
+}
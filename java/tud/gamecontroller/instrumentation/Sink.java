@@ -0,0 +1,37 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package tud.gamecontroller.instrumentation;
+
+/**
+ * Where {@link Instrumentation} records the spans.
+ */
+interface Sink {
+
+	/**
+	 * @return a started span of the phase tagged with the match, step and role of the current thread
+	 */
+	Span begin(Phase phase, String match, int step, String role);
+
+	/**
+	 * records all spans that have ended so far
+	 */
+	void flush();
+
+}
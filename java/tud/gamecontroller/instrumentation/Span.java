@@ -0,0 +1,43 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package tud.gamecontroller.instrumentation;
+
+/**
+ * A timed phase that was started by {@link Instrumentation#begin(Phase)} and is recorded when it ends.
+ * 
+ * Spans are meant to be ended in a finally block by the thread that began them.
+ */
+public abstract class Span {
+
+	/**
+	 * the span returned while instrumentation is disabled, ending it does nothing
+	 */
+	static final Span NONE = new Span() {
+		@Override
+		public void end() {
+		}
+	};
+
+	/**
+	 * ends this span and records it
+	 */
+	public abstract void end();
+
+}
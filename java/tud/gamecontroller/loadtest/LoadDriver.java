@@ -0,0 +1,278 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package tud.gamecontroller.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import tud.gamecontroller.ConnectionEstablishedNotifier;
+import tud.gamecontroller.GDLVersion;
+import tud.gamecontroller.GameController;
+import tud.gamecontroller.ReasonerFactoryInterface;
+import tud.gamecontroller.game.MoveInterface;
+import tud.gamecontroller.game.RoleInterface;
+import tud.gamecontroller.game.RunnableMatchInterface;
+import tud.gamecontroller.game.impl.Game;
+import tud.gamecontroller.game.impl.RunnableMatch;
+import tud.gamecontroller.game.impl.State;
+import tud.gamecontroller.game.javaprover.ReasonerFactory;
+import tud.gamecontroller.game.javaprover.Term;
+import tud.gamecontroller.logging.AsyncStreamHandler;
+import tud.gamecontroller.logging.PlainTextLogFormatter;
+import tud.gamecontroller.players.Player;
+import tud.gamecontroller.players.RemotePlayer;
+import tud.gamecontroller.scrambling.IdentityGameScrambler;
+import tud.gamecontroller.term.TermInterface;
+import cs227b.teamIago.util.GameState;
+
+/**
+ * Runs many matches of a game concurrently against LoopbackPlayerServers to measure the throughput and the per message
+ * overhead of the game controller.
+ * 
+ * Every role is played by a RemotePlayer (as GDL-I player, i.e., it gets the joint moves) that connects to the
+ * LoopbackPlayerServer of its role. The RemotePlayers measure the round trip time of each message; the time the server
+ * spent on the message is subtracted, so what remains is the time spent in the game controller and on the loopback
+ * connection.
+ */
+public class LoadDriver<TermType extends TermInterface, ReasonerStateInfoType> {
+
+	private final ReasonerFactoryInterface<TermType, ReasonerStateInfoType> reasonerFactory;
+	private final Game<TermType, ReasonerStateInfoType> game;
+	private final int startClock;
+	private final int playClock;
+	private final ThinkTime thinkTime;
+	private final LoopbackPlayerServer.MovePolicy movePolicy;
+	private final LoadStatistics statistics = new LoadStatistics();
+	private final Logger logger;
+	private final List<LoopbackPlayerServer<TermType, ReasonerStateInfoType>> servers =
+			new ArrayList<LoopbackPlayerServer<TermType, ReasonerStateInfoType>>();
+	private final AtomicInteger numFinishedMatches = new AtomicInteger();
+	private final AtomicInteger numFailedMatches = new AtomicInteger();
+
+	public LoadDriver(ReasonerFactoryInterface<TermType, ReasonerStateInfoType> reasonerFactory, Game<TermType, ReasonerStateInfoType> game,
+			int startClock, int playClock, ThinkTime thinkTime, LoopbackPlayerServer.MovePolicy movePolicy, Logger logger) {
+		this.reasonerFactory = reasonerFactory;
+		this.game = game;
+		this.startClock = startClock;
+		this.playClock = playClock;
+		this.thinkTime = thinkTime;
+		this.movePolicy = movePolicy;
+		this.logger = logger;
+	}
+
+	public LoadStatistics getStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * runs numMatches matches, at most concurrency of them at the same time, and prints the results to System.out
+	 */
+	public void run(int numMatches, int concurrency) throws IOException, InterruptedException {
+		for (RoleInterface<TermType> role : game.getOrderedRoles()) {
+			LoopbackPlayerServer<TermType, ReasonerStateInfoType> server = new LoopbackPlayerServer<TermType, ReasonerStateInfoType>(
+					"player-" + role.getKIFForm(), reasonerFactory, game.getGdlVersion(), thinkTime, movePolicy, statistics);
+			server.start();
+			servers.add(server);
+		}
+		ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		threadMXBean.resetPeakThreadCount();
+		ExecutorService matchPool = Executors.newFixedThreadPool(concurrency);
+		List<Future<?>> results = new ArrayList<Future<?>>(numMatches);
+		long startTime = System.nanoTime();
+		try {
+			for (int i = 0; i < numMatches; i++) {
+				final String matchID = "load_" + game.getName() + "_" + i;
+				results.add(matchPool.submit(new Callable<Void>() {
+					public Void call() throws Exception {
+						runMatch(matchID);
+						return null;
+					}
+				}));
+			}
+			for (Future<?> result : results) {
+				try {
+					result.get();
+				} catch (ExecutionException e) {
+					numFailedMatches.incrementAndGet();
+					logger.severe("match failed: " + e.getCause());
+				}
+			}
+		} finally {
+			matchPool.shutdownNow();
+			for (LoopbackPlayerServer<TermType, ReasonerStateInfoType> server : servers) {
+				server.shutdown(1000);
+			}
+		}
+		long wallTime = System.nanoTime() - startTime;
+
+		System.out.println("game: " + game.getName() + ", startclock: " + startClock + "s, playclock: " + playClock
+				+ "s, think time: " + thinkTime + "ms, moves: " + movePolicy.toString().toLowerCase());
+		System.out.println("matches: " + numFinishedMatches.get() + " finished, " + numFailedMatches.get() + " failed, "
+				+ concurrency + " concurrent");
+		System.out.println(String.format("wall time: %.3fs, %.2f matches/s", wallTime / 1e9, numFinishedMatches.get() / (wallTime / 1e9)));
+		System.out.println("peak number of threads: " + threadMXBean.getPeakThreadCount());
+		statistics.print(System.out);
+	}
+
+	private void runMatch(String matchID) throws InterruptedException {
+		Map<RoleInterface<TermType>, Player<TermType, State<TermType, ReasonerStateInfoType>>> players =
+				new HashMap<RoleInterface<TermType>, Player<TermType, State<TermType, ReasonerStateInfoType>>>();
+		List<? extends RoleInterface<TermType>> roles = game.getOrderedRoles();
+		for (int i = 0; i < roles.size(); i++) {
+			players.put(roles.get(i), new TimedRemotePlayer(servers.get(i)));
+		}
+		RunnableMatchInterface<TermType, State<TermType, ReasonerStateInfoType>> match =
+				new RunnableMatch<TermType, ReasonerStateInfoType>(matchID, game, startClock, playClock, players);
+		GameController<TermType, ReasonerStateInfoType> gameController = new GameController<TermType, ReasonerStateInfoType>(match, logger);
+		try {
+			gameController.runGame();
+		} finally {
+			for (LoopbackPlayerServer<TermType, ReasonerStateInfoType> server : servers) {
+				server.endMatch(matchID);
+			}
+			statistics.matchFinished(matchID);
+		}
+		numFinishedMatches.incrementAndGet();
+	}
+
+	/**
+	 * a RemotePlayer that records the overhead of each message, i.e., its round trip time minus the time the
+	 * LoopbackPlayerServer spent on it
+	 */
+	private class TimedRemotePlayer extends RemotePlayer<TermType, State<TermType, ReasonerStateInfoType>> {
+
+		private final LoopbackPlayerServer<TermType, ReasonerStateInfoType> server;
+
+		public TimedRemotePlayer(LoopbackPlayerServer<TermType, ReasonerStateInfoType> server) {
+			super(server.toString(), server.getHost(), server.getPort(), GDLVersion.v1, new IdentityGameScrambler());
+			this.server = server;
+		}
+
+		@Override
+		public void gameStart(RunnableMatchInterface<TermType, State<TermType, ReasonerStateInfoType>> match, RoleInterface<TermType> role,
+				ConnectionEstablishedNotifier notifier) {
+			long t0 = System.nanoTime();
+			super.gameStart(match, role, notifier);
+			recordOverhead("START", System.nanoTime() - t0);
+		}
+
+		@Override
+		public MoveInterface<TermType> gamePlay(Object seesTerms, Object priorMove, ConnectionEstablishedNotifier notifier) {
+			long t0 = System.nanoTime();
+			MoveInterface<TermType> move = super.gamePlay(seesTerms, priorMove, notifier);
+			recordOverhead("PLAY", System.nanoTime() - t0);
+			return move;
+		}
+
+		@Override
+		public void gameStop(Object seesTerms, Object priorMove, ConnectionEstablishedNotifier notifier) {
+			long t0 = System.nanoTime();
+			super.gameStop(seesTerms, priorMove, notifier);
+			recordOverhead("STOP", System.nanoTime() - t0);
+		}
+
+		private void recordOverhead(String messageType, long roundTripTime) {
+			long serviceTime = server.getLastServiceTime(match.getMatchID());
+			if (serviceTime >= 0) {
+				statistics.addMessageOverhead(messageType, Math.max(0, roundTripTime - serviceTime));
+			}
+		}
+	}
+
+	private static void printUsage() {
+		System.out.println("usage:\n java " + LoadDriver.class.getName() + " GAMEFILE GDLVERSION NUMMATCHES CONCURRENCY STARTCLOCK PLAYCLOCK [-think THINKTIME] [-moves legal|random] [-verbose]");
+		System.out.println("  THINKTIME is fixed:<ms>, uniform:<min>:<max> or exp:<mean> (default: 0)");
+		System.out.println("example:\n java " + LoadDriver.class.getName() + " tictactoe.gdl 1 1000 50 10 5 -think uniform:0:20 -moves random");
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 6) {
+			printUsage();
+			System.exit(-1);
+		}
+		File gameFile = new File(args[0]);
+		GDLVersion gdlVersion;
+		if (args[1].equals("1")) {
+			gdlVersion = GDLVersion.v1;
+		} else if (args[1].equals("2")) {
+			gdlVersion = GDLVersion.v2;
+		} else {
+			System.err.println("gdl version \"" + args[1] + "\" not recognized");
+			printUsage();
+			System.exit(-1);
+			return;
+		}
+		int numMatches = Integer.parseInt(args[2]);
+		int concurrency = Integer.parseInt(args[3]);
+		int startClock = Integer.parseInt(args[4]);
+		int playClock = Integer.parseInt(args[5]);
+		ThinkTime thinkTime = ThinkTime.parse("0");
+		LoopbackPlayerServer.MovePolicy movePolicy = LoopbackPlayerServer.MovePolicy.LEGAL;
+		boolean verbose = false;
+		for (int i = 6; i < args.length; i++) {
+			if (args[i].equals("-think") && i + 1 < args.length) {
+				thinkTime = ThinkTime.parse(args[++i]);
+			} else if (args[i].equals("-moves") && i + 1 < args.length) {
+				movePolicy = LoopbackPlayerServer.MovePolicy.valueOf(args[++i].toUpperCase());
+			} else if (args[i].equals("-verbose")) {
+				verbose = true;
+			} else {
+				System.err.println("invalid argument: " + args[i]);
+				printUsage();
+				System.exit(-1);
+			}
+		}
+
+		// the log of the game controller would dominate the measurement, so only warnings are printed by default
+		Logger packageLogger = Logger.getLogger("tud.gamecontroller");
+		packageLogger.setLevel(verbose ? Level.INFO : Level.WARNING);
+		Logger logger = Logger.getLogger(GameController.class.getName());
+		logger.setUseParentHandlers(false);
+		Handler logHandler = new AsyncStreamHandler(System.out, new PlainTextLogFormatter());
+		logger.addHandler(logHandler);
+		logger.setLevel(verbose ? Level.ALL : Level.WARNING);
+
+		ReasonerFactoryInterface<Term, GameState> reasonerFactory = new ReasonerFactory();
+		Game<Term, GameState> game = new Game<Term, GameState>(gameFile, reasonerFactory, gdlVersion);
+		LoadDriver<Term, GameState> driver = new LoadDriver<Term, GameState>(reasonerFactory, game, startClock, playClock,
+				thinkTime, movePolicy, logger);
+		try {
+			driver.run(numMatches, concurrency);
+		} finally {
+			logHandler.flush();
+		}
+	}
+
+}
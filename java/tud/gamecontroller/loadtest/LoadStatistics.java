@@ -0,0 +1,209 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package tud.gamecontroller.loadtest;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects what a load test measures about the game controller (all times in nanoseconds):
+ * <ul>
+ * <li>the overhead of each message, i.e., the time the controller waited for the reply minus the time the player
+ * server spent on the message (including its think time), which is the cost of the transport and of constructing and
+ * parsing the messages,</li>
+ * <li>the gap between two steps of a match, i.e., the time from the last reply of a step until the first message of
+ * the next step arrives at a player server, which is the time the controller spends on computing the next state and
+ * on scheduling the player threads,</li>
+ * <li>the connections to the player servers.</li>
+ * </ul>
+ * All methods are thread-safe.
+ */
+public class LoadStatistics {
+
+	private final Map<String, Samples> messageOverheads = new TreeMap<String, Samples>(); // by message type
+	private final Samples stepGaps = new Samples();
+	private final ConcurrentMap<String, StepClock> stepClocks = new ConcurrentHashMap<String, StepClock>();
+	private final AtomicLong numConnections = new AtomicLong();
+	private final AtomicInteger numOpenConnections = new AtomicInteger();
+	private final AtomicInteger peakOpenConnections = new AtomicInteger();
+	private final AtomicLong thinkTime = new AtomicLong();
+
+	public void connectionOpened() {
+		numConnections.incrementAndGet();
+		int open = numOpenConnections.incrementAndGet();
+		int peak;
+		while (open > (peak = peakOpenConnections.get()) && !peakOpenConnections.compareAndSet(peak, open)) {
+			// retry
+		}
+	}
+
+	public void connectionClosed() {
+		numOpenConnections.decrementAndGet();
+	}
+
+	public void addThinkTime(long millis) {
+		thinkTime.addAndGet(millis);
+	}
+
+	/**
+	 * @param messageType START, PLAY or STOP
+	 * @param overhead the round trip time seen by the controller minus the time the player server spent on the message
+	 */
+	public void addMessageOverhead(String messageType, long overhead) {
+		Samples samples;
+		synchronized (messageOverheads) {
+			samples = messageOverheads.get(messageType);
+			if (samples == null) {
+				samples = new Samples();
+				messageOverheads.put(messageType, samples);
+			}
+		}
+		samples.add(overhead);
+	}
+
+	/**
+	 * Called by a player server when a message of a match arrives.
+	 * 
+	 * @param step the number of messages the player got in this match before (i.e., 0 for START)
+	 * @param time the time (System.nanoTime()) the connection was accepted
+	 */
+	public void messageArrived(String matchID, int step, long time) {
+		long gap = getStepClock(matchID).messageArrived(step, time);
+		if (gap >= 0) {
+			stepGaps.add(gap);
+		}
+	}
+
+	/**
+	 * Called by a player server after it sent the reply to a message of a match.
+	 * 
+	 * @param time the time (System.nanoTime()) the reply was sent
+	 */
+	public void replySent(String matchID, long time) {
+		getStepClock(matchID).replySent(time);
+	}
+
+	/**
+	 * Forgets the steps of a match that is over.
+	 */
+	public void matchFinished(String matchID) {
+		stepClocks.remove(matchID);
+	}
+
+	private StepClock getStepClock(String matchID) {
+		StepClock clock = stepClocks.get(matchID);
+		if (clock == null) {
+			StepClock newClock = new StepClock();
+			clock = stepClocks.putIfAbsent(matchID, newClock);
+			if (clock == null) {
+				clock = newClock;
+			}
+		}
+		return clock;
+	}
+
+	public long getNumConnections() {
+		return numConnections.get();
+	}
+
+	public int getPeakOpenConnections() {
+		return peakOpenConnections.get();
+	}
+
+	public void print(PrintStream out) {
+		out.println("connections: " + numConnections.get() + " (at most " + peakOpenConnections.get() + " open at the same time)");
+		out.println("think time of the players: " + thinkTime.get() + "ms");
+		synchronized (messageOverheads) {
+			for (Map.Entry<String, Samples> entry : messageOverheads.entrySet()) {
+				out.println("overhead per " + entry.getKey() + " message: " + entry.getValue());
+			}
+		}
+		out.println("gap between the steps: " + stepGaps);
+	}
+
+	/**
+	 * the times of the last step of one match seen by the player servers of all roles
+	 */
+	private static class StepClock {
+
+		private int lastStep = 0;
+		private long lastReplyTime = -1;
+
+		/**
+		 * @return the time since the last reply of the previous step if this is the first message of a step, otherwise -1
+		 */
+		public synchronized long messageArrived(int step, long time) {
+			if (step > lastStep) {
+				lastStep = step;
+				if (lastReplyTime >= 0) {
+					return Math.max(0, time - lastReplyTime);
+				}
+			}
+			return -1;
+		}
+
+		public synchronized void replySent(long time) {
+			lastReplyTime = Math.max(lastReplyTime, time);
+		}
+	}
+
+	/**
+	 * a growing list of times (in nanoseconds)
+	 */
+	private static class Samples {
+
+		private long[] values = new long[1024];
+		private int size = 0;
+
+		public synchronized void add(long value) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, 2 * size);
+			}
+			values[size++] = value;
+		}
+
+		@Override
+		public synchronized String toString() {
+			if (size == 0) {
+				return "no samples";
+			}
+			long[] sorted = Arrays.copyOf(values, size);
+			Arrays.sort(sorted);
+			long sum = 0;
+			for (long value : sorted) {
+				sum += value;
+			}
+			return String.format("n=%d mean=%.3fms p50=%.3fms p99=%.3fms max=%.3fms", size, sum / 1e6 / size,
+					percentile(sorted, 0.5) / 1e6, percentile(sorted, 0.99) / 1e6, sorted[size - 1] / 1e6);
+		}
+
+		private static long percentile(long[] sorted, double p) {
+			int index = (int) Math.ceil(p * sorted.length) - 1;
+			return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+		}
+	}
+
+}
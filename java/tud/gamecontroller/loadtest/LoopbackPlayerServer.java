@@ -0,0 +1,451 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package tud.gamecontroller.loadtest;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import tud.gamecontroller.GDLVersion;
+import tud.gamecontroller.ReasonerFactoryInterface;
+import tud.gamecontroller.auxiliary.InvalidKIFException;
+import tud.gamecontroller.game.MoveInterface;
+import tud.gamecontroller.game.RoleInterface;
+import tud.gamecontroller.game.impl.Game;
+import tud.gamecontroller.game.impl.JointMove;
+import tud.gamecontroller.game.impl.Move;
+import tud.gamecontroller.game.impl.State;
+import tud.gamecontroller.term.TermInterface;
+
+/**
+ * A minimal GGP player server on the loopback interface for load testing the game controller.
+ * 
+ * The server speaks the HTTP protocol of the GGP players (START, PLAY and STOP messages) for GDL-I players, i.e., it
+ * gets the joint move of the previous step with every PLAY message. It keeps the current state of each of its matches
+ * (so that it can answer with a legal move), waits for a configurable think time and answers with the first or a
+ * random legal move. Everything else a real player would do is left out, so that the measured times are dominated by
+ * the game controller.
+ * 
+ * PLAY and STOP messages do not name the role of the player, therefore one server has to be started per role.
+ * 
+ * The server listens on an ephemeral port on the loopback address (see {@link #getPort()}), accepts connections in
+ * one thread and handles each connection in a thread of a cached pool.
+ */
+public class LoopbackPlayerServer<TermType extends TermInterface, ReasonerStateInfoType> {
+
+	public enum MovePolicy { LEGAL, RANDOM }
+
+	private static final int BACKLOG = 1024;
+	private static final String CRLF = "\r\n";
+
+	private final ReasonerFactoryInterface<TermType, ReasonerStateInfoType> reasonerFactory;
+	private final GDLVersion gdlVersion;
+	private final ThinkTime thinkTime;
+	private final MovePolicy movePolicy;
+	private final LoadStatistics statistics;
+	private final String name;
+	private final Logger logger;
+
+	private final ConcurrentMap<String, Session> sessions = new ConcurrentHashMap<String, Session>();
+
+	private ServerSocket serverSocket = null;
+	private Thread acceptThread = null;
+	private ExecutorService connectionPool = null;
+	private volatile boolean running = false;
+
+	/**
+	 * @param name the name of the server (used for the names of its threads)
+	 * @param reasonerFactory the reasoner used to compute the states and legal moves of the matches
+	 * @param gdlVersion the GDL version of the games that will be played
+	 * @param thinkTime the time to wait before answering a PLAY message
+	 * @param movePolicy whether to answer with the first or a random legal move
+	 * @param statistics where to record the arrival of messages and the connections
+	 */
+	public LoopbackPlayerServer(String name, ReasonerFactoryInterface<TermType, ReasonerStateInfoType> reasonerFactory,
+			GDLVersion gdlVersion, ThinkTime thinkTime, MovePolicy movePolicy, LoadStatistics statistics) {
+		this.name = name;
+		this.reasonerFactory = reasonerFactory;
+		this.gdlVersion = gdlVersion;
+		this.thinkTime = thinkTime;
+		this.movePolicy = movePolicy;
+		this.statistics = statistics;
+		this.logger = Logger.getLogger(LoopbackPlayerServer.class.getName());
+	}
+
+	/**
+	 * opens the server socket and starts accepting connections
+	 */
+	public synchronized void start() throws IOException {
+		if (running) {
+			return;
+		}
+		serverSocket = new ServerSocket(0, BACKLOG, InetAddress.getLoopbackAddress());
+		connectionPool = Executors.newCachedThreadPool(new ThreadFactory() {
+			private int count = 0;
+			public synchronized Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, name + "-connection-" + (count++));
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		running = true;
+		acceptThread = new Thread(name + "-accept") {
+			@Override
+			public void run() {
+				acceptConnections();
+			}
+		};
+		acceptThread.setDaemon(true);
+		acceptThread.start();
+	}
+
+	/**
+	 * closes the server socket and waits (up to the given time) for the open connections to be handled
+	 */
+	public synchronized void shutdown(long timeoutMillis) throws InterruptedException {
+		if (!running) {
+			return;
+		}
+		running = false;
+		try {
+			serverSocket.close();
+		} catch (IOException e) {
+			// nothing to do, the socket is gone anyway
+		}
+		acceptThread.join(timeoutMillis);
+		connectionPool.shutdown();
+		connectionPool.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+		sessions.clear();
+	}
+
+	/**
+	 * @return the port the server listens on (only valid after {@link #start()})
+	 */
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	public String getHost() {
+		return serverSocket.getInetAddress().getHostAddress();
+	}
+
+	/**
+	 * @return the time (in nanoseconds) the server spent on the last message of the match from accepting the connection
+	 *         until the reply was sent (including the think time), or -1 if there was no message for this match
+	 */
+	public long getLastServiceTime(String matchID) {
+		Session session = sessions.get(matchID);
+		return session == null ? -1 : session.lastServiceTime;
+	}
+
+	/**
+	 * forgets the state of a match; the state is kept after the STOP message so that the service time of the STOP
+	 * message can still be queried
+	 */
+	public void endMatch(String matchID) {
+		sessions.remove(matchID);
+	}
+
+	private void acceptConnections() {
+		while (running) {
+			final Socket socket;
+			try {
+				socket = serverSocket.accept();
+			} catch (SocketException e) {
+				// thrown when the server socket is closed by shutdown()
+				break;
+			} catch (IOException e) {
+				logger.warning(name + ": error accepting a connection: " + e.getMessage());
+				continue;
+			}
+			final long acceptTime = System.nanoTime();
+			statistics.connectionOpened();
+			connectionPool.execute(new Runnable() {
+				public void run() {
+					try {
+						handleConnection(socket, acceptTime);
+					} finally {
+						try {
+							socket.close();
+						} catch (IOException e) {
+							// ignore
+						}
+						statistics.connectionClosed();
+					}
+				}
+			});
+		}
+	}
+
+	private void handleConnection(Socket socket, long acceptTime) {
+		try {
+			socket.setTcpNoDelay(true);
+			String message = readMessage(new BufferedInputStream(socket.getInputStream()));
+			if (message == null) {
+				logger.warning(name + ": empty message");
+				return;
+			}
+			// everything but the match id is case-insensitive
+			List<String> parts = splitKIF(message);
+			if (parts.size() < 2) {
+				logger.warning(name + ": malformed message: " + message);
+				return;
+			}
+			String messageType = parts.get(0).toLowerCase();
+			String matchID = parts.get(1);
+			Session session;
+			String reply;
+			if (messageType.equals("start")) {
+				session = startSession(parts);
+				statistics.messageArrived(matchID, 0, acceptTime);
+				reply = "READY";
+			} else {
+				session = sessions.get(matchID);
+				if (session == null) {
+					logger.warning(name + ": " + messageType + " message for unknown match " + matchID);
+					return;
+				}
+				statistics.messageArrived(matchID, session.nextStep(), acceptTime);
+				if (messageType.equals("play")) {
+					reply = play(session, parts);
+				} else if (messageType.equals("stop")) {
+					reply = "DONE";
+				} else {
+					logger.warning(name + ": unknown message type: " + message);
+					return;
+				}
+			}
+			writeReply(socket.getOutputStream(), reply);
+			long replyTime = System.nanoTime();
+			session.lastServiceTime = replyTime - acceptTime;
+			statistics.replySent(matchID, replyTime);
+		} catch (IOException e) {
+			logger.warning(name + ": io error: " + e.getMessage());
+		} catch (InvalidKIFException e) {
+			logger.warning(name + ": error parsing a message: " + e.getMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * (START matchID role (game description) startclock playclock)
+	 */
+	private Session startSession(List<String> parts) throws InvalidKIFException {
+		if (parts.size() < 6) {
+			throw new InvalidKIFException("malformed START message");
+		}
+		String matchID = parts.get(1);
+		String gameDescription = parts.get(3).toLowerCase();
+		// strip the parentheses around the list of rules
+		gameDescription = gameDescription.substring(1, gameDescription.length() - 1);
+		Game<TermType, ReasonerStateInfoType> game =
+				new Game<TermType, ReasonerStateInfoType>(gameDescription, matchID, reasonerFactory, gdlVersion);
+		RoleInterface<TermType> role = game.getRoleByName(parts.get(2).toLowerCase());
+		if (role == null) {
+			throw new InvalidKIFException("unknown role " + parts.get(2));
+		}
+		Session session = new Session(game, role, matchID.hashCode());
+		sessions.put(matchID, session);
+		return session;
+	}
+
+	/**
+	 * (PLAY matchID jointMove), where jointMove is NIL in the first step
+	 */
+	private String play(Session session, List<String> parts) throws InvalidKIFException, InterruptedException {
+		if (parts.size() < 3) {
+			throw new InvalidKIFException("malformed PLAY message");
+		}
+		String jointMoveString = parts.get(2).toLowerCase();
+		if (!jointMoveString.equals("nil")) {
+			List<String> moves = splitKIF(jointMoveString);
+			List<? extends RoleInterface<TermType>> roles = session.game.getOrderedRoles();
+			if (moves.size() != roles.size()) {
+				throw new InvalidKIFException("joint move " + jointMoveString + " does not match the roles " + roles);
+			}
+			JointMove<TermType> jointMove = new JointMove<TermType>(roles);
+			for (int i = 0; i < moves.size(); i++) {
+				jointMove.put(roles.get(i), new Move<TermType>(session.game.getTermFromString(moves.get(i))));
+			}
+			session.state = session.state.getSuccessor(jointMove);
+		}
+		Collection<? extends MoveInterface<TermType>> legalMoves = session.state.getLegalMoves(session.role);
+		MoveInterface<TermType> move = null;
+		if (legalMoves != null && !legalMoves.isEmpty()) {
+			Iterator<? extends MoveInterface<TermType>> it = legalMoves.iterator();
+			int index = movePolicy == MovePolicy.RANDOM ? session.random.nextInt(legalMoves.size()) : 0;
+			move = it.next();
+			for (int i = 0; i < index; i++) {
+				move = it.next();
+			}
+		}
+		long millis = thinkTime.nextMillis(session.random);
+		statistics.addThinkTime(millis);
+		if (millis > 0) {
+			Thread.sleep(millis);
+		}
+		return move == null ? "NIL" : move.getKIFForm();
+	}
+
+	/**
+	 * reads the HTTP headers and returns the body of the request (as given by the Content-length header or up to the end
+	 * of the stream)
+	 */
+	private static String readMessage(InputStream in) throws IOException {
+		int contentLength = -1;
+		String line;
+		while ((line = readLine(in)) != null && line.length() > 0) {
+			int colon = line.indexOf(':');
+			if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase("content-length")) {
+				contentLength = Integer.parseInt(line.substring(colon + 1).trim());
+			}
+		}
+		if (line == null) {
+			return null;
+		}
+		ByteArrayOutputStream body = new ByteArrayOutputStream(contentLength > 0 ? contentLength : 256);
+		int c;
+		while ((contentLength < 0 || body.size() < contentLength) && (c = in.read()) != -1) {
+			body.write(c);
+		}
+		return body.toString("ISO-8859-1");
+	}
+
+	/**
+	 * @return the next line without the line break or null at the end of the stream
+	 */
+	private static String readLine(InputStream in) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		int c;
+		while ((c = in.read()) != -1 && c != '\n') {
+			if (c != '\r') {
+				sb.append((char) c);
+			}
+		}
+		if (c == -1 && sb.length() == 0) {
+			return null;
+		}
+		return sb.toString();
+	}
+
+	private static void writeReply(OutputStream out, String reply) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		sb.append("HTTP/1.0 200 OK").append(CRLF);
+		sb.append("Content-type: text/acl").append(CRLF);
+		sb.append("Content-length: ").append(reply.length()).append(CRLF);
+		sb.append(CRLF);
+		sb.append(reply);
+		out.write(sb.toString().getBytes("ISO-8859-1"));
+		out.flush();
+	}
+
+	/**
+	 * splits a KIF list "(a (b c) d)" into its top-level elements "a", "(b c)", "d"
+	 */
+	static List<String> splitKIF(String kif) throws InvalidKIFException {
+		String s = kif.trim();
+		if (s.length() < 2 || s.charAt(0) != '(' || s.charAt(s.length() - 1) != ')') {
+			throw new InvalidKIFException("not a list: " + kif);
+		}
+		List<String> parts = new ArrayList<String>();
+		int depth = 0;
+		int start = -1;
+		for (int i = 1; i < s.length() - 1; i++) {
+			char c = s.charAt(i);
+			if (depth == 0 && Character.isWhitespace(c)) {
+				if (start >= 0) {
+					parts.add(s.substring(start, i));
+					start = -1;
+				}
+				continue;
+			}
+			if (start < 0) {
+				start = i;
+			}
+			if (c == '(') {
+				depth++;
+			} else if (c == ')') {
+				depth--;
+				if (depth < 0) {
+					throw new InvalidKIFException("unbalanced parentheses: " + kif);
+				}
+			}
+		}
+		if (depth != 0) {
+			throw new InvalidKIFException("unbalanced parentheses: " + kif);
+		}
+		if (start >= 0) {
+			parts.add(s.substring(start, s.length() - 1));
+		}
+		return parts;
+	}
+
+	@Override
+	public String toString() {
+		return name + (running ? "(" + getHost() + ":" + getPort() + ")" : "(stopped)");
+	}
+
+	/**
+	 * the state of one match
+	 */
+	private class Session {
+
+		private final Game<TermType, ReasonerStateInfoType> game;
+		private final RoleInterface<TermType> role;
+		private final Random random;
+		private volatile State<TermType, ReasonerStateInfoType> state; // the messages of a match are handled by different threads
+		private int numMessages = 0;
+		private volatile long lastServiceTime = -1;
+
+		public Session(Game<TermType, ReasonerStateInfoType> game, RoleInterface<TermType> role, long seed) {
+			this.game = game;
+			this.role = role;
+			this.random = new Random(seed);
+			this.state = game.getInitialState();
+		}
+
+		/**
+		 * @return the number of the step the message that just arrived belongs to
+		 */
+		public synchronized int nextStep() {
+			return ++numMessages;
+		}
+	}
+
+}
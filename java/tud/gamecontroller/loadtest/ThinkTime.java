@@ -0,0 +1,86 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package tud.gamecontroller.loadtest;
+
+import java.util.Random;
+
+/**
+ * A distribution of the time (in milliseconds) a LoopbackPlayerServer thinks before it answers a PLAY message.
+ * 
+ * The distributions are given as "fixed:&lt;ms&gt;" (or just "&lt;ms&gt;"), "uniform:&lt;min&gt;:&lt;max&gt;" or
+ * "exp:&lt;mean&gt;" (exponentially distributed, i.e., mostly short with a long tail).
+ */
+public abstract class ThinkTime {
+
+	private final String spec;
+
+	protected ThinkTime(String spec) {
+		this.spec = spec;
+	}
+
+	/**
+	 * @return the next think time in milliseconds (>= 0)
+	 */
+	public abstract long nextMillis(Random random);
+
+	/**
+	 * @throws IllegalArgumentException if the specification is not one of the distributions above
+	 */
+	public static ThinkTime parse(String spec) {
+		String[] parts = spec.split(":");
+		try {
+			if (parts.length == 1 || (parts.length == 2 && parts[0].equals("fixed"))) {
+				final long millis = Long.parseLong(parts[parts.length - 1]);
+				return new ThinkTime(spec) {
+					public long nextMillis(Random random) {
+						return millis;
+					}
+				};
+			} else if (parts.length == 3 && parts[0].equals("uniform")) {
+				final long min = Long.parseLong(parts[1]);
+				final long max = Long.parseLong(parts[2]);
+				if (max < min) {
+					throw new IllegalArgumentException("empty think time range: " + spec);
+				}
+				return new ThinkTime(spec) {
+					public long nextMillis(Random random) {
+						return min + (long) (random.nextDouble() * (max - min + 1));
+					}
+				};
+			} else if (parts.length == 2 && parts[0].equals("exp")) {
+				final double mean = Double.parseDouble(parts[1]);
+				return new ThinkTime(spec) {
+					public long nextMillis(Random random) {
+						return (long) (-mean * Math.log(1.0 - random.nextDouble()));
+					}
+				};
+			}
+		} catch (NumberFormatException e) {
+			// reported below
+		}
+		throw new IllegalArgumentException("think time \"" + spec + "\" not recognized (use fixed:<ms>, uniform:<min>:<max> or exp:<mean>)");
+	}
+
+	@Override
+	public String toString() {
+		return spec;
+	}
+
+}
@@ -0,0 +1,228 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package tud.gamecontroller.logging;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.ErrorManager;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+/**
+ * A log handler that writes records to a stream from a background thread.
+ * 
+ * publish() only puts the record into a bounded buffer, so threads that log (e.g., the players during the playclock)
+ * neither wait for a lock held by another logging thread nor for the stream. The writer thread formats the records
+ * and flushes the stream once batchSize records were written, at least every flushInterval milliseconds and whenever
+ * flush() or close() are called (e.g., at the end of a match or when the VM shuts down).
+ * 
+ * If the buffer is full, the OverflowPolicy decides what happens to the record. The number of dropped records can
+ * be read with getDroppedRecords() and is written to the stream when the handler is closed.
+ */
+public class AsyncStreamHandler extends Handler {
+
+	public enum OverflowPolicy {
+		/** discard the record that could not be put into the buffer */
+		DROP_NEWEST,
+		/** discard the oldest record in the buffer to make room for the new one */
+		DROP_OLDEST,
+		/** wait until the writer made room in the buffer (no records are lost) */
+		BLOCK
+	}
+
+	public static final int DEFAULT_CAPACITY = 8192;
+	public static final int DEFAULT_BATCH_SIZE = 256;
+	public static final long DEFAULT_FLUSH_INTERVAL = 500; // in milliseconds
+
+	private final ArrayBlockingQueue<LogRecord> buffer;
+	private final OverflowPolicy overflowPolicy;
+	private final int batchSize;
+	private final long flushInterval;
+	private final Writer writer;
+	private final Thread writerThread;
+	private final ReentrantLock writeLock = new ReentrantLock();
+	private final AtomicLong droppedRecords = new AtomicLong(0);
+	private final AtomicBoolean closed = new AtomicBoolean(false);
+	private int unflushedRecords = 0; // guarded by writeLock
+	private long lastFlushTime = System.currentTimeMillis(); // guarded by writeLock
+
+	public AsyncStreamHandler(OutputStream out, Formatter formatter) {
+		this(out, formatter, DEFAULT_CAPACITY, OverflowPolicy.DROP_OLDEST, DEFAULT_BATCH_SIZE, DEFAULT_FLUSH_INTERVAL);
+	}
+
+	public AsyncStreamHandler(OutputStream out, Formatter formatter, int capacity, OverflowPolicy overflowPolicy, int batchSize, long flushInterval) {
+		setFormatter(formatter);
+		this.buffer = new ArrayBlockingQueue<LogRecord>(capacity);
+		this.overflowPolicy = overflowPolicy;
+		this.batchSize = batchSize;
+		this.flushInterval = flushInterval;
+		this.writer = new BufferedWriter(new OutputStreamWriter(out));
+		this.writerThread = new Thread("AsyncStreamHandler-writer") {
+			public void run() {
+				writeLoop();
+			}
+		};
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+
+	public void publish(LogRecord record) {
+		if (closed.get() || !isLoggable(record)) {
+			return;
+		}
+		if (buffer.offer(record)) {
+			return;
+		}
+		switch (overflowPolicy) {
+		case DROP_NEWEST:
+			droppedRecords.incrementAndGet();
+			break;
+		case DROP_OLDEST:
+			while (!buffer.offer(record)) {
+				if (buffer.poll() != null) {
+					droppedRecords.incrementAndGet();
+				}
+			}
+			break;
+		case BLOCK:
+			try {
+				buffer.put(record);
+			} catch (InterruptedException e) {
+				droppedRecords.incrementAndGet();
+				Thread.currentThread().interrupt();
+			}
+			break;
+		}
+	}
+
+	private void writeLoop() {
+		List<LogRecord> batch = new ArrayList<LogRecord>(batchSize);
+		while (!closed.get()) {
+			try {
+				LogRecord first = buffer.poll(flushInterval, TimeUnit.MILLISECONDS);
+				writeLock.lock();
+				try {
+					if (first != null) {
+						batch.add(first);
+						buffer.drainTo(batch, batchSize - 1);
+						write(batch);
+						batch.clear();
+					}
+					if (unflushedRecords >= batchSize || (unflushedRecords > 0 && System.currentTimeMillis() - lastFlushTime >= flushInterval)) {
+						flushStream();
+					}
+				} finally {
+					writeLock.unlock();
+				}
+			} catch (InterruptedException e) {
+				// closed was set, the remaining records are written by close()
+			}
+		}
+	}
+
+	/**
+	 * writes the records to the stream (only called while holding writeLock)
+	 */
+	private void write(List<LogRecord> records) {
+		for (LogRecord record : records) {
+			try {
+				writer.write(getFormatter().format(record));
+				unflushedRecords++;
+			} catch (Exception e) {
+				reportError(null, e, ErrorManager.WRITE_FAILURE);
+			}
+		}
+	}
+
+	/**
+	 * flushes the stream (only called while holding writeLock)
+	 */
+	private void flushStream() {
+		try {
+			writer.flush();
+		} catch (IOException e) {
+			reportError(null, e, ErrorManager.FLUSH_FAILURE);
+		}
+		unflushedRecords = 0;
+		lastFlushTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * writes all buffered records and flushes the stream before returning
+	 */
+	public void flush() {
+		List<LogRecord> batch = new ArrayList<LogRecord>(buffer.size());
+		writeLock.lock();
+		try {
+			buffer.drainTo(batch);
+			write(batch);
+			flushStream();
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * stops the writer thread and writes all remaining records; the underlying stream is flushed but not closed
+	 */
+	public void close() throws SecurityException {
+		if (!closed.compareAndSet(false, true)) {
+			return;
+		}
+		writerThread.interrupt();
+		try {
+			writerThread.join(flushInterval);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		flush();
+		long dropped = droppedRecords.get();
+		if (dropped > 0) {
+			writeLock.lock();
+			try {
+				writer.write("AsyncStreamHandler dropped " + dropped + " log records because the buffer was full" + System.getProperty("line.separator"));
+				flushStream();
+			} catch (IOException e) {
+				reportError(null, e, ErrorManager.WRITE_FAILURE);
+			} finally {
+				writeLock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * @return the number of records that were discarded because the buffer was full
+	 */
+	public long getDroppedRecords() {
+		return droppedRecords.get();
+	}
+
+}
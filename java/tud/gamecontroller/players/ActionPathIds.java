@@ -0,0 +1,279 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package tud.gamecontroller.players;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import tud.gamecontroller.auxiliary.IntHashSet;
+
+/**
+ * ActionPathIds interns action paths (the sequences of joint moves a hypergame took from the initial state) as small
+ * int ids, so that the trackers of the hyperplay agents can be keyed by the path without the collisions and the
+ * O(depth) cost of hashing the whole path.
+ *
+ * The paths form a trie: the id of a path is looked up from the id of its parent path and the index of its last joint
+ * move, which takes O(1) per step. Ids start at 1, so they never clash with the EMPTY_PATH (-1) and "no previous path" (0)
+ * values the models use. Two paths get the same id if and only if they consist of equal joint moves.
+ *
+ * The paths that cannot come up again can be removed together with the paths that extend them. Their ids and the
+ * indices of the joint moves no other path uses any more are handed out again, so the memory held stays proportional
+ * to the number of paths kept.
+ *
+ * All methods are thread-safe, the ids of one match should come from one instance.
+ */
+public class ActionPathIds {
+
+	/**
+	 * the id of the empty path, i.e., the parent of the paths of length one
+	 */
+	public static final int EMPTY_PATH = -1;
+
+	private static final int MIN_CAPACITY = 16;
+
+	private final Map<Object, Integer> moveIndices = new HashMap<Object, Integer>(); // index 0 is the null joint move
+	private Object[] moves = new Object[MIN_CAPACITY]; // moves[index] is the joint move with that index
+	private int[] moveRefs = new int[MIN_CAPACITY]; // moveRefs[index] is the number of paths ending in that joint move
+	private int[] freeMoveIndices = new int[MIN_CAPACITY];
+	private int numFreeMoveIndices = 0;
+	// open addressing over (parent id, move index) keys, an id of 0 marks an empty slot
+	private long[] childKeys = new long[MIN_CAPACITY];
+	private int[] childIds = new int[MIN_CAPACITY];
+	private int mask = MIN_CAPACITY - 1;
+	private int[] parentIds = new int[MIN_CAPACITY]; // parentIds[id] is the id of the parent path, 0 if the id is free
+	private int[] lastMoveIndices = new int[MIN_CAPACITY]; // lastMoveIndices[id] is the index of the last joint move
+	private int[] freeIds = new int[MIN_CAPACITY];
+	private int numFreeIds = 0;
+	private int maxId = 0; // the largest id handed out so far
+	private int size = 0;
+
+	/**
+	 * @param parentId the id of the path without its last joint move (EMPTY_PATH for a path of length one)
+	 * @param jointMove the last joint move of the path (may be null, e.g., for the move into the initial state)
+	 * @return the id of the path
+	 */
+	public synchronized int getChildId(int parentId, Object jointMove) {
+		int moveIndex = getMoveIndex(jointMove);
+		long key = ((long) parentId << 32) | (moveIndex & 0xFFFFFFFFL);
+		int i = slot(key, mask);
+		for (; childIds[i] != 0; i = (i + 1) & mask) {
+			if (childKeys[i] == key) {
+				return childIds[i];
+			}
+		}
+		int id;
+		if (numFreeIds > 0) {
+			id = freeIds[--numFreeIds];
+		} else {
+			id = ++maxId;
+			if (id == parentIds.length) {
+				parentIds = Arrays.copyOf(parentIds, 2 * parentIds.length);
+				lastMoveIndices = Arrays.copyOf(lastMoveIndices, 2 * lastMoveIndices.length);
+			}
+		}
+		size++;
+		parentIds[id] = parentId;
+		lastMoveIndices[id] = moveIndex;
+		moveRefs[moveIndex]++;
+		childKeys[i] = key;
+		childIds[i] = id;
+		if (size > (mask + 1) / 2) {
+			resize(2 * (mask + 1));
+		}
+		return id;
+	}
+
+	/**
+	 * Looks up the id of a path without handing out a new one, e.g., to drop the entries of a path that may never have
+	 * been taken.
+	 *
+	 * @param parentId the id of the path without its last joint move (EMPTY_PATH for a path of length one)
+	 * @param jointMove the last joint move of the path (may be null)
+	 * @return the id of the path or 0 if the path has no id
+	 */
+	public synchronized int findChildId(int parentId, Object jointMove) {
+		int moveIndex = 0;
+		if (jointMove != null) {
+			Integer index = moveIndices.get(jointMove);
+			if (index == null) {
+				return 0;
+			}
+			moveIndex = index;
+		}
+		long key = ((long) parentId << 32) | (moveIndex & 0xFFFFFFFFL);
+		for (int i = slot(key, mask); childIds[i] != 0; i = (i + 1) & mask) {
+			if (childKeys[i] == key) {
+				return childIds[i];
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Removes the paths with the given ids and all paths that extend them. Their ids are handed out again, so the
+	 * ids must not be used for anything else afterwards (caches keyed by them have to drop them).
+	 *
+	 * @param ids the ids of the paths to remove, to which the ids of the paths extending them are added
+	 * @return the number of paths removed
+	 */
+	public synchronized int removeAll(IntHashSet ids) {
+		if (ids.isEmpty()) {
+			return 0;
+		}
+		// decide for every id whether it is kept, i.e., it is neither removed nor free nor below a removed path
+		byte[] kept = new byte[maxId + 1]; // 0 = unknown, 1 = kept, 2 = removed
+		int[] pathIds = new int[16];
+		for (int id = 1; id <= maxId; id++) {
+			int numPathIds = 0;
+			int current = id;
+			byte state = 1;
+			while (current != EMPTY_PATH) {
+				if (kept[current] != 0) {
+					state = kept[current];
+					break;
+				}
+				if (parentIds[current] == 0 || ids.contains(current)) {
+					kept[current] = 2;
+					state = 2;
+					break;
+				}
+				if (numPathIds == pathIds.length) {
+					pathIds = Arrays.copyOf(pathIds, 2 * pathIds.length);
+				}
+				pathIds[numPathIds++] = current;
+				current = parentIds[current];
+			}
+			for (int i = 0; i < numPathIds; i++) {
+				kept[pathIds[i]] = state;
+			}
+		}
+		int numRemoved = 0;
+		for (int id = 1; id <= maxId; id++) {
+			if (kept[id] == 2 && parentIds[id] != 0) {
+				releaseMoveIndex(lastMoveIndices[id]);
+				parentIds[id] = 0;
+				ids.add(id);
+				if (numFreeIds == freeIds.length) {
+					freeIds = Arrays.copyOf(freeIds, 2 * freeIds.length);
+				}
+				freeIds[numFreeIds++] = id;
+				numRemoved++;
+			}
+		}
+		if (numRemoved > 0) {
+			size -= numRemoved;
+			int capacity = MIN_CAPACITY;
+			while (size > capacity / 2) {
+				capacity *= 2;
+			}
+			childKeys = new long[capacity];
+			childIds = new int[capacity];
+			mask = capacity - 1;
+			for (int id = 1; id <= maxId; id++) {
+				if (parentIds[id] != 0) {
+					insert(((long) parentIds[id] << 32) | (lastMoveIndices[id] & 0xFFFFFFFFL), id);
+				}
+			}
+		}
+		return numRemoved;
+	}
+
+	/**
+	 * @return the id of the path without its last joint move, EMPTY_PATH for a path of length one or the empty path
+	 */
+	public synchronized int getParentId(int id) {
+		if (id <= 0 || id > maxId || parentIds[id] == 0) {
+			return EMPTY_PATH;
+		}
+		return parentIds[id];
+	}
+
+	/**
+	 * @return the number of paths with an id, i.e., the paths that have not been removed
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	private int getMoveIndex(Object jointMove) {
+		if (jointMove == null) {
+			return 0;
+		}
+		Integer index = moveIndices.get(jointMove);
+		if (index == null) {
+			if (numFreeMoveIndices > 0) {
+				index = freeMoveIndices[--numFreeMoveIndices];
+			} else {
+				index = moveIndices.size() + 1;
+				if (index >= moves.length) {
+					moves = Arrays.copyOf(moves, 2 * moves.length);
+					moveRefs = Arrays.copyOf(moveRefs, 2 * moveRefs.length);
+				}
+			}
+			moveIndices.put(jointMove, index);
+			moves[index] = jointMove;
+		}
+		return index;
+	}
+
+	/**
+	 * forgets the joint move with the index if no path ends in it any more
+	 */
+	private void releaseMoveIndex(int index) {
+		if (--moveRefs[index] > 0 || index == 0) {
+			return;
+		}
+		moveIndices.remove(moves[index]);
+		moves[index] = null;
+		if (numFreeMoveIndices == freeMoveIndices.length) {
+			freeMoveIndices = Arrays.copyOf(freeMoveIndices, 2 * freeMoveIndices.length);
+		}
+		freeMoveIndices[numFreeMoveIndices++] = index;
+	}
+
+	private static int slot(long key, int mask) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & mask;
+	}
+
+	private void resize(int capacity) {
+		long[] oldKeys = childKeys;
+		int[] oldIds = childIds;
+		childKeys = new long[capacity];
+		childIds = new int[capacity];
+		mask = capacity - 1;
+		for (int i = 0; i < oldIds.length; i++) {
+			if (oldIds[i] != 0) {
+				insert(oldKeys[i], oldIds[i]);
+			}
+		}
+	}
+
+	private void insert(long key, int id) {
+		int i = slot(key, mask);
+		while (childIds[i] != 0) {
+			i = (i + 1) & mask;
+		}
+		childKeys[i] = key;
+		childIds[i] = id;
+	}
+
+}
@@ -24,9 +24,15 @@ package tud.gamecontroller.players.CheatHyperPlayer;
 import tud.auxiliary.CrossProductMap;
 import tud.gamecontroller.ConnectionEstablishedNotifier;
 import tud.gamecontroller.GDLVersion;
+import tud.gamecontroller.auxiliary.IntObjectHashMap;
 import tud.gamecontroller.game.*;
 import tud.gamecontroller.game.impl.JointMove;
+import tud.gamecontroller.instrumentation.Instrumentation;
+import tud.gamecontroller.instrumentation.Phase;
+import tud.gamecontroller.instrumentation.Span;
+import tud.gamecontroller.players.ActionPathIds;
 import tud.gamecontroller.players.LocalPlayer;
+import tud.gamecontroller.players.MoveDistributionRegistry;
 import tud.gamecontroller.term.TermInterface;
 
 import java.io.*;
@@ -102,13 +108,14 @@ public class CheatHyperPlayer<
 	private Random random;
 	private int numHyperGames = 1; // The maximum number of hypergames allowable
 	private int numHyperBranches = 1; // The amount of branches allowed
-	private HashMap<Integer, Collection<JointMove<TermType>>> currentlyInUseMoves; // Tracks all of the moves that are currently in use
+	private IntObjectHashMap<Collection<JointMove<TermType>>> currentlyInUseMoves; // Tracks all of the moves that are currently in use
 	private int depth; // Tracks the number of simulations run @todo: name better
 	private int maxNumProbes = 16; // @todo: probably remove later
 	private int stepNum; // Tracks the steps taken
 	private HashMap<Integer, MoveInterface<TermType>> actionTracker; // Tracks the action taken at each step by the player (from 0)
 	private HashMap<Integer, Collection<TermType>> perceptTracker; // Tracks the percepts seen at each step by the player (from 0)
-	private HashMap<Integer, Collection<JointMove<TermType>>> badMovesTracker; // Tracks the invalid moves from each perfect-information state
+	private IntObjectHashMap<Collection<JointMove<TermType>>> badMovesTracker; // Tracks the invalid moves from each perfect-information state
+	private ActionPathIds actionPathIds; // Interns the action paths whose ids key the trackers
 	private ArrayList<Model<TermType>> hypergames; // Holds a set of possible models for the hypergame
 	private StateInterface<TermType, ?> initialState; // Holds the initial state
 	private LikelihoodTree<TermType> likelihoodTree;
@@ -152,8 +159,9 @@ public class CheatHyperPlayer<
 		// Instantiate globals
 		actionTracker = new HashMap<Integer, MoveInterface<TermType>>();
 		perceptTracker = new HashMap<Integer, Collection<TermType>>();
-		badMovesTracker = new HashMap<Integer, Collection<JointMove<TermType>>>();
-		currentlyInUseMoves = new HashMap<Integer, Collection<JointMove<TermType>>>();
+		actionPathIds = new ActionPathIds();
+		badMovesTracker = new IntObjectHashMap<Collection<JointMove<TermType>>>();
+		currentlyInUseMoves = new IntObjectHashMap<Collection<JointMove<TermType>>>();
 		hypergames = new ArrayList<Model<TermType>>();
 		likelihoodTree = new LikelihoodTree<TermType>(0);
 		stepNum = 0;
@@ -191,6 +199,19 @@ public class CheatHyperPlayer<
 		return move;
 	}
 
+	/**
+	 * Runs at the end of the game to release the move distributions published during the match
+	 *
+	 * @param seesTerms - The percepts seen by the player after the last turn
+	 * @param priorMove - The move performed by the player at the last turn
+	 * @param notifier - Indicates the player's intentions to the gamecontroller
+	 */
+	@Override
+	public void gameStop(Object seesTerms, Object priorMove, ConnectionEstablishedNotifier notifier) {
+		MoveDistributionRegistry.clear(matchID);
+		super.gameStop(seesTerms, priorMove, notifier);
+	}
+
 	/**
 	 * Returns the agent's next move by first updating and branching each hypergame and using these to calculate the
 	 * move with the greatest probability of a good outcome
@@ -207,7 +228,7 @@ public class CheatHyperPlayer<
 		// If it is the first step, then create the first hypergame with the initial state
 		if(stepNum == 0) {
 			// Create first model to represent the empty state
-			Model<TermType> model = new Model<TermType>();
+			Model<TermType> model = new Model<TermType>(actionPathIds);
 			Collection<TermType> initialPercepts = perceptTracker.get(stepNum);
 			initialState = match.getGame().getInitialState();
 			model.updateGameplayTracker(stepNum, initialPercepts, null, initialState, role, 1);
@@ -298,7 +319,7 @@ public class CheatHyperPlayer<
 		while(hypergames.size() == 0) {
 			System.out.println(this.getName() + ": Trying to find another path");
 			// Create first model to represent the empty state
-			Model<TermType> model = new Model<TermType>();
+			Model<TermType> model = new Model<TermType>(actionPathIds);
 			Collection<TermType> initialPercepts = perceptTracker.get(0);
 			model.updateGameplayTracker(0, initialPercepts, null, initialState, role, 1);
 
@@ -422,7 +443,13 @@ public class CheatHyperPlayer<
 				for (MoveInterface<TermType> move : possibleMoves) {
 					moveHashMap.put(move.hashCode(), move);
 					// Calculate the the expected value for each move using monte carlo simulation
-					double expectedValue = anytimeSimulateMove(currState, move);
+					double expectedValue;
+					Span probe = Instrumentation.begin(Phase.PROBE);
+					try {
+						expectedValue = anytimeSimulateMove(currState, move);
+					} finally {
+						probe.end();
+					}
 
 					// Calculate the weighted expected value for each move
 					double weightedExpectedValue = expectedValue * hyperProbs.get(model.getActionPathHash());
@@ -448,30 +475,18 @@ public class CheatHyperPlayer<
 		double maxVal = -(Double.MAX_VALUE);
 		MoveInterface<TermType> bestMove = null;
 
-		// Write the moveset to a file
-		try {
-			// Create the file
-			new File("matches/cheat_move_distribution/" + matchID).mkdirs();
-			FileWriter myWriter = new FileWriter("matches/cheat_move_distribution/" + matchID + "/" + stepNum +  ".csv", false);
-
-			// Iterate through moves
-			while(it.hasNext()){
-				HashMap.Entry<Integer, Double> mapElement = (HashMap.Entry<Integer, Double>)it.next();
-				Double val = mapElement.getValue();
-				if(val > maxVal) {
-					bestMove = moveHashMap.get(mapElement.getKey());
-					maxVal = val;
-				}
-
-				myWriter.write(moveHashMap.get(mapElement.getKey()) + "," + (val/maxNumProbes) + "\n");
-
+		// Publish the move distribution for players running in the same process (and dump it to a file unless disabled)
+		HashMap<String, Double> moveDistribution = new HashMap<String, Double>();
+		while(it.hasNext()){
+			HashMap.Entry<Integer, Double> mapElement = (HashMap.Entry<Integer, Double>)it.next();
+			Double val = mapElement.getValue();
+			if(val > maxVal) {
+				bestMove = moveHashMap.get(mapElement.getKey());
+				maxVal = val;
 			}
-
-			myWriter.close();
-		} catch (IOException e) {
-			System.err.println("An error occurred.");
-			e.printStackTrace();
+			moveDistribution.put(moveHashMap.get(mapElement.getKey()).toString(), val/maxNumProbes);
 		}
+		MoveDistributionRegistry.publish(matchID, stepNum, moveDistribution, MoveDistributionRegistry.getDumpDir());
 
 		long endFinalCalcTime =  System.currentTimeMillis();
 		long updateTime = endFinalCalcTime - startFinalCalcTime;
@@ -493,21 +508,17 @@ public class CheatHyperPlayer<
 		// Repeatedly select random joint moves until a terminal state is reached
 		StateInterface<TermType, ?> currState = state;
 		JointMoveInterface<TermType> randJointMove;
-		boolean isFirstMove = true;
-		while(!currState.isTerminal()) {
-			if(isFirstMove) {
-				try {
-					randJointMove = getRandomJointMove(currState, move);
-				} catch(Exception e) {
-					return 0;
-				}
-				isFirstMove = false;
-			} else {
-				randJointMove = getRandomJointMove(currState);
+		if(!currState.isTerminal()) {
+			try {
+				randJointMove = getRandomJointMove(currState, move);
+			} catch(Exception e) {
+				return 0;
 			}
 			currState = currState.getSuccessor(randJointMove);
 		}
-		expectedOutcome += currState.getGoalValue(role);
+		// Play the rest of the game out inside the reasoner
+		PlayoutResult playout = currState.playout(match.getGame().getOrderedRoles(), random, Integer.MAX_VALUE);
+		expectedOutcome += playout.getGoalValue(match.getGame().getOrderedRoles().indexOf(role));
 		numTimesMovesSimulated++;
 		return (float)expectedOutcome;
 	}
@@ -581,6 +592,15 @@ public class CheatHyperPlayer<
 	 * @return The step of the model
 	 */
 	public int forwardHypergame(Model<TermType> model, int step) {
+		Span span = Instrumentation.begin(Phase.FORWARD_HYPERGAME);
+		try {
+			return doForwardHypergame(model, step);
+		} finally {
+			span.end();
+		}
+	}
+
+	private int doForwardHypergame(Model<TermType> model, int step) {
 		numTimesHypergameForward++;
 		// Update the model using a random joint move
 			// Get all possible moves and remove the known bad moves
@@ -713,16 +733,12 @@ public class CheatHyperPlayer<
 	 */
 	public Collection<JointMoveInterface<TermType>> computeJointMoves(StateType state, MoveInterface<TermType> action) {
 		// compute legal moves for all roles such that the action matches for the player's role
-		HashMap<RoleInterface<TermType>, Collection<? extends MoveInterface<TermType>>> legalMovesMap = new HashMap<RoleInterface<TermType>, Collection<? extends MoveInterface<TermType>>>();
-		for(RoleInterface<TermType> role: match.getGame().getOrderedRoles()) {
-			if(role == this.role) {
-				Collection<MoveInterface<TermType>> lastMoveMap = new ArrayList<MoveInterface<TermType>>();
-				lastMoveMap.add(action);
-				legalMovesMap.put(role, lastMoveMap);
-			} else {
-				legalMovesMap.put(role, state.getLegalMoves(role));
-			}
-		}
+		List<RoleInterface<TermType>> otherRoles = new ArrayList<RoleInterface<TermType>>(match.getGame().getOrderedRoles());
+		otherRoles.remove(this.role);
+		HashMap<RoleInterface<TermType>, Collection<? extends MoveInterface<TermType>>> legalMovesMap = new HashMap<RoleInterface<TermType>, Collection<? extends MoveInterface<TermType>>>(state.getAllLegalMoves(otherRoles));
+		Collection<MoveInterface<TermType>> lastMoveMap = new ArrayList<MoveInterface<TermType>>();
+		lastMoveMap.add(action);
+		legalMovesMap.put(this.role, lastMoveMap);
 		// build the cross product
 		final CrossProductMap<RoleInterface<TermType>, MoveInterface<TermType>> jointMovesMap = new CrossProductMap<RoleInterface<TermType>, MoveInterface<TermType>>(legalMovesMap);
 		// wrap the elements of the cross product in JointMove<TermType>
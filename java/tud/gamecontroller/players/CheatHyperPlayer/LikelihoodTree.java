@@ -46,24 +46,14 @@ public class LikelihoodTree<TermType extends TermInterface> {
 
     /**
      * Returns the number of choices that could have been made to lead the path to this state
+     * The product along the path is cached in each node and kept up to date when values change
      *
      * @param actionPathHashPath The full path from initial state to current state from a hypergame model
      * @return The choice factor of a given action path
      */
     public double getChoiceFactor(ArrayDeque<Integer> actionPathHashPath) {
-        Node child = getRoot();
-        double value = child.getValue() == 0 ? 1 : child.getValue();
-//        System.out.println(value);
-        for (Integer actionPathHash : actionPathHashPath) {
-            if(actionPathHash == child.getActionPathHash()) continue;
-            child = child.getChild(actionPathHash);
-//            System.out.println(child.getValue());
-            if(child.getValue() > 0) {
-                value *= child.getValue();
-            }
-        }
-//        System.out.println();
-        return value;
+        Node node = actionPathHashPath.isEmpty() ? getRoot() : getNode(actionPathHashPath);
+        return node.getChoiceFactor();
     }
 
     @Override
@@ -1,37 +1,46 @@
 package tud.gamecontroller.players.CheatHyperPlayer;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 
+import tud.gamecontroller.auxiliary.IntObjectHashMap;
+
 public class Node {
 
     // Instance Variables
     private int value;
     private int actionPathHash;
+    private double choiceFactor; // The product of the values from the root to this node
     private ArrayList<Node> children;
+    private IntObjectHashMap<Node> childIndex; // The children indexed by their action-path hash
+    private Node parent;
 
     /**
      * Instantiates a Node object with 0 children
      */
     public Node(int actionPathHash) {
         this.value = 0;
+        this.choiceFactor = 1.0;
         this.actionPathHash = actionPathHash;
         this.children = new ArrayList<Node>();
+        this.childIndex = new IntObjectHashMap<Node>();
+        this.parent = null;
     }
 
     public int getValue() { return this.value; }
+    public double getChoiceFactor() { return this.choiceFactor; }
     public int getActionPathHash() { return this.actionPathHash; }
+    public Node getParent() { return this.parent; }
     public ArrayList<Node> getChildren() { return this.children; }
     public Node getChild(int actionPathHash) {
-        for (Node node : this.children) {
-            if(node.getActionPathHash() == actionPathHash) {
-                return node;
-            }
-        }
-        return null;
+        return this.childIndex.get(actionPathHash);
     }
 
     public void setValue(int value) {
-        this.value = value;
+        if(value != this.value) {
+            this.value = value;
+            updateChoiceFactor();
+        }
     }
 
     /**
@@ -40,23 +49,43 @@ public class Node {
      * @param child A Node to add as a child to this Node
      */
     public void addChild(Node child) {
-        boolean contained = false;
-        for (Node node : this.children) {
-            if(node.getActionPathHash() == child.getActionPathHash()) {
-                contained = true;
-            }
-        }
-        if(!contained) {
+        if(this.childIndex.putIfAbsent(child.getActionPathHash(), child) == null) {
+            child.parent = this;
+            child.updateChoiceFactor();
             this.children.add(child);
         }
     }
 
+    /**
+     * Recomputes the cached choice factor of this node and all nodes below it
+     * Values that have not been set (0) do not change the product, the product is built from the root downwards like when walking the path
+     */
+    private void updateChoiceFactor() {
+        ArrayDeque<Node> unvisited = new ArrayDeque<Node>();
+        unvisited.push(this);
+        Node node;
+        while(!unvisited.isEmpty()) {
+            node = unvisited.pop();
+            if(node.parent == null) {
+                node.choiceFactor = node.value == 0 ? 1 : node.value;
+            } else {
+                node.choiceFactor = node.value > 0 ? node.parent.choiceFactor * node.value : node.parent.choiceFactor;
+            }
+            for (Node child : node.children) {
+                unvisited.push(child);
+            }
+        }
+    }
+
     /**
      * Removes the child from this Node's children
      *
      * @param child A Node to remove from this Node's children
      */
     public void removeChild(Node child) {
+        if(this.childIndex.get(child.getActionPathHash()) == child) {
+            this.childIndex.remove(child.getActionPathHash());
+        }
         this.children.remove(child);
     }
 
@@ -0,0 +1,135 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package tud.gamecontroller.players;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import tud.gamecontroller.auxiliary.IntHashSet;
+import tud.gamecontroller.auxiliary.IntObjectHashMap;
+import tud.gamecontroller.game.StateInterface;
+
+/**
+ * FluentBitSets represents the states of the hypergames as bitsets over the fluents of the game, so that the state
+ * variance agents can compare states with a few xors and popcounts instead of hashing every fluent of every state.
+ *
+ * The fluents get dense indices in the order they are first seen, which are kept for the whole match. The bitset of a
+ * state is computed once per action path (the path determines the state) and reused for as long as a hypergame with
+ * that path is filtered, so only the hypergames that moved since the last filtering need their fluents. The ids of
+ * removed paths are handed out again for new paths, so their bitsets have to be dropped with forget().
+ *
+ * Not thread-safe, the bitsets of one match should come from one instance.
+ */
+public class FluentBitSets {
+
+	private final Map<Object, Integer> fluentIndices = new HashMap<Object, Integer>();
+	// the bitsets of the paths used since the last call of nextRound() and of the ones used in the round before
+	private IntObjectHashMap<long[]> bitSets = new IntObjectHashMap<long[]>();
+	private IntObjectHashMap<long[]> previousBitSets = new IntObjectHashMap<long[]>();
+
+	/**
+	 * @param actionPathId the id of the action path leading to the state
+	 * @param state the state reached by the path
+	 * @return the bitset of the fluents of the state (must not be changed)
+	 */
+	public long[] getBitSet(int actionPathId, StateInterface<?, ?> state) {
+		long[] bits = bitSets.get(actionPathId);
+		if (bits == null) {
+			bits = previousBitSets.remove(actionPathId);
+			if (bits == null) {
+				bits = computeBitSet(state);
+			}
+			bitSets.put(actionPathId, bits);
+		}
+		return bits;
+	}
+
+	/**
+	 * forgets the bitsets of the paths that were not used since the last call, to be called once per filtering
+	 */
+	public void nextRound() {
+		IntObjectHashMap<long[]> unused = previousBitSets;
+		previousBitSets = bitSets;
+		bitSets = unused;
+		bitSets.clear();
+	}
+
+	/**
+	 * forgets the bitsets of the paths with the given ids, to be called when the ids are removed from the ActionPathIds
+	 */
+	public void forget(IntHashSet actionPathIds) {
+		forget(bitSets, actionPathIds);
+		forget(previousBitSets, actionPathIds);
+	}
+
+	private static void forget(IntObjectHashMap<long[]> bitSets, IntHashSet actionPathIds) {
+		for (int actionPathId : bitSets.keys()) {
+			if (actionPathIds.contains(actionPathId)) {
+				bitSets.remove(actionPathId);
+			}
+		}
+	}
+
+	/**
+	 * @return the number of fluents indexed so far
+	 */
+	public int getNumFluents() {
+		return fluentIndices.size();
+	}
+
+	private long[] computeBitSet(StateInterface<?, ?> state) {
+		long[] bits = new long[(fluentIndices.size() >> 6) + 1];
+		for (Object fluent : state.getFluents()) {
+			Integer index = fluentIndices.get(fluent);
+			if (index == null) {
+				index = fluentIndices.size();
+				fluentIndices.put(fluent, index);
+			}
+			if ((index >> 6) >= bits.length) {
+				long[] grown = new long[Math.max(2 * bits.length, (index >> 6) + 1)];
+				System.arraycopy(bits, 0, grown, 0, bits.length);
+				bits = grown;
+			}
+			bits[index >> 6] |= 1L << index;
+		}
+		return bits;
+	}
+
+	/**
+	 * @return the number of fluents that are in exactly one of the two states (the Hamming distance of the bitsets)
+	 */
+	public static int distance(long[] bits1, long[] bits2) {
+		if (bits1.length > bits2.length) {
+			long[] swap = bits1;
+			bits1 = bits2;
+			bits2 = swap;
+		}
+		int distance = 0;
+		for (int i = 0; i < bits1.length; i++) {
+			distance += Long.bitCount(bits1[i] ^ bits2[i]);
+		}
+		for (int i = bits1.length; i < bits2.length; i++) {
+			distance += Long.bitCount(bits2[i]);
+		}
+		return distance;
+	}
+
+}
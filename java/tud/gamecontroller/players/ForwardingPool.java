@@ -0,0 +1,212 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package tud.gamecontroller.players;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import tud.gamecontroller.game.GameInterface;
+import tud.gamecontroller.game.ReasonerInterface;
+import tud.gamecontroller.game.StateInterface;
+import tud.gamecontroller.game.impl.State;
+import tud.gamecontroller.term.TermInterface;
+
+/**
+ * A ForwardingPool runs the tasks that forward the hypergames of a hyperplay agent, either one after the other in the
+ * calling thread (numThreads <= 1) or concurrently on a fixed pool of worker threads.
+ *
+ * Each worker thread queries states with its own reasoner (see localState), since a reasoner serialises all queries
+ * on one lock. The wall-clock time and the CPU time summed over all tasks of the last call to invokeAll are recorded so
+ * that the agents can log how well the forwarding used the cores.
+ *
+ * @param <TermType>
+ */
+public class ForwardingPool<TermType extends TermInterface> {
+
+	private final GameInterface<TermType, ?> game;
+	private final int numThreads;
+	private final ExecutorService pool;
+	private final ThreadMXBean threadMXBean;
+	private final AtomicLong cpuTime = new AtomicLong();
+	private long wallTime;
+
+	/**
+	 * @param name the prefix of the names of the worker threads
+	 * @param game the game, used to create one reasoner per worker thread
+	 * @param numThreads the number of worker threads, tasks are run in the calling thread if this is less than 2
+	 */
+	public ForwardingPool(String name, GameInterface<TermType, ?> game, int numThreads) {
+		this.game = game;
+		this.numThreads = numThreads;
+		this.threadMXBean = ManagementFactory.getThreadMXBean();
+		if(numThreads > 1) {
+			final String threadName = name;
+			pool = Executors.newFixedThreadPool(numThreads, new ThreadFactory() {
+				private int count = 0;
+				public synchronized Thread newThread(Runnable runnable) {
+					Thread thread = new WorkerThread(runnable, threadName + "-forward-" + (count++));
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		} else {
+			pool = null;
+		}
+	}
+
+	public boolean isParallel() {
+		return pool != null;
+	}
+
+	public int getNumThreads() {
+		return numThreads;
+	}
+
+	/**
+	 * Runs all tasks and returns their results in the order of the tasks
+	 *
+	 * @param tasks - The tasks to run
+	 * @return The result of each task
+	 */
+	public <T> List<T> invokeAll(List<? extends Callable<T>> tasks) {
+		long startTime = System.nanoTime();
+		cpuTime.set(0);
+		List<T> results = new ArrayList<T>(tasks.size());
+		try {
+			if(pool == null) {
+				for(Callable<T> task : tasks) {
+					results.add(new TimedTask<T>(task).call());
+				}
+			} else {
+				List<TimedTask<T>> timedTasks = new ArrayList<TimedTask<T>>(tasks.size());
+				for(Callable<T> task : tasks) {
+					timedTasks.add(new TimedTask<T>(task));
+				}
+				for(Future<T> future : pool.invokeAll(timedTasks)) {
+					results.add(future.get());
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		} finally {
+			wallTime = System.nanoTime() - startTime;
+		}
+		return results;
+	}
+
+	/**
+	 * Returns the state evaluated by the reasoner of the current worker thread, or the state itself if it is not called
+	 * from a worker thread
+	 *
+	 * @param state - The state to query
+	 * @return An equal state that can be queried without contention from the current thread
+	 */
+	@SuppressWarnings("unchecked")
+	public StateInterface<TermType, ?> localState(StateInterface<TermType, ?> state) {
+		Thread thread = Thread.currentThread();
+		if(!(state instanceof State) || !(thread instanceof ForwardingPool.WorkerThread) || ((WorkerThread) thread).getPool() != this) {
+			return state;
+		}
+		WorkerThread worker = (WorkerThread) thread;
+		if(worker.reasoner == null) {
+			worker.reasoner = ((State<TermType, Object>) game.getInitialState()).getReasoner();
+		}
+		return ((State<TermType, Object>) state).withReasoner(worker.reasoner);
+	}
+
+	/**
+	 * @return The wall-clock time of the last call to invokeAll in milliseconds
+	 */
+	public long getWallTime() {
+		return wallTime / 1000000;
+	}
+
+	/**
+	 * @return The CPU time used by the tasks of the last call to invokeAll in milliseconds or -1 if it is not available
+	 */
+	public long getCpuTime() {
+		return cpuTime.get() < 0 ? -1 : cpuTime.get() / 1000000;
+	}
+
+	/**
+	 * Stops the worker threads
+	 */
+	public void shutdown() {
+		if(pool != null) {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * A thread of the pool, holding the thread's own reasoner
+	 */
+	private class WorkerThread extends Thread {
+		private ReasonerInterface<TermType, Object> reasoner;
+
+		public WorkerThread(Runnable runnable, String name) {
+			super(runnable, name);
+		}
+
+		public ForwardingPool<TermType> getPool() {
+			return ForwardingPool.this;
+		}
+	}
+
+	/**
+	 * Adds the CPU time of the thread running the task to cpuTime
+	 */
+	private class TimedTask<T> implements Callable<T> {
+		private final Callable<T> task;
+
+		public TimedTask(Callable<T> task) {
+			this.task = task;
+		}
+
+		public T call() throws Exception {
+			if(!threadMXBean.isCurrentThreadCpuTimeSupported()) {
+				cpuTime.set(-1);
+				return task.call();
+			}
+			long startCpuTime = threadMXBean.getCurrentThreadCpuTime();
+			try {
+				return task.call();
+			} finally {
+				long taskCpuTime = threadMXBean.getCurrentThreadCpuTime() - startCpuTime;
+				if(cpuTime.get() >= 0) {
+					cpuTime.addAndGet(taskCpuTime);
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,323 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package tud.gamecontroller.players.ISMCTSPlayer;
+
+import tud.gamecontroller.ConnectionEstablishedNotifier;
+import tud.gamecontroller.GDLVersion;
+import tud.gamecontroller.exceptions.ReasonerCancelledException;
+import tud.gamecontroller.game.CancellationToken;
+import tud.gamecontroller.game.MoveInterface;
+import tud.gamecontroller.game.PlayoutResult;
+import tud.gamecontroller.game.RoleInterface;
+import tud.gamecontroller.game.RunnableMatchInterface;
+import tud.gamecontroller.game.StateInterface;
+import tud.gamecontroller.game.impl.JointMove;
+import tud.gamecontroller.players.ForwardingPool;
+import tud.gamecontroller.players.LocalPlayer;
+import tud.gamecontroller.term.TermInterface;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ISMCTSPlayer runs single-observer information set Monte Carlo tree search (SO-ISMCTS) with decoupled UCT.
+ *
+ * Each iteration samples a determinization from the states the StatesTracker still considers possible (the current
+ * state in GDL-I), descends the tree choosing a move for every role with that role's bandit in the node, expands one
+ * node and finishes with a random playout. The tree is keyed by the player's own moves and percepts, so after each
+ * step the subtree of the move that was made and the percepts that were received becomes the new root and keeps its
+ * statistics. The search also runs during the start clock.
+ *
+ * With searchThreads > 1 the iterations run concurrently on one shared tree (tree parallelism), each worker thread
+ * querying its own reasoner.
+ */
+public class ISMCTSPlayer<
+	TermType extends TermInterface,
+	StateType extends StateInterface<TermType, ? extends StateType>> extends LocalPlayer<TermType, StateType>  {
+
+	private List<? extends RoleInterface<TermType>> roles;
+	private int roleIndex;
+	private Node<TermType> root;
+	private ForwardingPool<TermType> searchPool;
+	private long startTime;
+	private long timeLimit;
+	private volatile CancellationToken deadline; // Cancelled once the time to search has run out, which stops the playouts
+	private final ThreadLocal<Random> random = new ThreadLocal<Random>() {
+		@Override
+		protected Random initialValue() {
+			return new Random();
+		}
+	};
+	private final AtomicLong numIterations = new AtomicLong();
+	private final AtomicLong numNodes = new AtomicLong();
+
+	private static final long PREFERRED_METAGAME_BUFFER = 2000; // 2 second buffer before the end of the start clock
+	private static final long PREFERRED_PLAY_BUFFER = 1000; // 1 second buffer before the end of the play clock
+	private double explorationConstant = 0.7;
+	private int searchThreads = 1;
+	private boolean reuseTree = true;
+
+	public ISMCTSPlayer(String name, GDLVersion gdlVersion) {
+		super(name, gdlVersion);
+
+		// Override settings with config file
+		try {
+			BufferedReader csvReader = new BufferedReader(new FileReader("java/tud/gamecontroller/players/agentConfig/" + this.getName() + ".config"));
+			String row;
+			while ((row = csvReader.readLine()) != null) {
+				String[] data = row.split(":");
+				if(data[0].equals("explorationConstant")) explorationConstant = Double.parseDouble(data[1]);
+				else if(data[0].equals("searchThreads")) searchThreads = Integer.parseInt(data[1]);
+				else if(data[0].equals("reuseTree")) reuseTree = Boolean.parseBoolean(data[1]);
+			}
+			csvReader.close();
+		}  catch (IOException e) {
+			System.out.println(this.getName() + ": NO CONFIG FILE FOUND");
+		}
+	}
+
+	/**
+	 * Sets up the tree and searches from the initial state until the start clock runs out
+	 */
+	@Override
+	public void gameStart(RunnableMatchInterface<TermType, StateType> match, RoleInterface<TermType> role, ConnectionEstablishedNotifier notifier) {
+		super.gameStart(match, role, notifier);
+
+		roles = this.match.getGame().getOrderedRoles();
+		roleIndex = roles.indexOf(this.role);
+		root = new Node<TermType>(roles.size());
+		if(searchPool != null) {
+			searchPool.shutdown();
+		}
+		searchPool = new ForwardingPool<TermType>(getName(), this.match.getGame(), searchThreads);
+
+		startTime = System.currentTimeMillis();
+		timeLimit = this.match.getStartclock()*1000 - PREFERRED_METAGAME_BUFFER;
+		search();
+	}
+
+	/**
+	 * Moves the root to the subtree of the last step before the StatesTracker is updated and a move is selected
+	 */
+	@Override
+	public MoveInterface<TermType> gamePlay(Object seesTerms, Object priorMove, ConnectionEstablishedNotifier notifier) {
+		startTime = System.currentTimeMillis();
+		timeLimit = this.match.getPlayclock()*1000 - PREFERRED_PLAY_BUFFER;
+		if(seesTerms != null) {
+			Node<TermType> child = null;
+			if(reuseTree && priorMove instanceof MoveInterface<?>) {
+				@SuppressWarnings("unchecked")
+				MoveInterface<TermType> move = (MoveInterface<TermType>) priorMove;
+				child = root.getChild(new Observation(move, seesTerms));
+			}
+			if(child != null) {
+				logger.info(getName() + ": reusing subtree with " + child.getVisits() + " of " + root.getVisits() + " visits");
+				root = child;
+			} else {
+				root = new Node<TermType>(roles.size());
+			}
+		}
+		return super.gamePlay(seesTerms, priorMove, notifier);
+	}
+
+	/**
+	 * Releases the search threads
+	 */
+	@Override
+	public void gameStop(Object seesTerms, Object priorMove, ConnectionEstablishedNotifier notifier) {
+		super.gameStop(seesTerms, priorMove, notifier);
+		if(searchPool != null) {
+			searchPool.shutdown();
+			searchPool = null;
+		}
+		root = null;
+	}
+
+	/**
+	 * Returns the most visited move at the root after searching until the play clock runs out
+	 *
+	 * @return A legal move
+	 */
+	public MoveInterface<TermType> getNextMove() {
+		ArrayList<MoveInterface<TermType>> legalMoves = new ArrayList<MoveInterface<TermType>>(getLegalMoves());
+		if(legalMoves.size() == 1) {
+			return legalMoves.get(0);
+		}
+		search();
+
+		MoveInterface<TermType> bestMove = legalMoves.get(0);
+		int bestVisits = -1;
+		for(MoveInterface<TermType> move : legalMoves) {
+			int visits = root.getMoveVisits(roleIndex, move);
+			if(visits > bestVisits) {
+				bestVisits = visits;
+				bestMove = move;
+			}
+		}
+		logger.info(getName() + ": selected " + bestMove + " with " + bestVisits + " visits and value " + root.getMoveValue(roleIndex, bestMove));
+		return bestMove;
+	}
+
+	/**
+	 * @return The states the player considers possible, from which the determinizations are drawn
+	 */
+	private List<StateInterface<TermType, ?>> getPossibleStates() {
+		List<StateInterface<TermType, ?>> possibleStates = new ArrayList<StateInterface<TermType, ?>>();
+		if(getGdlVersion() == GDLVersion.v1) {
+			possibleStates.add(currentState);
+		} else {
+			possibleStates.addAll(statesTracker.getCurrentPossibleStates());
+		}
+		return possibleStates;
+	}
+
+	/**
+	 * Runs iterations from the root until the time runs out, on every thread of the search pool
+	 */
+	private void search() {
+		final List<StateInterface<TermType, ?>> possibleStates = getPossibleStates();
+		if(possibleStates.isEmpty()) {
+			return;
+		}
+		final Node<TermType> searchRoot = root;
+		deadline = CancellationToken.withTimeout(Math.max(0, timeLimit - (System.currentTimeMillis() - startTime)));
+		numIterations.set(0);
+		numNodes.set(0);
+		List<Callable<Void>> workers = new ArrayList<Callable<Void>>();
+		for(int i = 0 ; i < Math.max(1, searchThreads) ; i++) {
+			workers.add(new Callable<Void>() {
+				public Void call() {
+					Random rand = random.get();
+					while(!isTimeUp() && !Thread.currentThread().isInterrupted()) {
+						StateInterface<TermType, ?> determinization = possibleStates.get(rand.nextInt(possibleStates.size()));
+						if(iterate(searchRoot, searchPool.localState(determinization), rand)) {
+							numIterations.incrementAndGet();
+						}
+					}
+					return null;
+				}
+			});
+		}
+		searchPool.invokeAll(workers);
+
+		long elapsed = Math.max(1, System.currentTimeMillis() - startTime);
+		logger.info(getName() + ": " + numIterations.get() + " iterations (" + (numIterations.get() * 1000 / elapsed) + " iterations/s), "
+				+ numNodes.get() + " new nodes, " + searchRoot.getVisits() + " visits at the root, " + possibleStates.size() + " possible states in " + elapsed + "ms");
+	}
+
+	/**
+	 * One iteration: selection and expansion in the tree, a random playout and backpropagation
+	 *
+	 * @param node The root of the search
+	 * @param state The determinization
+	 * @param rand The random number generator of the calling thread
+	 * @return false if the iteration was abandoned because the time ran out
+	 */
+	private boolean iterate(Node<TermType> node, StateInterface<TermType, ?> state, Random rand) {
+		List<Node<TermType>> pathNodes = new ArrayList<Node<TermType>>();
+		List<JointMove<TermType>> pathMoves = new ArrayList<JointMove<TermType>>();
+		boolean[] created = new boolean[1];
+
+		// Selection and expansion
+		while(node != null && !state.isTerminal()) {
+			JointMove<TermType> jointMove = new JointMove<TermType>(roles);
+			for(int i = 0 ; i < roles.size() ; i++) {
+				jointMove.put(roles.get(i), node.select(i, state.getLegalMoves(roles.get(i)), explorationConstant, rand));
+			}
+			pathNodes.add(node);
+			pathMoves.add(jointMove);
+			Object percepts = getGdlVersion() == GDLVersion.v1 ? jointMove : state.getSeesTerms(role, jointMove);
+			state = state.getSuccessor(jointMove);
+			Node<TermType> child = node.getOrAddChild(new Observation(jointMove.get(role), percepts), created);
+			if(created[0]) {
+				numNodes.incrementAndGet();
+				pathNodes.add(child);
+				pathMoves.add(null);
+				node = null;
+			} else {
+				node = child;
+			}
+		}
+		if(node != null) {
+			pathNodes.add(node);
+			pathMoves.add(null);
+		}
+
+		// Playout
+		double[] values = playout(state, rand);
+
+		// Backpropagation
+		for(int i = 0 ; i < pathNodes.size() ; i++) {
+			Node<TermType> pathNode = pathNodes.get(i);
+			JointMove<TermType> jointMove = pathMoves.get(i);
+			if(values != null) {
+				pathNode.visit();
+			}
+			if(jointMove == null) continue;
+			for(int r = 0 ; r < roles.size() ; r++) {
+				if(values != null) {
+					pathNode.update(r, jointMove.get(roles.get(r)), values[r]);
+				} else {
+					pathNode.revert(r, jointMove.get(roles.get(r)));
+				}
+			}
+		}
+		return values != null;
+	}
+
+	/**
+	 * Plays random joint moves inside the reasoner until a terminal state is reached
+	 *
+	 * @param state The state to start from
+	 * @param rand The random number generator of the calling thread
+	 * @return The goal values of all roles scaled to [0, 1], or null if the time ran out
+	 */
+	private double[] playout(StateInterface<TermType, ?> state, Random rand) {
+		if(isTimeUp()) {
+			return null;
+		}
+		PlayoutResult playout;
+		CancellationToken previous = deadline.attach();
+		try {
+			playout = state.playout(roles, rand, Integer.MAX_VALUE);
+		} catch(ReasonerCancelledException e) {
+			return null;
+		} finally {
+			CancellationToken.restore(previous);
+		}
+		double[] values = new double[roles.size()];
+		for(int i = 0 ; i < roles.size() ; i++) {
+			values[i] = playout.getGoalValue(i) / 100.0;
+		}
+		return values;
+	}
+
+	/**
+	 * @return true if the time to search has run out
+	 */
+	private boolean isTimeUp() {
+		return System.currentTimeMillis() - startTime >= timeLimit;
+	}
+
+}
@@ -0,0 +1,182 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package tud.gamecontroller.players.ISMCTSPlayer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import tud.gamecontroller.game.MoveInterface;
+
+/**
+ * A node of the information set search tree, i.e., one history of the player's moves and percepts
+ *
+ * Every role has its own bandit over its moves in this node (decoupled UCT). Only the player's move and percepts
+ * branch the tree, the opponents' moves are not observed and are therefore only kept as statistics.
+ * Moves are counted as available each time they are legal in the determinization of a visit (subset-armed UCB).
+ *
+ * All methods are synchronized so that several threads can search the same tree. A selected move is counted as
+ * visited straight away (virtual loss) so that concurrent threads spread over different moves.
+ *
+ * @param <TermType>
+ */
+public class Node<TermType> {
+
+    /**
+     * The statistics of one move of one role
+     */
+    private static final class MoveStats {
+        private int visits;
+        private int available;
+        private double totalValue;
+    }
+
+    private final List<HashMap<MoveInterface<TermType>, MoveStats>> moveStats; // Per role
+    private final HashMap<Observation, Node<TermType>> children;
+    private int visits;
+
+    /**
+     * @param numRoles The number of roles of the game
+     */
+    public Node(int numRoles) {
+        this.moveStats = new ArrayList<HashMap<MoveInterface<TermType>, MoveStats>>(numRoles);
+        for(int i = 0 ; i < numRoles ; i++) {
+            this.moveStats.add(new HashMap<MoveInterface<TermType>, MoveStats>());
+        }
+        this.children = new HashMap<Observation, Node<TermType>>();
+        this.visits = 0;
+    }
+
+    public synchronized int getVisits() { return this.visits; }
+    public synchronized int getNumChildren() { return this.children.size(); }
+
+    /**
+     * Selects a move of a role with UCB1 over the moves that are available in the current determinization
+     * Moves that have not been visited yet are tried first in random order
+     *
+     * @param roleIndex The index of the role
+     * @param legalMoves The legal moves of the role in the current determinization
+     * @param explorationConstant The weight of the exploration term
+     * @param random The random number generator of the calling thread
+     * @return The selected move, which is counted as visited
+     */
+    public synchronized MoveInterface<TermType> select(int roleIndex, Collection<? extends MoveInterface<TermType>> legalMoves, double explorationConstant, Random random) {
+        HashMap<MoveInterface<TermType>, MoveStats> roleStats = this.moveStats.get(roleIndex);
+        MoveInterface<TermType> bestMove = null;
+        MoveStats bestStats = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        int numUnvisited = 0;
+        for(MoveInterface<TermType> move : legalMoves) {
+            MoveStats stats = roleStats.get(move);
+            if(stats == null) {
+                stats = new MoveStats();
+                roleStats.put(move, stats);
+            }
+            stats.available++;
+            if(stats.visits == 0) {
+                // Pick uniformly among the unvisited moves (reservoir sampling)
+                numUnvisited++;
+                if(random.nextInt(numUnvisited) == 0) {
+                    bestMove = move;
+                    bestStats = stats;
+                }
+            } else if(numUnvisited == 0) {
+                double score = stats.totalValue / stats.visits + explorationConstant * Math.sqrt(Math.log(stats.available) / stats.visits);
+                if(score > bestScore) {
+                    bestScore = score;
+                    bestMove = move;
+                    bestStats = stats;
+                }
+            }
+        }
+        if(bestStats != null) {
+            bestStats.visits++;
+        }
+        return bestMove;
+    }
+
+    /**
+     * Adds the result of a simulation to a move selected in this node
+     *
+     * @param roleIndex The index of the role that made the move
+     * @param move The move returned by select
+     * @param value The goal value of the role at the end of the simulation, scaled to [0, 1]
+     */
+    public synchronized void update(int roleIndex, MoveInterface<TermType> move, double value) {
+        this.moveStats.get(roleIndex).get(move).totalValue += value;
+    }
+
+    /**
+     * Takes back the visit of a move selected in this node for a simulation that was abandoned
+     */
+    public synchronized void revert(int roleIndex, MoveInterface<TermType> move) {
+        this.moveStats.get(roleIndex).get(move).visits--;
+    }
+
+    /**
+     * Counts a simulation through this node
+     */
+    public synchronized void visit() {
+        this.visits++;
+    }
+
+    /**
+     * @return The child reached by the observation, or null if it has not been expanded yet
+     */
+    public synchronized Node<TermType> getChild(Observation observation) {
+        return this.children.get(observation);
+    }
+
+    /**
+     * Returns the child reached by the observation, adding it if it has not been expanded yet
+     *
+     * @param observation The move of the player and the percepts it receives
+     * @param created Set to true at index 0 if the child was added by this call
+     * @return The child
+     */
+    public synchronized Node<TermType> getOrAddChild(Observation observation, boolean[] created) {
+        Node<TermType> child = this.children.get(observation);
+        created[0] = (child == null);
+        if(child == null) {
+            child = new Node<TermType>(this.moveStats.size());
+            this.children.put(observation, child);
+        }
+        return child;
+    }
+
+    /**
+     * @return The number of visits of a move of a role in this node
+     */
+    public synchronized int getMoveVisits(int roleIndex, MoveInterface<TermType> move) {
+        MoveStats stats = this.moveStats.get(roleIndex).get(move);
+        return stats == null ? 0 : stats.visits;
+    }
+
+    /**
+     * @return The mean value of a move of a role in this node, or -1 if it has not been visited
+     */
+    public synchronized double getMoveValue(int roleIndex, MoveInterface<TermType> move) {
+        MoveStats stats = this.moveStats.get(roleIndex).get(move);
+        return stats == null || stats.visits == 0 ? -1 : stats.totalValue / stats.visits;
+    }
+
+}
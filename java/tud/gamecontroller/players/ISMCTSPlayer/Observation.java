@@ -0,0 +1,71 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package tud.gamecontroller.players.ISMCTSPlayer;
+
+import java.util.Collection;
+import java.util.HashSet;
+
+import tud.gamecontroller.game.MoveInterface;
+
+/**
+ * What the player learns in one step: the move it made and what it saw afterwards
+ * (the joint move in GDL-I, the sees terms in GDL-II)
+ */
+public final class Observation {
+
+    private final MoveInterface<?> move;
+    private final Object percepts;
+    private final int hashCode;
+
+    /**
+     * @param move The move made by the player
+     * @param percepts The joint move (GDL-I) or the collection of sees terms (GDL-II) the player received
+     */
+    public Observation(MoveInterface<?> move, Object percepts) {
+        this.move = move;
+        // The order of the sees terms depends on the reasoner, so they are compared as a set
+        if(percepts instanceof Collection<?>) {
+            percepts = new HashSet<Object>((Collection<?>) percepts);
+        }
+        this.percepts = percepts;
+        this.hashCode = 31 * (move == null ? 0 : move.hashCode()) + (percepts == null ? 0 : percepts.hashCode());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o) return true;
+        if(!(o instanceof Observation)) return false;
+        Observation other = (Observation) o;
+        return hashCode == other.hashCode
+                && (move == null ? other.move == null : move.equals(other.move))
+                && (percepts == null ? other.percepts == null : percepts.equals(other.percepts));
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return move + " / " + percepts;
+    }
+
+}
@@ -23,7 +23,10 @@ package tud.gamecontroller.players.MCSPlayer;
 
 import tud.gamecontroller.ConnectionEstablishedNotifier;
 import tud.gamecontroller.GDLVersion;
+import tud.gamecontroller.exceptions.ReasonerCancelledException;
+import tud.gamecontroller.game.CancellationToken;
 import tud.gamecontroller.game.MoveInterface;
+import tud.gamecontroller.game.PlayoutResult;
 import tud.gamecontroller.game.RoleInterface;
 import tud.gamecontroller.game.RunnableMatchInterface;
 import tud.gamecontroller.game.StateInterface;
@@ -31,26 +34,85 @@ import tud.gamecontroller.game.impl.JointMove;
 import tud.gamecontroller.players.LocalPlayer;
 import tud.gamecontroller.term.TermInterface;
 
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
 import java.util.*;
-
-// Note: This assumes two player only
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MCSPlayer runs an iterative deepening search over joint moves for any number of roles and estimates the value of
+ * the states at the search horizon with Monte Carlo depth charges.
+ *
+ * Opponents are either assumed to form a coalition against the player (paranoid) or to each play for their own
+ * goal values (max-n). For max-n the simultaneous moves of the opponents are searched as if they were made one after
+ * the other in the order of the roles, each opponent choosing the move with the greatest value for itself. The search
+ * mode, the number of probes and the number of probe threads are read from the agent's config file. The depth charges
+ * of a state are run concurrently on a worker pool.
+ *
+ * All queries of a step are made under a cancellation token with the step's deadline, so that the search and the
+ * depth charges stop in the middle of a query once the time is up.
+ */
 public class MCSPlayer<
 	TermType extends TermInterface,
 	StateType extends StateInterface<TermType, ? extends StateType>> extends LocalPlayer<TermType, StateType>  {
 
-	private Random random;
+	/**
+	 * How the opponents are assumed to choose their joint move during the search
+	 */
+	public enum SearchMode {
+		/** the opponents choose the joint move that minimises the player's goal value */
+		PARANOID,
+		/** each opponent chooses the move that maximises its own goal value */
+		MAXN
+	}
+
 	private long timeLimit;
 	private long startTime;
-	private long timeexpired;
-	private RoleInterface<TermType> opponentRole;
+	private CancellationToken deadline; // Cancelled once the time to select a move has run out
+	private List<? extends RoleInterface<TermType>> roles;
+	private int roleIndex;
+	private ExecutorService probePool;
+	private final ThreadLocal<Random> random = new ThreadLocal<Random>() {
+		@Override
+		protected Random initialValue() {
+			return new Random();
+		}
+	};
+	private final AtomicLong numNodes = new AtomicLong();
+	private final AtomicLong numProbesRun = new AtomicLong();
+	private final AtomicLong numProbesCancelled = new AtomicLong();
+	private boolean reachedHorizon; // Whether the last depth of the search had non-terminal states at the horizon
 
 	private static final long PREFERRED_METAGAME_BUFFER = 2000;
 	private static final long PREFERRED_PLAY_BUFFER = 1000;
 	private int numProbes = 4;
-	
+	private int numThreads = Runtime.getRuntime().availableProcessors();
+	private SearchMode searchMode = SearchMode.PARANOID;
+
 	public MCSPlayer(String name, GDLVersion gdlVersion) {
 		super(name, GDLVersion.v1); // If the player will only work for GDL-I games
-		random = new Random();
+
+		// Override settings with config file
+		try {
+			BufferedReader csvReader = new BufferedReader(new FileReader("java/tud/gamecontroller/players/agentConfig/" + this.getName() + ".config"));
+			String row;
+			while ((row = csvReader.readLine()) != null) {
+				String[] data = row.split(":");
+				if(data[0].equals("numProbes")) numProbes = Integer.parseInt(data[1]);
+				else if(data[0].equals("numThreads")) numThreads = Integer.parseInt(data[1]);
+				else if(data[0].equals("searchMode")) searchMode = SearchMode.valueOf(data[1].toUpperCase());
+			}
+			csvReader.close();
+		}  catch (IOException e) {
+			System.out.println(this.getName() + ": NO CONFIG FILE FOUND");
+		}
 	}
 
 	/**
@@ -62,13 +124,35 @@ public class MCSPlayer<
 
 		// Instantiate globals
 		timeLimit = (this.match.getPlayclock()*1000 - PREFERRED_PLAY_BUFFER);
+		roles = this.match.getGame().getOrderedRoles();
+		roleIndex = roles.indexOf(this.role);
 
-		// Instantiate opponent
-		List<? extends RoleInterface<TermType>> allRoles = this.match.getGame().getOrderedRoles();
-		for (RoleInterface<TermType> validRole : allRoles) {
-			if(!validRole.equals(this.role)) {
-				opponentRole = validRole;
-			}
+		// Instantiate the worker pool for the depth charges
+		if(probePool != null) {
+			probePool.shutdownNow();
+		}
+		probePool = null;
+		if(numThreads > 1) {
+			probePool = Executors.newFixedThreadPool(numThreads, new ThreadFactory() {
+				private int count = 0;
+				public synchronized Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, getName() + "-probe-" + (count++));
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+	}
+
+	/**
+	 * Run when the game is over to release the worker pool
+	 */
+	@Override
+	public void gameStop(Object seesTerms, Object priorMove, ConnectionEstablishedNotifier notifier) {
+		super.gameStop(seesTerms, priorMove, notifier);
+		if(probePool != null) {
+			probePool.shutdownNow();
+			probePool = null;
 		}
 	}
 
@@ -82,12 +166,26 @@ public class MCSPlayer<
 
 		// Calculate amount of time to run for and track time
 		startTime = System.currentTimeMillis();
-		timeexpired = 0;
+		deadline = CancellationToken.withTimeout(timeLimit);
+		numNodes.set(0);
+		numProbesRun.set(0);
+		numProbesCancelled.set(0);
 
 		// Only run if MCS if multiple options
 		MoveInterface<TermType> selection = legalMoves.get(0);
 		if(legalMoves.size() > 1) {
-			selection = MCS(legalMoves);
+			CancellationToken previous = deadline.attach();
+			try {
+				selection = MCS(legalMoves);
+			} finally {
+				CancellationToken.restore(previous);
+			}
+
+			// Report the search speed
+			long elapsed = Math.max(1, System.currentTimeMillis() - startTime);
+			logger.info(getName() + ": " + numNodes.get() + " nodes (" + (numNodes.get() * 1000 / elapsed) + " nodes/s), "
+					+ numProbesRun.get() + " probes (" + (numProbesRun.get() * 1000 / elapsed) + " probes/s), "
+					+ numProbesCancelled.get() + " probes cancelled in " + elapsed + "ms");
 		}
 
 		return selection;
@@ -95,6 +193,9 @@ public class MCSPlayer<
 
 	/**
 	 * Runs a iterative depth limited DFS to build a game tree using monte carlo simulation to approximate the value of non-terminal nodes
+	 * The result of a depth that could not be fully explored before the deadline is only used if no depth was completed
+	 * The search stops early once a depth is reached at which every path ends in a terminal state
+	 * A move is skipped if none of the depth charges its value depends on could be completed before the deadline
 	 *
 	 * @param moves The legal moves given the current state
 	 * @return The optimal move
@@ -103,115 +204,211 @@ public class MCSPlayer<
 		MoveInterface<TermType> bestMove = null;
 
 		int depth = 1;
-		float score;
-		float bestScore = 0;
+		double score;
+		double bestScore;
 		MoveInterface<TermType> tempBestMove = null;
 
-		while(timeexpired < timeLimit) {
+		reachedHorizon = true;
+		while(!isTimeUp() && reachedHorizon) {
 			tempBestMove = null;
-			bestScore = 0;
-			bestMove = tempBestMove; // This way it only updates the best move if the depth has been fully explored
+			bestScore = -1;
+			reachedHorizon = false;
 
 			// For each move, calculate the minimax score at the given depth
-			for (MoveInterface<TermType> move : moves) {
-				score = minscore(move, this.currentState, depth, 0);
-				if (score > bestScore) {
-					bestScore = score;
-					tempBestMove = move;
+			try {
+				for (MoveInterface<TermType> move : moves) {
+					if(isTimeUp()) break;
+					double[] values = minscore(move, this.currentState, depth, 0);
+					if(values == null) continue; // No depth charge of the move was completed
+					score = values[roleIndex];
+					if (score > bestScore) {
+						bestScore = score;
+						tempBestMove = move;
+					}
 				}
+			} catch(ReasonerCancelledException e) {
+				break; // The time ran out in the middle of a query
 			}
-			timeexpired = System.currentTimeMillis() - startTime;
+			if(isTimeUp()) break;
+			bestMove = tempBestMove; // This way it only updates the best move if the depth has been fully explored
 			depth++;
 		}
 		if(bestMove == null) bestMove = tempBestMove;
+		if(bestMove == null) bestMove = moves.get(0);
+		logger.info(getName() + ": searched to depth " + (depth - 1));
 
 		return bestMove;
 	}
 
 	/**
-	 * Uses a joint move to produce the next state for a given state using GDL-I
-	 * Will return null if any move is not legal in the current state
+	 * @return true if the time to select a move has run out
+	 */
+	private boolean isTimeUp() {
+		return deadline.isCancelled();
+	}
+
+	/**
+	 * Returns the goal values of all roles in a terminal state
 	 *
-	 * @param playerMove   The move the player will take
-	 * @param opponentMove The move the opponent will take
-	 * @param currState    The current state of the game
-	 * @return             The successive state after these moves
+	 * @param state A terminal state
+	 * @return The goal values ordered like the roles of the game
 	 */
-	private StateInterface<TermType, ?> getNextState(MoveInterface<TermType> playerMove, MoveInterface<TermType> opponentMove, StateInterface<TermType, ?> currState) {
-		Map<RoleInterface<TermType>, MoveInterface<TermType>> moveMap = new HashMap<RoleInterface<TermType>, MoveInterface<TermType>>();
-		moveMap.put(role, playerMove);
-		moveMap.put(opponentRole, opponentMove);
-		return currState.isLegal(role, playerMove) && currState.isLegal(opponentRole, opponentMove) ? currState.getSuccessor(new JointMove<TermType>(this.match.getGame().getOrderedRoles(), moveMap)) : null;
+	private double[] goalValues(StateInterface<TermType, ?> state) {
+		double[] values = new double[roles.size()];
+		Map<RoleInterface<TermType>, Integer> goalValues = state.getAllGoalValues(roles);
+		for(int i = 0 ; i < roles.size() ; i++) {
+			values[i] = goalValues.get(roles.get(i));
+		}
+		return values;
 	}
 
 	/**
-	 * Returns expected value of a state by running numProbes simulations
+	 * Returns expected value of a state by running numProbes simulations on the worker pool
 	 *
 	 * @param state      The current state of the game
 	 * @param numProbes  The number of probes to run
-	 * @return           The expected value of a non-terminal state
+	 * @return           The expected goal values of a non-terminal state or null if no probe was completed
 	 */
-	private float montecarlo(StateInterface<TermType, ?> state, int numProbes) {
-		float total = 0;
-		for(int i = 0 ; i < numProbes ; i++) {
-			total += depthcharge(state);
+	private double[] montecarlo(final StateInterface<TermType, ?> state, int numProbes) {
+		double[] total = new double[roles.size()];
+		int completed = 0;
+		if(probePool == null || numProbes == 1) {
+			for(int i = 0 ; i < numProbes ; i++) {
+				double[] result = depthcharge(state);
+				if(result == null) break;
+				addTo(total, result);
+				completed++;
+			}
+		} else {
+			List<Callable<double[]>> probes = new ArrayList<Callable<double[]>>(numProbes);
+			for(int i = 0 ; i < numProbes ; i++) {
+				probes.add(new Callable<double[]>() {
+					public double[] call() {
+						CancellationToken previous = deadline.attach();
+						try {
+							return depthcharge(state);
+						} finally {
+							CancellationToken.restore(previous);
+						}
+					}
+				});
+			}
+			try {
+				for(Future<double[]> probe : probePool.invokeAll(probes)) {
+					double[] result = probe.get();
+					if(result != null) {
+						addTo(total, result);
+						completed++;
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				throw new RuntimeException(e.getCause());
+			}
+		}
+		if(completed == 0) {
+			return null; // The deadline cut every probe, so the state has no value
+		}
+		for(int i = 0 ; i < total.length ; i++) {
+			total[i] /= completed;
+		}
+		return total;
+	}
+
+	private static void addTo(double[] total, double[] values) {
+		for(int i = 0 ; i < total.length ; i++) {
+			total[i] += values[i];
 		}
-		return total/numProbes;
 	}
 
 	/**
 	 * Simulates random play from a given state until a terminal node is reached and returns the result
+	 * The playout runs inside the reasoner, so the length of the game is not limited by the stack size
 	 *
 	 * @param state The current state of the game
-	 * @return      The result of random play from the current state
+	 * @return      The goal values at the end of random play from the current state or null if the time ran out
 	 */
-	private float depthcharge(StateInterface<TermType, ?> state) {
-		if(state.isTerminal()) {
-			return (float) state.getGoalValue(role);
-		}
-		// Choose moves randomly
-		ArrayList<MoveInterface<TermType>> playerMoves = new ArrayList<MoveInterface<TermType>>(state.getLegalMoves(role));
-		int playerChoice = random.nextInt(playerMoves.size());
-		ArrayList<MoveInterface<TermType>> opponentMoves = new ArrayList<MoveInterface<TermType>>(state.getLegalMoves(opponentRole));
-		int opponentChoice = random.nextInt(opponentMoves.size());
-		StateInterface<TermType, ?> newState = getNextState(playerMoves.get(playerChoice), opponentMoves.get(opponentChoice), state);
-
-		assert newState != null;
-		return depthcharge(newState);
+	private double[] depthcharge(StateInterface<TermType, ?> state) {
+		if(isTimeUp()) {
+			return null;
+		}
+		PlayoutResult playout;
+		try {
+			playout = state.playout(roles, random.get(), Integer.MAX_VALUE);
+		} catch(ReasonerCancelledException e) {
+			numProbesCancelled.incrementAndGet();
+			return null;
+		}
+		numProbesRun.incrementAndGet();
+		double[] values = new double[roles.size()];
+		for(int i = 0 ; i < values.length ; i++) {
+			values[i] = playout.getGoalValue(i);
+		}
+		return values;
 	}
 
 	/**
-	 * Returns the minimum score possible for a given move and state if the opponent plays optimally
+	 * Returns the value of a move in a given state given the opponents' joint move is chosen according to the search mode
 	 *
 	 * @param move        The move selected by the player
 	 * @param currState   The current state of the game
 	 * @param searchDepth The maximum depth that will be searched to
 	 * @param depthCount  The current depth searched to
-	 * @return            The worst score that can be received
+	 * @return            The goal values of the joint move chosen by the opponents or null if none could be valued
+	 */
+	private double[] minscore(MoveInterface<TermType> move, StateInterface<TermType, ?> currState, int searchDepth, int depthCount) {
+		List<RoleInterface<TermType>> otherRoles = new ArrayList<RoleInterface<TermType>>(roles);
+		otherRoles.remove(role);
+		Map<RoleInterface<TermType>, Collection<? extends MoveInterface<TermType>>> legalMovesMap = currState.getAllLegalMoves(otherRoles);
+		Map<RoleInterface<TermType>, MoveInterface<TermType>> moveMap = new HashMap<RoleInterface<TermType>, MoveInterface<TermType>>();
+		moveMap.put(role, move);
+		return opponentScore(currState, otherRoles, 0, legalMovesMap, moveMap, searchDepth, depthCount);
+	}
+
+	/**
+	 * Returns the value of the joint moves that start with the moves chosen so far, given the opponent at
+	 * opponentIndex and the ones after it choose their moves one after the other according to the search mode:
+	 * against the player (paranoid) or for their own goal value (max-n)
+	 *
+	 * @param currState     The current state of the game
+	 * @param otherRoles    The opponents in the order in which they choose
+	 * @param opponentIndex The opponent choosing its move
+	 * @param legalMovesMap The legal moves of the opponents
+	 * @param moveMap       The moves chosen so far, changed while searching and restored before returning
+	 * @param searchDepth   The maximum depth that will be searched to
+	 * @param depthCount    The current depth searched to
+	 * @return              The goal values of the moves chosen or null if none could be valued
 	 */
-	private float minscore(MoveInterface<TermType> move, StateInterface<TermType, ?> currState, int searchDepth, int depthCount) {
-		float worstScore = 100;
-
-		// Check roles size
-		if(this.match.getPlayers().size() == 2) { // If two players
-			StateInterface<TermType, ?> newState;
-			float currScore;
-
-			// Get all possible moves by the opponent and search through them
-			ArrayList<MoveInterface<TermType>> opponentMoves = new ArrayList<MoveInterface<TermType>>(currState.getLegalMoves(opponentRole));
-			for(MoveInterface<TermType> opponentMove : opponentMoves) {
-				// Check which is the optimal for the opponent
-				newState = getNextState(move, opponentMove, currState);
-				currScore = maxscore(newState, searchDepth, depthCount);
-				worstScore = Math.min(currScore, worstScore);
+	private double[] opponentScore(StateInterface<TermType, ?> currState, List<RoleInterface<TermType>> otherRoles, int opponentIndex,
+			Map<RoleInterface<TermType>, Collection<? extends MoveInterface<TermType>>> legalMovesMap,
+			Map<RoleInterface<TermType>, MoveInterface<TermType>> moveMap, int searchDepth, int depthCount) {
+		if(opponentIndex == otherRoles.size()) {
+			return maxscore(currState.getSuccessor(new JointMove<TermType>(roles, moveMap)), searchDepth, depthCount);
+		}
+		RoleInterface<TermType> opponent = otherRoles.get(opponentIndex);
+		int opponentRoleIndex = roles.indexOf(opponent);
+		double[] chosenValues = null;
+		for(MoveInterface<TermType> opponentMove : legalMovesMap.get(opponent)) {
+			if(isTimeUp() && chosenValues != null) break;
+			moveMap.put(opponent, opponentMove);
+			double[] values = opponentScore(currState, otherRoles, opponentIndex + 1, legalMovesMap, moveMap, searchDepth, depthCount);
+			if(values == null) continue; // No depth charge of the move was completed
+			// Check which is the optimal for the opponent
+			boolean better;
+			if(chosenValues == null) {
+				better = true;
+			} else if(searchMode == SearchMode.PARANOID) {
+				better = values[roleIndex] < chosenValues[roleIndex];
+			} else {
+				better = values[opponentRoleIndex] > chosenValues[opponentRoleIndex];
+			}
+			if(better) {
+				chosenValues = values;
 			}
-		} else if(this.match.getPlayers().size() == 1) { // If one player
-			System.err.println("Cannot currently handle a single player");
-		} else { // If unexpected number of players
-			System.err.println("Unexpected number of players: " + this.match.getPlayers().size());
 		}
-
-		return worstScore;
+		moveMap.remove(opponent);
+		return chosenValues;
 	}
 
 	/**
@@ -220,27 +417,29 @@ public class MCSPlayer<
 	 * @param currState   The current state of the game
 	 * @param searchDepth The maximum depth that will be searched to
 	 * @param depthCount  The current depth searched to
-	 * @return            The best score that can be received
+	 * @return            The goal values of the best move for the player or null if no move could be valued
 	 */
-	private float maxscore(StateInterface<TermType, ?> currState, int searchDepth, int depthCount) {
-		timeexpired = System.currentTimeMillis() - startTime;
+	private double[] maxscore(StateInterface<TermType, ?> currState, int searchDepth, int depthCount) {
+		numNodes.incrementAndGet();
 		if(currState.isTerminal()) {
-			return (float) currState.getGoalValue(role);
+			return goalValues(currState);
 		}
-		if(depthCount >= searchDepth || timeexpired >= timeLimit) {
+		if(depthCount >= searchDepth || isTimeUp()) {
+			reachedHorizon = true;
 			return montecarlo(currState, numProbes);
 		}
 		depthCount++;
 
 		ArrayList<MoveInterface<TermType>> playerMoves = new ArrayList<MoveInterface<TermType>>(currState.getLegalMoves(role));
-		float score;
-		float bestScore = 0;
+		double[] bestValues = null;
 		for (MoveInterface<TermType> move : playerMoves) {
-			score = minscore(move, currState, searchDepth, depthCount);
-			if (score > bestScore) {
-				bestScore = score;
+			if(isTimeUp() && bestValues != null) break;
+			double[] values = minscore(move, currState, searchDepth, depthCount);
+			if(values == null) continue; // No depth charge of the move was completed
+			if (bestValues == null || values[roleIndex] > bestValues[roleIndex]) {
+				bestValues = values;
 			}
 		}
-		return bestScore;
+		return bestValues;
 	}
 }
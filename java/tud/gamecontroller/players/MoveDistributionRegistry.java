@@ -0,0 +1,135 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package tud.gamecontroller.players;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Logger;
+
+/**
+ * Holds the move distributions that players publish for each step of a match, so that other players running in the
+ * same process can read them without going through the file system (e.g., CheatHyperPlayer publishes the value of
+ * each of its moves, which BiasOpponentModel, the "bias" opponent model of OPAnytimeHyperPlayer, uses).
+ * 
+ * Distributions are immutable maps from the move (as KIF string, interned) to its value. If a dump directory is
+ * given, each distribution is also written to dumpDir/matchID/step.csv by a background thread. Dumping to
+ * DUMP_DIR is on by default and can be switched off with -Dgamecontroller.movedistribution.dump=false.
+ */
+public final class MoveDistributionRegistry {
+
+	public static final String DUMP_DIR = "matches/cheat_move_distribution";
+	public static final String DUMP_PROPERTY = "gamecontroller.movedistribution.dump";
+
+	private static final ConcurrentMap<String, ConcurrentMap<Integer, Map<String, Double>>> distributions =
+		new ConcurrentHashMap<String, ConcurrentMap<Integer, Map<String, Double>>>();
+
+	private static final ExecutorService dumpExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "MoveDistributionRegistry-dump");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	private MoveDistributionRegistry() {
+	}
+
+	/**
+	 * @return DUMP_DIR or null if dumping is disabled
+	 */
+	public static String getDumpDir() {
+		return Boolean.parseBoolean(System.getProperty(DUMP_PROPERTY, "true")) ? DUMP_DIR : null;
+	}
+
+	/**
+	 * publishes the distribution of the step of the match
+	 * 
+	 * @param dumpDir the directory to write the distribution to as CSV or null
+	 */
+	public static void publish(String matchID, int step, Map<String, Double> distribution, String dumpDir) {
+		Map<String, Double> interned = new HashMap<String, Double>(2 * distribution.size());
+		for (Map.Entry<String, Double> entry : distribution.entrySet()) {
+			interned.put(entry.getKey().intern(), entry.getValue());
+		}
+		final Map<String, Double> immutable = Collections.unmodifiableMap(interned);
+		ConcurrentMap<Integer, Map<String, Double>> matchDistributions = distributions.get(matchID);
+		if (matchDistributions == null) {
+			distributions.putIfAbsent(matchID, new ConcurrentHashMap<Integer, Map<String, Double>>());
+			matchDistributions = distributions.get(matchID);
+		}
+		matchDistributions.put(step, immutable);
+		if (dumpDir != null) {
+			final File file = new File(dumpDir + "/" + matchID + "/" + step + ".csv");
+			dumpExecutor.execute(new Runnable() {
+				public void run() {
+					dump(immutable, file);
+				}
+			});
+		}
+	}
+
+	/**
+	 * @return the distribution of the step of the match or null if none was published (in this process)
+	 */
+	public static Map<String, Double> get(String matchID, int step) {
+		Map<Integer, Map<String, Double>> matchDistributions = distributions.get(matchID);
+		if (matchDistributions == null) {
+			return null;
+		}
+		return matchDistributions.get(step);
+	}
+
+	/**
+	 * removes all distributions of the match
+	 */
+	public static void clear(String matchID) {
+		distributions.remove(matchID);
+	}
+
+	private static void dump(Map<String, Double> distribution, File file) {
+		file.getParentFile().mkdirs();
+		FileWriter writer = null;
+		try {
+			writer = new FileWriter(file, false);
+			for (Map.Entry<String, Double> entry : distribution.entrySet()) {
+				writer.write(entry.getKey() + "," + entry.getValue() + "\n");
+			}
+		} catch (IOException e) {
+			Logger.getLogger(MoveDistributionRegistry.class.getName()).warning("could not write move distribution to " + file + ": " + e.getMessage());
+		} finally {
+			if (writer != null) {
+				try {
+					writer.close();
+				} catch (IOException e) {
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,44 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package tud.gamecontroller.players.OPAnytimeHyperPlayer;
+
+import java.util.HashSet;
+
+import tud.gamecontroller.game.MoveInterface;
+import tud.gamecontroller.term.TermInterface;
+
+/**
+ * Selects the move with the greatest expected value over the hypergames weighted by their likelihood, probing the
+ * moves in every hypergame for as long as the playclock budget allows (see OPAnytimeHyperPlayer.anytimeMoveSelection).
+ */
+public class AnytimeMoveSelection<TermType extends TermInterface> implements MoveSelection<TermType> {
+
+    private final OPAnytimeHyperPlayer<TermType, ?> player;
+
+    public AnytimeMoveSelection(OPAnytimeHyperPlayer<TermType, ?> player) {
+        this.player = player;
+    }
+
+    @Override
+    public MoveInterface<TermType> selectMove(HashSet<MoveInterface<TermType>> legalMoves) {
+        return player.anytimeMoveSelection(legalMoves);
+    }
+}
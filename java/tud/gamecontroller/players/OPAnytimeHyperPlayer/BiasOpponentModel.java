@@ -0,0 +1,123 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package tud.gamecontroller.players.OPAnytimeHyperPlayer;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import tud.gamecontroller.game.MoveInterface;
+import tud.gamecontroller.game.StateInterface;
+import tud.gamecontroller.players.MoveDistributionRegistry;
+import tud.gamecontroller.term.TermInterface;
+
+/**
+ * Weighs a move of the opponent by the probability the cheat player (which knows the true state) gave it at the last
+ * step. This shows how much knowing the opponent's true distribution would improve on modelling it. A move the cheat
+ * player did not list gets the weight 0.
+ *
+ * The distribution is taken from the MoveDistributionRegistry, which the cheat player publishes to when it runs in the
+ * same process. Only if it is not there (the cheat player runs in another process) is it read from the file the
+ * registry dumps. If neither has it, every move gets the same weight.
+ */
+public class BiasOpponentModel<TermType extends TermInterface> implements OpponentModel<TermType> {
+
+    private static final Logger logger = Logger.getLogger(BiasOpponentModel.class.getName());
+
+    private final String matchID;
+    private volatile Map<String, Double> distribution; // The probability of each move of the last step by its name, null if unknown
+    private boolean warned; // Whether a missing distribution has been reported for this match
+
+    /**
+     * @param matchID - The match whose cheat player distributions are used
+     */
+    public BiasOpponentModel(String matchID) {
+        this.matchID = matchID;
+    }
+
+    @Override
+    public double weighMove(StateInterface<TermType, ?> state, MoveInterface<TermType> move) {
+        Map<String, Double> stepDistribution = distribution;
+        if(stepDistribution == null) {
+            return 1.0;
+        }
+        Double probability = stepDistribution.get(move.toString());
+        return probability == null ? 0.0 : probability;
+    }
+
+    @Override
+    public void startStep(int stepNum) {
+        if(stepNum < 1) { // No step has been played yet
+            distribution = null;
+            return;
+        }
+        Map<String, Double> stepDistribution = MoveDistributionRegistry.get(matchID, stepNum - 1);
+        if(stepDistribution == null) {
+            stepDistribution = readDump(stepNum - 1);
+        }
+        if(stepDistribution == null && !warned) {
+            logger.warning("no distribution of the cheat player for step " + (stepNum - 1) + " of " + matchID + ", the opponent's moves are weighed uniformly");
+            warned = true;
+        }
+        distribution = stepDistribution;
+    }
+
+    /**
+     * Reads the distribution a cheat player in another process dumped
+     *
+     * @param step - The step of the distribution
+     * @return The distribution or null if there is no (complete) dump of it
+     */
+    private Map<String, Double> readDump(int step) {
+        Map<String, Double> stepDistribution = new HashMap<String, Double>();
+        try {
+            BufferedReader csvReader = new BufferedReader(new FileReader(MoveDistributionRegistry.DUMP_DIR + "/" + matchID + "/" + step + ".csv"));
+            try {
+                String row;
+                while ((row = csvReader.readLine()) != null) {
+                    String[] data = row.split(",");
+                    stepDistribution.put(data[0], Double.parseDouble(data[1]));
+                }
+            } finally {
+                csvReader.close();
+            }
+        } catch (IOException e) {
+            return null;
+        } catch (RuntimeException e) { // A row that is still being written
+            return null;
+        }
+        return stepDistribution;
+    }
+
+    @Override
+    public int getNumReused() {
+        return 0;
+    }
+
+    @Override
+    public String getReport() {
+        Map<String, Double> stepDistribution = distribution;
+        return stepDistribution == null ? "no distribution of the cheat player" : "the cheat player's distribution over " + stepDistribution.size() + " opponent moves";
+    }
+}
@@ -0,0 +1,45 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package tud.gamecontroller.players.OPAnytimeHyperPlayer;
+
+import java.util.List;
+
+import tud.gamecontroller.term.TermInterface;
+
+/**
+ * Weighs the hypergames by the inverse of their choice factor, the number of joint moves that could have been chosen
+ * along their path, as the original HyperPlay agents do. This ignores the opponent model.
+ */
+public class ChoiceLikelihood<TermType extends TermInterface> implements HypergameLikelihood<TermType> {
+
+    @Override
+    public double[] weigh(List<Model<TermType>> hypergames, double[] relativeLikelihoods) {
+        double invChoiceFactorSum = 0;
+        for(Model<TermType> model : hypergames) {
+            invChoiceFactorSum += 1.0 / model.getNumberOfPossibleActions();
+        }
+        double[] probabilities = new double[hypergames.size()];
+        for(int i = 0 ; i < probabilities.length ; i++) {
+            probabilities[i] = (1.0 / hypergames.get(i).getNumberOfPossibleActions()) / invChoiceFactorSum;
+        }
+        return probabilities;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package tud.gamecontroller.players.OPAnytimeHyperPlayer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import tud.gamecontroller.auxiliary.IntHashSet;
+import tud.gamecontroller.game.RunnableMatchInterface;
+import tud.gamecontroller.game.impl.JointMove;
+import tud.gamecontroller.players.FluentBitSets;
+import tud.gamecontroller.term.TermInterface;
+
+/**
+ * Searches for twice as many hypergames as are kept and keeps the ones that differ most from each other, as the
+ * variance agents do. The first hypergame is the most likely one, and each next one is the hypergame with the largest
+ * sum of distances to the hypergames chosen so far (ties go to the more likely one).
+ *
+ * The distance of two hypergames is either the number of steps in which their action paths differ (as in
+ * VarianceHyperPlayer) or the number of fluents in which their states differ (as in StateVarianceHyperPlayer). The
+ * unbiased variant starts from a random hypergame and breaks ties randomly (as in StateVarianceNoBiasHyperPlayer).
+ *
+ * The sums of distances are kept for each hypergame, so a choice only adds the distances to the hypergame chosen last.
+ */
+public class DiversityModelFilter<TermType extends TermInterface> implements ModelFilter<TermType> {
+
+    private final RunnableMatchInterface<TermType, ?> match;
+    private final boolean byState; // Compare the states of the hypergames rather than their action paths
+    private final boolean unbiased; // Ignore the likelihoods of the hypergames
+    private final Random random;
+    private final FluentBitSets fluentBitSets = new FluentBitSets();
+
+    /**
+     * @param match - The match being played
+     * @param byState - Whether the distance is measured between the states rather than the action paths
+     * @param unbiased - Whether the likelihoods of the hypergames are ignored
+     * @param random - The random number generator breaking the ties of the unbiased variant
+     */
+    public DiversityModelFilter(RunnableMatchInterface<TermType, ?> match, boolean byState, boolean unbiased, Random random) {
+        this.match = match;
+        this.byState = byState;
+        this.unbiased = unbiased;
+        this.random = random;
+    }
+
+    @Override
+    public int getSearchLimit(int numHyperGames) {
+        return numHyperGames * 2;
+    }
+
+    @Override
+    public void forgetPaths(IntHashSet actionPathIds) {
+        fluentBitSets.forget(actionPathIds);
+    }
+
+    @Override
+    public ArrayList<Model<TermType>> filter(ArrayList<Model<TermType>> hypergames, double[] likelihoods, int numHyperGames) {
+        int numModels = hypergames.size();
+        long[][] bitStates = null;
+        if(byState) {
+            fluentBitSets.nextRound();
+            bitStates = new long[numModels][];
+            for(int i = 0 ; i < numModels ; i++) {
+                Model<TermType> model = hypergames.get(i);
+                bitStates[i] = fluentBitSets.getBitSet(model.getActionPathHash(), model.getCurrentState(match));
+            }
+        }
+
+        // Start with the most likely model
+        int chosen = 0;
+        if(unbiased) {
+            chosen = random.nextInt(numModels);
+        } else {
+            for(int i = 1 ; i < numModels ; i++) {
+                if(likelihoods[i] > likelihoods[chosen]) chosen = i;
+            }
+        }
+        ArrayList<Model<TermType>> filteredHypergameList = new ArrayList<Model<TermType>>(numHyperGames);
+        boolean[] isChosen = new boolean[numModels];
+        int[] variances = new int[numModels];
+        filteredHypergameList.add(hypergames.get(chosen));
+        isChosen[chosen] = true;
+
+        // Add the model with the greatest variance from those chosen so far
+        while(filteredHypergameList.size() < Math.min(numHyperGames, numModels)) {
+            int mostVaried = -1;
+            int numMostVaried = 0;
+            for(int i = 0 ; i < numModels ; i++) {
+                if(isChosen[i]) continue;
+                variances[i] += byState ? FluentBitSets.distance(bitStates[i], bitStates[chosen]) : pathDistance(hypergames.get(i), hypergames.get(chosen));
+                if(mostVaried == -1 || variances[i] > variances[mostVaried]) {
+                    mostVaried = i;
+                    numMostVaried = 1;
+                } else if(variances[i] == variances[mostVaried]) {
+                    numMostVaried++;
+                    if(unbiased ? random.nextInt(numMostVaried) == 0 : likelihoods[i] > likelihoods[mostVaried]) mostVaried = i;
+                }
+            }
+            chosen = mostVaried;
+            filteredHypergameList.add(hypergames.get(chosen));
+            isChosen[chosen] = true;
+        }
+        return filteredHypergameList;
+    }
+
+    /**
+     * @return The number of steps (after the initial one) in which the action paths of the models differ
+     */
+    private int pathDistance(Model<TermType> model1, Model<TermType> model2) {
+        List<JointMove<TermType>> path1 = model1.getActionPath();
+        List<JointMove<TermType>> path2 = model2.getActionPath();
+        int distance = Math.abs(path1.size() - path2.size());
+        for(int i = 1 ; i < Math.min(path1.size(), path2.size()) ; i++) {
+            if(!path1.get(i).equals(path2.get(i))) distance++;
+        }
+        return distance;
+    }
+}
@@ -0,0 +1,39 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package tud.gamecontroller.players.OPAnytimeHyperPlayer;
+
+import java.util.Arrays;
+import java.util.List;
+
+import tud.gamecontroller.term.TermInterface;
+
+/**
+ * Gives every hypergame the same weight (the agents without bias).
+ */
+public class EqualLikelihood<TermType extends TermInterface> implements HypergameLikelihood<TermType> {
+
+    @Override
+    public double[] weigh(List<Model<TermType>> hypergames, double[] relativeLikelihoods) {
+        double[] probabilities = new double[hypergames.size()];
+        Arrays.fill(probabilities, 1.0 / Math.max(1, hypergames.size()));
+        return probabilities;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package tud.gamecontroller.players.OPAnytimeHyperPlayer;
+
+import java.util.List;
+
+import tud.gamecontroller.game.JointMoveInterface;
+import tud.gamecontroller.term.TermInterface;
+
+/**
+ * An Expansion chooses the joint move a hypergame is forwarded with from the node of the likelihood tree it is at.
+ */
+public interface Expansion<TermType extends TermInterface> {
+
+    /**
+     * @param weightedJointMoves - The joint moves of the node with their weights from the opponent model
+     * @param possibleJointMoves - The joint moves that are neither bad nor in use by another hypergame
+     * @return The chosen joint move (one of possibleJointMoves) or null if none can be chosen
+     */
+    JointMoveInterface<TermType> chooseJointMove(List<Tuple<Double, JointMoveInterface<TermType>>> weightedJointMoves, List<JointMoveInterface<TermType>> possibleJointMoves);
+
+    /**
+     * @return True if the hypergames whose path the opponent model gives no likelihood are dropped
+     */
+    boolean dropsUnlikelyHypergames();
+}
@@ -0,0 +1,46 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package tud.gamecontroller.players.OPAnytimeHyperPlayer;
+
+import java.util.ArrayList;
+
+import tud.gamecontroller.auxiliary.IntHashSet;
+import tud.gamecontroller.term.TermInterface;
+
+/**
+ * Keeps all hypergames, the search stops once there are numHyperGames of them.
+ */
+public class KeepAllModelFilter<TermType extends TermInterface> implements ModelFilter<TermType> {
+
+    @Override
+    public int getSearchLimit(int numHyperGames) {
+        return numHyperGames;
+    }
+
+    @Override
+    public ArrayList<Model<TermType>> filter(ArrayList<Model<TermType>> hypergames, double[] likelihoods, int numHyperGames) {
+        return hypergames;
+    }
+
+    @Override
+    public void forgetPaths(IntHashSet actionPathIds) {
+    }
+}
@@ -47,23 +47,14 @@ public class LikelihoodTree<TermType extends TermInterface> {
 
     /**
      * Returns the relative likelihood of each path being chosen by an opponent that acts optimally
+     * The likelihood is the product of the relative likelihoods along the path, which each node keeps up to date in log-space
      *
      * @param actionPathHashPath The full path from initial state to current state from a hypergame model
      * @return The choice factor of a given action path
      */
     public double getRelativeLikelihood(ArrayDeque<Integer> actionPathHashPath) {
-        Node child = getRoot();
-        double likelihood = child.getRelLikelihood() == 0 ? 1 : child.getRelLikelihood();
-//        System.out.println(likelihood);
-        for (Integer actionPathHash : actionPathHashPath) {
-            if(actionPathHash == child.getActionPathHash()) continue;
-            child = child.getChild(actionPathHash);
-//            System.out.println(child.getRelLikelihood());
-            if(child.getRelLikelihood() > 0) {
-                likelihood *= child.getRelLikelihood();
-            } else if (child.getRelLikelihood() == 0) return 0.0;
-        }
-        return likelihood;
+        Node node = actionPathHashPath.isEmpty() ? getRoot() : getNode(actionPathHashPath);
+        return Math.exp(node.getLogLikelihood());
     }
 
     public void updateRelLikelihood(Node node) {
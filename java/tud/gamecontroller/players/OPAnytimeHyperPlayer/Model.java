@@ -24,6 +24,10 @@ import tud.gamecontroller.game.RoleInterface;
 import tud.gamecontroller.game.RunnableMatchInterface;
 import tud.gamecontroller.game.StateInterface;
 import tud.gamecontroller.game.impl.JointMove;
+import tud.gamecontroller.instrumentation.Instrumentation;
+import tud.gamecontroller.instrumentation.Phase;
+import tud.gamecontroller.instrumentation.Span;
+import tud.gamecontroller.players.ActionPathIds;
 import tud.gamecontroller.term.TermInterface;
 
 import java.util.*;
@@ -42,6 +46,7 @@ public class Model<TermType extends TermInterface> implements Cloneable{
     private Stack<StateInterface<TermType, ?>> statePath; // Contains the state at each step
     private Stack<Collection<TermType>> perceptPath; // Contains the percepts that would be seen at each step
     private ArrayDeque<Integer> actionPathHashPath; // Contains
+    private final ActionPathIds actionPathIds; // Interns the action paths as the ids in actionPathHashPath
     private HashMap<Integer, HashSet<MoveInterface<TermType>>> possibleMovesAtStep;
     private double lastProb = 1.0;
 //    private int actionPathHash = -1; // Hashes the action path to give a unique identifier to the path taken @todo: remove these two since actionPathHashPath subsumes role
@@ -59,7 +64,8 @@ public class Model<TermType extends TermInterface> implements Cloneable{
                 "\n";
     }
 
-    public Model() {
+    public Model(ActionPathIds actionPathIds) {
+        this.actionPathIds = actionPathIds;
         this.actionPath = new Stack<JointMove<TermType>>();
         this.numberOfPossibleActionsPath = new Stack<Integer>();
         this.statePath = new Stack<StateInterface<TermType, ?>>();
@@ -68,6 +74,7 @@ public class Model<TermType extends TermInterface> implements Cloneable{
         this.possibleMovesAtStep = new HashMap<Integer, HashSet<MoveInterface<TermType>>>();
     }
     public Model(Model<TermType> model) {
+        this.actionPathIds = model.actionPathIds;
         this.actionPath = (Stack<JointMove<TermType>>)model.getActionPath().clone();
         this.numberOfPossibleActionsPath = (Stack<Integer>)model.getNumberOfPossibleActionsPath().clone();
         this.statePath = (Stack<StateInterface<TermType, ?>>)model.getStatePath().clone();
@@ -158,7 +165,7 @@ public class Model<TermType extends TermInterface> implements Cloneable{
             this.perceptPath.push(expectedPercepts);
 //            this.previousActionPathHash = this.actionPathHash;
 //            this.actionPathHash = this.actionPath.hashCode();
-            this.actionPathHashPath.addLast(this.actionPath.hashCode());
+            this.actionPathHashPath.addLast(this.actionPathIds.getChildId(getActionPathHash(), jointAction));
         }
     }
 
@@ -167,25 +174,30 @@ public class Model<TermType extends TermInterface> implements Cloneable{
      *
      */
     public void backtrack() {
-        if(this.actionPath.size() > 1) {
-            this.actionPath.pop();
-        }
-        if(this.numberOfPossibleActionsPath.size() > 1) {
-            this.numberOfPossibleActionsPath.pop();
-        }
-        if(this.statePath.size() > 1) {
-            this.statePath.pop();
-        }
-        if(this.perceptPath.size() > 1) {
-            this.perceptPath.pop();
-        }
-//        this.actionPathHash = this.actionPath.hashCode();
-        if(this.actionPathHashPath.size() > 1) {
-            this.actionPathHashPath.pollLast();
+        Span span = Instrumentation.begin(Phase.BACKTRACK);
+        try {
+            if(this.actionPath.size() > 1) {
+                this.actionPath.pop();
+            }
+            if(this.numberOfPossibleActionsPath.size() > 1) {
+                this.numberOfPossibleActionsPath.pop();
+            }
+            if(this.statePath.size() > 1) {
+                this.statePath.pop();
+            }
+            if(this.perceptPath.size() > 1) {
+                this.perceptPath.pop();
+            }
+    //        this.actionPathHash = this.actionPath.hashCode();
+            if(this.actionPathHashPath.size() > 1) {
+                this.actionPathHashPath.pollLast();
+            }
+    //        if(!this.actionPath.isEmpty()) {
+    //            this.previousActionPathHash = this.actionPath.subList(0, this.actionPath.size() - 1).hashCode();
+    //        }
+        } finally {
+            span.end();
         }
-//        if(!this.actionPath.isEmpty()) {
-//            this.previousActionPathHash = this.actionPath.subList(0, this.actionPath.size() - 1).hashCode();
-//        }
     }
 
     /**
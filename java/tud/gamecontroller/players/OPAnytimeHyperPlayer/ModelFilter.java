@@ -0,0 +1,55 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package tud.gamecontroller.players.OPAnytimeHyperPlayer;
+
+import java.util.ArrayList;
+
+import tud.gamecontroller.auxiliary.IntHashSet;
+import tud.gamecontroller.term.TermInterface;
+
+/**
+ * A ModelFilter chooses which hypergames to keep once the update has found more than numHyperGames of them.
+ */
+public interface ModelFilter<TermType extends TermInterface> {
+
+    /**
+     * @param numHyperGames - The number of hypergames kept
+     * @return The number of hypergames to search for before they are filtered
+     */
+    int getSearchLimit(int numHyperGames);
+
+    /**
+     * Chooses the hypergames to keep
+     *
+     * @param hypergames - The hypergames found (more than numHyperGames)
+     * @param likelihoods - The relative likelihood of each hypergame, in the same order
+     * @param numHyperGames - The number of hypergames to keep
+     * @return The hypergames kept
+     */
+    ArrayList<Model<TermType>> filter(ArrayList<Model<TermType>> hypergames, double[] likelihoods, int numHyperGames);
+
+    /**
+     * Drops what the filter keeps about the paths with the given ids, whose ids are handed out again for new paths
+     *
+     * @param actionPathIds - The ids of the paths removed from the ActionPathIds
+     */
+    void forgetPaths(IntHashSet actionPathIds);
+}
@@ -0,0 +1,38 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package tud.gamecontroller.players.OPAnytimeHyperPlayer;
+
+import java.util.HashSet;
+
+import tud.gamecontroller.game.MoveInterface;
+import tud.gamecontroller.term.TermInterface;
+
+/**
+ * A MoveSelection selects the player's move from the legal moves in the hypergames.
+ */
+public interface MoveSelection<TermType extends TermInterface> {
+
+    /**
+     * @param legalMoves - The moves that are legal in at least one hypergame (at least two)
+     * @return The selected move
+     */
+    MoveInterface<TermType> selectMove(HashSet<MoveInterface<TermType>> legalMoves);
+}
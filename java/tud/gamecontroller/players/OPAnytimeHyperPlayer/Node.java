@@ -1,14 +1,19 @@
 package tud.gamecontroller.players.OPAnytimeHyperPlayer;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 
+import tud.gamecontroller.auxiliary.IntObjectHashMap;
+
 public class Node {
 
     // Instance Variables
     private double value; // The value of this node from the opponent's perspective
     private int actionPathHash; // The action-path leading to this state
     private double relLikelihood; // The relative quality of the node compared to the other options from the opponent's perspective
+    private double logLikelihood; // The sum of the log relative likelihoods from the root to this node
     private ArrayList<Node> children; // The nodes below it
+    private IntObjectHashMap<Node> childIndex; // The nodes below it indexed by their action-path hash
     private Node parent; // The parent node
 
     /**
@@ -17,33 +22,35 @@ public class Node {
     public Node(int actionPathHash) {
         this.value = -1.0;
         this.relLikelihood = -1.0;
+        this.logLikelihood = 0.0;
         this.actionPathHash = actionPathHash;
         this.children = new ArrayList<Node>();
+        this.childIndex = new IntObjectHashMap<Node>();
         this.parent = null;
     }
 
     public double getValue() { return this.value; }
     public double getRelLikelihood() { return this.relLikelihood; }
+    public double getLogLikelihood() { return this.logLikelihood; }
     public int getActionPathHash() { return this.actionPathHash; }
     public Node getParent() { return (this.parent); }
     public ArrayList<Node> getChildren() { return this.children; }
     public Node getChild(int actionPathHash) {
-        for (Node node : this.children) {
-            if(node.getActionPathHash() == actionPathHash) {
-                return node;
-            }
-        }
-        return null;
+        return this.childIndex.get(actionPathHash);
     }
 
     public void setValue(double value) {
         this.value = value;
     }
     public void setRelLikelihood(double likelihood) {
-        this.relLikelihood = likelihood;
+        if(likelihood != this.relLikelihood) {
+            this.relLikelihood = likelihood;
+            updateLogLikelihood();
+        }
     }
     public void setParent(Node parent) {
         this.parent = parent;
+        updateLogLikelihood();
     }
 
     /**
@@ -52,27 +59,59 @@ public class Node {
      * @param child A Node to add as a child to this Node
      */
     public void addChild(Node child) {
-        boolean contained = false;
-        for (Node node : this.children) {
-            if(node.getActionPathHash() == child.getActionPathHash()) {
-                contained = true;
-            }
-        }
-        if(!contained) {
+        if(this.childIndex.putIfAbsent(child.getActionPathHash(), child) == null) {
             child.setParent(this);
             this.children.add(child);
         }
     }
 
-//    /**
-//     * Removes the child from this Node's children
-//     *
-//     * @param child A Node to remove from this Node's children
-//     */
-//    public void removeChild(Node child) {
-//        if(child.getParent().equals(this)) child.setParent(null);
-//        this.children.remove(child);
-//    }
+    /**
+     * Removes all children (and with them the subtrees below them) from this Node
+     */
+    public void removeChildren() {
+        for (Node child : this.children) {
+            child.parent = null;
+        }
+        this.children.clear();
+        this.childIndex.clear();
+    }
+
+    /**
+     * Recomputes the cumulative log likelihood of this node and all nodes below it
+     * A likelihood of 0 makes the subtree impossible (-Infinity), a likelihood that has not been set (< 0) does not change the cumulative likelihood
+     */
+    private void updateLogLikelihood() {
+        ArrayDeque<Node> unvisited = new ArrayDeque<Node>();
+        unvisited.push(this);
+        Node node;
+        while(!unvisited.isEmpty()) {
+            node = unvisited.pop();
+            if(node.parent == null) {
+                node.logLikelihood = node.relLikelihood > 0 ? Math.log(node.relLikelihood) : 0.0;
+            } else if(node.relLikelihood > 0) {
+                node.logLikelihood = node.parent.logLikelihood + Math.log(node.relLikelihood);
+            } else if(node.relLikelihood == 0) {
+                node.logLikelihood = Double.NEGATIVE_INFINITY;
+            } else {
+                node.logLikelihood = node.parent.logLikelihood;
+            }
+            for (Node child : node.children) {
+                unvisited.push(child);
+            }
+        }
+    }
+
+    /**
+     * Removes the child (and with it the subtree below it) from this Node's children
+     *
+     * @param child A Node to remove from this Node's children
+     */
+    public void removeChild(Node child) {
+        if(this.childIndex.remove(child.getActionPathHash()) != null) {
+            child.parent = null;
+            this.children.remove(child);
+        }
+    }
 
     @Override
     public String toString() {
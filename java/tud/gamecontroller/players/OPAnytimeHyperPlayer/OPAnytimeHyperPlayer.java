@@ -24,13 +24,26 @@ package tud.gamecontroller.players.OPAnytimeHyperPlayer;
 import tud.auxiliary.CrossProductMap;
 import tud.gamecontroller.ConnectionEstablishedNotifier;
 import tud.gamecontroller.GDLVersion;
+import tud.gamecontroller.auxiliary.ConcurrentIntObjectHashMap;
+import tud.gamecontroller.auxiliary.IntHashSet;
+import tud.gamecontroller.exceptions.ReasonerCancelledException;
 import tud.gamecontroller.game.*;
 import tud.gamecontroller.game.impl.JointMove;
+import tud.gamecontroller.instrumentation.Instrumentation;
+import tud.gamecontroller.instrumentation.Phase;
+import tud.gamecontroller.instrumentation.Span;
+import tud.gamecontroller.players.ActionPathIds;
+import tud.gamecontroller.players.ForwardingPool;
 import tud.gamecontroller.players.LocalPlayer;
+import tud.gamecontroller.players.PlayclockBudget;
 import tud.gamecontroller.term.TermInterface;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /*
 	How it works:
@@ -74,7 +87,11 @@ import java.util.*;
  *
  * This variant uses a central datastructure - LikelihoodTree - to track the likelihood of each state.
  *
- * This variant
+ * The other variants are expressed as strategies set in the config file: opponentModel weighs the opponent's moves
+ * (probing, uniform or bias), modelFilter chooses the hypergames kept (none, pathvariance, statevariance or
+ * statevariancenobias), moveSelection selects the move (anytime or random), likelihood weighs the hypergames against
+ * each other (tree, choice or equal) and expansion chooses the joint move a hypergame is forwarded with (weighted or
+ * uniform). The config "ophyper" is this agent; the configs of the older HyperPlay agents select their strategies.
  *
  * Implements the algorithm described in Michael Schofield, Timothy Cerexhe and Michael Thielscher's HyperPlay paper
  * with some alteration to the backtracking
@@ -98,7 +115,7 @@ public class OPAnytimeHyperPlayer<
 	private Random random;
 	private int numHyperGames = 4; // The maximum number of hypergames allowable
 	private int numHyperBranches = 4; // The amount of branches allowed
-	private HashMap<Integer, Collection<JointMove<TermType>>> currentlyInUseMoves; // Tracks all of the moves that are currently in use from each state
+	private ConcurrentIntObjectHashMap<Collection<JointMove<TermType>>> currentlyInUseMoves; // Tracks all of the moves that are currently in use from each state
 	private int depth; // Tracks the number of simulations run @todo: name better
 	private int maxNumProbes = 4; // @todo: probably remove later
 	private int stepNum; // Tracks the steps taken
@@ -106,30 +123,51 @@ public class OPAnytimeHyperPlayer<
 	private HashMap<Integer, MoveInterface<TermType>> actionTracker; // Tracks the action actually taken at each step by the player (from 0)
 	private HashMap<Integer, MoveInterface<TermType>> expectedActionTracker; // Tracks the move taken by the player at each step (from 0)
 	private HashMap<Integer, Collection<TermType>> perceptTracker; // Tracks the percepts seen at each step by the player (from 0)
-	private HashMap<Integer, Collection<JointMove<TermType>>> badMovesTracker; // Tracks the invalid moves from each perfect-information state
+	private ConcurrentIntObjectHashMap<Collection<JointMove<TermType>>> badMovesTracker; // Tracks the invalid moves from each perfect-information state
+	private ActionPathIds actionPathIds; // Interns the action paths whose ids key the trackers
 	private ArrayList<Model<TermType>> hypergames; // Holds a set of possible models for the hypergame
 	private StateInterface<TermType, ?> initialState; // Holds the initial state
 	private LikelihoodTree<TermType> likelihoodTree;
 	private int backtrackingDepth = 1;
 	private RoleInterface<TermType> opponentRole;
-	private HashSet<Integer> likelihoodTreeExpansionTracker;
-	private HashMap<Integer, PriorityQueue<Tuple<Double, JointMoveInterface<TermType>>>> moveSelectOrderMap;
-	private HashMap<Integer, ArrayList<Tuple<Double, JointMoveInterface<TermType>>>> moveSelectMap;
+	private ConcurrentIntObjectHashMap<Boolean> likelihoodTreeExpansionTracker; // The expanded action paths (mapped to true)
+	private ConcurrentIntObjectHashMap<PriorityQueue<Tuple<Double, JointMoveInterface<TermType>>>> moveSelectOrderMap; // The queues are guarded by the lock of likelihoodTree
+	private ConcurrentIntObjectHashMap<ArrayList<Tuple<Double, JointMoveInterface<TermType>>>> moveSelectMap;
 	private double likelihoodPowerFactor = 1.0;
 	private boolean shouldBranch = false;
-	private int numTimesMovesSimulated = 0;
-	private int numTimesHypergameForward = 0;
+	private final AtomicInteger numTimesMovesSimulated = new AtomicInteger();
+	private final AtomicInteger numTimesHypergameForward = new AtomicInteger();
+	private final AtomicInteger numProbesCancelled = new AtomicInteger(); // The probes given up because the time ran out in the middle of them
 	private int numOPProbes = 8; // The number of probes used for opponent modelling -> NOT USED FOR THIS VARIANT SINCE IT HAS ACCESS TO THE TRUE DISTRIBUTION
+	private int opCacheSize = 10000; // The number of (state, role, move) playout statistics kept across hypergames and steps (0 disables the cache)
+	private int opCacheRefineProbes = 1; // The number of new probes refining a move whose playouts are already cached
+	private String opponentModelName = "probing"; // How the opponent's moves are weighed: probing, uniform or bias
+	private String modelFilterName = "none"; // Which hypergames are kept: none, pathvariance, statevariance or statevariancenobias
+	private String moveSelectionName = "anytime"; // How the move is selected: anytime or random
+	private String likelihoodName = "tree"; // How the hypergames are weighed against each other: tree, choice or equal
+	private String expansionName = "weighted"; // How the joint move a hypergame is forwarded with is chosen: weighted or uniform
+	private OpponentModel<TermType> opponentModel; // Weighs the opponent's moves when the likelihood tree is expanded
+	private ModelFilter<TermType> modelFilter; // Chooses the hypergames kept when more are found than numHyperGames
+	private MoveSelection<TermType> moveSelection; // Selects the move from the legal moves in the hypergames
+	private HypergameLikelihood<TermType> hypergameLikelihood; // Weighs the hypergames when the expected values are combined
+	private Expansion<TermType> expansion; // Chooses the joint move a hypergame is forwarded with
+	private final AtomicInteger numExpansions = new AtomicInteger(); // The likelihood tree nodes expanded this step
+	private final AtomicLong expansionTime = new AtomicLong(); // The time spent expanding them (in nanoseconds)
 	private int invPlaytimeFactor = 10;
+	private int forwardingThreads = 1; // The number of threads forwarding the hypergames (1 forwards them one after the other)
+	private ForwardingPool<TermType> forwardingPool;
+	private boolean evictInconsistentPaths = true; // Drop the tracker entries of paths that contradict the percepts or moves seen
+	private int maxTrackerEntries = 0; // The budget of tracker entries, beyond which paths off the current hypergames are dropped (0 is unbounded)
+	private IntHashSet inconsistentPaths; // The paths of the hypergames removed this step because they contradict the moves taken
 
 	private HashMap<Integer, MoveInterface<TermType>> moveForStepBlacklist; // Any valid hypergame at this step must NOT allow the move contained here
 	private HashMap<Integer, MoveInterface<TermType>> moveForStepWhitelist; // Any valid hypergame at this step MUST allow the move contained here
 
-	private long timeLimit; // The total amount of time that can be
-	private long stateUpdateTimeLimit; // The total amount of time that can be used to update the state
+	private final PlayclockBudget budget = new PlayclockBudget(); // Splits the playclock between updating the hypergames and selecting a move
 	private long startTime;
+	private CancellationToken updateDeadline; // Cancelled once the time limit of the step has been reached, which stops the queries updating the hypergames
+	private CancellationToken deadline; // Cancelled once the budget for selecting a move has run out, which stops the probes
 	private long timeexpired;
-	private static final long PREFERRED_PLAY_BUFFER = 1000; // 1 second buffer before end of game to select optimal move
 
 	public OPAnytimeHyperPlayer(String name, GDLVersion gdlVersion) {
 		super(name, gdlVersion);
@@ -149,6 +187,17 @@ public class OPAnytimeHyperPlayer<
 				else if(data[0].equals("likelihoodPowerFactor")) likelihoodPowerFactor = Double.parseDouble(data[1]);
 				else if(data[0].equals("shouldBranch")) shouldBranch = Boolean.parseBoolean(data[1]);
 				else if(data[0].equals("invPlaytimeFactor")) invPlaytimeFactor = Integer.parseInt(data[1]);
+				else if(data[0].equals("forwardingThreads")) forwardingThreads = Integer.parseInt(data[1]);
+				else if(data[0].equals("evictInconsistentPaths")) evictInconsistentPaths = Boolean.parseBoolean(data[1]);
+				else if(data[0].equals("maxTrackerEntries")) maxTrackerEntries = Integer.parseInt(data[1]);
+				else if(data[0].equals("opCacheSize")) opCacheSize = Integer.parseInt(data[1]);
+				else if(data[0].equals("opCacheRefineProbes")) opCacheRefineProbes = Integer.parseInt(data[1]);
+				else if(data[0].equals("opponentModel")) opponentModelName = data[1];
+				else if(data[0].equals("modelFilter")) modelFilterName = data[1];
+				else if(data[0].equals("moveSelection")) moveSelectionName = data[1];
+				else if(data[0].equals("likelihood")) likelihoodName = data[1];
+				else if(data[0].equals("expansion")) expansionName = data[1];
+				else budget.setOption(data[0], data[1]);
 			}
 			csvReader.close();
 		}  catch (IOException e) {
@@ -171,21 +220,26 @@ public class OPAnytimeHyperPlayer<
 		actionTracker = new HashMap<Integer, MoveInterface<TermType>>();
 		expectedActionTracker = new HashMap<Integer, MoveInterface<TermType>>();
 		perceptTracker = new HashMap<Integer, Collection<TermType>>();
-		badMovesTracker = new HashMap<Integer, Collection<JointMove<TermType>>>();
-		currentlyInUseMoves = new HashMap<Integer, Collection<JointMove<TermType>>>();
+		actionPathIds = new ActionPathIds();
+		badMovesTracker = new ConcurrentIntObjectHashMap<Collection<JointMove<TermType>>>();
+		currentlyInUseMoves = new ConcurrentIntObjectHashMap<Collection<JointMove<TermType>>>();
 		hypergames = new ArrayList<Model<TermType>>();
 		likelihoodTree = new LikelihoodTree<TermType>(0);
 		stepNum = 0;
 		nextStepNum = 0;
-		timeLimit = (this.match.getPlayclock()*1000 - PREFERRED_PLAY_BUFFER);
-		stateUpdateTimeLimit = (this.match.getPlayclock()*1000)/invPlaytimeFactor; // Can use 10% of the playclock to update the state
-		moveSelectOrderMap = new HashMap<Integer, PriorityQueue<Tuple<Double, JointMoveInterface<TermType>>>>();
-		moveSelectMap = new HashMap<Integer, ArrayList<Tuple<Double, JointMoveInterface<TermType>>>>();
+		budget.startMatch(this.match.getPlayclock()*1000, maxNumProbes, invPlaytimeFactor);
+		moveSelectOrderMap = new ConcurrentIntObjectHashMap<PriorityQueue<Tuple<Double, JointMoveInterface<TermType>>>>();
+		moveSelectMap = new ConcurrentIntObjectHashMap<ArrayList<Tuple<Double, JointMoveInterface<TermType>>>>();
 
 		moveForStepBlacklist = new HashMap<Integer, MoveInterface<TermType>>();
 		moveForStepWhitelist = new HashMap<Integer, MoveInterface<TermType>>();
 
-		likelihoodTreeExpansionTracker = new  HashSet<Integer>();
+		likelihoodTreeExpansionTracker = new ConcurrentIntObjectHashMap<Boolean>();
+		inconsistentPaths = new IntHashSet();
+		if(forwardingPool != null) {
+			forwardingPool.shutdown();
+		}
+		forwardingPool = new ForwardingPool<TermType>(getName(), match.getGame(), forwardingThreads);
 		for(RoleInterface<TermType> currRole: match.getGame().getOrderedRoles()) {
 			if(currRole != this.role) {
 				opponentRole = currRole;
@@ -196,6 +250,12 @@ public class OPAnytimeHyperPlayer<
 		matchID = match.getMatchID();
 		gameName = match.getGame().getName();
 		roleName = role.toString();
+
+		opponentModel = createOpponentModel();
+		modelFilter = createModelFilter();
+		moveSelection = createMoveSelection();
+		hypergameLikelihood = createHypergameLikelihood();
+		expansion = createExpansion();
 	}
 
 	/**
@@ -212,8 +272,11 @@ public class OPAnytimeHyperPlayer<
 		nextStepNum++;
 		notifyStartRunning();
 		notifier.connectionEstablished();
-		numTimesMovesSimulated = 0;
-		numTimesHypergameForward = 0;
+		numTimesMovesSimulated.set(0);
+		numTimesHypergameForward.set(0);
+		numProbesCancelled.set(0);
+		numExpansions.set(0);
+		expansionTime.set(0);
 		if(stepNum > 0) {
 			if(lastMoveTimeout) { // If the player timed out last turn, update the stepnum and clear currentlyInUseMoves
 				if(stepNum + 1 < nextStepNum) {
@@ -231,6 +294,7 @@ public class OPAnytimeHyperPlayer<
 			actionTracker.put(stepNum - 1, (MoveInterface<TermType>) priorMove); // Note: This won't get the final move made
 			moveForStepWhitelist.put(stepNum - 1, (MoveInterface<TermType>) priorMove);
 		}
+		opponentModel.startStep(stepNum);
 		MoveInterface<TermType> move = getNextMove();
 
 		// Add move to expectations
@@ -239,28 +303,125 @@ public class OPAnytimeHyperPlayer<
 		notifyStopRunning();
 		stepNum++;
 		lastMoveTimeout = false;
+		budget.endStep();
+		System.out.println(this.getName() + ": Playclock budget: " + budget.getReport());
 		return move;
 	}
 
+	/**
+	 * Runs at the end of the game to stop the threads forwarding the hypergames
+	 *
+	 * @param seesTerms - The percepts seen by the player after the last turn
+	 * @param priorMove - The move performed by the player at the last turn
+	 * @param notifier - Indicates the player's intentions to the gamecontroller
+	 */
+	@Override
+	public void gameStop(Object seesTerms, Object priorMove, ConnectionEstablishedNotifier notifier) {
+		super.gameStop(seesTerms, priorMove, notifier);
+		if(forwardingPool != null) {
+			forwardingPool.shutdown();
+			forwardingPool = null;
+		}
+	}
+
+	/**
+	 * Creates the opponent model named by opponentModel in the config file
+	 *
+	 * @return The opponent model
+	 */
+	private OpponentModel<TermType> createOpponentModel() {
+		if(opponentModelName.equals("probing")) return new ProbingOpponentModel<TermType>(this, opponentRole, numOPProbes, opCacheSize, opCacheRefineProbes);
+		if(opponentModelName.equals("uniform")) return new UniformOpponentModel<TermType>();
+		if(opponentModelName.equals("bias")) return new BiasOpponentModel<TermType>(matchID);
+		throw new IllegalArgumentException("unknown opponentModel: " + opponentModelName);
+	}
+
+	/**
+	 * Creates the model filter named by modelFilter in the config file
+	 *
+	 * @return The model filter
+	 */
+	private ModelFilter<TermType> createModelFilter() {
+		if(modelFilterName.equals("none")) return new KeepAllModelFilter<TermType>();
+		if(modelFilterName.equals("pathvariance")) return new DiversityModelFilter<TermType>(match, false, false, random);
+		if(modelFilterName.equals("statevariance")) return new DiversityModelFilter<TermType>(match, true, false, random);
+		if(modelFilterName.equals("statevariancenobias")) return new DiversityModelFilter<TermType>(match, true, true, random);
+		throw new IllegalArgumentException("unknown modelFilter: " + modelFilterName);
+	}
+
+	/**
+	 * Creates the move selection named by moveSelection in the config file
+	 *
+	 * @return The move selection
+	 */
+	private MoveSelection<TermType> createMoveSelection() {
+		if(moveSelectionName.equals("anytime")) return new AnytimeMoveSelection<TermType>(this);
+		if(moveSelectionName.equals("random")) return new RandomMoveSelection<TermType>(this);
+		throw new IllegalArgumentException("unknown moveSelection: " + moveSelectionName);
+	}
+
+	/**
+	 * Creates the hypergame likelihood named by likelihood in the config file
+	 *
+	 * @return The hypergame likelihood
+	 */
+	private HypergameLikelihood<TermType> createHypergameLikelihood() {
+		if(likelihoodName.equals("tree")) return new TreeLikelihood<TermType>();
+		if(likelihoodName.equals("choice")) return new ChoiceLikelihood<TermType>();
+		if(likelihoodName.equals("equal")) return new EqualLikelihood<TermType>();
+		throw new IllegalArgumentException("unknown likelihood: " + likelihoodName);
+	}
+
+	/**
+	 * Creates the expansion named by expansion in the config file
+	 *
+	 * @return The expansion
+	 */
+	private Expansion<TermType> createExpansion() {
+		if(expansionName.equals("weighted")) return new WeightedExpansion<TermType>(random);
+		if(expansionName.equals("uniform")) return new UniformExpansion<TermType>(random);
+		throw new IllegalArgumentException("unknown expansion: " + expansionName);
+	}
+
 	/**
 	 * Returns the agent's next move by first updating and branching each hypergame and using these to calculate the
-	 * move with the greatest probability of a good outcome
+	 * move with the greatest probability of a good outcome. The queries of the step are made under cancellation tokens,
+	 * so that they stop in the middle of a query once the playclock (updating) or the playclock budget (selecting) is reached.
 	 *
 	 * @return A legal move
 	 */
 	public MoveInterface<TermType> getNextMove() {
 		startTime =  System.currentTimeMillis();
+		budget.startStep(hypergames.size(), lastMoveTimeout);
+		updateDeadline = CancellationToken.withTimeout(budget.getUpdateMillisLeft());
+		CancellationToken previous = updateDeadline.attach();
+		try {
+			return updateAndSelectMove();
+		} finally {
+			CancellationToken.restore(previous);
+		}
+	}
+
+	/**
+	 * Updates and branches each hypergame and selects the move, under the cancellation token attached by getNextMove
+	 * (apart from the search for a first hypergame, which has to run to the end)
+	 *
+	 * @return A legal move
+	 */
+	private MoveInterface<TermType> updateAndSelectMove() {
 		timeexpired = 0;
 		boolean wasIllegal = false;
 
 		HashSet<MoveInterface<TermType>> legalMoves = new HashSet<MoveInterface<TermType>>();
 		HashSet<MoveInterface<TermType>> legalMovesInState = null;
+		long forwardWallTime = 0;
+		long forwardCpuTime = 0;
 
 		// If it is the first step, then create the first hypergame with the initial state
 		double choiceFactor;
 		if(stepNum == 0) {
 			// Create first model to represent the empty state
-			Model<TermType> model = new Model<TermType>();
+			Model<TermType> model = new Model<TermType>(actionPathIds);
 			Collection<TermType> initialPercepts = perceptTracker.get(stepNum);
 			initialState = match.getGame().getInitialState();
 			model.updateGameplayTracker(stepNum, initialPercepts, null, initialState, role, 1);
@@ -301,6 +462,7 @@ public class OPAnytimeHyperPlayer<
 					// Find all hypergames that allowed that move and remove them
 					if(possibleMoves.contains(moveForStepBlacklist.get(stepNum - 1))) {
 						System.out.println("Removed model " + model.getActionPathHash() + " because contained blacklisted move");
+						inconsistentPaths.add(model.getActionPathHash());
 						// Update path @todo: Should this be done?
 //						Node node = likelihoodTree.getNode(model.getActionPathHashPath());
 //						if(node != null) {
@@ -332,6 +494,7 @@ public class OPAnytimeHyperPlayer<
 					// Find all hypergames that didn't allow the true move used and remove them
 					 else if(!possibleMoves.contains(moveForStepWhitelist.get(stepNum - 1))) {
 						System.out.println("Removed model " + model.getActionPathHash() + " because did not contain whitelisted move");
+						inconsistentPaths.add(model.getActionPathHash());
 						// Update path
 //						Node node = likelihoodTree.getNode(model.getActionPathHashPath());
 //						if(node != null) {
@@ -368,155 +531,74 @@ public class OPAnytimeHyperPlayer<
 				System.out.println("Removed " + (currentHypergames.size() - hypergames.size()) + " out of " + currentHypergames.size() + " hypergames");
 
 			// Search for hypergames if there are none left
-			while(hypergames.size() == 0) {
-				System.out.println(this.getName() + ": Trying to find another path");
-				// Create first model to represent the empty state
-				Model<TermType> model = new Model<TermType>();
-				Collection<TermType> initialPercepts = perceptTracker.get(0);
-				model.updateGameplayTracker(0, initialPercepts, null, initialState, role, 1);
-
-				int step = 1;
-				int maxStep = step;
-				int i = 0;
-				int j = 1;
+			CancellationToken previousToken = new CancellationToken().attach();
+			try {
+				while(hypergames.size() == 0) {
+					System.out.println(this.getName() + ": Trying to find another path");
+					// Create first model to represent the empty state
+					Model<TermType> model = new Model<TermType>(actionPathIds);
+					Collection<TermType> initialPercepts = perceptTracker.get(0);
+					model.updateGameplayTracker(0, initialPercepts, null, initialState, role, 1);
+
+					int step = 1;
+					int maxStep = step;
+					int i = 0;
+					int j = 1;
 //			System.out.println("stepNum: " + stepNum);
-				while(step < stepNum + 1) {
+					while(step < stepNum + 1) {
 //				System.out.println("\tRan " + i + " times on step " + j);
-					i++;
-					step = forwardHypergame(model, step , true);
-					if(step < maxStep) break;
-					if(step > maxStep) {
-						i = 0;
-						j++;
+						i++;
+						step = forwardHypergame(model, step , true);
+						if(step < maxStep) break;
+						if(step > maxStep) {
+							i = 0;
+							j++;
+						}
+						maxStep = Math.max(step, maxStep);
 					}
-					maxStep = Math.max(step, maxStep);
-				}
-				if(step < maxStep - 1) continue;
+					if(step < maxStep - 1) continue;
 
-				hypergames.add(model);
+					hypergames.add(model);
 
-				// Get legal moves from this model
-				legalMovesInState = new HashSet<MoveInterface<TermType>>(model.computeLegalMoves(role, match));
-				model.addLegalMoves(stepNum, new HashSet<MoveInterface<TermType>>(legalMovesInState));
-				legalMoves.addAll(legalMovesInState);
+					// Get legal moves from this model
+					legalMovesInState = new HashSet<MoveInterface<TermType>>(model.computeLegalMoves(role, match));
+					model.addLegalMoves(stepNum, new HashSet<MoveInterface<TermType>>(legalMovesInState));
+					legalMoves.addAll(legalMovesInState);
+				}
+			} finally {
+				CancellationToken.restore(previousToken);
 			}
 
 			// For each model in the the current hypergames set, update it with a random joint action that matches player's last action and branch by the branching factor
+			// The models are forwarded independently of each other (concurrently if forwardingThreads > 1) and merged in their original order, followed by the branches
 			currentHypergames = new ArrayList<Model<TermType>>(hypergames);
-			for (Model<TermType> model : currentHypergames) {
-
-//				System.out.println("UPDATING");
-				// Save a copy of the model
-				Model<TermType> cloneModel = new Model<TermType>(model);
-				int previousActionPathHash = model.getPreviousActionPathHash();
-				int currActionPathHash = model.getActionPathHash();
-				JointMove<TermType> previousAction = model.getLastAction();
-
-				// Forward the model
-				int step = model.getActionPath().size();
-				while(step < stepNum + 1) {
-//					System.out.println("forwarding update");
-					step = forwardHypergame(model, step, false);
-//					System.out.println(step);
-					if(step < stepNum - backtrackingDepth || step == 0) break;
-				}
-				// If the hypergame has gone through all possible updates from the current state, then remove it from the set of hypergames
-				/* This can be done without checking if future states are in use since this is updating the state, rather than branching
-				 	Therefore: No states can be beyond this one from the same node
-				 */
-				if(step < stepNum - backtrackingDepth || step == 0) {
-					// Add state to bad move tracker
-//					if(step > 1) {
-//						updateBadMoveTracker(model.getPreviousActionPathHash(), model.getLastAction(), model.getActionPathHashPath());
-//					}
-
-					// Remove model
-					hypergames.remove(model);
-					continue;
-				}
-
-				// Keep track of moves in use
-				// @todo: wrap with a method
-				if(currentlyInUseMoves.containsKey(model.getPreviousActionPathHash())) {
-					Collection<JointMove<TermType>> inUseMoveSet = currentlyInUseMoves.get(model.getPreviousActionPathHash());
-					inUseMoveSet.add(model.getLastAction());
-				} else {
-					Collection<JointMove<TermType>> inUseMoveSet = new HashSet<JointMove<TermType>>();
-					inUseMoveSet.add(model.getLastAction());
-					currentlyInUseMoves.put(model.getPreviousActionPathHash(), inUseMoveSet);
-				}
-
-				// Remove if 0Porbability
-				// @todo: This will be done only if there is more than 1 hypergames [to handle case where this is the only possible update]
-				choiceFactor = likelihoodTree.getRelativeLikelihood(model.getActionPathHashPath());
-				if(choiceFactor <= 0 && hypergames.size() > 1) {
-					System.out.println("UPDATE CHOICE FACTOR < 0.0 and > 1 remaining");
-					hypergames.remove(model);
-					continue;
-				}
-
-				// Get legal moves
-				legalMovesInState = new HashSet<MoveInterface<TermType>>(model.computeLegalMoves(role, match));
-				model.addLegalMoves(stepNum, new HashSet<MoveInterface<TermType>>(legalMovesInState));
-				legalMoves.addAll(legalMovesInState);
-
-				// Branch the clone of the model
-				boolean keepBranching = shouldBranch;
-				for(int i = 0 ; i < numHyperBranches - 1; i++) {
-					if(hypergames.size() < numHyperGames && keepBranching) {
-//						System.out.println("BRANCHING");
-
-						// Clone the model
-						Model<TermType> newModel = new Model<TermType>(cloneModel);
-						previousActionPathHash = newModel.getPreviousActionPathHash();
-						currActionPathHash = newModel.getActionPathHash();
-						previousAction = newModel.getLastAction();
-
-						// Forward the new model
-						step = newModel.getActionPath().size();
-						while(step < stepNum + 1) {
-//							System.out.println("forwarding branch");
-							step = forwardHypergame(newModel, step, false);
-//							System.out.println(step);
-							if(step < stepNum - backtrackingDepth || step == 0) break;
-						}
-						// If the hypergame has gone through all possible updates from the current state, then break and don't add it to the hyperset
-						/* If this occurs on a branch then there must be a successful state after the current state, but not enough to branch
-							Therefore no need to discard the current state yet
-						 */
-						if(step < stepNum - backtrackingDepth || step == 0) {
-							keepBranching = false;
-							break;
-						}
-
-						// Keep track of moves in use
-						if(currentlyInUseMoves.containsKey(newModel.getPreviousActionPathHash())) {
-							Collection<JointMove<TermType>> inUseMoveSet = currentlyInUseMoves.get(newModel.getPreviousActionPathHash());
-							inUseMoveSet.add(newModel.getLastAction());
-						} else {
-							Collection<JointMove<TermType>> inUseMoveSet = new HashSet<JointMove<TermType>>();
-							inUseMoveSet.add(newModel.getLastAction());
-							currentlyInUseMoves.put(newModel.getPreviousActionPathHash(), inUseMoveSet);
+			final AtomicInteger numModels = new AtomicInteger(currentHypergames.size());
+			ArrayList<Callable<ForwardResult<TermType>>> tasks = new ArrayList<Callable<ForwardResult<TermType>>>(currentHypergames.size());
+			for (final Model<TermType> model : currentHypergames) {
+				tasks.add(new Callable<ForwardResult<TermType>>() {
+					public ForwardResult<TermType> call() {
+						CancellationToken previous = updateDeadline.attach();
+						try {
+							return forwardAndBranch(model, numModels);
+						} finally {
+							CancellationToken.restore(previous);
 						}
-
-						// @todo: This will be done only if there is more than 0 hypergames [since this is optional]
-						choiceFactor = likelihoodTree.getRelativeLikelihood(model.getActionPathHashPath());
-						if(choiceFactor <= 0 && hypergames.size() > 0) {
-							System.out.println("UPDATE CHOICE FACTOR < 0.0 and > 0 remaining");
-							hypergames.remove(model);
-							continue;
-						}
-
-						// Add to hypergames set and get legal moves
-						hypergames.add(newModel);
-
-						// Get legal moves
-						legalMovesInState = new HashSet<MoveInterface<TermType>>(newModel.computeLegalMoves(role, match));
-						newModel.addLegalMoves(stepNum, new HashSet<MoveInterface<TermType>>(legalMovesInState));
-						legalMoves.addAll(legalMovesInState);
-					} else break;
+					}
+				});
+			}
+			List<ForwardResult<TermType>> results = forwardingPool.invokeAll(tasks);
+			forwardWallTime = forwardingPool.getWallTime();
+			forwardCpuTime = forwardingPool.getCpuTime();
+			hypergames.clear();
+			ArrayList<Model<TermType>> branches = new ArrayList<Model<TermType>>();
+			for (ForwardResult<TermType> result : results) {
+				if(result.model != null) {
+					hypergames.add(result.model);
 				}
+				branches.addAll(result.branches);
+				legalMoves.addAll(result.legalMoves);
 			}
+			hypergames.addAll(branches);
 		}
 
 		// Flush all in-use moves since they're only used for the update
@@ -533,55 +615,77 @@ public class OPAnytimeHyperPlayer<
 //		while(hypergames.size() == 0) {
 				System.out.println(this.getName() + ": Trying to find another path");
 				// Create first model to represent the empty state
-				Model<TermType> model = new Model<TermType>();
+				Model<TermType> model = new Model<TermType>(actionPathIds);
 				Collection<TermType> initialPercepts = perceptTracker.get(0);
 				model.updateGameplayTracker(0, initialPercepts, null, initialState, role, 1);
 
 				int step = 1;
 				int maxStep = step;
 //			System.out.println("stepNum: " + stepNum);
-				while (step < stepNum + 1) {
-//				System.out.println("\tRan " + i + " times on step " + j);
-					step = forwardHypergame(model, step, true);
-					if (step < maxStep - backtrackingDepth || step == 0) break;
-					maxStep = Math.max(step, maxStep);
+				try {
+					while (step < stepNum + 1) {
+//					System.out.println("\tRan " + i + " times on step " + j);
+						step = forwardHypergame(model, step, true);
+						if (step < maxStep - backtrackingDepth || step == 0) break;
+						maxStep = Math.max(step, maxStep);
+					}
+				} catch(ReasonerCancelledException e) {
+					break; // The time ran out in the middle of a query
 				}
 				if (step < maxStep - backtrackingDepth) continue;
 				else if (step == 0) break;
 
-				if(currentlyInUseMoves.containsKey(model.getPreviousActionPathHash())) {
-					Collection<JointMove<TermType>> inUseMoveSet = currentlyInUseMoves.get(model.getPreviousActionPathHash());
-					inUseMoveSet.add(model.getLastAction());
-				} else {
-					Collection<JointMove<TermType>> inUseMoveSet = new HashSet<JointMove<TermType>>();
-					inUseMoveSet.add(model.getLastAction());
-					currentlyInUseMoves.put(model.getPreviousActionPathHash(), inUseMoveSet);
-				}
+				addMove(currentlyInUseMoves, model.getPreviousActionPathHash(), model.getLastAction());
 
 				// @todo: This will be done only if there is more than 0 hypergames [since this is optional]
 				choiceFactor = likelihoodTree.getRelativeLikelihood(model.getActionPathHashPath());
-				if(choiceFactor <= 0 && hypergames.size() > 0) {
+				if(choiceFactor <= 0 && hypergames.size() > 0 && expansion.dropsUnlikelyHypergames()) {
 					System.out.println("UPDATE CHOICE FACTOR < 0.0 and > 0 remaining");
 					hypergames.remove(model);
 					continue;
 				}
 
+				try {
+					legalMovesInState = new HashSet<MoveInterface<TermType>>(model.computeLegalMoves(role, match));
+				} catch(ReasonerCancelledException e) {
+					break;
+				}
 				hypergames.add(model);
-
-				legalMovesInState = new HashSet<MoveInterface<TermType>>(model.computeLegalMoves(role, match));
 				model.addLegalMoves(stepNum, new HashSet<MoveInterface<TermType>>(legalMovesInState));
 				legalMoves.addAll(legalMovesInState);
 			}
 		}
 		// If there is more than 1 hypergame then check if the first hypergame has a prob > 0
-		if(hypergames.size() > 1) {
+		if(hypergames.size() > 1 && expansion.dropsUnlikelyHypergames()) {
 			if(likelihoodTree.getRelativeLikelihood(hypergames.get(0).getActionPathHashPath()) <= 0 ) hypergames.remove(0);
 		}
 
+		// Keep the hypergames chosen by the model filter and only the moves legal in them
+		if(hypergames.size() > numHyperGames) {
+			double[] likelihoods = new double[hypergames.size()];
+			for(int i = 0 ; i < hypergames.size() ; i++) {
+				likelihoods[i] = likelihoodTree.getRelativeLikelihood(hypergames.get(i).getActionPathHashPath());
+			}
+			hypergames = modelFilter.filter(hypergames, likelihoods, numHyperGames);
+			legalMoves.clear();
+			for(Model<TermType> model : hypergames) {
+				legalMovesInState = model.getPossibleMovesAtStep(stepNum);
+				if(legalMovesInState != null) legalMoves.addAll(legalMovesInState);
+			}
+		}
+
 		System.out.println(this.getName() + ": Number of hypergames after searching more: " + hypergames.size());
+		System.out.println(this.getName() + ": Expanded " + numExpansions + " nodes (" + String.format("%.1f", numExpansions.get() * 1e9 / Math.max(1, expansionTime.get())) + " expansions/s) with "
+				+ opponentModel.getReport());
 
 		currentlyInUseMoves.clear();
 
+		// Drop the tracker entries of paths that cannot be part of a hypergame any more and enforce the budget
+		int[] numEvicted = evictTrackerEntries();
+		int numTrackerEntries = getNumTrackerEntries();
+		Runtime runtime = Runtime.getRuntime();
+		long usedMemory = (runtime.totalMemory() - runtime.freeMemory()) / 1024;
+
 		//Calculate how long the update took
 		long endTime =  System.currentTimeMillis();
 		long updateTime = endTime - startTime;
@@ -602,6 +706,8 @@ public class OPAnytimeHyperPlayer<
 //		System.out.println();
 
 		// Select a move
+		budget.endUpdate(numTimesHypergameForward.get());
+		int numTimesMovesSimulatedBefore = numTimesMovesSimulated.get();
 		long selectStartTime =  System.currentTimeMillis();
 		MoveInterface<TermType> bestMove = null;
 		if(!legalMoves.isEmpty()) {
@@ -617,16 +723,23 @@ public class OPAnytimeHyperPlayer<
 			Iterator<MoveInterface<TermType>> iter = legalMoves.iterator();
 			bestMove = iter.next();
 			if (legalMoves.size() > 1) {
-				bestMove = anytimeMoveSelection(legalMoves);
+				deadline = CancellationToken.withTimeout(budget.getSelectionMillisLeft());
+				CancellationToken previousToken = deadline.attach();
+				try {
+					bestMove = moveSelection.selectMove(legalMoves);
+				} finally {
+					CancellationToken.restore(previousToken);
+				}
 			}
 		}
 		long selectEndTime =  System.currentTimeMillis();
 		long selectTime = selectEndTime - selectStartTime;
+		budget.endSelection(numTimesMovesSimulated.get() - numTimesMovesSimulatedBefore, legalMoves.size());
 
 		// Print move to file
 		try {
 			FileWriter myWriter = new FileWriter("matches/" + matchID + ".csv", true);
-			myWriter.write(matchID + "," + gameName + "," + stepNum + "," + roleName + "," + name + "," + hypergames.size() + "," + depth + "," + updateTime + "," + selectTime + "," + bestMove + "," + wasIllegal + "," + numTimesMovesSimulated + "," + numTimesHypergameForward + "\n");
+			myWriter.write(matchID + "," + gameName + "," + stepNum + "," + roleName + "," + name + "," + hypergames.size() + "," + depth + "," + updateTime + "," + selectTime + "," + bestMove + "," + wasIllegal + "," + numTimesMovesSimulated + "," + numTimesHypergameForward + "," + forwardWallTime + "," + forwardCpuTime + "," + forwardingPool.getNumThreads() + "," + numTrackerEntries + "," + numEvicted[0] + "," + numEvicted[1] + "," + usedMemory + "," + numProbesCancelled + "," + numExpansions + "," + (expansionTime.get() / 1000000) + "," + opponentModel.getNumReused() + "\n");
 			myWriter.close();
 		} catch (IOException e) {
 			System.err.println("An error occurred.");
@@ -641,6 +754,167 @@ public class OPAnytimeHyperPlayer<
 		return bestMove;
 	}
 
+	/**
+	 * Forwards a model to the current step and branches a clone of it. numModels counts the hypergames: each branch
+	 * takes a slot while there are less than numHyperGames and each removed model releases its slot, so that the limits
+	 * hold when the models are forwarded concurrently. A model or branch whose forwarding is cancelled because the time
+	 * ran out is dropped like one that could not be forwarded.
+	 *
+	 * @param model - The model to forward
+	 * @param numModels - The number of hypergames including the branches added so far
+	 * @return The forwarded model (null if it was removed), its branches and the legal moves in all of them
+	 */
+	public ForwardResult<TermType> forwardAndBranch(Model<TermType> model, AtomicInteger numModels) {
+		ForwardResult<TermType> result = new ForwardResult<TermType>();
+		HashSet<MoveInterface<TermType>> legalMovesInState;
+		double choiceFactor;
+
+		// Save a copy of the model
+		Model<TermType> cloneModel = new Model<TermType>(model);
+
+		// Forward the model
+		int step = model.getActionPath().size();
+		try {
+			while(step < stepNum + 1) {
+				step = forwardHypergame(model, step, false);
+				if(step < stepNum - backtrackingDepth || step == 0) break;
+			}
+		} catch(ReasonerCancelledException e) {
+			numModels.decrementAndGet();
+			return result;
+		}
+		// If the hypergame has gone through all possible updates from the current state, then remove it from the set of hypergames
+		/* This can be done without checking if future states are in use since this is updating the state, rather than branching
+			Therefore: No states can be beyond this one from the same node
+		 */
+		if(step < stepNum - backtrackingDepth || step == 0) {
+			numModels.decrementAndGet();
+			return result;
+		}
+
+		// Keep track of moves in use
+		addMove(currentlyInUseMoves, model.getPreviousActionPathHash(), model.getLastAction());
+
+		// Remove if 0Porbability
+		// @todo: This will be done only if there is more than 1 hypergames [to handle case where this is the only possible update]
+		synchronized (likelihoodTree) {
+			choiceFactor = likelihoodTree.getRelativeLikelihood(model.getActionPathHashPath());
+		}
+		if(choiceFactor <= 0 && expansion.dropsUnlikelyHypergames() && releaseHypergame(numModels, 1)) {
+			System.out.println("UPDATE CHOICE FACTOR < 0.0 and > 1 remaining");
+			return result;
+		}
+
+		// Get legal moves
+		try {
+			legalMovesInState = new HashSet<MoveInterface<TermType>>(model.computeLegalMoves(role, match));
+		} catch(ReasonerCancelledException e) {
+			numModels.decrementAndGet();
+			return result;
+		}
+		result.model = model;
+		model.addLegalMoves(stepNum, new HashSet<MoveInterface<TermType>>(legalMovesInState));
+		result.legalMoves.addAll(legalMovesInState);
+
+		// Branch the clone of the model
+		boolean keepBranching = shouldBranch;
+		for(int i = 0 ; i < numHyperBranches - 1; i++) {
+			if(!keepBranching || !reserveHypergame(numModels)) break;
+
+			// Clone the model
+			Model<TermType> newModel = new Model<TermType>(cloneModel);
+
+			// Forward the new model
+			step = newModel.getActionPath().size();
+			try {
+				while(step < stepNum + 1) {
+					step = forwardHypergame(newModel, step, false);
+					if(step < stepNum - backtrackingDepth || step == 0) break;
+				}
+			} catch(ReasonerCancelledException e) {
+				numModels.decrementAndGet();
+				break;
+			}
+			// If the hypergame has gone through all possible updates from the current state, then break and don't add it to the hyperset
+			/* If this occurs on a branch then there must be a successful state after the current state, but not enough to branch
+				Therefore no need to discard the current state yet
+			 */
+			if(step < stepNum - backtrackingDepth || step == 0) {
+				numModels.decrementAndGet();
+				break;
+			}
+
+			// Keep track of moves in use
+			addMove(currentlyInUseMoves, newModel.getPreviousActionPathHash(), newModel.getLastAction());
+
+			// @todo: This will be done only if there is more than 0 hypergames [since this is optional]
+			synchronized (likelihoodTree) {
+				choiceFactor = likelihoodTree.getRelativeLikelihood(model.getActionPathHashPath());
+			}
+			if(choiceFactor <= 0 && expansion.dropsUnlikelyHypergames()) {
+				System.out.println("UPDATE CHOICE FACTOR < 0.0 and > 0 remaining");
+				numModels.decrementAndGet();
+				if(result.model != null) {
+					result.model = null;
+					numModels.decrementAndGet();
+				}
+				continue;
+			}
+
+			// Get legal moves and add to hypergames set
+			try {
+				legalMovesInState = new HashSet<MoveInterface<TermType>>(newModel.computeLegalMoves(role, match));
+			} catch(ReasonerCancelledException e) {
+				numModels.decrementAndGet();
+				break;
+			}
+			result.branches.add(newModel);
+			newModel.addLegalMoves(stepNum, new HashSet<MoveInterface<TermType>>(legalMovesInState));
+			result.legalMoves.addAll(legalMovesInState);
+		}
+		return result;
+	}
+
+	/**
+	 * Takes a slot for a new hypergame if there are less than numHyperGames
+	 *
+	 * @param numModels - The number of hypergames
+	 * @return True if the slot was taken
+	 */
+	private boolean reserveHypergame(AtomicInteger numModels) {
+		int current;
+		do {
+			current = numModels.get();
+			if(current >= numHyperGames) return false;
+		} while(!numModels.compareAndSet(current, current + 1));
+		return true;
+	}
+
+	/**
+	 * Releases the slot of a hypergame if more than minRemaining hypergames would remain
+	 *
+	 * @param numModels - The number of hypergames
+	 * @param minRemaining - The number of hypergames that must remain
+	 * @return True if the slot was released
+	 */
+	private boolean releaseHypergame(AtomicInteger numModels, int minRemaining) {
+		int current;
+		do {
+			current = numModels.get();
+			if(current <= minRemaining) return false;
+		} while(!numModels.compareAndSet(current, current - 1));
+		return true;
+	}
+
+	/**
+	 * The outcome of forwarding and branching one model
+	 */
+	public static class ForwardResult<TermType extends TermInterface> {
+		Model<TermType> model; // The forwarded model or null if it was removed
+		ArrayList<Model<TermType>> branches = new ArrayList<Model<TermType>>();
+		HashSet<MoveInterface<TermType>> legalMoves = new HashSet<MoveInterface<TermType>>();
+	}
+
 	public boolean canSearchMore() {
 		// If at time limit, then timeout
 		if(System.currentTimeMillis() - startTime > (this.match.getPlayclock()*1000)) {
@@ -651,7 +925,7 @@ public class OPAnytimeHyperPlayer<
 			//			System.out.println("NO GAMES, MUST SEARCH MORE");
 			return true; // If no games, search until 1
 		}
-		if(hypergames.size() >= numHyperGames) { // If already at max then stop searching
+		if(hypergames.size() >= modelFilter.getSearchLimit(numHyperGames)) { // If already at max then stop searching
 			//			System.out.println("REACHED MAX");
 			return false;
 		}
@@ -668,7 +942,7 @@ public class OPAnytimeHyperPlayer<
 			}
 			else {
 				//				 NOT if searched enough
-				if(System.currentTimeMillis() - startTime > stateUpdateTimeLimit) {
+				if(!budget.shouldSearchMore(hypergames.size(), stepNum)) {
 					//					System.out.println("STATE UPDATE TIMEOUT");
 					return false;
 				}
@@ -710,10 +984,10 @@ public class OPAnytimeHyperPlayer<
 	public MoveInterface<TermType> anytimeMoveSelection(HashSet<MoveInterface<TermType>> possibleMoves) {
 		// Calculate P(HG)
 		// Calculate inverse choice factor sum
-		HashMap<Integer, Double> choiceFactors = new HashMap<Integer, Double>();
 		double choiceFactor;
 		double treecf;
-		double choiceFactorSum = 0;
+		double[] relativeLikelihoods = new double[hypergames.size()];
+		int hypergameIndex = 0;
 		double invChoiceFactorSum = 0;
 		Collection<Model<TermType>> zeroProbHypergames = new ArrayList<Model<TermType>>();
 		for(Model<TermType> model : hypergames) {
@@ -730,8 +1004,7 @@ public class OPAnytimeHyperPlayer<
 	//					System.out.println("likelihoodTree choice factor: " + treecf);
 	//					System.exit(0);
 	//				}
-			choiceFactors.put(model.getActionPathHash(), choiceFactor);
-			choiceFactorSum += choiceFactor;
+			relativeLikelihoods[hypergameIndex++] = choiceFactor;
 			invChoiceFactorSum += 1.0 / treecf;
 	//			}
 		}
@@ -740,17 +1013,17 @@ public class OPAnytimeHyperPlayer<
 	//		System.out.println();
 
 		// Calculate the probability of each hypergame
+		double[] probs = hypergameLikelihood.weigh(hypergames, relativeLikelihoods);
+		hypergameIndex = 0;
 		HashMap<Integer, Double> hyperProbs = new HashMap<Integer, Double>();
 		HashMap<Integer, Double> hyperProbsOrig = new HashMap<Integer, Double>();
 		double prob;
 		double choiceProb;
 	//		System.out.println();
 	//		System.out.println("There are " + hypergames.size() + " games remaining");
-//			System.out.println("choiceFactorSum: " + choiceFactorSum);
 		for(Model<TermType> model : hypergames) {
-			choiceFactor = choiceFactors.get(model.getActionPathHash());
 			treecf = model.getNumberOfPossibleActions();
-			prob = choiceFactorSum > 0.0 ? ( choiceFactor / choiceFactorSum ) : 1.0;
+			prob = probs[hypergameIndex++];
 			choiceProb = ( ( 1.0 / treecf ) / invChoiceFactorSum );
 //				System.out.println("Model " + model.getActionPathHash() + " has choiceFactor: " + choiceFactor);
 				System.out.println("Model " + model.getActionPathHash() + " has prob: " + prob);
@@ -773,13 +1046,14 @@ public class OPAnytimeHyperPlayer<
 		depth = 0;
 		Model<TermType> tempModel;
 		StateInterface<TermType, ?> currState;
-		while(System.currentTimeMillis() - startTime < timeLimit && depth < maxNumProbes) { // @todo: May need to add break points at the end of each move calc and each hypergame calc
+		boolean cancelled = false; // Whether a probe was cancelled because the time ran out
+		while(!cancelled && !budget.isSelectionOver() && depth < maxNumProbes) { // @todo: May need to add break points at the end of each move calc and each hypergame calc
 //			System.out.println("Depth: " + depth);
 			for (Model<TermType> model : hypergames) {
 //				if(hyperProbs.get(model.getActionPathHash()) == 0.0) continue; // Continue if the prob of the hypergame is 0
 //				System.out.println("\tModel: " + model.getActionPathHash());
 				for (MoveInterface<TermType> move : possibleMoves) {
-					if(System.currentTimeMillis() - startTime > timeLimit) {
+					if(budget.isSelectionOver()) {
 						//						System.out.println("Had to Break 1");
 						break;
 					}
@@ -790,7 +1064,15 @@ public class OPAnytimeHyperPlayer<
 					// Calculate the the expected value for each move using monte carlo simulation
 					double expectedValue = 0.0;
 					if(model.getPossibleMovesAtStep(stepNum).contains(move)) {
-						expectedValue = anytimeSimulateMove(currState, move, role);
+						Span probe = Instrumentation.begin(Phase.PROBE);
+						try {
+							expectedValue = anytimeSimulateMove(currState, move, role);
+						} catch(ReasonerCancelledException e) {
+							cancelled = true;
+							break;
+						} finally {
+							probe.end();
+						}
 //						System.out.println("model: " + model.getActionPathHash() + " does contain move " + move + " with expected value " + expectedValue);
 					}
 //					else {
@@ -821,14 +1103,14 @@ public class OPAnytimeHyperPlayer<
 						weightedExpectedValuePerMoveOrig.replace(move.hashCode(), (((count - 1.0) * prevWeightedExpectedValueOrig) + weightedExpectedValueOrig) / count);
 					}
 				}
-				if(System.currentTimeMillis() - startTime > timeLimit) { // @todo: make look better
+				if(cancelled || budget.isSelectionOver()) { // @todo: make look better
 					//					System.out.println("Had to Break 2");
 					break;
 				}
 			}
 			depth++;
 		}
-		System.out.println("Ran " + depth + " simulations TOTAL");
+		System.out.println("Ran " + depth + " simulations TOTAL (" + numTimesMovesSimulated + " probes completed, " + numProbesCancelled + " cancelled)");
 
 		// Return the move with the greatest weighted expected value
 		long startFinalCalcTime =  System.currentTimeMillis();
@@ -884,7 +1166,8 @@ public class OPAnytimeHyperPlayer<
 	}
 
 	/**
-	 * Get the expected result of a move from a given state using a single monte carlo simulation
+	 * Get the expected result of a move from a given state using a single monte carlo simulation. A probe that is
+	 * cancelled because the time ran out is counted and its ReasonerCancelledException passed on.
 	 *
 	 * @param state - The current state of the game
 	 * @param move - The first move to be tried
@@ -895,19 +1178,21 @@ public class OPAnytimeHyperPlayer<
 		// Repeatedly select random joint moves until a terminal state is reached
 		StateInterface<TermType, ?> currState = state;
 		JointMoveInterface<TermType> randJointMove;
-		boolean isFirstMove = true;
-		while(!currState.isTerminal()) {
-			if(isFirstMove) {
+		PlayoutResult playout;
+		try {
+			if(!currState.isTerminal()) {
 				randJointMove = getRandomJointMove(currState, move, role);
 				if (randJointMove == null) System.exit(0);
-				isFirstMove = false;
-			} else {
-				randJointMove = getRandomJointMove(currState);
+				currState = currState.getSuccessor(randJointMove);
 			}
-			currState = currState.getSuccessor(randJointMove);
+			// Play the rest of the game out inside the reasoner
+			playout = currState.playout(match.getGame().getOrderedRoles(), random, Integer.MAX_VALUE);
+		} catch(ReasonerCancelledException e) {
+			numProbesCancelled.incrementAndGet();
+			throw e;
 		}
-		expectedOutcome = currState.getGoalValue(role);
-		numTimesMovesSimulated++;
+		expectedOutcome = playout.getGoalValue(match.getGame().getOrderedRoles().indexOf(role));
+		numTimesMovesSimulated.incrementAndGet();
 		return expectedOutcome;
 	}
 
@@ -955,10 +1240,19 @@ public class OPAnytimeHyperPlayer<
 	 * @return The step of the model
 	 */
 	public int forwardHypergame(Model<TermType> model, int step, boolean flag) {
-		numTimesHypergameForward++;
+		Span span = Instrumentation.begin(Phase.FORWARD_HYPERGAME);
+		try {
+			return doForwardHypergame(model, step, flag);
+		} finally {
+			span.end();
+		}
+	}
+
+	private int doForwardHypergame(Model<TermType> model, int step, boolean flag) {
+		numTimesHypergameForward.incrementAndGet();
 		// Update the model using a random joint move
 			// Get all possible moves and remove the known bad moves
-		StateInterface<TermType, ?> state = model.getCurrentState(match);
+		StateInterface<TermType, ?> state = forwardingPool.localState(model.getCurrentState(match));
 		ArrayList<JointMoveInterface<TermType>> possibleJointMoves = new ArrayList<JointMoveInterface<TermType>>(computeJointMoves((StateType) state, actionTracker.get(step - 1), this.role));
 //		System.out.println("possibleJointMoves: " + possibleJointMoves);
 		int numPossibleJointMoves = possibleJointMoves.size();
@@ -989,14 +1283,14 @@ public class OPAnytimeHyperPlayer<
 //		System.out.println("possibleJointMoves NOBAD NOINUSE: " + possibleJointMoves);
 
 		// If the node has not been expanded yet, then expand it
-		if(!likelihoodTreeExpansionTracker.contains(model.getActionPathHash())) {
-			Node node = likelihoodTree.getNode(model.getActionPathHashPath());
-
+		if(!likelihoodTreeExpansionTracker.containsKey(model.getActionPathHash())) {
+			long expansionStartTime = System.nanoTime();
 			// Run MCS simulations on each valid move to calculate its relative value
 			MoveInterface<TermType> move;
 			Node child;
 			double expectedValue;
 			double totalValue = 0.0;
+			ArrayList<Node> children = new ArrayList<Node>(possibleJointMoves.size());
 			PriorityQueue<Tuple<Double, JointMoveInterface<TermType>>> moveQueue = new PriorityQueue<Tuple<Double, JointMoveInterface<TermType>>>(possibleJointMoves.size(), new JointMoveTupleComparator());
 			ArrayList<Tuple<Double, JointMoveInterface<TermType>>> moveList = new ArrayList<Tuple<Double, JointMoveInterface<TermType>>>();
 			System.out.println("Moves: " + possibleJointMoves.size());
@@ -1004,34 +1298,40 @@ public class OPAnytimeHyperPlayer<
 			for (JointMoveInterface<TermType> jointMove : possibleJointMoves) {
 				// Use this move
 				move = jointMove.get(opponentRole);
-				expectedValue = 0;
-				for(int i = 0 ; i < numOPProbes ; i++) {
-					expectedValue += anytimeSimulateMove(state, move, opponentRole);
-				}
-				expectedValue = expectedValue/numOPProbes;
+				expectedValue = opponentModel.weighMove(state, move);
 				totalValue += expectedValue;
 
-				// Expand the node
-				model.getActionPath().push((JointMove<TermType>)jointMove);
-				child = new Node(model.getActionPath().hashCode());
+				// Create the child node
+				child = new Node(actionPathIds.getChildId(model.getActionPathHash(), jointMove));
 				child.setValue(expectedValue);
-				node.addChild(child);
-				model.getActionPath().pop();
+				children.add(child);
 
 				// Add the move to the map
 				Tuple<Double, JointMoveInterface<TermType>> tuple = new Tuple<Double, JointMoveInterface<TermType>>(expectedValue, jointMove);
 				moveQueue.add(tuple);
 				moveList.add(tuple);
 			}
-			for(Node likelihoodChild : node.getChildren()) {
-				likelihoodChild.setRelLikelihood(likelihoodChild.getValue() > 0.0 ? ((double)likelihoodChild.getValue()) / totalValue : 0.0);
-			}
 			System.out.println("numTimesMovesSimulated AFTER: " + numTimesMovesSimulated);
+			numExpansions.incrementAndGet();
+			expansionTime.addAndGet(System.nanoTime() - expansionStartTime);
+
+			// Expand the node unless another thread forwarding a hypergame through the same node expanded it first
+			synchronized (likelihoodTree) {
+				if(!likelihoodTreeExpansionTracker.containsKey(model.getActionPathHash())) {
+					Node node = likelihoodTree.getNode(model.getActionPathHashPath());
+					for(Node newChild : children) {
+						node.addChild(newChild);
+					}
+					for(Node likelihoodChild : node.getChildren()) {
+						likelihoodChild.setRelLikelihood(likelihoodChild.getValue() > 0.0 ? ((double)likelihoodChild.getValue()) / totalValue : 0.0);
+					}
 
-			// Add node to set of explored nodes AND add priority queue to map
-			likelihoodTreeExpansionTracker.add(model.getActionPathHash());
-			moveSelectOrderMap.put(model.getActionPathHash(), moveQueue);
-			moveSelectMap.put(model.getActionPathHash(), moveList);
+					// Add node to set of explored nodes AND add priority queue to map
+					moveSelectOrderMap.put(model.getActionPathHash(), moveQueue);
+					moveSelectMap.put(model.getActionPathHash(), moveList);
+					likelihoodTreeExpansionTracker.put(model.getActionPathHash(), Boolean.TRUE);
+				}
+			}
 		}
 
 //		// Select an action - THIS USES THE DETERMINISTIC METHOD
@@ -1048,37 +1348,8 @@ public class OPAnytimeHyperPlayer<
 //				break;
 //			}
 //		}
-		// Select an action - THIS USES THE PROBABILISTIC METHOD
-		JointMove<TermType> jointAction = null;
-		ArrayList<Tuple<Double, JointMoveInterface<TermType>>> jointMoveList = new ArrayList<Tuple<Double, JointMoveInterface<TermType>>>(moveSelectMap.get(model.getActionPathHash()));
-		// Only consider valid moves
-		ArrayList<Tuple<Double, JointMoveInterface<TermType>>> disallowedItems = new ArrayList<Tuple<Double, JointMoveInterface<TermType>>>();
-		for(Tuple<Double, JointMoveInterface<TermType>> tup : jointMoveList) {
-			if(!possibleJointMoves.contains((JointMove<TermType>)tup.getB())) disallowedItems.add(tup);
-		}
-		jointMoveList.removeAll(disallowedItems);
-//		System.out.println("jointMoveList: " + jointMoveList);
-//		System.out.println("possibleJointMoves" + possibleJointMoves);
-		// Select based on the relative probability of each move
-			// Get the sum of probabilities
-		double sumWeight = 0;
-		for (Tuple<Double, JointMoveInterface<TermType>> tup : jointMoveList){
-			sumWeight += tup.getA();
-		}
-			// Choose a random item
-		int randIndex = -1;
-		double rand = random.nextDouble() * sumWeight;
-			// Cycle through the list until you the random number is < 0
-		Tuple<Double, JointMoveInterface<TermType>> tup;
-		for (int i = 0 ; i < jointMoveList.size() ; i++) {
-			tup = jointMoveList.get(i);
-			rand -= tup.getA();
-			if(rand <= 0.0) {
-				randIndex = i;
-				break;
-			}
-		}
-		if(randIndex != -1) jointAction = (JointMove<TermType>)jointMoveList.get(randIndex).getB();
+		// Select an action - the expansion decides how the weights of the moves are used
+		JointMove<TermType> jointAction = (JointMove<TermType>)expansion.chooseJointMove(moveSelectMap.get(model.getActionPathHash()), possibleJointMoves);
 //		System.out.println("Chose to expand move: " + jointAction);
 
 //		while(!jointMoveQueue.isEmpty()) {
@@ -1117,14 +1388,7 @@ public class OPAnytimeHyperPlayer<
 			} else {
 //				System.out.println("ADDED " + lastAction + " TO --IN-USE-- MOVES LIST");
 				// Add it to inuse
-				if(currentlyInUseMoves.containsKey(model.getActionPathHash())) {
-					Collection<JointMove<TermType>> inUseMoveSet = currentlyInUseMoves.get(model.getActionPathHash());
-					inUseMoveSet.add(lastAction);
-				} else {
-					Collection<JointMove<TermType>> inUseMoveSet = new HashSet<JointMove<TermType>>();
-					inUseMoveSet.add(lastAction);
-					currentlyInUseMoves.put(model.getActionPathHash(), inUseMoveSet);
-				}
+				addMove(currentlyInUseMoves, model.getActionPathHash(), lastAction);
 //				updateBadMoveTracker(model.getActionPathHash(), lastAction, model.getActionPathHashPath()); // @todo: does this even make sense if it's null?
 			}
 
@@ -1206,6 +1470,120 @@ public class OPAnytimeHyperPlayer<
 		}
 	}
 
+	/**
+	 * Drops the tracker entries of the action paths that cannot be part of a hypergame any more, i.e., the paths below a
+	 * bad move (they contradict the percepts or moves seen) and the paths of the hypergames removed this step because
+	 * they contradict the moves taken. If the trackers still hold more than maxTrackerEntries entries, the subtrees
+	 * branching off the paths of the current hypergames are dropped as well, those closest to the root first.
+	 * The nodes of the dropped paths are removed from the likelihood tree and their ids from actionPathIds. Only the root
+	 * of a dropped subtree that is not below a bad move stays in the likelihood tree, so the likelihoods of its siblings
+	 * do not change, and it is expanded again if a hypergame gets there again.
+	 *
+	 * @return The number of entries dropped because they were inconsistent and because of the budget
+	 */
+	private int[] evictTrackerEntries() {
+		int[] numEvicted = new int[2];
+		if(!evictInconsistentPaths && maxTrackerEntries <= 0) {
+			return numEvicted;
+		}
+		IntHashSet livePaths = new IntHashSet();
+		for (Model<TermType> model : hypergames) {
+			for (int actionPathHash : model.getActionPathHashPath()) {
+				livePaths.add(actionPathHash);
+			}
+		}
+		IntHashSet evictedPaths = new IntHashSet();
+		synchronized (likelihoodTree) {
+			ArrayList<Node> offPathNodes = new ArrayList<Node>(); // The roots of the subtrees that branch off the current hypergames, closest to the root first
+			ArrayDeque<Node> unvisited = new ArrayDeque<Node>();
+			unvisited.addLast(likelihoodTree.getRoot());
+			Node node;
+			while(!unvisited.isEmpty()) {
+				node = unvisited.removeFirst();
+				IntHashSet badPaths = null;
+				Collection<JointMove<TermType>> badMoves = badMovesTracker.get(node.getActionPathHash());
+				if(evictInconsistentPaths && badMoves != null) {
+					badPaths = new IntHashSet(badMoves.size());
+					for (JointMove<TermType> badMove : badMoves) {
+						int badPath = actionPathIds.findChildId(node.getActionPathHash(), badMove);
+						if(badPath != 0) badPaths.add(badPath);
+					}
+				}
+				boolean isLive = livePaths.contains(node.getActionPathHash());
+				ArrayList<Node> badChildren = new ArrayList<Node>();
+				for (Node child : node.getChildren()) {
+					int actionPathHash = child.getActionPathHash();
+					if(livePaths.contains(actionPathHash)) {
+						unvisited.addLast(child);
+					} else if(badPaths != null && badPaths.contains(actionPathHash)) {
+						badChildren.add(child);
+					} else if(evictInconsistentPaths && inconsistentPaths.contains(actionPathHash)) {
+						numEvicted[0] += evictSubtree(child, evictedPaths);
+					} else {
+						if(isLive) offPathNodes.add(child);
+						unvisited.addLast(child);
+					}
+				}
+				// The bad moves are never selected again, so the nodes below them go as well
+				for (Node child : badChildren) {
+					numEvicted[0] += evictSubtree(child, evictedPaths);
+					evictedPaths.add(child.getActionPathHash());
+					node.removeChild(child);
+				}
+			}
+			inconsistentPaths.clear();
+
+			if(maxTrackerEntries > 0 && getNumTrackerEntries() > maxTrackerEntries) {
+				// The subtrees closest to the root branched off the longest ago
+				int numTrackerEntries = getNumTrackerEntries();
+				for (Node offPathNode : offPathNodes) {
+					if(numTrackerEntries <= maxTrackerEntries) break;
+					int numSubtreeEntries = evictSubtree(offPathNode, evictedPaths);
+					numEvicted[1] += numSubtreeEntries;
+					numTrackerEntries -= numSubtreeEntries;
+				}
+			}
+			actionPathIds.removeAll(evictedPaths);
+			modelFilter.forgetPaths(evictedPaths); // The ids are handed out again, so cached states must not be found by them
+		}
+		return numEvicted;
+	}
+
+	/**
+	 * Removes the tracker entries of all paths in the subtree and the subtree below its root from the likelihood tree
+	 *
+	 * @param root - The root of the subtree
+	 * @param evictedPaths - The set to add the action-path hashes of the nodes below the root to
+	 * @return The number of entries removed
+	 */
+	private int evictSubtree(Node root, IntHashSet evictedPaths) {
+		int numRemoved = 0;
+		ArrayDeque<Node> unvisited = new ArrayDeque<Node>();
+		unvisited.push(root);
+		Node node;
+		while(!unvisited.isEmpty()) {
+			node = unvisited.pop();
+			int actionPathHash = node.getActionPathHash();
+			if(badMovesTracker.remove(actionPathHash) != null) numRemoved++;
+			if(moveSelectOrderMap.remove(actionPathHash) != null) numRemoved++;
+			if(moveSelectMap.remove(actionPathHash) != null) numRemoved++;
+			if(likelihoodTreeExpansionTracker.remove(actionPathHash) != null) numRemoved++;
+			for (Node child : node.getChildren()) {
+				evictedPaths.add(child.getActionPathHash());
+				unvisited.push(child);
+			}
+		}
+		root.removeChildren();
+		return numRemoved;
+	}
+
+	/**
+	 * @return The number of entries in the trackers that are kept across steps
+	 */
+	private int getNumTrackerEntries() {
+		return badMovesTracker.size() + moveSelectOrderMap.size() + moveSelectMap.size() + likelihoodTreeExpansionTracker.size();
+	}
+
 	/**
 	 * Updates the bad move tracker at the action-path hash for the last action
 	 *
@@ -1213,15 +1591,20 @@ public class OPAnytimeHyperPlayer<
 	 * @param badMove - The bad move to add to the tracker
 	 */
 	public void updateBadMoveTracker(int backtrackedModelHash, JointMove<TermType> badMove, ArrayDeque<Integer> actionPathHashPath) {
-		if (badMovesTracker.containsKey(backtrackedModelHash)) {
-			Collection<JointMove<TermType>> badJointActions = badMovesTracker.get(backtrackedModelHash);
-			badJointActions.add(badMove);
-		} else {
-			Collection<JointMove<TermType>> badJointActions = new ArrayList<JointMove<TermType>>();
-			badJointActions.add(badMove);
-			badMovesTracker.put(backtrackedModelHash, badJointActions);
+		addMove(badMovesTracker, backtrackedModelHash, badMove);
+
+		synchronized (likelihoodTree) {
+			removeFromMoveQueue(backtrackedModelHash, badMove);
 		}
+	}
 
+	/**
+	 * Removes a bad move from the queue of moves at the action-path hash
+	 *
+	 * @param backtrackedModelHash - The action-path hash of the queue
+	 * @param badMove - The bad move to remove
+	 */
+	private void removeFromMoveQueue(int backtrackedModelHash, JointMove<TermType> badMove) {
 		PriorityQueue<Tuple<Double, JointMoveInterface<TermType>>> jointMoveQueue = moveSelectOrderMap.get(backtrackedModelHash);
 		Iterator<Tuple<Double, JointMoveInterface<TermType>>> it = jointMoveQueue.iterator();
 		Tuple<Double, JointMoveInterface<TermType>> tuple = null;
@@ -1283,16 +1666,12 @@ public class OPAnytimeHyperPlayer<
 	 */
 	public Collection<JointMoveInterface<TermType>> computeJointMoves(StateType state, MoveInterface<TermType> action, RoleInterface<TermType> positionedRole) {
 		// compute legal moves for all roles such that the action matches for the player's role
-		HashMap<RoleInterface<TermType>, Collection<? extends MoveInterface<TermType>>> legalMovesMap = new HashMap<RoleInterface<TermType>, Collection<? extends MoveInterface<TermType>>>();
-		for(RoleInterface<TermType> role: match.getGame().getOrderedRoles()) {
-			if(role == positionedRole) {
-				Collection<MoveInterface<TermType>> lastMoveMap = new ArrayList<MoveInterface<TermType>>();
-				lastMoveMap.add(action);
-				legalMovesMap.put(role, lastMoveMap);
-			} else {
-				legalMovesMap.put(role, state.getLegalMoves(role));
-			}
-		}
+		List<RoleInterface<TermType>> otherRoles = new ArrayList<RoleInterface<TermType>>(match.getGame().getOrderedRoles());
+		otherRoles.remove(positionedRole);
+		HashMap<RoleInterface<TermType>, Collection<? extends MoveInterface<TermType>>> legalMovesMap = new HashMap<RoleInterface<TermType>, Collection<? extends MoveInterface<TermType>>>(state.getAllLegalMoves(otherRoles));
+		Collection<MoveInterface<TermType>> lastMoveMap = new ArrayList<MoveInterface<TermType>>();
+		lastMoveMap.add(action);
+		legalMovesMap.put(positionedRole, lastMoveMap);
 		// build the cross product
 		final CrossProductMap<RoleInterface<TermType>, MoveInterface<TermType>> jointMovesMap = new CrossProductMap<RoleInterface<TermType>, MoveInterface<TermType>>(legalMovesMap);
 		// wrap the elements of the cross product in JointMove<TermType>
@@ -1325,8 +1704,9 @@ public class OPAnytimeHyperPlayer<
 	 * @param actionPathHash - The action-path hash from which to consider which moves are invalid
 	 */
 	public void removeBadMoves(ArrayList<JointMoveInterface<TermType>> jointMoves, int actionPathHash) {
-		if(badMovesTracker.containsKey(actionPathHash)) {
-			jointMoves.removeAll(badMovesTracker.get(actionPathHash));
+		Collection<JointMove<TermType>> badMoves = badMovesTracker.get(actionPathHash);
+		if(badMoves != null) {
+			jointMoves.removeAll(badMoves);
 		}
 	}
 
@@ -1337,8 +1717,28 @@ public class OPAnytimeHyperPlayer<
 	 * @param actionPathHash - The action-path hash from which to consider which moves are invalid
 	 */
 	public void removeInUseMoves(ArrayList<JointMoveInterface<TermType>> jointMoves, int actionPathHash) {
-		if(currentlyInUseMoves.containsKey(actionPathHash)) {
-			jointMoves.removeAll(currentlyInUseMoves.get(actionPathHash));
+		Collection<JointMove<TermType>> inUseMoves = currentlyInUseMoves.get(actionPathHash);
+		if(inUseMoves != null) {
+			jointMoves.removeAll(inUseMoves);
+		}
+	}
+
+	/**
+	 * Adds a move to the set of moves of a tracker at an action-path hash. The sets are concurrent, so moves added by
+	 * threads forwarding different hypergames are merged by union.
+	 *
+	 * @param tracker - The tracker (bad moves or in-use moves)
+	 * @param actionPathHash - The action-path hash
+	 * @param move - The move to add (ignored if null, i.e., the initial state)
+	 */
+	private void addMove(ConcurrentIntObjectHashMap<Collection<JointMove<TermType>>> tracker, int actionPathHash, JointMove<TermType> move) {
+		if(move == null) return;
+		Collection<JointMove<TermType>> moves = tracker.get(actionPathHash);
+		if(moves == null) {
+			Collection<JointMove<TermType>> newMoves = Collections.newSetFromMap(new ConcurrentHashMap<JointMove<TermType>, Boolean>());
+			moves = tracker.putIfAbsent(actionPathHash, newMoves);
+			if(moves == null) moves = newMoves;
 		}
+		moves.add(move);
 	}
 }
@@ -28,6 +28,13 @@ public class OPAnytimeHyperPlayerInfo extends LocalPlayerInfo {
 		super(roleindex, TYPE_ANYTIMEHYPERPLAY_OP, gdlVersion);
 	}
 
+	/**
+	 * @param name - The name of the player, which is also the name of its config file in agentConfig
+	 */
+	public OPAnytimeHyperPlayerInfo(int roleindex, String name, GDLVersion gdlVersion) {
+		super(roleindex, name, gdlVersion);
+	}
+
 	@Override
 	public String getType() {
 		return TYPE_ANYTIMEHYPERPLAY_OP;
@@ -0,0 +1,61 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package tud.gamecontroller.players.OPAnytimeHyperPlayer;
+
+import tud.gamecontroller.game.MoveInterface;
+import tud.gamecontroller.game.StateInterface;
+import tud.gamecontroller.term.TermInterface;
+
+/**
+ * An OpponentModel weighs the moves of the opponent when a node of the likelihood tree is expanded. The weights of the
+ * moves from a state, divided by their sum, are the likelihoods of the children of the node, and the hypergames are
+ * forwarded by sampling the joint moves with these weights.
+ *
+ * The moves are weighed by the threads forwarding the hypergames, so implementations have to be thread-safe.
+ */
+public interface OpponentModel<TermType extends TermInterface> {
+
+    /**
+     * Weighs a move of the opponent
+     *
+     * @param state - The state the move is made in
+     * @param move - The move of the opponent
+     * @return The weight of the move (not negative)
+     */
+    double weighMove(StateInterface<TermType, ?> state, MoveInterface<TermType> move);
+
+    /**
+     * Resets the statistics of the step
+     *
+     * @param stepNum - The step the player is about to select a move for
+     */
+    void startStep(int stepNum);
+
+    /**
+     * @return The number of weights of this step that reused work from earlier steps or hypergames
+     */
+    int getNumReused();
+
+    /**
+     * @return A description of the model and its statistics for the log
+     */
+    String getReport();
+}
@@ -0,0 +1,135 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package tud.gamecontroller.players.OPAnytimeHyperPlayer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import tud.gamecontroller.game.MoveInterface;
+import tud.gamecontroller.game.RoleInterface;
+import tud.gamecontroller.game.StateInterface;
+import tud.gamecontroller.term.TermInterface;
+
+/**
+ * Holds the running statistics of the playouts used to model the opponent, for each state, opponent role and move of
+ * the opponent. A node of the likelihood tree that is reached again, by another hypergame or in a later step, refines
+ * the estimates of its moves with a few more playouts instead of starting from scratch.
+ *
+ * The states are told apart by their fluents (their hash code is the fingerprint), and the least recently used entries
+ * are dropped once there are maxEntries. The cache is shared by the threads forwarding the hypergames.
+ */
+public class OpponentModelCache<TermType extends TermInterface> {
+
+    private final int maxEntries;
+    private final LinkedHashMap<Key<TermType>, Statistics> entries;
+    private long numHits = 0;
+    private long numMisses = 0;
+
+    /**
+     * @param maxEntries - The number of (state, role, move) entries kept
+     */
+    public OpponentModelCache(final int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<Key<TermType>, Statistics>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key<TermType>, Statistics> eldest) {
+                return size() > OpponentModelCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the number of playouts stored for the move of the role in the state (0 if none are)
+     *
+     * @param state - The state the playouts start in
+     * @param role - The role whose move is evaluated
+     * @param move - The move of the role
+     * @return The number of playouts
+     */
+    public synchronized int getNumPlayouts(StateInterface<TermType, ?> state, RoleInterface<TermType> role, MoveInterface<TermType> move) {
+        Statistics statistics = entries.get(new Key<TermType>(state, role, move));
+        if(statistics == null) {
+            numMisses++;
+            return 0;
+        }
+        numHits++;
+        return statistics.numPlayouts;
+    }
+
+    /**
+     * Adds the outcome of new playouts to the statistics of the move of the role in the state
+     *
+     * @param state - The state the playouts start in
+     * @param role - The role whose move is evaluated
+     * @param move - The move of the role
+     * @param sumOfValues - The sum of the goal values of the role in the new playouts
+     * @param numPlayouts - The number of new playouts
+     * @return The mean goal value over all playouts stored for the move, including the new ones
+     */
+    public synchronized double addPlayouts(StateInterface<TermType, ?> state, RoleInterface<TermType> role, MoveInterface<TermType> move, double sumOfValues, int numPlayouts) {
+        Key<TermType> key = new Key<TermType>(state, role, move);
+        Statistics statistics = entries.get(key);
+        if(statistics == null) {
+            statistics = new Statistics();
+            entries.put(key, statistics);
+        }
+        statistics.numPlayouts += numPlayouts;
+        statistics.sumOfValues += sumOfValues;
+        return statistics.sumOfValues / statistics.numPlayouts;
+    }
+
+    public synchronized int size() { return entries.size(); }
+    public synchronized long getNumHits() { return numHits; }
+    public synchronized long getNumMisses() { return numMisses; }
+
+    private static class Statistics {
+        int numPlayouts = 0;
+        double sumOfValues = 0.0;
+    }
+
+    private static class Key<TermType extends TermInterface> {
+        private final StateInterface<TermType, ?> state;
+        private final RoleInterface<TermType> role;
+        private final MoveInterface<TermType> move;
+        private final int hashCode;
+
+        Key(StateInterface<TermType, ?> state, RoleInterface<TermType> role, MoveInterface<TermType> move) {
+            this.state = state;
+            this.role = role;
+            this.move = move;
+            this.hashCode = 31 * (31 * state.hashCode() + role.hashCode()) + move.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(!(o instanceof Key<?>)) return false;
+            Key<?> other = (Key<?>) o;
+            return hashCode == other.hashCode && role.equals(other.role) && move.equals(other.move) && state.equals(other.state);
+        }
+    }
+}
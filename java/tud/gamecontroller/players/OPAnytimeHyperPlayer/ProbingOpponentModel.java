@@ -0,0 +1,93 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package tud.gamecontroller.players.OPAnytimeHyperPlayer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import tud.gamecontroller.game.MoveInterface;
+import tud.gamecontroller.game.RoleInterface;
+import tud.gamecontroller.game.StateInterface;
+import tud.gamecontroller.term.TermInterface;
+
+/**
+ * Weighs a move of the opponent by the opponent's expected goal value, estimated with numOPProbes probes. If the cache
+ * holds playouts of the move, only as many new probes are run as are missing (at least opCacheRefineProbes) and the
+ * estimate is the mean over all of them.
+ */
+public class ProbingOpponentModel<TermType extends TermInterface> implements OpponentModel<TermType> {
+
+    private final OPAnytimeHyperPlayer<TermType, ?> player;
+    private final RoleInterface<TermType> opponentRole;
+    private final int numOPProbes;
+    private final int opCacheRefineProbes;
+    private final OpponentModelCache<TermType> opponentModelCache; // null if the cache is disabled
+    private final AtomicInteger numOPCacheHits = new AtomicInteger(); // The opponent moves whose estimates were refined from the cache this step
+
+    /**
+     * @param player - The player running the probes
+     * @param opponentRole - The role of the opponent
+     * @param numOPProbes - The number of probes estimating a move
+     * @param opCacheSize - The number of (state, role, move) playout statistics kept across hypergames and steps (0 disables the cache)
+     * @param opCacheRefineProbes - The number of new probes refining a move whose playouts are already cached
+     */
+    public ProbingOpponentModel(OPAnytimeHyperPlayer<TermType, ?> player, RoleInterface<TermType> opponentRole, int numOPProbes, int opCacheSize, int opCacheRefineProbes) {
+        this.player = player;
+        this.opponentRole = opponentRole;
+        this.numOPProbes = numOPProbes;
+        this.opCacheRefineProbes = opCacheRefineProbes;
+        this.opponentModelCache = opCacheSize > 0 ? new OpponentModelCache<TermType>(opCacheSize) : null;
+    }
+
+    @Override
+    public double weighMove(StateInterface<TermType, ?> state, MoveInterface<TermType> move) {
+        int numProbes = numOPProbes;
+        if(opponentModelCache != null) {
+            int numCached = opponentModelCache.getNumPlayouts(state, opponentRole, move);
+            if(numCached > 0) {
+                numOPCacheHits.incrementAndGet();
+                numProbes = Math.max(opCacheRefineProbes, numOPProbes - numCached);
+            }
+        }
+        double sumOfValues = 0;
+        for(int i = 0 ; i < numProbes ; i++) {
+            sumOfValues += player.anytimeSimulateMove(state, move, opponentRole);
+        }
+        if(opponentModelCache != null) {
+            return opponentModelCache.addPlayouts(state, opponentRole, move, sumOfValues, numProbes);
+        }
+        return sumOfValues/numProbes;
+    }
+
+    @Override
+    public void startStep(int stepNum) {
+        numOPCacheHits.set(0);
+    }
+
+    @Override
+    public int getNumReused() {
+        return numOPCacheHits.get();
+    }
+
+    @Override
+    public String getReport() {
+        return numOPCacheHits + " opponent moves refined from the cache" + (opponentModelCache == null ? " (disabled)" : " (" + opponentModelCache.size() + " entries)");
+    }
+}
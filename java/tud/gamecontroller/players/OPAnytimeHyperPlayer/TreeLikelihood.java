@@ -0,0 +1,44 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package tud.gamecontroller.players.OPAnytimeHyperPlayer;
+
+import java.util.List;
+
+import tud.gamecontroller.term.TermInterface;
+
+/**
+ * Weighs the hypergames by their relative likelihood in the likelihood tree, i.e., by the opponent model.
+ */
+public class TreeLikelihood<TermType extends TermInterface> implements HypergameLikelihood<TermType> {
+
+    @Override
+    public double[] weigh(List<Model<TermType>> hypergames, double[] relativeLikelihoods) {
+        double sum = 0;
+        for(double relativeLikelihood : relativeLikelihoods) {
+            sum += relativeLikelihood;
+        }
+        double[] probabilities = new double[relativeLikelihoods.length];
+        for(int i = 0 ; i < probabilities.length ; i++) {
+            probabilities[i] = sum > 0.0 ? relativeLikelihoods[i] / sum : 1.0;
+        }
+        return probabilities;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package tud.gamecontroller.players.OPAnytimeHyperPlayer;
+
+import java.util.List;
+import java.util.Random;
+
+import tud.gamecontroller.game.JointMoveInterface;
+import tud.gamecontroller.term.TermInterface;
+
+/**
+ * Chooses the joint move uniformly at random and keeps the hypergames whatever their likelihood, so the opponent model
+ * only weighs the hypergames when the move is selected (the OPLikelihood agents).
+ */
+public class UniformExpansion<TermType extends TermInterface> implements Expansion<TermType> {
+
+    private final Random random;
+
+    public UniformExpansion(Random random) {
+        this.random = random;
+    }
+
+    @Override
+    public JointMoveInterface<TermType> chooseJointMove(List<Tuple<Double, JointMoveInterface<TermType>>> weightedJointMoves, List<JointMoveInterface<TermType>> possibleJointMoves) {
+        if(possibleJointMoves.isEmpty()) {
+            return null;
+        }
+        return possibleJointMoves.get(random.nextInt(possibleJointMoves.size()));
+    }
+
+    @Override
+    public boolean dropsUnlikelyHypergames() {
+        return false;
+    }
+}
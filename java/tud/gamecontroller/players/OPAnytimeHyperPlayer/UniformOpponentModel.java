@@ -0,0 +1,51 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package tud.gamecontroller.players.OPAnytimeHyperPlayer;
+
+import tud.gamecontroller.game.MoveInterface;
+import tud.gamecontroller.game.StateInterface;
+import tud.gamecontroller.term.TermInterface;
+
+/**
+ * Gives every move of the opponent the same weight, i.e., the uniform opponent modelling of the original HyperPlay
+ * agents, which needs no probes while forwarding.
+ */
+public class UniformOpponentModel<TermType extends TermInterface> implements OpponentModel<TermType> {
+
+    @Override
+    public double weighMove(StateInterface<TermType, ?> state, MoveInterface<TermType> move) {
+        return 1.0;
+    }
+
+    @Override
+    public void startStep(int stepNum) {
+    }
+
+    @Override
+    public int getNumReused() {
+        return 0;
+    }
+
+    @Override
+    public String getReport() {
+        return "uniform opponent moves";
+    }
+}
@@ -0,0 +1,68 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package tud.gamecontroller.players.OPAnytimeHyperPlayer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import tud.gamecontroller.game.JointMoveInterface;
+import tud.gamecontroller.term.TermInterface;
+
+/**
+ * Samples the joint move with the weights the opponent model gave the moves of the opponent, so the hypergames follow
+ * the likely paths, and drops the hypergames on paths the opponent model gives no likelihood.
+ */
+public class WeightedExpansion<TermType extends TermInterface> implements Expansion<TermType> {
+
+    private final Random random;
+
+    public WeightedExpansion(Random random) {
+        this.random = random;
+    }
+
+    @Override
+    public JointMoveInterface<TermType> chooseJointMove(List<Tuple<Double, JointMoveInterface<TermType>>> weightedJointMoves, List<JointMoveInterface<TermType>> possibleJointMoves) {
+        // Only consider valid moves
+        ArrayList<Tuple<Double, JointMoveInterface<TermType>>> jointMoveList = new ArrayList<Tuple<Double, JointMoveInterface<TermType>>>(weightedJointMoves.size());
+        double sumWeight = 0;
+        for(Tuple<Double, JointMoveInterface<TermType>> tup : weightedJointMoves) {
+            if(possibleJointMoves.contains(tup.getB())) {
+                jointMoveList.add(tup);
+                sumWeight += tup.getA();
+            }
+        }
+        // Cycle through the list until the random number is <= 0
+        double rand = random.nextDouble() * sumWeight;
+        for(Tuple<Double, JointMoveInterface<TermType>> tup : jointMoveList) {
+            rand -= tup.getA();
+            if(rand <= 0.0) {
+                return tup.getB();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean dropsUnlikelyHypergames() {
+        return true;
+    }
+}
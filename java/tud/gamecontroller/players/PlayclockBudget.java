@@ -0,0 +1,255 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package tud.gamecontroller.players;
+
+/**
+ * A PlayclockBudget splits the playclock of each step of a hyperplay agent between updating the hypergames and
+ * selecting a move, based on what the two phases have cost so far in the match.
+ *
+ * The agent reports the number of hypergame forwards of each update and the number of probes of each move selection.
+ * From these the budget keeps running estimates of the cost of a forward and of a probe. The time that can be used
+ * in a step is the playclock minus a safety margin for replying, calibrated from how far the steps have run past the
+ * planned end of the move selection (a multiple of the largest overrun so far, doubled after a timeout).
+ *
+ * Once the known hypergames are updated, another hypergame is searched for as long as it is worth more than the
+ * probes its forwarding would take away from the move selection. The expected error of the value of a move is taken
+ * as hypergameWeight/h + 1/(h*k) for h hypergames probed k times per move each (k is capped by maxNumProbes, beyond
+ * which the move selection stops early anyway). Until both costs have been measured, the update may use
+ * 1/invPlaytimeFactor of the playclock.
+ *
+ * All times are measured with System.nanoTime(). The budget is only used by the thread running the agent's steps.
+ */
+public class PlayclockBudget {
+
+	private static final long NANOS_PER_MILLI = 1000000L;
+
+	// Options (set from the agent's config file)
+	private long initialMargin = 1000 * NANOS_PER_MILLI; // The safety margin before any step has been measured
+	private long minMargin = 200 * NANOS_PER_MILLI; // The smallest safety margin
+	private double marginFactor = 2.0; // The margin is this multiple of the largest overrun of the move selection
+	private double hypergameWeight = 1.0; // How much the uncertainty about the state weighs against the probe noise
+	private double costSmoothing = 0.3; // The weight of the newest measurement in the running cost estimates
+
+	private long playclock;
+	private int maxNumProbes;
+	private int invPlaytimeFactor;
+	private long margin;
+	private long largestOverrun;
+
+	private double forwardCost = -1; // The estimated time of a forward in nanoseconds (-1 until measured)
+	private double probeCost = -1; // The estimated time of a probe in nanoseconds (-1 until measured)
+	private int numMoves = 2; // The number of legal moves in the last move selection
+
+	// The current step
+	private long stepStart;
+	private long updateEnd;
+	private long selectionEnd;
+	private long plannedUpdate;
+	private long plannedSelection;
+	private int numForwards;
+	private int numProbes;
+	private int numSearched;
+
+	/**
+	 * Sets an option from the agent's config file
+	 *
+	 * @param key - The name of the option
+	 * @param value - The value of the option
+	 * @return True if the key is an option of the budget
+	 */
+	public boolean setOption(String key, String value) {
+		if(key.equals("budgetInitialMargin")) initialMargin = Long.parseLong(value) * NANOS_PER_MILLI;
+		else if(key.equals("budgetMinMargin")) minMargin = Long.parseLong(value) * NANOS_PER_MILLI;
+		else if(key.equals("budgetMarginFactor")) marginFactor = Double.parseDouble(value);
+		else if(key.equals("budgetHypergameWeight")) hypergameWeight = Double.parseDouble(value);
+		else if(key.equals("budgetCostSmoothing")) costSmoothing = Double.parseDouble(value);
+		else return false;
+		return true;
+	}
+
+	/**
+	 * Resets the budget at the start of a match
+	 *
+	 * @param playclock - The playclock in milliseconds
+	 * @param maxNumProbes - The largest number of times the move selection probes each move in each hypergame
+	 * @param invPlaytimeFactor - The inverse of the share of the playclock the update may use before the costs are known
+	 */
+	public void startMatch(long playclock, int maxNumProbes, int invPlaytimeFactor) {
+		this.playclock = playclock * NANOS_PER_MILLI;
+		this.maxNumProbes = maxNumProbes;
+		this.invPlaytimeFactor = invPlaytimeFactor;
+		this.margin = Math.min(initialMargin, this.playclock / 2);
+		this.largestOverrun = 0;
+		this.forwardCost = -1;
+		this.probeCost = -1;
+		this.numMoves = 2;
+	}
+
+	/**
+	 * Starts the clock of a step
+	 *
+	 * @param numHypergames - The number of hypergames to update
+	 * @param lastMoveTimeout - Whether the player timed out in the last step
+	 */
+	public void startStep(int numHypergames, boolean lastMoveTimeout) {
+		stepStart = System.nanoTime();
+		if(lastMoveTimeout) {
+			margin = Math.min(2 * margin, playclock / 2);
+		}
+		plannedUpdate = forwardCost < 0 ? playclock / invPlaytimeFactor : (long) (numHypergames * forwardCost);
+		updateEnd = stepStart;
+		selectionEnd = stepStart;
+		plannedSelection = 0;
+		numForwards = 0;
+		numProbes = 0;
+		numSearched = 0;
+	}
+
+	/**
+	 * Decides whether to search for another hypergame, given the step the hypergame has to be forwarded to
+	 *
+	 * @param numHypergames - The number of hypergames so far
+	 * @param stepNum - The current step
+	 * @return True if another hypergame is worth more than the probes its search would cost
+	 */
+	public boolean shouldSearchMore(int numHypergames, int stepNum) {
+		long now = System.nanoTime();
+		long remaining = getSelectionEnd() - now;
+		if(remaining <= 0) {
+			return false;
+		}
+		if(numHypergames == 0) {
+			return true;
+		}
+		boolean searchMore;
+		if(forwardCost < 0 || probeCost < 0) {
+			searchMore = now - stepStart < playclock / invPlaytimeFactor;
+		} else {
+			// A new hypergame is forwarded from the initial state
+			double searchCost = (stepNum + 1) * forwardCost;
+			searchMore = searchCost < remaining
+					&& expectedError(numHypergames + 1, remaining - searchCost) < expectedError(numHypergames, remaining);
+		}
+		if(searchMore) {
+			numSearched++;
+		}
+		return searchMore;
+	}
+
+	/**
+	 * The expected error of the value of a move with the given number of hypergames and time for probing
+	 */
+	private double expectedError(int numHypergames, double probeTime) {
+		double probesPerMove = Math.min(probeTime / probeCost / (numHypergames * numMoves), maxNumProbes);
+		if(probesPerMove <= 0) {
+			return Double.MAX_VALUE;
+		}
+		return hypergameWeight / numHypergames + 1.0 / (numHypergames * probesPerMove);
+	}
+
+	/**
+	 * Ends the update of the hypergames and starts the move selection
+	 *
+	 * @param numForwards - The number of times a hypergame was forwarded (or backtracked) in this step
+	 */
+	public void endUpdate(int numForwards) {
+		updateEnd = System.nanoTime();
+		this.numForwards = numForwards;
+		if(numForwards > 0) {
+			forwardCost = smooth(forwardCost, (double) (updateEnd - stepStart) / numForwards);
+		}
+		plannedSelection = Math.max(0, getSelectionEnd() - updateEnd);
+	}
+
+	/**
+	 * @return True once the time for the move selection has run out
+	 */
+	public boolean isSelectionOver() {
+		return System.nanoTime() >= getSelectionEnd();
+	}
+
+	/**
+	 * The hypergames may be updated until the time limit of the step, i.e., the playclock less the safety margin, as a
+	 * later update could not be used for the move any more
+	 *
+	 * @return The time left for updating the hypergames in milliseconds
+	 */
+	public long getUpdateMillisLeft() {
+		return Math.max(0, (getSelectionEnd() - System.nanoTime()) / NANOS_PER_MILLI);
+	}
+
+	/**
+	 * @return The time left for the move selection in milliseconds
+	 */
+	public long getSelectionMillisLeft() {
+		return Math.max(0, (getSelectionEnd() - System.nanoTime()) / NANOS_PER_MILLI);
+	}
+
+	private long getSelectionEnd() {
+		return stepStart + playclock - margin;
+	}
+
+	/**
+	 * Ends the move selection
+	 *
+	 * @param numProbes - The number of probes run to select the move
+	 * @param numMoves - The number of legal moves
+	 */
+	public void endSelection(int numProbes, int numMoves) {
+		selectionEnd = System.nanoTime();
+		this.numProbes = numProbes;
+		if(numProbes > 0) {
+			probeCost = smooth(probeCost, (double) (selectionEnd - updateEnd) / numProbes);
+			this.numMoves = Math.max(1, numMoves);
+		}
+	}
+
+	/**
+	 * Ends the step and calibrates the safety margin with the part of it the step used (the last probe running over
+	 * the end of the move selection and the time taken to log and return the move)
+	 */
+	public void endStep() {
+		long overrun = System.nanoTime() - getSelectionEnd();
+		if(overrun > largestOverrun) {
+			largestOverrun = overrun;
+		}
+		margin = Math.min(Math.max(minMargin, (long) (marginFactor * largestOverrun)), playclock / 2);
+	}
+
+	private double smooth(double estimate, double measurement) {
+		return estimate < 0 ? measurement : (1 - costSmoothing) * estimate + costSmoothing * measurement;
+	}
+
+	/**
+	 * @return The planned and actual durations of the phases of the last step and the estimates they were based on
+	 */
+	public String getReport() {
+		return String.format("update planned %d ms, took %d ms (%d forwards, %d searches); selection planned %d ms, took %d ms (%d probes); "
+				+ "forward %s, probe %s, margin %d ms",
+				plannedUpdate / NANOS_PER_MILLI, (updateEnd - stepStart) / NANOS_PER_MILLI, numForwards, numSearched,
+				plannedSelection / NANOS_PER_MILLI, (selectionEnd - updateEnd) / NANOS_PER_MILLI, numProbes,
+				formatCost(forwardCost), formatCost(probeCost), margin / NANOS_PER_MILLI);
+	}
+
+	private static String formatCost(double cost) {
+		return cost < 0 ? "unknown" : String.format("%.2f ms", cost / NANOS_PER_MILLI);
+	}
+}
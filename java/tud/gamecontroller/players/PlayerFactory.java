@@ -21,39 +21,27 @@
 package tud.gamecontroller.players;
 
 import tud.gamecontroller.game.StateInterface;
-import tud.gamecontroller.players.StateVarianceNoBiasHyperPlayer.StateVarianceNoBiasHyperPlayer;
 import tud.gamecontroller.players.StateVarianceNoBiasHyperPlayer.StateVarianceNoBiasHyperPlayerInfo;
-import tud.gamecontroller.players.OPLikelihoodStateVarianceHyperPlayer.OPLikelihoodStateVarianceHyperPlayer;
 import tud.gamecontroller.players.OPLikelihoodStateVarianceHyperPlayer.OPLikelihoodStateVarianceHyperPlayerInfo;
-import tud.gamecontroller.players.OPExpansionAnytimeHyperPlayer.OPExpansionAnytimeHyperPlayer;
 import tud.gamecontroller.players.OPExpansionAnytimeHyperPlayer.OPExpansionAnytimeHyperPlayerInfo;
-import tud.gamecontroller.players.OPLikelihoodAnytimeHyperPlayer.OPLikelihoodAnytimeHyperPlayer;
 import tud.gamecontroller.players.OPLikelihoodAnytimeHyperPlayer.OPLikelihoodAnytimeHyperPlayerInfo;
-import tud.gamecontroller.players.OPStateVarianceHyperPlayer.OPStateVarianceHyperPlayer;
 import tud.gamecontroller.players.OPStateVarianceHyperPlayer.OPStateVarianceHyperPlayerInfo;
-import tud.gamecontroller.players.StateVarianceHyperPlayer.StateVarianceHyperPlayer;
 import tud.gamecontroller.players.StateVarianceHyperPlayer.StateVarianceHyperPlayerInfo;
-import tud.gamecontroller.players.AnytimeHyperPlayer.AnytimeHyperPlayer;
 import tud.gamecontroller.players.AnytimeHyperPlayer.AnytimeHyperPlayerInfo;
-import tud.gamecontroller.players.AnytimeHyperPlayerLikelihoodTree.AnytimeHyperPlayerLikelihoodTree;
 import tud.gamecontroller.players.AnytimeHyperPlayerLikelihoodTree.AnytimeHyperPlayerLikelihoodTreeInfo;
 import tud.gamecontroller.players.CheatHyperPlayer.CheatHyperPlayer;
 import tud.gamecontroller.players.CheatHyperPlayer.CheatHyperPlayerInfo;
-import tud.gamecontroller.players.HyperPlayer.HyperPlayer;
 import tud.gamecontroller.players.HyperPlayer.HyperPlayerInfo;
-import tud.gamecontroller.players.ImprovedRandomPlayer.ImprovedRandomPlayer;
 import tud.gamecontroller.players.ImprovedRandomPlayer.ImprovedRandomPlayerInfo;
+import tud.gamecontroller.players.ISMCTSPlayer.ISMCTSPlayer;
+import tud.gamecontroller.players.ISMCTSPlayer.ISMCTSPlayerInfo;
 import tud.gamecontroller.players.MCSPlayer.MCSPlayer;
 import tud.gamecontroller.players.MCSPlayer.MCSPlayerInfo;
 import tud.gamecontroller.players.OPAnytimeHyperPlayer.OPAnytimeHyperPlayer;
 import tud.gamecontroller.players.OPAnytimeHyperPlayer.OPAnytimeHyperPlayerInfo;
-import tud.gamecontroller.players.OPBiasAnytimeHyperPlayer.OPBiasAnytimeHyperPlayer;
 import tud.gamecontroller.players.OPBiasAnytimeHyperPlayer.OPBiasAnytimeHyperPlayerInfo;
-import tud.gamecontroller.players.OPVarianceHyperPlayer.OPVarianceHyperPlayer;
 import tud.gamecontroller.players.OPVarianceHyperPlayer.OPVarianceHyperPlayerInfo;
-import tud.gamecontroller.players.VarianceHyperPlayer.VarianceHyperPlayer;
 import tud.gamecontroller.players.VarianceHyperPlayer.VarianceHyperPlayerInfo;
-import tud.gamecontroller.players.XXXXPlayer.XXXXPlayer;
 import tud.gamecontroller.players.XXXXPlayer.XXXXPlayerInfo;
 import tud.gamecontroller.scrambling.GameScramblerInterface;
 import tud.gamecontroller.term.TermInterface;
@@ -81,9 +69,10 @@ public class PlayerFactory {
 	}
 
 	// ADDED
+	// The hyperplay agents other than the cheat player run on the OPAnytimeHyperPlayer core, configured by agentConfig/NAME.config
 	public static <TermType extends TermInterface, StateType extends StateInterface<TermType, ? extends StateType>>
 	Player<TermType, StateType> createXXXXPlayer(XXXXPlayerInfo info) {
-		return new XXXXPlayer<TermType, StateType>(info.getName(), info.getGdlVersion());
+		return new OPAnytimeHyperPlayer<TermType, StateType>(info.getName(), info.getGdlVersion());
 	}
 
 	public static <TermType extends TermInterface, StateType extends StateInterface<TermType, ? extends StateType>>
@@ -93,22 +82,22 @@ public class PlayerFactory {
 
 	public static <TermType extends TermInterface, StateType extends StateInterface<TermType, ? extends StateType>>
 	Player<TermType, StateType> createHyperPlayer(HyperPlayerInfo info) {
-		return new HyperPlayer<TermType, StateType>(info.getName(), info.getGdlVersion());
+		return new OPAnytimeHyperPlayer<TermType, StateType>(info.getName(), info.getGdlVersion());
 	}
 
 	public static <TermType extends TermInterface, StateType extends StateInterface<TermType, ? extends StateType>>
 	Player<TermType, StateType> createAnytimeHyperPlayer(AnytimeHyperPlayerInfo info) {
-		return new AnytimeHyperPlayer<TermType, StateType>(info.getName(), info.getGdlVersion());
+		return new OPAnytimeHyperPlayer<TermType, StateType>(info.getName(), info.getGdlVersion());
 	}
 
 	public static <TermType extends TermInterface, StateType extends StateInterface<TermType, ? extends StateType>>
 	Player<TermType, StateType> createImprovedRandomPlayer(ImprovedRandomPlayerInfo info) {
-		return new ImprovedRandomPlayer<TermType, StateType>(info.getName(), info.getGdlVersion());
+		return new OPAnytimeHyperPlayer<TermType, StateType>(info.getName(), info.getGdlVersion());
 	}
 
 	public static <TermType extends TermInterface, StateType extends StateInterface<TermType, ? extends StateType>>
 	Player<TermType, StateType> createAnytimeHyperPlayerLikelihoodTree(AnytimeHyperPlayerLikelihoodTreeInfo info) {
-		return new AnytimeHyperPlayerLikelihoodTree<TermType, StateType>(info.getName(), info.getGdlVersion());
+		return new OPAnytimeHyperPlayer<TermType, StateType>(info.getName(), info.getGdlVersion());
 	}
 
 	public static <TermType extends TermInterface, StateType extends StateInterface<TermType, ? extends StateType>>
@@ -123,47 +112,52 @@ public class PlayerFactory {
 
 	public static <TermType extends TermInterface, StateType extends StateInterface<TermType, ? extends StateType>>
 	Player<TermType, StateType> createOPBiasAnytimeHyperPlayer(OPBiasAnytimeHyperPlayerInfo info) {
-		return new OPBiasAnytimeHyperPlayer<TermType, StateType>(info.getName(), info.getGdlVersion());
+		return new OPAnytimeHyperPlayer<TermType, StateType>(info.getName(), info.getGdlVersion());
 	}
 
 	public static <TermType extends TermInterface, StateType extends StateInterface<TermType, ? extends StateType>>
 	Player<TermType, StateType> createVarianceHyperPlayer(VarianceHyperPlayerInfo info) {
-		return new VarianceHyperPlayer<TermType, StateType>(info.getName(), info.getGdlVersion());
+		return new OPAnytimeHyperPlayer<TermType, StateType>(info.getName(), info.getGdlVersion());
 	}
 
 	public static <TermType extends TermInterface, StateType extends StateInterface<TermType, ? extends StateType>>
 	Player<TermType, StateType> createOPVarianceHyperPlayer(OPVarianceHyperPlayerInfo info) {
-		return new OPVarianceHyperPlayer<TermType, StateType>(info.getName(), info.getGdlVersion());
+		return new OPAnytimeHyperPlayer<TermType, StateType>(info.getName(), info.getGdlVersion());
 	}
 
 	public static <TermType extends TermInterface, StateType extends StateInterface<TermType, ? extends StateType>>
 	Player<TermType, StateType> createStateVarianceHyperPlayerInfo(StateVarianceHyperPlayerInfo info) {
-		return new StateVarianceHyperPlayer<TermType, StateType>(info.getName(), info.getGdlVersion());
+		return new OPAnytimeHyperPlayer<TermType, StateType>(info.getName(), info.getGdlVersion());
 	}
 
 	public static <TermType extends TermInterface, StateType extends StateInterface<TermType, ? extends StateType>>
 	Player<TermType, StateType> createOPStateVarianceHyperPlayerInfo(OPStateVarianceHyperPlayerInfo info) {
-		return new OPStateVarianceHyperPlayer<TermType, StateType>(info.getName(), info.getGdlVersion());
+		return new OPAnytimeHyperPlayer<TermType, StateType>(info.getName(), info.getGdlVersion());
 	}
 
 	public static <TermType extends TermInterface, StateType extends StateInterface<TermType, ? extends StateType>>
 	Player<TermType, StateType> createOPLikelihoodAnytimeHyperPlayerInfo(OPLikelihoodAnytimeHyperPlayerInfo info) {
-		return new OPLikelihoodAnytimeHyperPlayer<TermType, StateType>(info.getName(), info.getGdlVersion());
+		return new OPAnytimeHyperPlayer<TermType, StateType>(info.getName(), info.getGdlVersion());
 	}
 
 	public static <TermType extends TermInterface, StateType extends StateInterface<TermType, ? extends StateType>>
 	Player<TermType, StateType> createOPExpansionAnytimeHyperPlayerInfo(OPExpansionAnytimeHyperPlayerInfo info) {
-		return new OPExpansionAnytimeHyperPlayer<TermType, StateType>(info.getName(), info.getGdlVersion());
+		return new OPAnytimeHyperPlayer<TermType, StateType>(info.getName(), info.getGdlVersion());
 	}
 
 	public static <TermType extends TermInterface, StateType extends StateInterface<TermType, ? extends StateType>>
 	Player<TermType, StateType> createOPLikelihoodStateVarianceHyperPlayerInfo(OPLikelihoodStateVarianceHyperPlayerInfo info) {
-		return new OPLikelihoodStateVarianceHyperPlayer<TermType, StateType>(info.getName(), info.getGdlVersion());
+		return new OPAnytimeHyperPlayer<TermType, StateType>(info.getName(), info.getGdlVersion());
 	}
 
 	public static <TermType extends TermInterface, StateType extends StateInterface<TermType, ? extends StateType>>
 	Player<TermType, StateType> createStateVarianceNoBiasHyperPlayerInfo(StateVarianceNoBiasHyperPlayerInfo info) {
-		return new StateVarianceNoBiasHyperPlayer<TermType, StateType>(info.getName(), info.getGdlVersion());
+		return new OPAnytimeHyperPlayer<TermType, StateType>(info.getName(), info.getGdlVersion());
+	}
+
+	public static <TermType extends TermInterface, StateType extends StateInterface<TermType, ? extends StateType>>
+	Player<TermType, StateType> createISMCTSPlayer(ISMCTSPlayerInfo info) {
+		return new ISMCTSPlayer<TermType, StateType>(info.getName(), info.getGdlVersion());
 	}
 
 	public static <TermType extends TermInterface, StateType extends StateInterface<TermType, ? extends StateType>>
@@ -222,6 +216,8 @@ public class PlayerFactory {
 			return PlayerFactory. <TermType, StateType> createOPLikelihoodStateVarianceHyperPlayerInfo((OPLikelihoodStateVarianceHyperPlayerInfo)info);
 		}else if(info instanceof StateVarianceNoBiasHyperPlayerInfo){
 			return PlayerFactory. <TermType, StateType> createStateVarianceNoBiasHyperPlayerInfo((StateVarianceNoBiasHyperPlayerInfo)info);
+		}else if(info instanceof ISMCTSPlayerInfo){
+			return PlayerFactory. <TermType, StateType> createISMCTSPlayer((ISMCTSPlayerInfo)info);
 		}
 		return null;
 	}
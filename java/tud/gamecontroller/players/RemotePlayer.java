@@ -20,18 +20,22 @@
 
 package tud.gamecontroller.players;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.InterruptedIOException;
 import java.io.OutputStream;
-import java.io.PrintWriter;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.UnknownHostException;
+import java.nio.charset.Charset;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import tud.gamecontroller.ConnectionEstablishedNotifier;
 import tud.gamecontroller.GDLVersion;
@@ -45,6 +49,7 @@ import tud.gamecontroller.game.impl.Game;
 import tud.gamecontroller.game.impl.Move;
 import tud.gamecontroller.logging.GameControllerErrorMessage;
 import tud.gamecontroller.scrambling.GameScramblerInterface;
+import tud.gamecontroller.scrambling.IdentityGameScrambler;
 import tud.gamecontroller.term.TermInterface;
 
 public class RemotePlayer<TermType extends TermInterface,
@@ -74,6 +79,20 @@ public class RemotePlayer<TermType extends TermInterface,
 	 */
 	private static final int CONNECTION_TIMEOUT = 2000;
 	private static final int CONNECTION_TIMEOUT_BONUS = 30000;
+
+	/**
+	 * the charset of the messages (the default charset, which the messages were always written in)
+	 */
+	private static final Charset MESSAGE_CHARSET = Charset.defaultCharset();
+
+	/**
+	 * the scrambled and encoded game descriptions for the START messages by scrambler and (KIF) game description
+	 * 
+	 * Scrambling a large game description takes tens of milliseconds, so it is done once per game and scrambler instead
+	 * of once per player and match. The keys are weak, so the entries go away with the scramblers and games.
+	 */
+	private static final Map<Object, Map<String, StartPayload>> startPayloads =
+			Collections.synchronizedMap(new WeakHashMap<Object, Map<String, StartPayload>>());
 	
 	public RemotePlayer(String name, String host, int port, GDLVersion gdlVersion, GameScramblerInterface gamescrambler) {
 		super(name, gdlVersion);
@@ -87,28 +106,28 @@ public class RemotePlayer<TermType extends TermInterface,
 		
 		super.gameStart(match, role, notifier);
 		this.firstTurn = true;
-		String gameDescription = match.getGame().getKIFGameDescription();
 		// if this is a Regular GDL game and the player understands GDL-II, add necessary sees(Role,Did(Role2,Move)) <- true(does(Role2,Move))
-		if (match.getGame().getGdlVersion() == GDLVersion.v1 && this.getGdlVersion() == GDLVersion.v2) {
-			gameDescription += Game.DEFAULT_SEES_RULES;
-		}
+		boolean addSeesRules = match.getGame().getGdlVersion() == GDLVersion.v1 && this.getGdlVersion() == GDLVersion.v2;
 		
 		hostAddress = null; // don't use an old hostAddress for a new match
 		connectionTimeoutBonus = CONNECTION_TIMEOUT_BONUS;
-		String msg="(START "+
+		// only the match id, the role and the clocks change between the START messages of a game
+		String msgStart="(START "+
 				match.getMatchID()+" "+
-				gameScrambler.scramble(role.getKIFForm()).toUpperCase()+
-				" ("+gameScrambler.scramble(gameDescription).toUpperCase()+") "+
-				match.getStartclock()+" "+match.getPlayclock()+")";
+				gameScrambler.scramble(role.getKIFForm()).toUpperCase()+" (";
+		String msgEnd=") "+match.getStartclock()+" "+match.getPlayclock()+")";
+		byte[] scrambledGameDescription=getStartPayload(match.getGame().getKIFGameDescription(), addSeesRules);
 		notifyStartRunning();
-		String reply=sendMsg(msg, notifier);
+		String reply=sendMsg(msgStart+"..."+msgEnd,
+				new byte[][]{msgStart.getBytes(MESSAGE_CHARSET), scrambledGameDescription, msgEnd.getBytes(MESSAGE_CHARSET)},
+				notifier);
 		notifyStopRunning();
 		logger.info("reply from "+this.getName()+": "+reply+ " after "+getLastMessageRuntime()+"ms");
 		
 			
 	}
 
-	public MoveInterface<TermType> gamePlay(Object seesTerms, ConnectionEstablishedNotifier notifier) {
+	public MoveInterface<TermType> gamePlay(Object seesTerms, Object priorMove, ConnectionEstablishedNotifier notifier) {
 		MoveInterface<TermType> move=null;
 		String msg = constructPlayOrStopMessage("PLAY", seesTerms);
 		String reply, descrambledReply;
@@ -137,7 +156,7 @@ public class RemotePlayer<TermType extends TermInterface,
 	}
 
 	@Override
-	public void gameStop(Object seesTerms, ConnectionEstablishedNotifier notifier) {
+	public void gameStop(Object seesTerms, Object priorMove, ConnectionEstablishedNotifier notifier) {
 		String msg = constructPlayOrStopMessage("STOP", seesTerms);
 		//notifyStartRunning(); // don't count time for the stop message
 		/*String reply=*/ sendMsg(msg, notifier);
@@ -175,7 +194,63 @@ public class RemotePlayer<TermType extends TermInterface,
 		return msg.toString();
 	}
 
+	/**
+	 * @return the scrambled game description (with the default sees rules if addSeesRules is true) in upper case as
+	 *         bytes, computed once per game and scrambler
+	 */
+	private byte[] getStartPayload(String kifGameDescription, boolean addSeesRules) {
+		// the identity scrambler has no state, so all its instances can share the payloads
+		Object scramblerKey = (gameScrambler instanceof IdentityGameScrambler) ? IdentityGameScrambler.class : gameScrambler;
+		Map<String, StartPayload> payloads;
+		synchronized (startPayloads) {
+			payloads = startPayloads.get(scramblerKey);
+			if (payloads == null) {
+				payloads = new WeakHashMap<String, StartPayload>();
+				startPayloads.put(scramblerKey, payloads);
+			}
+		}
+		// the lock is held while scrambling, so the players of a match wait for one scrambling instead of doing it each
+		synchronized (payloads) {
+			StartPayload payload = payloads.get(kifGameDescription);
+			if (payload == null) {
+				payload = new StartPayload();
+				payloads.put(kifGameDescription, payload);
+			}
+			return payload.get(kifGameDescription, addSeesRules, gameScrambler);
+		}
+	}
+
+	/**
+	 * the scrambled game description of one game with and without the default sees rules
+	 */
+	private static class StartPayload {
+
+		private byte[] withoutSeesRules = null;
+		private byte[] withSeesRules = null;
+
+		public byte[] get(String kifGameDescription, boolean addSeesRules, GameScramblerInterface gameScrambler) {
+			if (addSeesRules) {
+				if (withSeesRules == null) {
+					withSeesRules = gameScrambler.scramble(kifGameDescription + Game.DEFAULT_SEES_RULES).toUpperCase().getBytes(MESSAGE_CHARSET);
+				}
+				return withSeesRules;
+			}
+			if (withoutSeesRules == null) {
+				withoutSeesRules = gameScrambler.scramble(kifGameDescription).toUpperCase().getBytes(MESSAGE_CHARSET);
+			}
+			return withoutSeesRules;
+		}
+	}
+
 	private String sendMsg(String msg, ConnectionEstablishedNotifier notifier) {
+		return sendMsg(msg, new byte[][]{msg.getBytes(MESSAGE_CHARSET)}, notifier);
+	}
+
+	/**
+	 * @param msg the message for the log
+	 * @param body the parts of the message as sent
+	 */
+	private String sendMsg(String msg, byte[][] body, ConnectionEstablishedNotifier notifier) {
 		String reply=null;
 		Socket s=null;
 		OutputStream out=null;
@@ -198,18 +273,23 @@ public class RemotePlayer<TermType extends TermInterface,
 			notifier.connectionEstablished();
 			logger.info("Done creating Socket for " + this);
 			
-			out=s.getOutputStream();
-			PrintWriter pw=new PrintWriter(out);
-			pw.print("POST / HTTP/1.0\r\n");
-			pw.print("Accept: text/delim\r\n");
-			pw.print("Sender: Gamecontroller\r\n");
-			pw.print("Receiver: "+host+"\r\n");
-			pw.print("Content-type: text/acl\r\n");	
-			pw.print("Content-length: "+msg.length()+"\r\n");	
-			pw.print("\r\n");
-	
-			pw.print(msg);
-			pw.flush();
+			int contentLength=0;
+			for(byte[] part:body){
+				contentLength+=part.length;
+			}
+			out=new BufferedOutputStream(s.getOutputStream());
+			String header="POST / HTTP/1.0\r\n"+
+					"Accept: text/delim\r\n"+
+					"Sender: Gamecontroller\r\n"+
+					"Receiver: "+host+"\r\n"+
+					"Content-type: text/acl\r\n"+
+					"Content-length: "+contentLength+"\r\n"+
+					"\r\n";
+			out.write(header.getBytes(MESSAGE_CHARSET));
+			for(byte[] part:body){
+				out.write(part);
+			}
+			out.flush();
 			logger.info("message to "+this.getName()+" sent: \"" + msg+ "\"");
 			
 			is = s.getInputStream();
@@ -24,7 +24,6 @@ import java.util.AbstractCollection;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
@@ -60,6 +59,13 @@ public class StatesTracker<TermType extends TermInterface, StateType extends Sta
 		logger.info("StatesTracker()");
 	}
 	
+	/**
+	 * @return the states that are possible given the percepts so far
+	 */
+	public Collection<StateType> getCurrentPossibleStates() {
+		return Collections.unmodifiableCollection(currentPossibleStates);
+	}
+	
 	public Collection<StateType> statesUpdate(Collection<TermType> seesTerms) {
 		Set<StateType> nextPossibleStates = new HashSet<StateType>();
 		for (StateType state: currentPossibleStates) {
@@ -83,10 +89,7 @@ public class StatesTracker<TermType extends TermInterface, StateType extends Sta
 	
 	public Collection<JointMoveInterface<TermType>> computeJointMoves(StateType state) {
 		// compute legal moves for all roles
-		HashMap<RoleInterface<TermType>, Collection<? extends MoveInterface<TermType>>> legalMovesMap = new HashMap<RoleInterface<TermType>, Collection<? extends MoveInterface<TermType>>>();
-		for(RoleInterface<TermType> role: game.getOrderedRoles()) {
-			legalMovesMap.put(role, state.getLegalMoves(role));
-		}
+		Map<RoleInterface<TermType>, Collection<? extends MoveInterface<TermType>>> legalMovesMap = state.getAllLegalMoves(game.getOrderedRoles());
 		// build the cross product
 		final CrossProductMap<RoleInterface<TermType>, MoveInterface<TermType>> jointMovesMap = new CrossProductMap<RoleInterface<TermType>, MoveInterface<TermType>>(legalMovesMap);
 		// wrap the elements of the cross product in JointMove<TermType>
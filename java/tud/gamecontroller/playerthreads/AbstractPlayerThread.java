@@ -28,6 +28,9 @@ import tud.gamecontroller.auxiliary.ChangeableBoolean;
 import tud.gamecontroller.game.RoleInterface;
 import tud.gamecontroller.game.RunnableMatchInterface;
 import tud.gamecontroller.game.StateInterface;
+import tud.gamecontroller.instrumentation.Instrumentation;
+import tud.gamecontroller.instrumentation.Phase;
+import tud.gamecontroller.instrumentation.Span;
 import tud.gamecontroller.logging.GameControllerErrorMessage;
 import tud.gamecontroller.players.Player;
 import tud.gamecontroller.term.TermInterface;
@@ -79,6 +82,8 @@ public abstract class AbstractPlayerThread<
 	}
 	
 	public final void run() {
+		Instrumentation.setRole(role.toString());
+		Span span = Instrumentation.begin(getMessagePhase());
 		try {
 			doRun();
 		} catch(Exception ex) {
@@ -87,11 +92,18 @@ public abstract class AbstractPlayerThread<
 			match.notifyErrorMessage(errorMessage);
 			Logger.getLogger(AbstractPlayerThread.class.getName()).severe(message);
 			ex.printStackTrace();
+		} finally {
+			span.end();
 		}
 	}
 	
 	public abstract void doRun();
 	
+	/**
+	 * @return the phase under which the round-trip of the message of this thread is instrumented
+	 */
+	protected abstract Phase getMessagePhase();
+	
 	private void waitUntilConnectionIsEstablished() {
 		try {
 			synchronized (connectionEstablished) {
@@ -25,6 +25,7 @@ import tud.gamecontroller.game.RunnableMatchInterface;
 import tud.gamecontroller.game.MoveInterface;
 import tud.gamecontroller.game.RoleInterface;
 import tud.gamecontroller.game.StateInterface;
+import tud.gamecontroller.instrumentation.Phase;
 import tud.gamecontroller.players.Player;
 import tud.gamecontroller.term.TermInterface;
 
@@ -50,6 +51,9 @@ public class PlayerThreadPlay<
 	public void doRun(){
 		move = player.gamePlay(seesTerms, priorMove, this);
 	}
+	protected Phase getMessagePhase() {
+		return Phase.PLAY_MESSAGE;
+	}
 	
 	@Override
 	public String toString() {
@@ -22,6 +22,7 @@ package tud.gamecontroller.playerthreads;
 import tud.gamecontroller.game.RoleInterface;
 import tud.gamecontroller.game.RunnableMatchInterface;
 import tud.gamecontroller.game.StateInterface;
+import tud.gamecontroller.instrumentation.Phase;
 import tud.gamecontroller.players.Player;
 import tud.gamecontroller.term.TermInterface;
 
@@ -36,6 +37,9 @@ public class PlayerThreadStart<
 	public void doRun(){
 		player.gameStart(match, getRole(), this);
 	}
+	protected Phase getMessagePhase() {
+		return Phase.START_MESSAGE;
+	}
 
 	@Override
 	public String toString() {
@@ -22,6 +22,7 @@ package tud.gamecontroller.playerthreads;
 import tud.gamecontroller.game.RunnableMatchInterface;
 import tud.gamecontroller.game.RoleInterface;
 import tud.gamecontroller.game.StateInterface;
+import tud.gamecontroller.instrumentation.Phase;
 import tud.gamecontroller.players.Player;
 import tud.gamecontroller.term.TermInterface;
 
@@ -41,6 +42,9 @@ public class PlayerThreadStop<
 	public void doRun(){
 		player.gameStop(seesTerms, priorMove, this);
 	}
+	protected Phase getMessagePhase() {
+		return Phase.STOP_MESSAGE;
+	}
 	
 	@Override
 	public String toString() {
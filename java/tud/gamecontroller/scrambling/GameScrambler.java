@@ -27,11 +27,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.logging.Logger;
@@ -40,14 +38,29 @@ import java.util.regex.Pattern;
 
 import tud.gamecontroller.GameController;
 
+/**
+ * Replaces the identifiers of a game by words from a word list.
+ * 
+ * An identifier is a letter followed by letters, digits, '_', '-' or '+' that starts the text or follows a
+ * parenthesis, '?' or white space; identifiers are compared case-insensitively. The mapping is built from the game
+ * description with {@link #prepare(String)} before the match and then only read, so {@link #scramble(String)} and
+ * {@link #descramble(String)} scan the text once without taking a lock and only allocate the result. Identifiers that
+ * were not prepared get new words the first time they are scrambled (this replaces the mapping under a lock).
+ */
 public class GameScrambler implements GameScramblerInterface {
 
+	private static final String[] KEYWORDS = new String[]{
+			"role",	"true",	"init",	"next",
+			"legal", "goal", "terminal", "does",
+			"or", "and", "not", "<=", "distinct"};
+
 	private List<String> wordlist;
-	private Map<String,String> scrambling;
-	private Map<String,String> descrambling;
-	private Pattern identifierPattern;
 	private Random random;
 	private boolean firstTimeEmptyWordlist=true;
+	/**
+	 * the current mapping, it is never changed but replaced by a larger one if new identifiers are found
+	 */
+	private volatile Mapping mapping;
 	private static final Logger logger = Logger.getLogger(GameController.class.getName());
 	// it is important to use the same logger here that is used in the AbstractGameControllerRunner 
 
@@ -64,87 +77,154 @@ public class GameScrambler implements GameScramblerInterface {
 	}
 
 	public GameScrambler(Set<String> wordset){
-		this.wordlist=new LinkedList<String>(wordset);
-		this.scrambling=new HashMap<String,String>();
-		this.descrambling=new HashMap<String,String>();
-		this.identifierPattern=Pattern.compile("([()?\\s]|^)([a-zA-Z][a-z0-9A-Z_\\-\\+]*)", Pattern.CASE_INSENSITIVE);
+		this.wordlist=new ArrayList<String>(wordset);
 		this.random=new Random();
-		addKeywords();
-	}
-
-	private void addKeywords() {
-		String[] keywords=new String[]{
-				"role",	"true",	"init",	"next",
-				"legal", "goal", "terminal", "does",
-				"or", "and", "not", "<=", "distinct"};
-		for(String keyword:keywords){
-			scrambling.put(keyword, keyword);
-			descrambling.put(keyword, keyword);
+		List<String> keywords=new ArrayList<String>();
+		for(String keyword:KEYWORDS){
+			keywords.add(keyword);
+			keywords.add(keyword);
 			wordlist.remove(keyword);
 		}
+		this.mapping=new Mapping(new Mapping(), keywords);
+	}
+
+	/**
+	 * adds all identifiers of the text (e.g., the game description) to the mapping at once, so that scrambling messages
+	 * of the game never has to change the mapping
+	 */
+	public void prepare(String text) {
+		addIdentifiers(text);
 	}
 
 	public String scramble(String s){
-		StringBuilder scrambled=new StringBuilder();
-		Matcher m=identifierPattern.matcher(s);
-		String identifier, lowercaseIdentifier, scrambledIdentifier;
-		int lastpos=0, nextmatchpos;
-		while(m.find()){
-			nextmatchpos=m.start(2);
-			scrambled.append(s.substring(lastpos, nextmatchpos));
-			lastpos=m.end(2);
-			identifier=m.group(2);
-			lowercaseIdentifier=identifier.toLowerCase();
-			synchronized(this) {
-				// this must be synchronized otherwise
-				// if two threads call scramble at the same time
-				// multiple occurrences of an identifier in s could be mapped to
-				// different scrambledIdentifiers   
-				scrambledIdentifier=scrambling.get(lowercaseIdentifier);
-				if(scrambledIdentifier==null){
-					scrambledIdentifier=getNewWord();
-					scrambling.put(lowercaseIdentifier, scrambledIdentifier);
-					descrambling.put(scrambledIdentifier, identifier);
-					logger.info("scrambling: "+lowercaseIdentifier+" -> "+scrambledIdentifier);
-				}
-			}
-			scrambled.append(scrambledIdentifier);
+		String scrambled=translate(s, mapping, true);
+		if(scrambled==null){
+			// there are identifiers without a word yet
+			scrambled=translate(s, addIdentifiers(s), true);
 		}
-		scrambled.append(s.substring(lastpos, s.length()));
-		return scrambled.toString();
+		return scrambled;
 	}
 
 	/* (non-Javadoc)
 	 * @see tud.gamecontroller.GameScramblerInterface#descramble(java.lang.String)
 	 */
 	public String descramble(String s){
-		StringBuilder descrambled=new StringBuilder();
-		Matcher m=identifierPattern.matcher(s);
-		String identifier, descrambledIdentifier;
-		int lastpos=0, nextmatchpos;
-		while(m.find()){
-			nextmatchpos=m.start(2);
-			descrambled.append(s.substring(lastpos, nextmatchpos));
-			lastpos=m.end(2);
-			identifier=m.group(2).toLowerCase();
-			descrambledIdentifier=descrambling.get(identifier);
-			if(descrambledIdentifier==null){
-				logger.warning("in GameScrambler.descramble: found no match for "+identifier);
-				descrambledIdentifier=identifier;
+		return translate(s, mapping, false);
+	}
+
+	/**
+	 * replaces every identifier in s by its scrambled (forward) or original (backward) form in one pass over s
+	 * 
+	 * @return the translated string or null if forward is true and there is an identifier without a scrambled form
+	 */
+	private static String translate(String s, Mapping mapping, boolean forward) {
+		int length=s.length();
+		StringBuilder result=null; // only created once the first identifier is replaced
+		int lastpos=0; // the part of s before lastpos is in result
+		int i=0;
+		while(i<length){
+			char c=s.charAt(i);
+			if(isIdentifierStart(c) && (i==0 || isSeparator(s.charAt(i-1)))){
+				int end=i+1;
+				while(end<length && isIdentifierPart(s.charAt(end))){
+					end++;
+				}
+				int index=forward ? mapping.findForward(s, i, end) : mapping.findBackward(s, i, end);
+				String replacement;
+				if(index>=0){
+					replacement=forward ? mapping.scrambled[index] : mapping.identifiers[index];
+				}else if(forward){
+					return null;
+				}else{
+					replacement=s.substring(i, end).toLowerCase();
+					logger.warning("in GameScrambler.descramble: found no match for "+replacement);
+				}
+				if(!s.regionMatches(i, replacement, 0, end-i) || replacement.length()!=end-i){
+					if(result==null){
+						result=new StringBuilder(length+(length>>2));
+					}
+					result.append(s, lastpos, i).append(replacement);
+					lastpos=end;
+				}
+				i=end;
+			}else{
+				i++;
+			}
+		}
+		if(result==null){
+			return s;
+		}
+		result.append(s, lastpos, length);
+		return result.toString();
+	}
+
+	private static boolean isIdentifierStart(char c) {
+		return (c>='a' && c<='z') || (c>='A' && c<='Z');
+	}
+
+	private static boolean isIdentifierPart(char c) {
+		return (c>='a' && c<='z') || (c>='A' && c<='Z') || (c>='0' && c<='9') || c=='_' || c=='-' || c=='+';
+	}
+
+	/**
+	 * @return true for the characters an identifier can follow ("(", ")", "?" and the white space of \s in regular expressions)
+	 */
+	private static boolean isSeparator(char c) {
+		return c=='(' || c==')' || c=='?' || c==' ' || c=='\t' || c=='\n' || c=='\r' || c=='\f' || c=='\013';
+	}
+
+	/**
+	 * adds the identifiers of s that have no word yet to the mapping
+	 * 
+	 * @return the new mapping
+	 */
+	private synchronized Mapping addIdentifiers(String s) {
+		Mapping current=mapping;
+		List<String> newPairs=new ArrayList<String>();
+		Set<String> newIdentifiers=new HashSet<String>();
+		Set<String> newWords=new HashSet<String>();
+		int length=s.length();
+		int i=0;
+		while(i<length){
+			char c=s.charAt(i);
+			if(isIdentifierStart(c) && (i==0 || isSeparator(s.charAt(i-1)))){
+				int end=i+1;
+				while(end<length && isIdentifierPart(s.charAt(end))){
+					end++;
+				}
+				if(current.findForward(s, i, end)<0){
+					String identifier=s.substring(i, end);
+					String lowercaseIdentifier=identifier.toLowerCase();
+					if(newIdentifiers.add(lowercaseIdentifier)){
+						String word=getNewWord(current, newWords);
+						newWords.add(word);
+						newPairs.add(identifier);
+						newPairs.add(word);
+						logger.info("scrambling: "+lowercaseIdentifier+" -> "+word);
+					}
+				}
+				i=end;
+			}else{
+				i++;
 			}
-			descrambled.append(descrambledIdentifier);
 		}
-		descrambled.append(s.substring(lastpos, s.length()));
-		return descrambled.toString();
+		if(!newPairs.isEmpty()){
+			current=new Mapping(current, newPairs);
+			mapping=current;
+		}
+		return current;
 	}
-	
-	private String getNewWord() {
+
+	private String getNewWord(Mapping current, Set<String> newWords) {
 		String word;
 		if(wordlist.size()>0){
+			// swap the chosen word with the last one, so that removing it is cheap
 			int i=random.nextInt(wordlist.size());
-			word=wordlist.remove(i);
+			word=wordlist.get(i);
+			wordlist.set(i, wordlist.get(wordlist.size()-1));
+			wordlist.remove(wordlist.size()-1);
 		}else{
-			word=generateWord();
+			word=generateWord(current, newWords);
 			if(firstTimeEmptyWordlist){
 				logger.warning("in GameScrambler: wordlist is empty - using generic identifiers");
 				firstTimeEmptyWordlist=false;
@@ -153,16 +233,118 @@ public class GameScrambler implements GameScramblerInterface {
 		return word;
 	}
 
-	private String generateWord() {
+	private String generateWord(Mapping current, Set<String> newWords) {
 		int i=1;
 		String word;
 		do{
 			word="ident"+i;
 			++i;
-		}while(descrambling.containsKey(word));
+		}while(current.findBackward(word, 0, word.length())>=0 || newWords.contains(word));
 		return word;
 	}
 
+	/**
+	 * An immutable mapping between identifiers and their scrambled forms with two open addressing hash tables (one per
+	 * direction) that are searched with a region of the text, so no substring has to be created for a lookup.
+	 */
+	private static final class Mapping {
+
+		private final String[] identifiers; // in the spelling of their first occurrence
+		private final String[] scrambled;
+		private final int[] forwardTable; // index+1 of the identifier, 0 for an empty slot
+		private final int[] backwardTable; // index+1 of the scrambled form, 0 for an empty slot
+
+		public Mapping() {
+			identifiers=new String[0];
+			scrambled=new String[0];
+			forwardTable=new int[1];
+			backwardTable=new int[1];
+		}
+
+		/**
+		 * @param newPairs identifier, scrambled form, identifier, scrambled form, ...
+		 */
+		public Mapping(Mapping mapping, List<String> newPairs) {
+			int oldSize=mapping.identifiers.length;
+			int size=oldSize+newPairs.size()/2;
+			identifiers=new String[size];
+			scrambled=new String[size];
+			System.arraycopy(mapping.identifiers, 0, identifiers, 0, oldSize);
+			System.arraycopy(mapping.scrambled, 0, scrambled, 0, oldSize);
+			for(int i=0; i<newPairs.size(); i+=2){
+				identifiers[oldSize+i/2]=newPairs.get(i);
+				scrambled[oldSize+i/2]=newPairs.get(i+1);
+			}
+			int capacity=Integer.highestOneBit(Math.max(4, size*2)-1)<<1; // load factor <= 0.5
+			forwardTable=new int[capacity];
+			backwardTable=new int[capacity];
+			for(int i=0; i<size; i++){
+				insert(forwardTable, identifiers[i], i);
+				insert(backwardTable, scrambled[i], i);
+			}
+		}
+
+		private static void insert(int[] table, String key, int index) {
+			int mask=table.length-1;
+			int slot=hash(key, 0, key.length())&mask;
+			while(table[slot]!=0){
+				slot=(slot+1)&mask;
+			}
+			table[slot]=index+1;
+		}
+
+		public int findForward(String s, int start, int end) {
+			return find(forwardTable, identifiers, s, start, end);
+		}
+
+		public int findBackward(String s, int start, int end) {
+			return find(backwardTable, scrambled, s, start, end);
+		}
+
+		private static int find(int[] table, String[] keys, String s, int start, int end) {
+			int mask=table.length-1;
+			int slot=hash(s, start, end)&mask;
+			int entry;
+			while((entry=table[slot])!=0){
+				String key=keys[entry-1];
+				if(key.length()==end-start && equalsIgnoreCase(key, s, start)){
+					return entry-1;
+				}
+				slot=(slot+1)&mask;
+			}
+			return -1;
+		}
+
+		/**
+		 * @return true if key equals s[start..start+key.length()) ignoring the case of ASCII letters
+		 */
+		private static boolean equalsIgnoreCase(String key, String s, int start) {
+			for(int i=0; i<key.length(); i++){
+				char c1=key.charAt(i);
+				char c2=s.charAt(start+i);
+				if(c1!=c2 && toLowerCase(c1)!=toLowerCase(c2)){
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private static char toLowerCase(char c) {
+			return (c>='A' && c<='Z') ? (char)(c+('a'-'A')) : c;
+		}
+
+		/**
+		 * a case-insensitive hash of s[start..end)
+		 */
+		private static int hash(String s, int start, int end) {
+			int h=0;
+			for(int i=start; i<end; i++){
+				h=31*h+toLowerCase(s.charAt(i));
+			}
+			return h^(h>>>16);
+		}
+	}
+
 	private static Set<String> wordlistFromFile(File wordlistfile) {
 		try {
 			return wordlistFromReader(new FileReader(wordlistfile));
@@ -0,0 +1,106 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package tud.gamecontroller.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import tud.gamecontroller.GDLVersion;
+import tud.gamecontroller.ReasonerFactoryInterface;
+import tud.gamecontroller.game.impl.Game;
+import tud.gamecontroller.term.TermInterface;
+
+/**
+ * The games of a long-lived controller service, shared by all matches of the same game.
+ * 
+ * A Game is not changed by the matches played with it (every match gets its own reasoner from
+ * {@link Game#getInitialState()}), so one instance can be used by any number of concurrent matches. A game is
+ * identified by the canonical path, size and modification time of its file together with the GDL version, style
+ * sheet and sight file, so an edited game file is loaded again. Concurrent requests for a game that is not loaded yet
+ * wait for the same load.
+ */
+public class GameCache<TermType extends TermInterface, ReasonerStateInfoType> {
+
+	private final ReasonerFactoryInterface<TermType, ReasonerStateInfoType> reasonerFactory;
+	private final ConcurrentMap<String, FutureTask<Game<TermType, ReasonerStateInfoType>>> games =
+			new ConcurrentHashMap<String, FutureTask<Game<TermType, ReasonerStateInfoType>>>();
+
+	public GameCache(ReasonerFactoryInterface<TermType, ReasonerStateInfoType> reasonerFactory) {
+		this.reasonerFactory = reasonerFactory;
+	}
+
+	/**
+	 * @param sightFile the path of the sight file or null
+	 * @return the game loaded from the file
+	 */
+	public Game<TermType, ReasonerStateInfoType> getGame(final File gameFile, final GDLVersion gdlVersion, final String stylesheet,
+			final String sightFile) throws IOException {
+		File canonicalFile = gameFile.getCanonicalFile();
+		String key = canonicalFile.getPath() + "|" + canonicalFile.length() + "|" + canonicalFile.lastModified() + "|" + gdlVersion
+				+ "|" + stylesheet + "|" + sightFile;
+		FutureTask<Game<TermType, ReasonerStateInfoType>> task = games.get(key);
+		if (task == null) {
+			FutureTask<Game<TermType, ReasonerStateInfoType>> newTask = new FutureTask<Game<TermType, ReasonerStateInfoType>>(
+					new Callable<Game<TermType, ReasonerStateInfoType>>() {
+						public Game<TermType, ReasonerStateInfoType> call() throws IOException {
+							if (sightFile != null) {
+								return new Game<TermType, ReasonerStateInfoType>(gameFile, reasonerFactory, gdlVersion, stylesheet, new File(sightFile));
+							}
+							return new Game<TermType, ReasonerStateInfoType>(gameFile, reasonerFactory, gdlVersion, stylesheet);
+						}
+					});
+			task = games.putIfAbsent(key, newTask);
+			if (task == null) {
+				task = newTask;
+				task.run();
+			}
+		}
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("interrupted while loading " + gameFile, e);
+		} catch (ExecutionException e) {
+			// don't keep the failure, the file may be fixed before the next match
+			games.remove(key, task);
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException("error loading " + gameFile + ": " + e.getCause(), e.getCause());
+		}
+	}
+
+	/**
+	 * @return the number of games in the cache
+	 */
+	public int size() {
+		return games.size();
+	}
+
+	public void clear() {
+		games.clear();
+	}
+
+}
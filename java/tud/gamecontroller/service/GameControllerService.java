@@ -0,0 +1,608 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package tud.gamecontroller.service;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.logging.StreamHandler;
+
+import tud.gamecontroller.GameController;
+import tud.gamecontroller.ReasonerFactoryInterface;
+import tud.gamecontroller.game.RoleInterface;
+import tud.gamecontroller.logging.AsyncStreamHandler;
+import tud.gamecontroller.logging.PlainTextLogFormatter;
+import tud.gamecontroller.term.TermInterface;
+
+/**
+ * A long-lived game controller that runs many matches concurrently.
+ * 
+ * Matches are given by the same arguments as on the command line of the game controller (MATCHID GAMEFILE STARTCLOCK
+ * PLAYCLOCK GDLVERSION [options] {players}) and are submitted
+ * <ul>
+ * <li>as files named *.match in a spool directory (one match per file), which are renamed to *.running while the
+ * match runs and to *.done or *.failed afterwards, or</li>
+ * <li>as lines on a socket on the loopback interface, which are answered with "QUEUED matchID" or "ERROR message" (the
+ * line "STATUS" is answered with the status of the service).</li>
+ * </ul>
+ * At most parallelism matches run at the same time; the others wait in a queue (matches in the spool directory are only
+ * taken when a match slot is free). All matches of the same game share one Game from the GameCache. Every match writes
+ * its log to logDir/MATCHID.log and its result to resultDir/MATCHID.csv.
+ */
+public class GameControllerService<TermType extends TermInterface, ReasonerStateInfoType> {
+
+	public static final String SPOOL_SUFFIX = ".match";
+	public static final String RUNNING_SUFFIX = ".running";
+	public static final String DONE_SUFFIX = ".done";
+	public static final String FAILED_SUFFIX = ".failed";
+
+	private static final long SPOOL_POLL_INTERVAL = 1000; // in milliseconds
+
+	private final ReasonerFactoryInterface<TermType, ReasonerStateInfoType> reasonerFactory;
+	private final GameCache<TermType, ReasonerStateInfoType> gameCache;
+	private final int parallelism;
+	private final File logDir;
+	private final File resultDir;
+	private final Logger logger = Logger.getLogger(GameControllerService.class.getName());
+
+	private final ExecutorService matchPool;
+	private final Set<String> activeMatchIDs = Collections.synchronizedSet(new HashSet<String>());
+	private final AtomicInteger numPending = new AtomicInteger(); // queued or running
+	private final AtomicInteger numFinished = new AtomicInteger();
+	private final AtomicInteger numFailed = new AtomicInteger();
+	private final long startTime = System.nanoTime();
+	private final List<Thread> sourceThreads = new ArrayList<Thread>();
+	private volatile boolean running = true;
+
+	/**
+	 * @param gameCache the games, may be shared by several services
+	 * @param parallelism the maximal number of matches running at the same time
+	 * @param logDir the directory for the logs of the matches
+	 * @param resultDir the directory for the results of the matches
+	 */
+	public GameControllerService(ReasonerFactoryInterface<TermType, ReasonerStateInfoType> reasonerFactory,
+			GameCache<TermType, ReasonerStateInfoType> gameCache, int parallelism, File logDir, File resultDir) {
+		this.reasonerFactory = reasonerFactory;
+		this.gameCache = gameCache;
+		this.parallelism = parallelism;
+		this.logDir = logDir;
+		this.resultDir = resultDir;
+		logDir.mkdirs();
+		resultDir.mkdirs();
+		matchPool = Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+			private int count = 0;
+			public synchronized Thread newThread(Runnable runnable) {
+				return new Thread(runnable, "match-" + (count++));
+			}
+		});
+	}
+
+	/**
+	 * routes the log of the game controller and the players to the logs of the matches (records that belong to no
+	 * match are written to System.out)
+	 */
+	public static void setupLogging() {
+		Logger gameControllerLogger = Logger.getLogger(GameController.class.getName());
+		gameControllerLogger.setUseParentHandlers(false);
+		for (Handler handler : gameControllerLogger.getHandlers()) {
+			if (handler instanceof MatchLogHandler) {
+				return;
+			}
+		}
+		gameControllerLogger.addHandler(new MatchLogHandler(new AsyncStreamHandler(System.out, new PlainTextLogFormatter())));
+		gameControllerLogger.setLevel(Level.ALL);
+	}
+
+	/**
+	 * queues a match
+	 * 
+	 * @param args MATCHID GAMEFILE STARTCLOCK PLAYCLOCK GDLVERSION [options] {players}
+	 * @return the match id
+	 * @throws IllegalArgumentException if the arguments are invalid or a match with the same id is queued or running
+	 */
+	public String submit(String[] args) {
+		return submit(args, null);
+	}
+
+	/**
+	 * @param spoolFile the (already renamed) spool file of the match or null
+	 */
+	private String submit(String[] args, final File spoolFile) {
+		if (!running) {
+			throw new IllegalStateException("service is shut down");
+		}
+		final ServiceMatchRunner<TermType, ReasonerStateInfoType> runner =
+				new ServiceMatchRunner<TermType, ReasonerStateInfoType>(reasonerFactory, gameCache, args);
+		final String matchID = runner.getMatchID();
+		if (!activeMatchIDs.add(matchID)) {
+			throw new IllegalArgumentException("match " + matchID + " is already queued or running");
+		}
+		numPending.incrementAndGet();
+		matchPool.execute(new Runnable() {
+			public void run() {
+				boolean success = false;
+				try {
+					success = runMatch(runner);
+				} finally {
+					activeMatchIDs.remove(matchID);
+					numPending.decrementAndGet();
+					if (success) {
+						numFinished.incrementAndGet();
+					} else {
+						numFailed.incrementAndGet();
+					}
+					if (spoolFile != null) {
+						renameSpoolFile(spoolFile, success ? DONE_SUFFIX : FAILED_SUFFIX);
+					}
+				}
+			}
+		});
+		return matchID;
+	}
+
+	/**
+	 * @return true if the match finished
+	 */
+	private boolean runMatch(ServiceMatchRunner<TermType, ReasonerStateInfoType> runner) {
+		String matchID = runner.getMatchID();
+		StreamHandler logHandler = null;
+		long t0 = System.nanoTime();
+		String status = "failed";
+		try {
+			logHandler = new StreamHandler(new BufferedOutputStream(new FileOutputStream(new File(logDir, matchID + ".log"))),
+					new PlainTextLogFormatter());
+			logHandler.setLevel(Level.ALL);
+			MatchLogHandler.setMatchHandler(logHandler);
+			runner.run();
+			status = "finished";
+			return true;
+		} catch (InterruptedException e) {
+			status = "interrupted";
+			Thread.currentThread().interrupt();
+			return false;
+		} catch (Exception e) {
+			logger.log(Level.SEVERE, "match " + matchID + " failed", e);
+			return false;
+		} finally {
+			MatchLogHandler.setMatchHandler(null);
+			if (logHandler != null) {
+				logHandler.close();
+			}
+			writeResult(runner, status, (System.nanoTime() - t0) / 1000000);
+			runner.cleanup();
+		}
+	}
+
+	private void writeResult(ServiceMatchRunner<TermType, ReasonerStateInfoType> runner, String status, long duration) {
+		String matchID = runner.getMatchID();
+		PrintWriter out = null;
+		try {
+			out = new PrintWriter(new FileWriter(new File(resultDir, matchID + ".csv")));
+			out.println("match_id,game_name,status,duration_ms,role,goal_value");
+			String prefix = matchID + "," + runner.getGameName() + "," + status + "," + duration + ",";
+			Map<? extends RoleInterface<TermType>, Integer> goalValues = runner.getGoalValues();
+			if (goalValues == null) {
+				out.println(prefix + ",");
+			} else {
+				for (Map.Entry<? extends RoleInterface<TermType>, Integer> entry : goalValues.entrySet()) {
+					out.println(prefix + entry.getKey().getKIFForm() + "," + entry.getValue());
+				}
+			}
+		} catch (IOException e) {
+			logger.warning("could not write the result of match " + matchID + ": " + e.getMessage());
+		} finally {
+			if (out != null) {
+				out.close();
+			}
+		}
+	}
+
+	/**
+	 * starts a thread that takes the matches from the spool directory whenever a match slot is free
+	 */
+	public void watchSpoolDirectory(final File spoolDir) {
+		spoolDir.mkdirs();
+		startSourceThread(new Thread("spool-" + spoolDir.getName()) {
+			@Override
+			public void run() {
+				while (running) {
+					try {
+						takeSpoolFiles(spoolDir);
+						Thread.sleep(SPOOL_POLL_INTERVAL);
+					} catch (InterruptedException e) {
+						break;
+					}
+				}
+			}
+		});
+	}
+
+	private void takeSpoolFiles(File spoolDir) {
+		File[] files = spoolDir.listFiles();
+		if (files == null) {
+			return;
+		}
+		Arrays.sort(files); // oldest name first, e.g., for numbered match files
+		for (File file : files) {
+			if (numPending.get() >= parallelism || !running) {
+				return;
+			}
+			if (!file.getName().endsWith(SPOOL_SUFFIX)) {
+				continue;
+			}
+			// renaming is atomic, so the file is taken by only one service even if several services share the directory
+			File runningFile = renameSpoolFile(file, RUNNING_SUFFIX);
+			if (runningFile == null) {
+				continue;
+			}
+			try {
+				String[] args = readSpoolFile(runningFile);
+				String matchID = submit(args, runningFile);
+				logger.info("queued match " + matchID + " from " + file);
+			} catch (IOException e) {
+				logger.warning("could not read " + runningFile + ": " + e.getMessage());
+				renameSpoolFile(runningFile, FAILED_SUFFIX);
+			} catch (IllegalArgumentException e) {
+				logger.warning("invalid match in " + file + ": " + e.getMessage());
+				renameSpoolFile(runningFile, FAILED_SUFFIX);
+			}
+		}
+	}
+
+	private static String[] readSpoolFile(File file) throws IOException {
+		BufferedReader in = new BufferedReader(new FileReader(file));
+		try {
+			StringBuilder sb = new StringBuilder();
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (!line.trim().startsWith("#")) {
+					sb.append(line).append(' ');
+				}
+			}
+			return splitArguments(sb.toString());
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * @return the renamed file or null if the file could not be renamed (e.g., because another service took it)
+	 */
+	private static File renameSpoolFile(File file, String newSuffix) {
+		String name = file.getName();
+		int dot = name.lastIndexOf('.');
+		File newFile = new File(file.getParentFile(), (dot > 0 ? name.substring(0, dot) : name) + newSuffix);
+		return file.renameTo(newFile) ? newFile : null;
+	}
+
+	/**
+	 * starts a thread that accepts matches on a socket on the loopback interface
+	 * 
+	 * @return the port of the socket (useful if port is 0)
+	 */
+	public int listen(int port) throws IOException {
+		final ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+		startSourceThread(new Thread("listen-" + serverSocket.getLocalPort()) {
+			@Override
+			public void run() {
+				try {
+					while (running) {
+						Socket socket = serverSocket.accept();
+						try {
+							serveConnection(socket);
+						} catch (IOException e) {
+							logger.warning("error reading from " + socket + ": " + e.getMessage());
+						} finally {
+							socket.close();
+						}
+					}
+				} catch (SocketException e) {
+					// the socket was closed by shutdown()
+				} catch (IOException e) {
+					logger.severe("error accepting connections: " + e.getMessage());
+				}
+			}
+
+			@Override
+			public void interrupt() {
+				super.interrupt();
+				try {
+					serverSocket.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+		});
+		return serverSocket.getLocalPort();
+	}
+
+	private void serveConnection(Socket socket) throws IOException {
+		socket.setSoTimeout(30000);
+		BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+		PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+		String line;
+		while ((line = in.readLine()) != null) {
+			line = line.trim();
+			if (line.length() == 0 || line.startsWith("#")) {
+				continue;
+			}
+			if (line.equalsIgnoreCase("STATUS")) {
+				out.println(getStatus());
+				continue;
+			}
+			try {
+				out.println("QUEUED " + submit(splitArguments(line)));
+			} catch (RuntimeException e) {
+				out.println("ERROR " + e.getMessage());
+			}
+		}
+	}
+
+	private void startSourceThread(Thread thread) {
+		thread.setDaemon(true);
+		synchronized (sourceThreads) {
+			sourceThreads.add(thread);
+		}
+		thread.start();
+	}
+
+	static String[] splitArguments(String line) {
+		String trimmed = line.trim();
+		return trimmed.length() == 0 ? new String[0] : trimmed.split("\\s+");
+	}
+
+	/**
+	 * stops taking new matches and waits until all queued matches are finished
+	 */
+	public void shutdown() throws InterruptedException {
+		running = false;
+		synchronized (sourceThreads) {
+			for (Thread thread : sourceThreads) {
+				thread.interrupt();
+			}
+		}
+		matchPool.shutdown();
+		while (!matchPool.awaitTermination(1, TimeUnit.MINUTES)) {
+			logger.info(getStatus());
+		}
+	}
+
+	/**
+	 * @return the number of matches that are queued or running
+	 */
+	public int getNumPendingMatches() {
+		return numPending.get();
+	}
+
+	public int getNumFinishedMatches() {
+		return numFinished.get();
+	}
+
+	public int getNumFailedMatches() {
+		return numFailed.get();
+	}
+
+	/**
+	 * @return the number of matches finished per hour since the service started
+	 */
+	public double getMatchesPerHour() {
+		double hours = (System.nanoTime() - startTime) / 3.6e12;
+		return hours > 0 ? numFinished.get() / hours : 0;
+	}
+
+	public String getStatus() {
+		return String.format("parallelism %d: %d finished, %d failed, %d queued or running, %.1f matches/hour, %d games cached",
+				parallelism, numFinished.get(), numFailed.get(), numPending.get(), getMatchesPerHour(), gameCache.size());
+	}
+
+	private static void printUsage() {
+		System.out.println("usage:\n java ... GameControllerServiceRunner [-parallel N] [-logdir DIR] [-resultdir DIR] [-status SECONDS] { -spool DIR | -port PORT | -bench BATCHFILE LEVELS }");
+		System.out.println("  -spool DIR: run the matches in DIR/*" + SPOOL_SUFFIX + " (one match per file)");
+		System.out.println("  -port PORT: accept matches (one per line) on the loopback interface");
+		System.out.println("  -bench BATCHFILE LEVELS: run the matches in BATCHFILE (one per line) once for each parallelism in LEVELS (e.g., 1,2,4,8) and report the matches/hour");
+		System.out.println("  a match is given as: MATCHID GAMEFILE STARTCLOCK PLAYCLOCK GDLVERSION [options] {players} (as for gamecontroller.jar)");
+		System.out.println("example:\n java ... GameControllerServiceRunner -parallel 4 -spool spool");
+	}
+
+	/**
+	 * starts a service (or runs a benchmark) as given by the command line arguments
+	 */
+	public static <TermType extends TermInterface, ReasonerStateInfoType> void runFromCommandLine(
+			ReasonerFactoryInterface<TermType, ReasonerStateInfoType> reasonerFactory, String argv[]) {
+		int parallelism = Runtime.getRuntime().availableProcessors();
+		File logDir = new File("matches", "logs");
+		File resultDir = new File("matches", "results");
+		int statusInterval = 60;
+		File spoolDir = null;
+		int port = -1;
+		File batchFile = null;
+		int[] levels = null;
+		try {
+			int index = 0;
+			while (index < argv.length) {
+				String arg = argv[index++];
+				if (index >= argv.length) {
+					throw new IllegalArgumentException("missing arguments for " + arg);
+				}
+				if (arg.equals("-parallel")) {
+					parallelism = Integer.parseInt(argv[index++]);
+				} else if (arg.equals("-logdir")) {
+					logDir = new File(argv[index++]);
+				} else if (arg.equals("-resultdir")) {
+					resultDir = new File(argv[index++]);
+				} else if (arg.equals("-status")) {
+					statusInterval = Integer.parseInt(argv[index++]);
+				} else if (arg.equals("-spool")) {
+					spoolDir = new File(argv[index++]);
+				} else if (arg.equals("-port")) {
+					port = Integer.parseInt(argv[index++]);
+				} else if (arg.equals("-bench")) {
+					if (index + 1 >= argv.length) {
+						throw new IllegalArgumentException("missing arguments for " + arg);
+					}
+					batchFile = new File(argv[index++]);
+					String[] levelStrings = argv[index++].split(",");
+					levels = new int[levelStrings.length];
+					for (int i = 0; i < levels.length; i++) {
+						levels[i] = Integer.parseInt(levelStrings[i]);
+					}
+				} else {
+					throw new IllegalArgumentException("invalid argument: " + arg);
+				}
+			}
+			if (parallelism < 1) {
+				throw new IllegalArgumentException("parallelism must be at least 1");
+			}
+			if (spoolDir == null && port < 0 && batchFile == null) {
+				throw new IllegalArgumentException("one of -spool, -port or -bench is needed");
+			}
+		} catch (NumberFormatException e) {
+			System.err.println("argument is not an integer: " + e.getMessage());
+			printUsage();
+			System.exit(-1);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			printUsage();
+			System.exit(-1);
+		}
+
+		setupLogging();
+		try {
+			if (batchFile != null) {
+				benchmark(reasonerFactory, readBatch(batchFile), levels, logDir, resultDir);
+				return;
+			}
+			final GameControllerService<TermType, ReasonerStateInfoType> service = new GameControllerService<TermType, ReasonerStateInfoType>(
+					reasonerFactory, new GameCache<TermType, ReasonerStateInfoType>(reasonerFactory), parallelism, logDir, resultDir);
+			if (spoolDir != null) {
+				service.watchSpoolDirectory(spoolDir);
+				System.out.println("watching " + spoolDir.getAbsolutePath() + " for *" + SPOOL_SUFFIX + " files");
+			}
+			if (port >= 0) {
+				System.out.println("accepting matches on " + InetAddress.getLoopbackAddress().getHostAddress() + ":" + service.listen(port));
+			}
+			Runtime.getRuntime().addShutdownHook(new Thread() {
+				@Override
+				public void run() {
+					System.out.println(service.getStatus());
+				}
+			});
+			int lastNumDone = 0;
+			while (true) {
+				Thread.sleep(statusInterval * 1000L);
+				// only report while something happens
+				int numDone = service.getNumFinishedMatches() + service.getNumFailedMatches();
+				if (numDone != lastNumDone || service.getNumPendingMatches() > 0) {
+					System.out.println(service.getStatus());
+					lastNumDone = numDone;
+				}
+			}
+		} catch (IOException e) {
+			System.err.println(e.getMessage());
+			System.exit(-1);
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * reads the matches of a batch file (one match per line, lines starting with # are ignored)
+	 */
+	public static List<String[]> readBatch(File batchFile) throws IOException {
+		List<String[]> matches = new ArrayList<String[]>();
+		BufferedReader in = new BufferedReader(new FileReader(batchFile));
+		try {
+			String line;
+			while ((line = in.readLine()) != null) {
+				line = line.trim();
+				if (line.length() > 0 && !line.startsWith("#")) {
+					matches.add(splitArguments(line));
+				}
+			}
+		} finally {
+			in.close();
+		}
+		return matches;
+	}
+
+	/**
+	 * runs the matches of a batch once for every level of parallelism and reports the matches/hour of each level (the
+	 * match ids get the suffix _pLEVEL)
+	 * 
+	 * All levels share one GameCache, so only the first level loads the games; running the batch with the lowest level
+	 * first keeps the JIT warm-up out of the higher levels.
+	 */
+	public static <TermType extends TermInterface, ReasonerStateInfoType> void benchmark(
+			ReasonerFactoryInterface<TermType, ReasonerStateInfoType> reasonerFactory, List<String[]> batch, int[] levels,
+			File logDir, File resultDir) throws InterruptedException {
+		GameCache<TermType, ReasonerStateInfoType> gameCache = new GameCache<TermType, ReasonerStateInfoType>(reasonerFactory);
+		List<String> report = new ArrayList<String>();
+		for (int level : levels) {
+			GameControllerService<TermType, ReasonerStateInfoType> service = new GameControllerService<TermType, ReasonerStateInfoType>(
+					reasonerFactory, gameCache, level, logDir, resultDir);
+			long t0 = System.nanoTime();
+			for (String[] args : batch) {
+				String[] levelArgs = args.clone();
+				levelArgs[0] = args[0] + "_p" + level;
+				try {
+					service.submit(levelArgs);
+				} catch (IllegalArgumentException e) {
+					System.err.println("invalid match " + Arrays.toString(args) + ": " + e.getMessage());
+				}
+			}
+			service.shutdown();
+			double seconds = (System.nanoTime() - t0) / 1e9;
+			String line = String.format("parallelism %d: %d matches (%d failed) in %.1fs = %.1f matches/hour", level,
+					service.getNumFinishedMatches(), service.getNumFailedMatches(), seconds, service.getNumFinishedMatches() / seconds * 3600);
+			System.out.println(line);
+			report.add(line);
+		}
+		System.out.println("summary:");
+		for (String line : report) {
+			System.out.println(line);
+		}
+	}
+
+}
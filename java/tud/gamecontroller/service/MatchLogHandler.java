@@ -0,0 +1,79 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package tud.gamecontroller.service;
+
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+/**
+ * A log handler that writes the records of each match to the handler of that match, so that concurrent matches in
+ * one JVM get separate logs even though the game controller and the players all log to the same logger.
+ * 
+ * The match of a record is the match of the thread that logs it: {@link #setMatchHandler(Handler)} is called by the
+ * thread running the match, and the player threads the game controller starts for that match inherit its handler.
+ * Records of threads that belong to no match go to the default handler.
+ */
+public class MatchLogHandler extends Handler {
+
+	private static final InheritableThreadLocal<Handler> matchHandler = new InheritableThreadLocal<Handler>();
+
+	private final Handler defaultHandler;
+
+	/**
+	 * @param defaultHandler the handler for records that belong to no match
+	 */
+	public MatchLogHandler(Handler defaultHandler) {
+		this.defaultHandler = defaultHandler;
+	}
+
+	/**
+	 * sets the handler for the records of the current thread and all threads started by it from now on
+	 * 
+	 * @param handler the handler of the match run by the current thread or null if the thread does not run a match
+	 *        anymore
+	 */
+	public static void setMatchHandler(Handler handler) {
+		if (handler == null) {
+			matchHandler.remove();
+		} else {
+			matchHandler.set(handler);
+		}
+	}
+
+	@Override
+	public void publish(LogRecord record) {
+		Handler handler = matchHandler.get();
+		if (handler == null) {
+			handler = defaultHandler;
+		}
+		handler.publish(record);
+	}
+
+	@Override
+	public void flush() {
+		defaultHandler.flush();
+	}
+
+	@Override
+	public void close() throws SecurityException {
+		defaultHandler.close();
+	}
+
+}
@@ -0,0 +1,84 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package tud.gamecontroller.service;
+
+import java.io.IOException;
+import java.util.Map;
+
+import tud.gamecontroller.ReasonerFactoryInterface;
+import tud.gamecontroller.cli.AbstractGameControllerCLIRunner;
+import tud.gamecontroller.game.RoleInterface;
+import tud.gamecontroller.game.impl.Game;
+import tud.gamecontroller.term.TermInterface;
+
+/**
+ * One match of a GameControllerService. The match is given by the same arguments as on the command line of the
+ * game controller; the game is taken from the GameCache of the service instead of being loaded for every match.
+ */
+public class ServiceMatchRunner<TermType extends TermInterface, ReasonerStateInfoType>
+		extends AbstractGameControllerCLIRunner<TermType, ReasonerStateInfoType> {
+
+	private final GameCache<TermType, ReasonerStateInfoType> gameCache;
+
+	/**
+	 * @param args MATCHID GAMEFILE STARTCLOCK PLAYCLOCK GDLVERSION [options] {players}
+	 * @throws IllegalArgumentException if the arguments are invalid
+	 */
+	public ServiceMatchRunner(ReasonerFactoryInterface<TermType, ReasonerStateInfoType> reasonerFactory,
+			GameCache<TermType, ReasonerStateInfoType> gameCache, String[] args) {
+		super(reasonerFactory);
+		this.gameCache = gameCache;
+		parseCommandLine(args);
+	}
+
+	@Override
+	protected Game<TermType, ReasonerStateInfoType> getGame() {
+		try {
+			return gameCache.getGame(getGameFile(), getGdlVersion(), getStyleSheet(), getSightFile());
+		} catch (IOException e) {
+			throw new IllegalArgumentException("error loading game: " + e);
+		}
+	}
+
+	@Override
+	public String getMatchID() {
+		return super.getMatchID();
+	}
+
+	/**
+	 * @return the name of the game (the name of the game file up to the first dot, like {@link Game#getName()})
+	 */
+	public String getGameName() {
+		String fileName = getGameFile().getName();
+		int firstDot = fileName.indexOf(".");
+		return firstDot == -1 ? fileName : fileName.substring(0, firstDot);
+	}
+
+	/**
+	 * @return the goal values of the roles or null if the match did not finish
+	 */
+	public Map<? extends RoleInterface<TermType>, Integer> getGoalValues() {
+		if (getGameController() == null) {
+			return null;
+		}
+		return getGameController().getGoalValues();
+	}
+
+}
@@ -0,0 +1,175 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package tud.gamecontroller.game.jocular;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.junit.Test;
+
+import stanfordlogic.gdl.Parser;
+import stanfordlogic.prover.ProofContext;
+import tud.auxiliary.CrossProductMap;
+import tud.gamecontroller.game.FluentInterface;
+import tud.gamecontroller.game.JointMoveInterface;
+import tud.gamecontroller.game.MoveInterface;
+import tud.gamecontroller.game.ReasonerInterface;
+import tud.gamecontroller.game.RoleInterface;
+import tud.gamecontroller.game.impl.JointMove;
+import cs227b.teamIago.util.GameState;
+
+public class ReasonerTest {
+
+	private static final String TICTACTOE =
+		"(role xplayer) (role oplayer) " +
+		"(init (cell 1 1 b)) (init (cell 1 2 b)) (init (cell 1 3 b)) " +
+		"(init (cell 2 1 b)) (init (cell 2 2 b)) (init (cell 2 3 b)) " +
+		"(init (cell 3 1 b)) (init (cell 3 2 b)) (init (cell 3 3 b)) " +
+		"(init (control xplayer)) " +
+		"(<= (next (cell ?m ?n x)) (does xplayer (mark ?m ?n)) (true (cell ?m ?n b))) " +
+		"(<= (next (cell ?m ?n o)) (does oplayer (mark ?m ?n)) (true (cell ?m ?n b))) " +
+		"(<= (next (cell ?m ?n ?w)) (true (cell ?m ?n ?w)) (distinct ?w b)) " +
+		"(<= (next (cell ?m ?n b)) (does ?w (mark ?j ?k)) (true (cell ?m ?n b)) (distinct ?m ?j)) " +
+		"(<= (next (cell ?m ?n b)) (does ?w (mark ?j ?k)) (true (cell ?m ?n b)) (distinct ?n ?k)) " +
+		"(<= (next (control xplayer)) (true (control oplayer))) " +
+		"(<= (next (control oplayer)) (true (control xplayer))) " +
+		"(<= (row ?m ?x) (true (cell ?m 1 ?x)) (true (cell ?m 2 ?x)) (true (cell ?m 3 ?x))) " +
+		"(<= (column ?n ?x) (true (cell 1 ?n ?x)) (true (cell 2 ?n ?x)) (true (cell 3 ?n ?x))) " +
+		"(<= (diagonal ?x) (true (cell 1 1 ?x)) (true (cell 2 2 ?x)) (true (cell 3 3 ?x))) " +
+		"(<= (diagonal ?x) (true (cell 1 3 ?x)) (true (cell 2 2 ?x)) (true (cell 3 1 ?x))) " +
+		"(<= (line ?x) (row ?m ?x)) (<= (line ?x) (column ?m ?x)) (<= (line ?x) (diagonal ?x)) " +
+		"(<= open (true (cell ?m ?n b))) " +
+		"(<= (legal ?w (mark ?x ?y)) (true (cell ?x ?y b)) (true (control ?w))) " +
+		"(<= (legal xplayer noop) (true (control oplayer))) " +
+		"(<= (legal oplayer noop) (true (control xplayer))) " +
+		"(<= (goal xplayer 100) (line x)) " +
+		"(<= (goal xplayer 50) (not (line x)) (not (line o)) (not open)) " +
+		"(<= (goal xplayer 0) (line o)) " +
+		"(<= (goal xplayer 0) (not (line x)) (not (line o)) open) " +
+		"(<= (goal oplayer 100) (line o)) " +
+		"(<= (goal oplayer 50) (not (line x)) (not (line o)) (not open)) " +
+		"(<= (goal oplayer 0) (line x)) " +
+		"(<= (goal oplayer 0) (not (line x)) (not (line o)) open) " +
+		"(<= terminal (line x)) (<= terminal (line o)) (<= terminal (not open))";
+
+	/**
+	 * branches the initial state and each of its successors over all their joint moves, compares every successor with
+	 * the one computed by javaprover and checks that the branched states are unchanged afterwards
+	 */
+	@Test
+	public void testBranchingMatchesJavaProver() {
+		Reasoner jocular = new Reasoner(TICTACTOE, new Parser());
+		ReasonerInterface<tud.gamecontroller.game.javaprover.Term, GameState> javaProver =
+			new tud.gamecontroller.game.javaprover.ReasonerFactory().createReasoner(TICTACTOE, "tictactoe");
+
+		ProofContext jocularState = jocular.getInitialState();
+		GameState javaProverState = javaProver.getInitialState();
+		int successors = 0;
+		for (JointMoveInterface<Term> jointMove : getJointMoves(jocular, jocularState)) {
+			ProofContext jocularSuccessor = jocular.getSuccessorState(jocularState, jointMove);
+			GameState javaProverSuccessor = javaProver.getSuccessorState(javaProverState, toJavaProver(javaProver, javaProverState, jointMove));
+			assertEquals(getFluents(javaProver, javaProverSuccessor), getFluents(jocular, jocularSuccessor));
+			for (JointMoveInterface<Term> nextJointMove : getJointMoves(jocular, jocularSuccessor)) {
+				assertEquals(
+					getFluents(javaProver, javaProver.getSuccessorState(javaProverSuccessor, toJavaProver(javaProver, javaProverSuccessor, nextJointMove))),
+					getFluents(jocular, jocular.getSuccessorState(jocularSuccessor, nextJointMove)));
+				successors++;
+			}
+			// the successor must not keep the moves it was branched over
+			assertEquals(getFluents(javaProver, javaProverSuccessor), getFluents(jocular, jocularSuccessor));
+			assertEquals(getLegalMoves(javaProver, javaProverSuccessor), getLegalMoves(jocular, jocularSuccessor));
+		}
+		assertEquals(9 * 8, successors);
+		assertEquals(getFluents(javaProver, javaProverState), getFluents(jocular, jocularState));
+		assertEquals(getLegalMoves(javaProver, javaProverState), getLegalMoves(jocular, jocularState));
+	}
+
+	/**
+	 * all joint moves of the roles in the state
+	 */
+	private static Collection<JointMoveInterface<Term>> getJointMoves(Reasoner reasoner, ProofContext state) {
+		List<? extends RoleInterface<Term>> roles = reasoner.getRoles();
+		CrossProductMap<RoleInterface<Term>, MoveInterface<Term>> crossProduct =
+			new CrossProductMap<RoleInterface<Term>, MoveInterface<Term>>(reasoner.getAllLegalMoves(state, roles));
+		Collection<JointMoveInterface<Term>> jointMoves = new ArrayList<JointMoveInterface<Term>>();
+		for (Map<RoleInterface<Term>, MoveInterface<Term>> moves : crossProduct) {
+			JointMove<Term> jointMove = new JointMove<Term>(roles);
+			jointMove.putAll(moves);
+			jointMoves.add(jointMove);
+		}
+		return jointMoves;
+	}
+
+	/**
+	 * the joint move of javaprover's roles and legal moves that has the same KIF form as the given one
+	 */
+	private static JointMoveInterface<tud.gamecontroller.game.javaprover.Term> toJavaProver(
+			ReasonerInterface<tud.gamecontroller.game.javaprover.Term, GameState> javaProver, GameState state, JointMoveInterface<Term> jointMove) {
+		List<? extends RoleInterface<tud.gamecontroller.game.javaprover.Term>> roles = javaProver.getRoles();
+		JointMove<tud.gamecontroller.game.javaprover.Term> result = new JointMove<tud.gamecontroller.game.javaprover.Term>(roles);
+		for (RoleInterface<tud.gamecontroller.game.javaprover.Term> role : roles) {
+			for (Entry<? extends RoleInterface<Term>, ? extends MoveInterface<Term>> entry : jointMove.entrySet()) {
+				if (normalize(role.getKIFForm()).equals(normalize(entry.getKey().getKIFForm()))) {
+					for (MoveInterface<tud.gamecontroller.game.javaprover.Term> move : javaProver.getLegalMoves(state, role)) {
+						if (normalize(move.getKIFForm()).equals(normalize(entry.getValue().getKIFForm()))) {
+							result.put(role, move);
+						}
+					}
+				}
+			}
+		}
+		assertEquals(jointMove.size(), result.size());
+		return result;
+	}
+
+	private static <TermType, StateType> Set<String> getFluents(ReasonerInterface<TermType, StateType> reasoner, StateType state) {
+		Set<String> fluents = new HashSet<String>();
+		for (FluentInterface<TermType> fluent : reasoner.getFluents(state)) {
+			fluents.add(normalize(fluent.getKIFForm()));
+		}
+		return fluents;
+	}
+
+	private static <TermType, StateType> Set<String> getLegalMoves(ReasonerInterface<TermType, StateType> reasoner, StateType state) {
+		Set<String> legalMoves = new HashSet<String>();
+		for (RoleInterface<TermType> role : reasoner.getRoles()) {
+			for (MoveInterface<TermType> move : reasoner.getLegalMoves(state, role)) {
+				legalMoves.add(normalize(role.getKIFForm()) + " " + normalize(move.getKIFForm()));
+			}
+		}
+		return legalMoves;
+	}
+
+	/**
+	 * the two reasoners differ in the case and spacing of the KIF forms of their terms
+	 */
+	private static String normalize(String kif) {
+		return kif.toLowerCase().replaceAll("\\s+", " ").replaceAll("\\( ", "(").replaceAll(" \\)", ")").trim();
+	}
+
+}
@@ -0,0 +1,168 @@
+/*
+    Copyright (C) 2020 Michael Dorrell <michael.dorrell97@gmail.com>
+
+    This file is part of GameController.
+
+    GameController is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    GameController is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with GameController.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package tud.gamecontroller.players;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Stack;
+
+import org.junit.Test;
+
+import tud.gamecontroller.auxiliary.IntHashSet;
+import tud.gamecontroller.auxiliary.IntObjectHashMap;
+
+public class ActionPathIdsTest {
+
+	/**
+	 * "Aa" and "BB" have the same hash code, so the paths [null, "Aa"] and [null, "BB"] collide when keyed by the hash
+	 * code of the path, as the trackers of the hyperplay agents used to be
+	 */
+	@Test
+	public void testCollidingPathsGetDifferentIds() {
+		Stack<String> path1 = new Stack<String>();
+		path1.push(null);
+		path1.push("Aa");
+		Stack<String> path2 = new Stack<String>();
+		path2.push(null);
+		path2.push("BB");
+		assertEquals(path1.hashCode(), path2.hashCode());
+
+		ActionPathIds ids = new ActionPathIds();
+		int root = ids.getChildId(ActionPathIds.EMPTY_PATH, null);
+		int id1 = ids.getChildId(root, "Aa");
+		int id2 = ids.getChildId(root, "BB");
+		assertFalse(id1 == id2);
+
+		// a bad move recorded for one path must not show up for the other one
+		IntObjectHashMap<Collection<String>> badMovesTracker = new IntObjectHashMap<Collection<String>>();
+		Collection<String> badMoves = new HashSet<String>();
+		badMoves.add("(mark 1 1)");
+		badMovesTracker.put(id1, badMoves);
+		assertTrue(badMovesTracker.containsKey(id1));
+		assertNull(badMovesTracker.get(id2));
+	}
+
+	/**
+	 * the ids of longer paths must not collide either, even if their joint moves collide at every step
+	 */
+	@Test
+	public void testCollidingLongerPaths() {
+		ActionPathIds ids = new ActionPathIds();
+		int root = ids.getChildId(ActionPathIds.EMPTY_PATH, null);
+		int id1 = ids.getChildId(ids.getChildId(root, "Aa"), "BB");
+		int id2 = ids.getChildId(ids.getChildId(root, "BB"), "Aa");
+		int id3 = ids.getChildId(ids.getChildId(root, "AaAa"), "BBBB");
+		assertFalse(id1 == id2);
+		assertFalse(id1 == id3);
+		assertFalse(id2 == id3);
+	}
+
+	@Test
+	public void testEqualPathsGetTheSameId() {
+		ActionPathIds ids = new ActionPathIds();
+		int root = ids.getChildId(ActionPathIds.EMPTY_PATH, null);
+		int id = ids.getChildId(ids.getChildId(root, "a"), "b");
+		assertEquals(root, ids.getChildId(ActionPathIds.EMPTY_PATH, null));
+		assertEquals(id, ids.getChildId(ids.getChildId(root, new String("a")), new String("b")));
+		assertEquals(3, ids.size());
+	}
+
+	@Test
+	public void testParentIds() {
+		ActionPathIds ids = new ActionPathIds();
+		int root = ids.getChildId(ActionPathIds.EMPTY_PATH, null);
+		int child = ids.getChildId(root, "a");
+		assertEquals(root, ids.getParentId(child));
+		assertEquals(ActionPathIds.EMPTY_PATH, ids.getParentId(root));
+		assertEquals(ActionPathIds.EMPTY_PATH, ids.getParentId(ActionPathIds.EMPTY_PATH));
+	}
+
+	@Test
+	public void testIdsAreDense() {
+		ActionPathIds ids = new ActionPathIds();
+		int parent = ids.getChildId(ActionPathIds.EMPTY_PATH, null);
+		for (int i = 0; i < 10000; i++) {
+			int id = ids.getChildId(parent, Integer.valueOf(i % 7));
+			assertEquals(i + 2, id);
+			assertEquals(parent, ids.getParentId(id));
+			parent = id;
+		}
+		assertEquals(10001, ids.size());
+	}
+
+	@Test
+	public void testFindChildIdDoesNotAddPaths() {
+		ActionPathIds ids = new ActionPathIds();
+		int root = ids.getChildId(ActionPathIds.EMPTY_PATH, null);
+		int child = ids.getChildId(root, "a");
+		assertEquals(child, ids.findChildId(root, "a"));
+		assertEquals(0, ids.findChildId(root, "b"));
+		assertEquals(0, ids.findChildId(child, "a"));
+		assertEquals(2, ids.size());
+	}
+
+	@Test
+	public void testRemoveAllRemovesExtendingPaths() {
+		ActionPathIds ids = new ActionPathIds();
+		int root = ids.getChildId(ActionPathIds.EMPTY_PATH, null);
+		int kept = ids.getChildId(root, "a");
+		int removed = ids.getChildId(root, "b");
+		int below = ids.getChildId(removed, "c");
+		int last = ids.getChildId(below, "d");
+		IntHashSet toRemove = new IntHashSet();
+		toRemove.add(removed);
+		assertEquals(3, ids.removeAll(toRemove));
+		// the ids of the extending paths are added, so the caches keyed by ids can drop them too
+		assertTrue(toRemove.contains(below));
+		assertTrue(toRemove.contains(last));
+		assertFalse(toRemove.contains(kept));
+		assertEquals(2, ids.size());
+		assertEquals(kept, ids.findChildId(root, "a"));
+		assertEquals(0, ids.findChildId(root, "b"));
+		assertEquals(ActionPathIds.EMPTY_PATH, ids.getParentId(below));
+
+		// the ids are handed out again, but a new path never finds the paths that were removed
+		int again = ids.getChildId(root, "e");
+		assertEquals(0, ids.findChildId(again, "c"));
+		assertFalse(again == kept);
+		assertEquals(3, ids.size());
+	}
+
+	@Test
+	public void testRemoveAllKeepsMemoryBounded() {
+		ActionPathIds ids = new ActionPathIds();
+		int root = ids.getChildId(ActionPathIds.EMPTY_PATH, null);
+		for (int i = 0; i < 1000; i++) {
+			int id = ids.getChildId(root, Integer.valueOf(i));
+			ids.getChildId(id, Integer.valueOf(-i));
+			IntHashSet toRemove = new IntHashSet();
+			toRemove.add(id);
+			assertEquals(2, ids.removeAll(toRemove));
+			assertTrue(id <= 3);
+		}
+		assertEquals(1, ids.size());
+	}
+
+}